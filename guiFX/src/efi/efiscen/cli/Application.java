@@ -20,13 +20,24 @@ import efi.efiscen.database.DriverType;
 import efi.efiscen.db.DBException;
 import efi.efiscen.db.DatabaseExporter;
 import efi.efiscen.gm.GMEfiscen;
+import efi.efiscen.gm.GMKeyFilter;
 import efi.efiscen.gm.GMScenario;
 import efi.efiscen.gm.GMSimulation;
 import efi.efiscen.io.EFISCENException;
 import efi.efiscen.io.EFISCENFileNotFoundException;
 import efi.efiscen.io.FileSaver;
 import efi.efiscen.io.InputLoader;
+import efi.efiscen.gm.GMEnsemble;
+import efi.efiscen.gm.GMMonteCarlo;
+import efi.efiscen.gm.GMOutputStatistics;
+import efi.efiscen.gm.GMParDistribution;
+import java.io.File;
+import java.io.IOException;
 import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.sql.SQLException;
 import java.util.HashMap;
 import java.util.Map;
@@ -56,32 +67,63 @@ import java.util.concurrent.atomic.AtomicInteger;
  * which outputs to save.
  * <br>The Path must include the file name and the name must end with “.txt”.
  * <br>14. pid - Project id.
+ * <br>15. threads - Number of threads used to process the matrices of a step,
+ * 1 by default. With more than one thread the component files of the
+ * experiment are also loaded in parallel. Outputs do not depend on it.
+ * <br>16. scenarios - File path to a text file listing scenario files, one per
+ * line. Every scenario is run on its own copy of the experiment loaded once and
+ * its outputs are saved with the name of the scenario file added to the
+ * output file name. Replaces parameter 6, outputs are saved only as files.
+ * <br>17. members - Number of scenarios of parameter 16 or Monte Carlo members
+ * of parameter 18 run at the same time, 1 by default.
+ * <br>18. uncertainty - File path to a text file defining a Monte Carlo run
+ * with perturbed parameters. The scenario of parameter 6 is run on every member
+ * and the statistics of the outputs by step are saved to the output file.
+ * Lines of the file: "runs N", "seed S", "percentiles 5 50 95",
+ * "outputs stock carbon soil thinnings fellings" and
+ * "&lt;parameter&gt; normal|uniform|lognormal &lt;spread&gt;" for the parameters
+ * grcoeff, beta, mortrate, deadwooddrate and soilrates. Lines starting
+ * with # are comments.
+ * <br>19. cache - 1 to keep a compiled image of the experiment next to the
+ * experiment file (extension .efc) and load the experiment from it while the
+ * input files of the experiment are unchanged, 0 by default.
+ * <br>20. filter - Matrices to load as patterns region:owner:site:species
+ * separated by commas, 0 standing for any, e.g. 1:0:0:2,3:0:0:0. Other
+ * matrices and the soils and parameters not applying to the loaded matrices
+ * are skipped when loading the experiment. All matrices by default.
  * <p>
- * When running EFISCEN and using database, parameters 6, 7, 13 are optional.
+ * When running EFISCEN and using database, parameters 6, 7, 13, 15, 19, 20 are optional.
  * <br>When running EFISCEN and saving outputs as files, parameters 1-5 and 7
- * <br>are required and 6, 13 are optional.
+ * <br>are required and 6, 13, 15-20 are optional.
  *
  *
  */
 public class Application {
 
     private Map<String, String> arguments;
-    private static String outputFilePath = null;
-    private static String databaseAddress = null;
-    private static String databaseName = null;
-    private static int port = 3306;
-    private static String experimentFilePath = null;
-    private static String databaseUsername = null;
-    private static String databasePassword = null;
-    private static int numberOfSteps = -1 ; //Number of steps to run the simulation.
-    private static int scenarioID=-1;
-    private static int projectID = 0; //project ID default value
-    private static int countryISO;
-    private static double felling = -1;
-    private static double thinning = -1;
-    private static double scaling = -1;
-    private static String selectedFilePath = null;
-    private static String scenarioFilePath = null;
+    private String outputFilePath = null;
+    private String databaseAddress = null;
+    private String databaseName = null;
+    private int port = 3306;
+    private String experimentFilePath = null;
+    private String databaseUsername = null;
+    private String databasePassword = null;
+    private int numberOfSteps = -1 ; //Number of steps to run the simulation.
+    private int scenarioID=-1;
+    private int projectID = 0; //project ID default value
+    private int countryISO;
+    private double felling = -1;
+    private double thinning = -1;
+    private double scaling = -1;
+    private int threads = 1; //Number of threads for the matrices of a step.
+    private String selectedFilePath = null;
+    private String scenarioFilePath = null;
+    private String scenariosFilePath = null;
+    private int members = 1; //Number of scenarios run at the same time.
+    private String uncertaintyFilePath = null;
+    private boolean experimentCache = false; //Keep a compiled image of the experiment.
+    private GMKeyFilter matrixFilter = null; //Matrices to load, null for all.
+    private int simulationID = -1; //ID of the outputs saved into the database.
     private boolean argumentsAreOkay;
     private String errorMessage;
     
@@ -121,21 +163,47 @@ public class Application {
      * saved into the file system or database depending on the arguments. Project ID is
      * set to 0 if is not provided.
      */
-    public static void runEfiscen() {
-        //load experiment and scenario
+    public void runEfiscen() {
         System.out.println("simulation started, details are in log files!");
         PrintStream stdout_save = System.out;
         PrintStream stderr_save = System.err;
         CLIVerboseLogger cc = new CLIVerboseLogger();
         cc.start(); //start logger
+        runJob(null);
+        System.out.println("END");  //signal logger to end listening
+        cc.stopLogging();
+        System.setErr(stderr_save);
+        System.setOut(stdout_save);
+        System.out.println("end logging");
+        if(simulationID != -1){
+            System.out.println("Simulation ID " + simulationID);
+        }
+        //cc.stopLogging();
+        
+        return;
+    }
+
+    /**
+     * Loads the experiment, runs the simulation and saves the outputs,
+     * printing the messages to System.out and System.err.
+     * @param logId id the logs of the experiment are named by, null for the
+     * default
+     * @return false if the experiment or the scenario could not be loaded
+     */
+    boolean runJob(String logId) {
+        //load experiment and scenario
         GMEfiscen m_pExperiment = null;
         GMScenario m_pScenario = null;
         AtomicInteger numErrors = new AtomicInteger(0);
         GMSimulation sim;
         InputLoader loader = new InputLoader();
         loader.setM_scaleAreas((float) scaling);
+        loader.setLogId(logId);
+        loader.setParallelLoad(threads > 1);
+        loader.setExperimentCache(experimentCache);
+        loader.setMappedData(true);
+        loader.setMatrixFilter(matrixFilter);
         DatabaseExporter saver = null;
-        int simulationID = -1;
         Map<String,String> filenames = new HashMap<>();
         try {
             numErrors.set(0);
@@ -146,12 +214,12 @@ public class Application {
             }
         } catch (EFISCENFileNotFoundException ex) {
             System.err.println(ex.toString());
-            return;
+            return false;
         } catch (EFISCENException ex) {
             System.err.println(ex.toString());
         }
         if (m_pExperiment == null) {
-            return;
+            return false;
         }
         if (scenarioFilePath != null) {
             try {
@@ -163,9 +231,10 @@ public class Application {
                 }
             } catch (EFISCENFileNotFoundException ex) {
                 System.err.println(ex.toString());
-                return;
+                return false;
             } catch (Exception ex) {
                 System.err.println("Scenario load failed");
+                return false;
             }
         } else {
             m_pScenario = new GMScenario();
@@ -173,12 +242,24 @@ public class Application {
         String path = loader.getPath();
         m_pExperiment.m_FelInt = (float)felling;
         m_pExperiment.m_ThinInt = (float)thinning;
-        sim = new GMSimulation(m_pExperiment, m_pScenario, 0);
-        for (int i = 0; i < numberOfSteps; i++) {
-            sim.onGo();
+        m_pExperiment.setParallelism(threads);
+        try {
+            if (scenariosFilePath != null) {
+                runEnsemble(loader, m_pExperiment);
+            } else if (uncertaintyFilePath != null) {
+                runUncertainty(m_pExperiment, m_pScenario);
+            } else {
+                sim = new GMSimulation(m_pExperiment, m_pScenario, 0);
+                for (int i = 0; i < numberOfSteps; i++) {
+                    sim.onGo();
+                }
+                System.out.println("simulation done!");
+                m_pExperiment = sim.getM_pExperiment();
+            }
+        } finally {
+            // Threads of the matrix phases are not needed any more
+            m_pExperiment.close();
         }
-        System.out.println("simulation done!");
-        m_pExperiment = sim.getM_pExperiment();
         
         //save to database
         if(databaseAddress!=null){
@@ -223,7 +304,7 @@ public class Application {
             }
         }
         //save to files
-        if (outputFilePath != null) {
+        if (outputFilePath != null && scenariosFilePath == null && uncertaintyFilePath == null) {
             FileSaver fsaver = new FileSaver(m_pExperiment);
             int i = outputFilePath.indexOf(".");
             String ext = "";
@@ -239,20 +320,164 @@ public class Application {
                 fsaver.saveSelected(outputFilePath, selectedFilePath);
             }
         }
-        
-        System.out.println("END");  //signal logger to end listening
-        cc.stopLogging();
-        System.setErr(stderr_save);
-        System.setOut(stdout_save);
-        System.out.println("end logging");
-        if(simulationID != -1){
-            System.out.println("Simulation ID " + simulationID);
+        return true;
+    }
+
+    /**
+     * Runs the scenarios listed in the scenarios file on copies of the
+     * loaded experiment and saves the outputs of each to files.
+     * @param loader loader of the experiment
+     * @param m_pExperiment loaded experiment
+     */
+    private void runEnsemble(InputLoader loader, GMEfiscen m_pExperiment) {
+        ArrayList<String> scenarioFiles = new ArrayList<>();
+        ArrayList<String> scenarioNames = new ArrayList<>();
+        File listFile = new File(scenariosFilePath);
+        try {
+            for (String line : Files.readAllLines(listFile.toPath())) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#"))
+                    continue;
+                File f = new File(line);
+                if (!f.isAbsolute())
+                    f = new File(listFile.getAbsoluteFile().getParentFile(), line);
+                String name = f.getName();
+                if (name.lastIndexOf(".") > 0)
+                    name = name.substring(0, name.lastIndexOf("."));
+                scenarioFiles.add(f.getPath());
+                scenarioNames.add(name);
+            }
+        } catch (IOException ex) {
+            System.err.println("Scenarios file could not be read: " + ex);
+            return;
         }
-        //cc.stopLogging();
-        
-        return;
+        if (new HashSet<>(scenarioNames).size() != scenarioNames.size()) {
+            System.err.println("Names of the scenario files must differ");
+            return;
+        }
+        ArrayList<GMScenario> scenarios = new ArrayList<>();
+        AtomicInteger numErrors = new AtomicInteger(0);
+        for (String scenarioFile : scenarioFiles) {
+            try {
+                numErrors.set(0);
+                scenarios.add(loader.loadScenario(scenarioFile, numErrors, false));
+                if (numErrors.get() > 0) {
+                    System.out.println(numErrors.get() + " errors were detected"
+                            + " when loading scenario " + scenarioFile);
+                }
+            } catch (EFISCENFileNotFoundException ex) {
+                System.err.println(ex.toString());
+                return;
+            } catch (Exception ex) {
+                System.err.println("Scenario load failed " + scenarioFile);
+                return;
+            }
+        }
+        GMEnsemble ensemble = new GMEnsemble(m_pExperiment);
+        ensemble.setMembers(members);
+        String outputBase = outputFilePath;
+        String ext = "";
+        int i = outputFilePath.indexOf(".");
+        if (i != -1) {
+            ext = outputFilePath.substring(i, outputFilePath.length());
+            outputBase = outputFilePath.substring(0, i);
+        }
+        final String base = outputBase;
+        final String extension = ext;
+        int failed = ensemble.run(scenarios, numberOfSteps, (member, scenario, experiment) -> {
+            FileSaver fsaver = new FileSaver(experiment);
+            String output = base + "_" + scenarioNames.get(member);
+            if (selectedFilePath == null) {
+                if (!fsaver.saveAll(output, extension)) {
+                    System.err.println("Saving was unsuccesful! " + output);
+                }
+            } else {
+                fsaver.saveSelected(output, selectedFilePath);
+            }
+        });
+        System.out.println("ensemble done! " + (scenarios.size() - failed)
+                + " of " + scenarios.size() + " scenarios succeeded");
     }
     
+    /**
+     * Runs the Monte Carlo members defined in the uncertainty file and saves
+     * the statistics of the outputs to the output file.
+     * @param m_pExperiment loaded experiment
+     * @param m_pScenario scenario of the members
+     */
+    private void runUncertainty(GMEfiscen m_pExperiment, GMScenario m_pScenario) {
+        GMMonteCarlo montecarlo = new GMMonteCarlo(m_pExperiment, m_pScenario);
+        montecarlo.setMembers(members);
+        int runs = 100;
+        try {
+            int lineNumber = 0;
+            for (String line : Files.readAllLines(new File(uncertaintyFilePath).toPath())) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#"))
+                    continue;
+                String[] tokens = line.split("\\s+");
+                try {
+                    switch (tokens[0].toLowerCase()) {
+                        case "runs":
+                            runs = Integer.parseInt(tokens[1]);
+                            break;
+                        case "seed":
+                            montecarlo.setSeed(Long.parseLong(tokens[1]));
+                            break;
+                        case "percentiles":
+                            double[] percentiles = new double[tokens.length-1];
+                            for (int i=1;i<tokens.length;i++)
+                                percentiles[i-1] = Double.parseDouble(tokens[i])/100.0;
+                            montecarlo.setPercentiles(percentiles);
+                            break;
+                        case "outputs":
+                            String[] outputs = new String[tokens.length-1];
+                            for (int i=1;i<tokens.length;i++)
+                                outputs[i-1] = tokens[i].toLowerCase();
+                            montecarlo.setOutputs(outputs);
+                            break;
+                        default:
+                            if (tokens.length != 3)
+                                throw new IllegalArgumentException("Expected <parameter> <distribution> <spread>");
+                            montecarlo.setDistribution(tokens[0].toLowerCase(),
+                                    GMParDistribution.parse(tokens[1], Double.parseDouble(tokens[2])));
+                    }
+                } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException ex) {
+                    System.err.println("Uncertainty file line " + lineNumber + " is incorrect: " + ex.getMessage());
+                    return;
+                }
+            }
+        } catch (IOException ex) {
+            System.err.println("Uncertainty file could not be read: " + ex);
+            return;
+        }
+        GMOutputStatistics[] statistics = montecarlo.run(runs, numberOfSteps);
+        System.out.println("Monte Carlo done! " + runs + " members");
+        double[] percentiles = montecarlo.getPercentiles();
+        try (PrintWriter out = new PrintWriter(outputFilePath)) {
+            out.print("Year,Output,Count,Mean,Sd,Min");
+            for (double percentile : percentiles) {
+                double p = 100.0*percentile;
+                out.print(p == Math.rint(p) ? ",P" + (long)p : ",P" + p);
+            }
+            out.println(",Max");
+            for (GMOutputStatistics stat : statistics) {
+                for (int step=0;step<=numberOfSteps;step++) {
+                    out.printf("%d,%s,%d,%f,%f,%f",m_pExperiment.m_nBaseYear+step*m_pExperiment.m_nStep,
+                            stat.getName(),stat.getCount(step),stat.getMean(step),
+                            stat.getStdDev(step),stat.getMin(step));
+                    for (int i=0;i<percentiles.length;i++)
+                        out.printf(",%f",stat.getPercentile(step,i));
+                    out.printf(",%f",stat.getMax(step));
+                    out.println();
+                }
+            }
+        } catch (IOException ex) {
+            System.err.println("Saving was unsuccesful! " + ex);
+        }
+    }
+
     /**
      * Parses arguments from provided String[].
      * Changes everything to lower case, removes spaces. Returns whether parsing
@@ -342,6 +567,35 @@ public class Application {
                         String sPid = arguments.get(command);
                         int iPid = Integer.parseInt(sPid);
                         projectID = iPid;
+                        break;
+                    case "threads":
+                        String sThr = arguments.get(command);
+                        int iThr = Integer.parseInt(sThr);
+                        threads = iThr;
+                        break;
+                    case "scenarios":
+                        scenariosFilePath = arguments.get(command).replace("\"", "");
+                        break;
+                    case "members":
+                        members = Integer.parseInt(arguments.get(command));
+                        break;
+                    case "uncertainty":
+                        uncertaintyFilePath = arguments.get(command).replace("\"", "");
+                        break;
+                    case "cache":
+                        experimentCache = Integer.parseInt(arguments.get(command)) != 0;
+                        break;
+                    case "filter":
+                        matrixFilter = new GMKeyFilter();
+                        for (String sPat : arguments.get(command).replace("\"", "").split(",")) {
+                            String[] asIds = sPat.trim().split(":");
+                            if (asIds.length != 4)
+                                throw new NumberFormatException(sPat);
+                            matrixFilter.addPattern(Long.parseLong(asIds[0]),
+                                    Long.parseLong(asIds[1]), Long.parseLong(asIds[2]),
+                                    Long.parseLong(asIds[3]));
+                        }
+                        break;
                 }
             }
         } catch (NumberFormatException nfe) {
@@ -384,6 +638,28 @@ public class Application {
             errorMessage="Experiment file path not specified";
             return false;
         }
+        //ENSEMBLE OF SCENARIOS
+        if(scenariosFilePath != null){
+            if(scenarioFilePath != null){
+                errorMessage="Give either scenario or scenarios";
+                return false;
+            }
+            if(outputFilePath == null || databaseAddress != null){
+                errorMessage="Outputs of scenarios are saved only into files";
+                return false;
+            }
+        }
+        //MONTE CARLO MEMBERS
+        if(uncertaintyFilePath != null){
+            if(scenariosFilePath != null){
+                errorMessage="Give either scenarios or uncertainty";
+                return false;
+            }
+            if(outputFilePath == null || databaseAddress != null){
+                errorMessage="Statistics of the members are saved only into a file";
+                return false;
+            }
+        }
         //DATABASE USAGE
         if(databaseAddress != null){
             if(scenarioID<0){
@@ -398,6 +674,30 @@ public class Application {
         return true;
     }
     
+    /**
+     * Whether the arguments given in constructor are okay.
+     * @return True if arguments are okay, false if not.
+     */
+    boolean isArgumentsOkay() {
+        return argumentsAreOkay;
+    }
+
+    /**
+     * Error message of the arguments.
+     * @return error message, null if arguments are okay
+     */
+    String getErrorMessage() {
+        return errorMessage;
+    }
+
+    /**
+     * Output file path given in the arguments.
+     * @return output file path, null if not given
+     */
+    String getOutputFilePath() {
+        return outputFilePath;
+    }
+
     /**
      * Prints tool information and usage instructions on the command line.
      */
@@ -405,14 +705,27 @@ public class Application {
         System.out.println("EFISCEN modelling tool v4.0");
         System.out.println("Usage: java EfiscenCLI steps=<steps> thinning=<thinning int.> "
                 + "felling=<felling int.> experiment=<experiment file> [scenario=<scenario file>] "
-                + "outputfile=<output file> scaling=<scale area> [selected=<selected outputs>] [pid=<project id>]");
+                + "outputfile=<output file> scaling=<scale area> [selected=<selected outputs>] [pid=<project id>] [threads=<threads>] [cache=<1 or 0>] [filter=<r:o:s:sp,...>]");
+        System.out.println("Usage when running several scenarios:"
+                + "java EfiscenCLI steps=<steps> thinning=<thinning int.> "
+                + "felling=<felling int.> experiment=<experiment file> scenarios=<list of scenario files> "
+                + "outputfile=<output file> scaling=<scale area> [selected=<selected outputs>] "
+                + "[threads=<threads>] [members=<scenarios at the same time>]");
+        System.out.println("Usage when running Monte Carlo members:"
+                + "java EfiscenCLI steps=<steps> thinning=<thinning int.> "
+                + "felling=<felling int.> experiment=<experiment file> [scenario=<scenario file>] "
+                + "uncertainty=<uncertainty file> outputfile=<output file> scaling=<scale area> "
+                + "[threads=<threads>] [members=<members at the same time>]");
+        System.out.println("Usage when running a batch of jobs:"
+                + "java EfiscenCLI batch=<manifest file> [workers=<jobs at the same time>] "
+                + "[<parameters used by every job>]");
         System.out.println("Usage when saving outputs into database:"
                 + "java EfiscenCLI steps=<steps> thinning=<thinning int.> "
                 + "felling=<felling int.> experiment=<experiment file> [scenario=<scenario file>] "
                 + "output=<output file> scaling=<scale area>"
                 + "databaseaddress=<database address> username=<username> "
                 + "password=<password> sid=<SID> ciso=<CISO> "
-                + "[selected=<selected outputs>] [pid=<project id>]");
+                + "[selected=<selected outputs>] [pid=<project id>] [threads=<threads>]");
         System.out.println("legend: <> - replace with a value");
         System.out.println("        [] - optional parameter that can be omitted");
     }
@@ -0,0 +1,361 @@
+/*
+ * Copyright (C) 2016 European Forest Institute
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package efi.efiscen.cli;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Runs the jobs listed in a manifest file concurrently in one JVM. Parameters:
+ * <p>1. batch - File path to the manifest. Every line that is not empty and
+ * does not start with # is one job given by the parameters of EfiscenCLI,
+ * e.g. experiment=a.efs scenario=a.scn steps=10 thinning=1 felling=1
+ * scaling=1 outputfile=out/a.csv. Values with spaces are written in double
+ * quotes. Relative file paths are relative to the folder of the manifest.
+ * <br>2. workers - Number of jobs run at the same time, 1 by default.
+ * <p>
+ * Other parameters are used for every job unless the job gives them.
+ * Each job has its own settings and writes its messages to its own logs,
+ * &lt;output file&gt;_events.txt and &lt;output file&gt;_errors.txt
+ * (without the extension of the output file), or
+ * &lt;manifest&gt;_line&lt;line number&gt;_events.txt and _errors.txt if the
+ * job has no output file.
+ *
+ */
+public class BatchRunner {
+
+    private static final List<String> FILE_ARGUMENTS = Arrays.asList("experiment",
+            "scenario", "scenarios", "outputfile", "selected", "uncertainty");
+
+    /**
+     * Job of a manifest line.
+     */
+    private static class Job {
+        int line;
+        Application application;
+        String logBase;
+    }
+
+    private String manifestFilePath = null;
+    private int workers = 1; //Number of jobs run at the same time.
+    private final ArrayList<String> defaults = new ArrayList<>();
+    private final ArrayList<Job> jobs = new ArrayList<>();
+    private int numFailed = 0;
+    private boolean argumentsAreOkay;
+    private String errorMessage;
+
+    /**
+     * Creates new BatchRunner. Reads arguments.
+     * @param cli_args
+     */
+    public BatchRunner(String[] cli_args) {
+        argumentsAreOkay = parseArguments(cli_args);
+    }
+
+    /**
+     * Whether the arguments ask for a batch run.
+     * @param cli_args Arguments for EfiscenCLI
+     * @return true if there is a batch argument
+     */
+    public static boolean isBatch(String[] cli_args) {
+        for (String cli_arg : cli_args) {
+            if (cli_arg.toLowerCase().startsWith("batch=")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Runs the jobs of the manifest. Prints error message and usage message
+     * if the arguments or the manifest are not okay.
+     */
+    public void run() {
+        if (argumentsAreOkay) {
+            argumentsAreOkay = readManifest();
+        }
+        if (!argumentsAreOkay) {
+            printInfoMessage();
+            System.out.println(errorMessage);
+            return;
+        }
+        runJobs();
+        System.out.println("batch done! " + (jobs.size() - numFailed)
+                + " of " + jobs.size() + " jobs succeeded");
+    }
+
+    /**
+     * Number of failed jobs of the last run.
+     * @return number of failed jobs
+     */
+    public int getNumFailed() {
+        return numFailed;
+    }
+
+    /**
+     * Parses the batch arguments, the other ones are kept for the jobs.
+     * @param cli_args Arguments for BatchRunner
+     * @return False if provided arguments contained errors. True otherwise.
+     */
+    private boolean parseArguments(String[] cli_args) {
+        for (String cli_arg : cli_args) {
+            String[] tmp = cli_arg.split("=");
+            if (tmp.length != 2) {
+                errorMessage = "Check variable " + tmp[0];
+                return false;
+            }
+            switch (tmp[0].trim().toLowerCase()) {
+                case "batch":
+                    manifestFilePath = tmp[1].trim().replace("\"", "");
+                    break;
+                case "workers":
+                    try {
+                        workers = Integer.parseInt(tmp[1].trim());
+                    } catch (NumberFormatException nfe) {
+                        errorMessage = "Arguments are incorrect";
+                        return false;
+                    }
+                    break;
+                default:
+                    defaults.add(cli_arg);
+            }
+        }
+        if (manifestFilePath == null) {
+            errorMessage = "Manifest file path not specified";
+            return false;
+        }
+        if (workers < 1) {
+            errorMessage = "Number of workers must be positive";
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Reads the jobs from the manifest and checks their arguments.
+     * @return False if the manifest could not be read or some job is not
+     * okay. True otherwise.
+     */
+    private boolean readManifest() {
+        File manifest = new File(manifestFilePath).getAbsoluteFile();
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(manifest.toPath());
+        } catch (IOException ex) {
+            errorMessage = "Manifest file could not be read: " + ex;
+            return false;
+        }
+        String manifestBase = manifest.getPath();
+        if (manifest.getName().lastIndexOf(".") > 0) {
+            manifestBase = manifestBase.substring(0, manifestBase.lastIndexOf("."));
+        }
+        HashSet<String> logBases = new HashSet<>();
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i).trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            ArrayList<String> args = new ArrayList<>(defaults);
+            for (String token : splitLine(line)) {
+                args.add(resolvePath(token, manifest.getParentFile()));
+            }
+            Job job = new Job();
+            job.line = i + 1;
+            job.application = new Application(args.toArray(new String[args.size()]));
+            if (!job.application.isArgumentsOkay()) {
+                errorMessage = "Manifest line " + job.line + ": "
+                        + job.application.getErrorMessage();
+                return false;
+            }
+            String output = job.application.getOutputFilePath();
+            if (output != null) {
+                File f = new File(output).getAbsoluteFile();
+                job.logBase = f.getPath();
+                if (f.getName().lastIndexOf(".") > 0) {
+                    job.logBase = job.logBase.substring(0, job.logBase.lastIndexOf("."));
+                }
+            } else {
+                job.logBase = manifestBase + "_line" + job.line;
+            }
+            if (!logBases.add(job.logBase)) {
+                errorMessage = "Manifest line " + job.line
+                        + ": output file is the same as on an earlier line";
+                return false;
+            }
+            jobs.add(job);
+        }
+        if (jobs.isEmpty()) {
+            errorMessage = "Manifest has no jobs";
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Splits a manifest line to arguments at spaces outside double quotes.
+     * @param line manifest line
+     * @return arguments without the quotes
+     */
+    static ArrayList<String> splitLine(String line) {
+        ArrayList<String> tokens = new ArrayList<>();
+        StringBuilder sb = new StringBuilder();
+        boolean quoted = false;
+        boolean inToken = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+                inToken = true;
+            } else if (Character.isWhitespace(c) && !quoted) {
+                if (inToken) {
+                    tokens.add(sb.toString());
+                    sb.setLength(0);
+                    inToken = false;
+                }
+            } else {
+                sb.append(c);
+                inToken = true;
+            }
+        }
+        if (inToken) {
+            tokens.add(sb.toString());
+        }
+        return tokens;
+    }
+
+    /**
+     * Makes the relative file path of a file argument relative to the folder.
+     * @param arg argument
+     * @param folder folder
+     * @return argument with the resolved path
+     */
+    private static String resolvePath(String arg, File folder) {
+        int i = arg.indexOf("=");
+        if (i <= 0 || !FILE_ARGUMENTS.contains(arg.substring(0, i).trim().toLowerCase())) {
+            return arg;
+        }
+        String value = arg.substring(i + 1).trim();
+        if (value.isEmpty() || new File(value).isAbsolute()) {
+            return arg;
+        }
+        return arg.substring(0, i) + "=" + new File(folder, value).getPath();
+    }
+
+    /**
+     * Runs the jobs, at most workers of them at the same time. System.out
+     * and System.err of each job go to its own logs.
+     */
+    private void runJobs() {
+        numFailed = 0;
+        PrintStream stdout_save = System.out;
+        PrintStream stderr_save = System.err;
+        ThreadOutputStream out = new ThreadOutputStream(stdout_save);
+        ThreadOutputStream err = new ThreadOutputStream(stderr_save);
+        System.setOut(new PrintStream(out, true));
+        System.setErr(new PrintStream(err, true));
+        ForkJoinPool pool = new ForkJoinPool(workers);
+        try {
+            ArrayList<Future<Boolean>> done = new ArrayList<>(jobs.size());
+            for (Job job : jobs) {
+                done.add(pool.submit(() -> runJob(job, out, err)));
+            }
+            for (int i = 0; i < jobs.size(); i++) {
+                boolean ok;
+                try {
+                    ok = done.get(i).get();
+                } catch (ExecutionException ex) {
+                    ok = false;
+                }
+                Job job = jobs.get(i);
+                if (ok) {
+                    stdout_save.println("job of line " + job.line + " done");
+                } else {
+                    stdout_save.println("job of line " + job.line + " failed, see "
+                            + job.logBase + "_errors.txt");
+                    numFailed += 1;
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted batch", ex);
+        } finally {
+            pool.shutdown();
+            System.setOut(stdout_save);
+            System.setErr(stderr_save);
+        }
+    }
+
+    /**
+     * Runs one job with its messages going to its logs.
+     * @param job job
+     * @param out System.out of the batch
+     * @param err System.err of the batch
+     * @return true if the job succeeded
+     */
+    private static boolean runJob(Job job, ThreadOutputStream out, ThreadOutputStream err) {
+        try (PrintStream events = new PrintStream(new FileOutputStream(job.logBase + "_events.txt"), true);
+                PrintStream errors = new PrintStream(new FileOutputStream(job.logBase + "_errors.txt"), true)) {
+            out.setTarget(events);
+            err.setTarget(errors);
+            try {
+                boolean ok = job.application.runJob(new File(job.logBase).getName()
+                        + System.currentTimeMillis());
+                if (ok) {
+                    System.out.println("Done!");
+                }
+                return ok;
+            } catch (RuntimeException ex) {
+                ex.printStackTrace();
+                return false;
+            } finally {
+                out.setTarget(null);
+                err.setTarget(null);
+            }
+        } catch (FileNotFoundException ex) {
+            System.err.println("Logs of the job of line " + job.line
+                    + " could not be created: " + ex);
+            return false;
+        }
+    }
+
+    /**
+     * Prints usage instructions of the batch run on the command line.
+     */
+    private static void printInfoMessage() {
+        System.out.println("EFISCEN modelling tool v4.0");
+        System.out.println("Usage when running a batch of jobs:"
+                + "java EfiscenCLI batch=<manifest file> [workers=<jobs at the same time>] "
+                + "[<parameters used by every job>]");
+        System.out.println("Every line of the manifest gives the parameters of one job, e.g. "
+                + "experiment=<experiment file> scenario=<scenario file> steps=<steps> "
+                + "thinning=<thinning int.> felling=<felling int.> scaling=<scale area> "
+                + "outputfile=<output file>");
+        System.out.println("legend: <> - replace with a value");
+        System.out.println("        [] - optional parameter that can be omitted");
+    }
+}
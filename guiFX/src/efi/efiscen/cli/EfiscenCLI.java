@@ -40,10 +40,36 @@ package efi.efiscen.cli;
  * which outputs to save.
  * <br>The Path must include the file name and the name must end with “.txt”.
  * <br>14. pid - Project id.
+ * <br>15. threads - Number of threads used to process the matrices of a step,
+ * 1 by default. With more than one thread the component files of the
+ * experiment are also loaded in parallel. Outputs do not depend on it.
+ * <br>16. scenarios - File path to a text file listing scenario files, one per
+ * line. Every scenario is run on its own copy of the experiment loaded once and
+ * its outputs are saved with the name of the scenario file added to the
+ * output file name. Replaces parameter 6, outputs are saved only as files.
+ * <br>17. members - Number of scenarios of parameter 16 or Monte Carlo members
+ * of parameter 18 run at the same time, 1 by default.
+ * <br>18. uncertainty - File path to a text file defining a Monte Carlo run
+ * with perturbed parameters. The scenario of parameter 6 is run on every member
+ * and the statistics of the outputs by step are saved to the output file.
+ * Lines of the file: "runs N", "seed S", "percentiles 5 50 95",
+ * "outputs stock carbon soil thinnings fellings" and
+ * "&lt;parameter&gt; normal|uniform|lognormal &lt;spread&gt;" for the parameters
+ * grcoeff, beta, mortrate, deadwooddrate and soilrates. Lines starting
+ * with # are comments.
+ * <br>19. cache - 1 to keep a compiled image of the experiment next to the
+ * experiment file (extension .efc) and load the experiment from it while the
+ * input files of the experiment are unchanged, 0 by default.
+ * <br>20. filter - Matrices to load as patterns region:owner:site:species
+ * separated by commas, 0 standing for any, e.g. 1:0:0:2,3:0:0:0. All
+ * matrices by default.
  * <p>
- * When running EFISCEN and using database, parameters 6, 7, 13 are optional.
+ * When running EFISCEN and using database, parameters 6, 7, 13, 15, 19, 20 are optional.
  * <br>When running EFISCEN and saving outputs as files, parameters 1-5 and 7
- * <br>are required and 6, 13 are optional.
+ * <br>are required and 6, 13, 15-20 are optional.
+ * <p>
+ * Several jobs can be run in one JVM by giving a manifest file listing the
+ * parameters of each job, see BatchRunner.
  *
  * 
  */
@@ -54,6 +80,10 @@ public class EfiscenCLI {
      * @param args 
      */
     public static void main(String[] args){
+        if (BatchRunner.isBatch(args)) {
+            new BatchRunner(args).run();
+            return;
+        }
         Application app = new Application(args);
         app.run();
         return;
@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2016 European Forest Institute
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package efi.efiscen.cli;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Output stream writing to the stream set for the current thread, or to the
+ * default stream if none is set. Threads started by a thread write to the
+ * same stream as it. Used as System.out and System.err to give the jobs of
+ * a batch run their own logs.
+ *
+ */
+public class ThreadOutputStream extends OutputStream {
+
+    private final OutputStream defaultStream;
+    private final InheritableThreadLocal<OutputStream> target = new InheritableThreadLocal<>();
+
+    /**
+     * Creates new ThreadOutputStream.
+     * @param defaultStream stream of the threads without their own stream
+     */
+    public ThreadOutputStream(OutputStream defaultStream) {
+        this.defaultStream = defaultStream;
+    }
+
+    /**
+     * Sets the stream of the current thread.
+     * @param out stream, null for the default stream
+     */
+    public void setTarget(OutputStream out) {
+        if (out == null) {
+            target.remove();
+        } else {
+            target.set(out);
+        }
+    }
+
+    private OutputStream current() {
+        OutputStream out = target.get();
+        return out != null ? out : defaultStream;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        current().write(b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        current().write(b, off, len);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        current().flush();
+    }
+}
@@ -0,0 +1,167 @@
+/* 
+ * Copyright (C) 2016 European Forest Institute
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package efi.efiscen.com;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Collection of double values stored in a primitive array. Can be used
+ * wherever ComArFlt&lt;Double&gt; is expected; the primitive methods avoid
+ * boxing of the values.
+ *
+ */
+public class ComArDouble extends ComArFlt<Double> {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Container for elements.
+     */
+    protected double[] m_adData;
+
+    /**
+     * Number of stored elements.
+     */
+    protected int m_nSize;
+
+    /**
+     * Default constructor.
+     */
+    public ComArDouble () {
+        this(10);
+    }
+
+    /**
+     * Constructor with the defined size.
+     * @param nsize number of variables in container
+     */
+    public ComArDouble (int nsize) {
+        super((ArrayList<Double>)null);
+        m_adData = new double[Math.max(nsize,1)];
+        m_nSize = 0;
+    }
+
+    /**
+     * Set the data at given index. PrintStackTrace() in case of exception.
+     * @param nid array index
+     * @param val value to be stored
+     * @return 1 if successful -1 else
+     */
+    @Override
+    public int setData (int nid, Double val) {
+        if (nid<0 || nid>=m_nSize) {
+            new IndexOutOfBoundsException("Index: "+nid+", Size: "+m_nSize).printStackTrace();
+            return -1;
+        }
+        m_adData[nid] = val;
+        return 1;
+    }
+
+    /**
+     * Add data to the array.
+     * @param val value to be added
+     * @return index of the top element in the array
+     */
+    @Override
+    public int addData (Double val) {
+        return addDouble(val);
+    }
+
+    /**
+     * Return data at given index.
+     * @param nid array index
+     * @return data at given index or null if not found
+     */
+    @Override
+    public Double getData (int nid) {
+        if (nid<0 || nid>=m_nSize)
+            return null;
+        return m_adData[nid];
+    }
+
+    /**
+     * Get the size of the array.
+     * @return number of stored values
+     */
+    @Override
+    public int getSize () {
+        return m_nSize;
+    }
+
+    /**
+     * Add value to the array without boxing.
+     * @param val value to be added
+     * @return index of the top element in the array
+     */
+    public int addDouble (double val) {
+        if (m_nSize == m_adData.length)
+            m_adData = Arrays.copyOf(m_adData, 2*m_nSize);
+        m_adData[m_nSize] = val;
+        return m_nSize++;
+    }
+
+    /**
+     * Value at given index without boxing.
+     * @param nid array index
+     * @return value
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    public double getDouble (int nid) {
+        if (nid<0 || nid>=m_nSize)
+            throw new IndexOutOfBoundsException("Index: "+nid+", Size: "+m_nSize);
+        return m_adData[nid];
+    }
+
+    /**
+     * Appends a value to any double collection, without boxing if it
+     * keeps primitive values.
+     * @param pAr collection
+     * @param val value to be added
+     * @return index of the top element in the array
+     */
+    public static int append (ComArFlt<Double> pAr, double val) {
+        if (pAr instanceof ComArDouble)
+            return ((ComArDouble)pAr).addDouble(val);
+        return pAr.addData(val);
+    }
+
+    /**
+     * Value at given index of any double collection, without boxing if
+     * it keeps primitive values.
+     * @param pAr collection
+     * @param nid array index
+     * @return value
+     */
+    public static double valueAt (ComArFlt<Double> pAr, int nid) {
+        if (pAr instanceof ComArDouble)
+            return ((ComArDouble)pAr).getDouble(nid);
+        return pAr.getData(nid);
+    }
+
+    /**
+     * Copy of the collection.
+     * @return new collection with the same values
+     */
+    @Override
+    public ComArDouble copy () {
+        ComArDouble pCopy = new ComArDouble(0);
+        pCopy.m_adData = Arrays.copyOf(m_adData, Math.max(m_nSize,1));
+        pCopy.m_nSize = m_nSize;
+        return pCopy;
+    }
+}
@@ -0,0 +1,176 @@
+/* 
+ * Copyright (C) 2016 European Forest Institute
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package efi.efiscen.com;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Collection of float values stored in a primitive array. Can be used
+ * wherever ComArFlt&lt;Float&gt; is expected; the primitive methods avoid
+ * boxing of the values.
+ *
+ */
+public class ComArFloat extends ComArFlt<Float> {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Container for elements.
+     */
+    protected float[] m_afData;
+
+    /**
+     * Number of stored elements.
+     */
+    protected int m_nSize;
+
+    /**
+     * Default constructor.
+     */
+    public ComArFloat () {
+        this(10);
+    }
+
+    /**
+     * Constructor with the defined size.
+     * @param nsize number of variables in container
+     */
+    public ComArFloat (int nsize) {
+        this(new float[Math.max(nsize,1)]);
+    }
+
+    /**
+     * Constructor with the given container, for subclasses which keep
+     * the values elsewhere and pass null.
+     * @param afData container for elements
+     */
+    protected ComArFloat (float[] afData) {
+        super((ArrayList<Float>)null);
+        m_afData = afData;
+        m_nSize = 0;
+    }
+
+    /**
+     * Set the data at given index. PrintStackTrace() in case of exception.
+     * @param nid array index
+     * @param val value to be stored
+     * @return 1 if successful -1 else
+     */
+    @Override
+    public int setData (int nid, Float val) {
+        if (nid<0 || nid>=m_nSize) {
+            new IndexOutOfBoundsException("Index: "+nid+", Size: "+m_nSize).printStackTrace();
+            return -1;
+        }
+        m_afData[nid] = val;
+        return 1;
+    }
+
+    /**
+     * Add data to the array.
+     * @param val value to be added
+     * @return index of the top element in the array
+     */
+    @Override
+    public int addData (Float val) {
+        return addFloat(val);
+    }
+
+    /**
+     * Return data at given index.
+     * @param nid array index
+     * @return data at given index or null if not found
+     */
+    @Override
+    public Float getData (int nid) {
+        if (nid<0 || nid>=m_nSize)
+            return null;
+        return m_afData[nid];
+    }
+
+    /**
+     * Get the size of the array.
+     * @return number of stored values
+     */
+    @Override
+    public int getSize () {
+        return m_nSize;
+    }
+
+    /**
+     * Add value to the array without boxing.
+     * @param val value to be added
+     * @return index of the top element in the array
+     */
+    public int addFloat (float val) {
+        if (m_nSize == m_afData.length)
+            m_afData = Arrays.copyOf(m_afData, 2*m_nSize);
+        m_afData[m_nSize] = val;
+        return m_nSize++;
+    }
+
+    /**
+     * Value at given index without boxing.
+     * @param nid array index
+     * @return value
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    public float getFloat (int nid) {
+        if (nid<0 || nid>=m_nSize)
+            throw new IndexOutOfBoundsException("Index: "+nid+", Size: "+m_nSize);
+        return m_afData[nid];
+    }
+
+    /**
+     * Appends a value to any float collection, without boxing if it
+     * keeps primitive values.
+     * @param pAr collection
+     * @param val value to be added
+     * @return index of the top element in the array
+     */
+    public static int append (ComArFlt<Float> pAr, float val) {
+        if (pAr instanceof ComArFloat)
+            return ((ComArFloat)pAr).addFloat(val);
+        return pAr.addData(val);
+    }
+
+    /**
+     * Value at given index of any float collection, without boxing if
+     * it keeps primitive values.
+     * @param pAr collection
+     * @param nid array index
+     * @return value
+     */
+    public static float valueAt (ComArFlt<Float> pAr, int nid) {
+        if (pAr instanceof ComArFloat)
+            return ((ComArFloat)pAr).getFloat(nid);
+        return pAr.getData(nid);
+    }
+
+    /**
+     * Copy of the collection.
+     * @return new collection with the same values
+     */
+    @Override
+    public ComArFloat copy () {
+        ComArFloat pCopy = new ComArFloat(0);
+        pCopy.m_afData = Arrays.copyOf(m_afData, Math.max(m_nSize,1));
+        pCopy.m_nSize = m_nSize;
+        return pCopy;
+    }
+}
@@ -45,6 +45,15 @@ public class ComArFlt<E> implements Serializable {
         m_caData = new ArrayList<>(nsize);
     }
 
+    /**
+     * Constructor with the given container, for subclasses which keep
+     * the elements elsewhere and pass null.
+     * @param caData container for elements
+     */
+    protected ComArFlt (ArrayList<E> caData) {
+        m_caData = caData;
+    }
+
     /**
      * Set the data at given index. PrintStackTrace() in case of exception.
      * @param nid array index
@@ -68,7 +77,7 @@ public class ComArFlt<E> implements Serializable {
      */
     public int addData (E val) {
         m_caData.add(val);
-        return m_caData.lastIndexOf(val);
+        return m_caData.size()-1;
     }
 
     /**
@@ -93,5 +102,14 @@ public class ComArFlt<E> implements Serializable {
         return m_caData.size();
     }
 
-}
+    /**
+     * Copy of the collection. The elements are not copied.
+     * @return new collection with the same elements
+     */
+    public ComArFlt<E> copy () {
+        ComArFlt<E> pCopy = new ComArFlt<>(0);
+        pCopy.m_caData.addAll(m_caData);
+        return pCopy;
+    }
 
+}
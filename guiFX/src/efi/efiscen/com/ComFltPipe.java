@@ -112,5 +112,23 @@ public class ComFltPipe implements Serializable {
         return null;
     }
 
-}
+    /**
+     * Copy of the pipe.
+     * @return new pipe with copies of the elements
+     */
+    public ComFltPipe copy () {
+        ComFltPipe pCopy = new ComFltPipe();
+        pCopy.m_nSize = m_nSize;
+        if (m_pData != null) {
+            pCopy.m_pData = new ArrayList<>(m_pData.size());
+            for (ComFltPipeElement e : m_pData) {
+                ComFltPipeElement pEl = new ComFltPipeElement(e.getCfp_nind(),
+                        e.getCfp_value(), e.getCfp_threm(), e.getCfp_felrem());
+                pEl.setCfp_uplim(e.getCfp_uplim());
+                pCopy.m_pData.add(pEl);
+            }
+        }
+        return pCopy;
+    }
 
+}
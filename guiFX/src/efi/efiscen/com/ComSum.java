@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2016 European Forest Institute
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package efi.efiscen.com;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * ComSum collects terms in a fixed order and sums them pairwise.
+ * The result depends only on the terms and their order, not on how
+ * (or by how many threads) the terms were computed.
+ *
+ */
+public class ComSum implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Number of terms summed sequentially at the bottom of the recursion.
+     */
+    public static final int BLOCK = 8;
+
+    /**
+     * Number of collected terms.
+     */
+    public int m_nSize;
+
+    /**
+     * Placeholder for the terms.
+     */
+    protected double[] m_adVals;
+
+    /**
+     * Default constructor.
+     */
+    public ComSum () {
+        this(16);
+    }
+
+    /**
+     * Constructor with the defined capacity.
+     * @param ncap initial number of terms
+     */
+    public ComSum (int ncap) {
+        m_adVals = new double[Math.max(ncap,1)];
+        m_nSize = 0;
+    }
+
+    /**
+     * Adds the next term.
+     * @param val term
+     */
+    public void add (double val) {
+        if (m_nSize == m_adVals.length)
+            m_adVals = Arrays.copyOf(m_adVals, 2*m_nSize);
+        m_adVals[m_nSize++] = val;
+    }
+
+    /**
+     * Removes all terms.
+     */
+    public void clear () {
+        m_nSize = 0;
+    }
+
+    /**
+     * Get number of collected terms.
+     * @return number of terms
+     */
+    public int getSize () {
+        return m_nSize;
+    }
+
+    /**
+     * Pairwise sum of the collected terms.
+     * @return sum
+     */
+    public double sum () {
+        return pairwise(m_adVals, 0, m_nSize);
+    }
+
+    /**
+     * Pairwise sum of the array elements in the range [nfrom,nto).
+     * @param vals terms
+     * @param nfrom first index
+     * @param nto index after the last one
+     * @return sum
+     */
+    public static double pairwise (double[] vals, int nfrom, int nto) {
+        if (nto-nfrom <= BLOCK) {
+            double ret = 0.0;
+            for (int i=nfrom;i<nto;i++)
+                ret += vals[i];
+            return ret;
+        }
+        int nmid = nfrom + (nto-nfrom)/2;
+        return pairwise(vals, nfrom, nmid) + pairwise(vals, nmid, nto);
+    }
+}
@@ -50,6 +50,18 @@ public class GMBare implements Serializable {
         m_mdOutcome = new HashMap<>();
     }
 
+    /**
+     * Copy of the bare fund, the maps iterate in the same order.
+     * @return copy
+     */
+    public GMBare copy () {
+        GMBare pCopy = new GMBare();
+        pCopy.m_mdFund = GMKeyMap.copyOrdered(m_mdFund, v -> v);
+        pCopy.m_mdIncome = GMKeyMap.copyOrdered(m_mdIncome, v -> v);
+        pCopy.m_mdOutcome = GMKeyMap.copyOrdered(m_mdOutcome, v -> v);
+        return pCopy;
+    }
+
     /**
      * Getter to bare fund
      * @return map of bare areas
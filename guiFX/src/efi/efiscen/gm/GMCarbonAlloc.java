@@ -116,6 +116,34 @@ public class GMCarbonAlloc implements Serializable {
         ca_pleaves = new ArrayList<>(nsize);
     }
 
+    /**
+     * Parameterized constructor sharing the given allocation vectors,
+     * carbon values are zero.
+     * @param nsize size of vectors
+     * @param ca_ccont carbon content of dry wood
+     * @param ca_dns density of wood
+     * @param ca_pxvals x limits
+     * @param ca_pstem stem's shares
+     * @param ca_pbranch branches shares
+     * @param ca_pcroots coarse roots shares
+     * @param ca_pfroots fine roots shares
+     * @param ca_pleaves leaves shares
+     */
+    public GMCarbonAlloc (int nsize, float ca_ccont, float ca_dns,
+            ArrayList<Float> ca_pxvals, ArrayList<Float> ca_pstem,
+            ArrayList<Float> ca_pbranch, ArrayList<Float> ca_pcroots,
+            ArrayList<Float> ca_pfroots, ArrayList<Float> ca_pleaves) {
+        this.ca_nsize = nsize;
+        this.ca_ccont = ca_ccont;
+        this.ca_dns = ca_dns;
+        this.ca_pxvals = ca_pxvals;
+        this.ca_pstem = ca_pstem;
+        this.ca_pbranch = ca_pbranch;
+        this.ca_pcroots = ca_pcroots;
+        this.ca_pfroots = ca_pfroots;
+        this.ca_pleaves = ca_pleaves;
+    }
+
     /**
      * Getter for brunches biomass
      * @return biomass in branches
@@ -34,91 +34,21 @@ public class GMCell implements Serializable {
     /** Just ID */
     public long m_wID;
 
-    // Group below are about coordinates in "real world" - not in the Matrix
-    private float m_Xmin; // lowest value of x
-    private float m_Xmax; // highest value of x
-    private float m_Xval; // middle value of x
-    private float m_Ymin; // same things for y coordinates
-    private float m_Ymax;
-    private float m_Yval;
-
-    // Mefique stuff - for a while!
-    private float m_ThArea;
-    private float m_ThRem;
-    private float m_FelArea;
-    private float m_FelRem;
-
-    // Bioenergy purposes - slash keeping
-    private float m_ThSlash;
-    private float m_FelSlash;
-
-    // Natural mortality stuff - thanks to Femke and MJ :-)
-    private float m_NatMrt;
-    private float m_DWood;
-
-    // Version 3.2! MJ - natural disturbances!
-    private float m_FireReplSus;
-    private float m_FireNonReplSus;
-    private float m_WindReplSus;
-    private float m_WindNonReplSus;
-    private float m_InsReplSus;
-    private float m_InsNonReplSus;
-
-    private float m_Area; // The main driving variable
-    private float m_ThinArea; // Thinned area e.g. area thinned at previous step
-    private float m_MoveAsThin; // Thinned area which will go to m_ThinArea of
-                                // another cell
-    private float m_MoveByX; // What part of the area will move by x axis
-    private float m_MoveByY;
-    private float m_MoveByXY;
-    private float m_MoveByXOrg; // Same for calculated - original values
-    private float m_MoveByYOrg;
-    private float m_MoveByXYOrg;
-    private float m_Move; // How much area will go away by all axis
-    private float m_MoveAway; // How much is going away during cutting,
-                              // for example (actually by natural mortality!)
-    private float m_FellingsShare; // Part of area could be felled
-    private float m_ThinShare; // Part of area could be thinned
-    private float m_Income; // How much will come from "abroad"
-    private boolean m_bThinned; // Could be thinned or not
+    // All the area, volume and movement values of the cell are kept in
+    // the cell store of the matrix, the cell is a view to one index of it
+    private GMCellStore m_pStore; // Store keeping the values of the cell
+    private int m_nIdx; // Index of the cell in the store
 
     private GMMatrix m_pmOwner; // The matrix object to witch this cell belongs
 
     /**
      * Default constructor.
-     * Set to zero all members
+     * Set to zero all members, values are kept in own single cell store.
      */
     public GMCell () {
         m_pmOwner = null;
-        m_MoveByX = m_MoveByXOrg = 0.0f;
-        m_MoveByY = m_MoveByYOrg = 0.0f;
-        m_MoveByXY = m_MoveByXYOrg = 0.0f;
-        m_MoveAway = 0.0f;
-        m_Move = 0.0f;
-        m_Income = 0.0f;
-        m_bThinned = false;
-        m_FellingsShare = 0.0f;
-        m_ThinShare = 0.0f;
-        m_ThinArea = 0.0f;
-        m_MoveAsThin = 0.0f;
-        // Mefique stuff!
-        m_ThArea = 0.0f;
-        m_ThRem = 0.0f;
-        m_FelArea = 0.0f;
-        m_FelRem = 0.0f;
-        // Bioenergy stuff
-        m_ThSlash = 0.0f;
-        m_FelSlash = 0.0f;
-        // Mortality and deadwood
-        m_NatMrt = 0.0f;
-        m_DWood = 0.0f;
-        // MJ - disturbances
-        m_FireReplSus = 0.0f;
-        m_FireNonReplSus = 0.0f;
-        m_WindReplSus = 0.0f;
-        m_WindNonReplSus = 0.0f;
-        m_InsReplSus = 0.0f;
-        m_InsNonReplSus = 0.0f;
+        m_pStore = new GMCellStore(1);
+        m_nIdx = 0;
     }
 
     /**
@@ -126,48 +56,93 @@ public class GMCell implements Serializable {
      * @param pGmi prepared GMCellInit object
      */
     public GMCell (GMCellInit pGmi) {
+        this();
+        initValues(pGmi);
+    }
+
+    /**
+     * Constructor of the view to the given index of the cell store.
+     * @param pStore cell store
+     * @param nIdx index of the cell in the store
+     */
+    public GMCell (GMCellStore pStore, int nIdx) {
+        m_pmOwner = null;
+        m_pStore = pStore;
+        m_nIdx = nIdx;
+    }
+
+    /**
+     * Parametrized constructor of the view to the given index of the cell
+     * store.
+     * @param pStore cell store
+     * @param nIdx index of the cell in the store
+     * @param pGmi prepared GMCellInit object
+     */
+    public GMCell (GMCellStore pStore, int nIdx, GMCellInit pGmi) {
+        this(pStore, nIdx);
+        initValues(pGmi);
+    }
+
+    /**
+     * Init coordinates and area from GMCellInit object.
+     * @param pGmi prepared GMCellInit object
+     */
+    private void initValues (GMCellInit pGmi) {
         m_wID	= pGmi.getCi_id();
         m_wX	= pGmi.getCi_wx();
         m_wY	= pGmi.getCi_wy();
-        m_Xmin	= pGmi.getCi_xmin();
-        m_Xmax	= pGmi.getCi_xmax();
-        m_Xval	= pGmi.getCi_x();
-        m_Ymin	= pGmi.getCi_ymin();
-        m_Ymax	= pGmi.getCi_ymax();
-        m_Yval	= pGmi.getCi_y();
-        m_Area	= pGmi.getCi_area();
-        m_pmOwner = pGmi.getCi_powner();
+        setM_Xmin(pGmi.getCi_xmin());
+        setM_Xmax(pGmi.getCi_xmax());
+        setM_Xval(pGmi.getCi_x());
+        setM_Ymin(pGmi.getCi_ymin());
+        setM_Ymax(pGmi.getCi_ymax());
+        setM_Yval(pGmi.getCi_y());
+        setM_Area(pGmi.getCi_area());
+    }
 
-        m_pmOwner = null;
-        m_MoveByX = m_MoveByXOrg = 0.0f;
-        m_MoveByY = m_MoveByYOrg = 0.0f;
-        m_MoveByXY = m_MoveByXYOrg = 0.0f;
-        m_MoveAway = 0.0f;
-        m_Move = 0.0f;
-        m_Income = 0.0f;
-        m_bThinned = false;
-        m_FellingsShare = 0.0f;
-        m_ThinShare = 0.0f;
-        m_ThinArea = 0.0f;
-        m_MoveAsThin = 0.0f;
-        // Mefique stuff!
-        m_ThArea = 0.0f;
-        m_ThRem = 0.0f;
-        m_FelArea = 0.0f;
-        m_FelRem = 0.0f;
-        // Bioenergy stuff
-        m_ThSlash = 0.0f;
-        m_FelSlash = 0.0f;
-        // Femke and MJ :-)
-        m_NatMrt = 0.0f;
-        m_DWood = 0.0f;
-        // MJ - disturbances
-        m_FireReplSus = 0.0f;
-        m_FireNonReplSus = 0.0f;
-        m_WindReplSus = 0.0f;
-        m_WindNonReplSus = 0.0f;
-        m_InsReplSus = 0.0f;
-        m_InsNonReplSus = 0.0f;
+    /**
+     * Move the cell to the given index of the cell store. Current values of
+     * the cell are copied to the store.
+     * @param pStore cell store
+     * @param nIdx index of the cell in the store
+     */
+    public void bind (GMCellStore pStore, int nIdx) {
+        if (pStore == m_pStore && nIdx == m_nIdx)
+            return;
+        pStore.copyCell(nIdx, m_pStore, m_nIdx);
+        m_pStore = pStore;
+        m_nIdx = nIdx;
+    }
+
+    /**
+     * Copy of the cell viewing the same index of the given store.
+     * @param pStore copy of the cell store
+     * @param pmOwner owner of the copy
+     * @return copy
+     */
+    public GMCell copy (GMCellStore pStore, GMMatrix pmOwner) {
+        GMCell pCopy = new GMCell(pStore, m_nIdx);
+        pCopy.m_wX = m_wX;
+        pCopy.m_wY = m_wY;
+        pCopy.m_wID = m_wID;
+        pCopy.m_pmOwner = pmOwner;
+        return pCopy;
+    }
+
+    /**
+     * Getter for the store keeping values of the cell
+     * @return cell store
+     */
+    public GMCellStore getM_pStore() {
+        return m_pStore;
+    }
+
+    /**
+     * Getter for index of the cell in the store
+     * @return index in the cell store
+     */
+    public int getM_nIdx() {
+        return m_nIdx;
     }
 
     /**
@@ -175,7 +150,7 @@ public class GMCell implements Serializable {
      * @return amount of deadwood
      */
     public float getM_DWood() {
-        return m_DWood;
+        return m_pStore.m_DWood[m_nIdx];
     }
 
     /**
@@ -183,7 +158,7 @@ public class GMCell implements Serializable {
      * @return area of final felling
      */
     public float getM_FelArea() {
-        return m_FelArea;
+        return m_pStore.m_FelArea[m_nIdx];
     }
 
     /**
@@ -191,7 +166,7 @@ public class GMCell implements Serializable {
      * @return removal volume of final felling
      */
     public float getM_FelRem() {
-        return m_FelRem;
+        return m_pStore.m_FelRem[m_nIdx];
     }
 
     /**
@@ -199,7 +174,7 @@ public class GMCell implements Serializable {
      * @return felling residues 
      */
     public float getM_FelSlash() {
-        return m_FelSlash;
+        return m_pStore.m_FelSlash[m_nIdx];
     }
 
     /**
@@ -207,7 +182,7 @@ public class GMCell implements Serializable {
      * @return share of felling
      */
     public float getM_FellingsShare() {
-        return m_FellingsShare;
+        return m_pStore.m_FellingsShare[m_nIdx];
     }
 
     /**
@@ -216,7 +191,7 @@ public class GMCell implements Serializable {
      * @return susceptibility to fire non stand replacing
      */
     public float getM_FireNonReplSus() {
-        return m_FireNonReplSus;
+        return m_pStore.m_FireNonReplSus[m_nIdx];
     }
 
     /**
@@ -225,7 +200,7 @@ public class GMCell implements Serializable {
      * @return susceptibility to fire stand replacing
      */
     public float getM_FireReplSus() {
-        return m_FireReplSus;
+        return m_pStore.m_FireReplSus[m_nIdx];
     }
 
     /**
@@ -233,7 +208,7 @@ public class GMCell implements Serializable {
      * @return income area
      */
     public float getM_Income() {
-        return m_Income;
+        return m_pStore.m_Income[m_nIdx];
     }
 
     /**
@@ -242,7 +217,7 @@ public class GMCell implements Serializable {
      * @return susceptibility to insects non stand replacing
      */
     public float getM_InsNonReplSus() {
-        return m_InsNonReplSus;
+        return m_pStore.m_InsNonReplSus[m_nIdx];
     }
 
     /**
@@ -251,7 +226,7 @@ public class GMCell implements Serializable {
      * @return susceptibility to insects stand replacing
      */
     public float getM_InsReplSus() {
-        return m_InsReplSus;
+        return m_pStore.m_InsReplSus[m_nIdx];
     }
 
     /**
@@ -259,7 +234,7 @@ public class GMCell implements Serializable {
      * @return area to be moved
      */
     public float getM_Move() {
-        return m_Move;
+        return m_pStore.m_Move[m_nIdx];
     }
 
     /**
@@ -268,7 +243,7 @@ public class GMCell implements Serializable {
      * @return area to be moved as thinned
      */
     public float getM_MoveAsThin() {
-        return m_MoveAsThin;
+        return m_pStore.m_MoveAsThin[m_nIdx];
     }
 
     /**
@@ -277,7 +252,7 @@ public class GMCell implements Serializable {
      * @return area to be moved as felled
      */
     public float getM_MoveAway() {
-        return m_MoveAway;
+        return m_pStore.m_MoveAway[m_nIdx];
     }
 
     /**
@@ -286,7 +261,7 @@ public class GMCell implements Serializable {
      * @return current share of area to be moved by x
      */
     public float getM_MoveByX() {
-        return m_MoveByX;
+        return m_pStore.m_MoveByX[m_nIdx];
     }
 
     /**
@@ -295,7 +270,7 @@ public class GMCell implements Serializable {
      * @return share of area to be moved by x (original)
      */
     public float getM_MoveByXOrg() {
-        return m_MoveByXOrg;
+        return m_pStore.m_MoveByXOrg[m_nIdx];
     }
 
     /**
@@ -304,7 +279,7 @@ public class GMCell implements Serializable {
      * @return current share of area to be moved by x,y
      */
     public float getM_MoveByXY() {
-        return m_MoveByXY;
+        return m_pStore.m_MoveByXY[m_nIdx];
     }
 
     /**
@@ -313,7 +288,7 @@ public class GMCell implements Serializable {
      * @return share of area to be moved by x,y (original)
      */
     public float getM_MoveByXYOrg() {
-        return m_MoveByXYOrg;
+        return m_pStore.m_MoveByXYOrg[m_nIdx];
     }
 
     /**
@@ -322,7 +297,7 @@ public class GMCell implements Serializable {
      * @return current share of area to be moved by y
      */
     public float getM_MoveByY() {
-        return m_MoveByY;
+        return m_pStore.m_MoveByY[m_nIdx];
     }
 
     /**
@@ -331,7 +306,7 @@ public class GMCell implements Serializable {
      * @return share of area to be moved by y (original)
      */
     public float getM_MoveByYOrg() {
-        return m_MoveByYOrg;
+        return m_pStore.m_MoveByYOrg[m_nIdx];
     }
 
     /**
@@ -339,7 +314,7 @@ public class GMCell implements Serializable {
      * @return amount of natural mortality
      */
     public float getM_NatMrt() {
-        return m_NatMrt;
+        return m_pStore.m_NatMrt[m_nIdx];
     }
 
     /**
@@ -347,7 +322,7 @@ public class GMCell implements Serializable {
      * @return area thinned
      */
     public float getM_ThArea() {
-        return m_ThArea;
+        return m_pStore.m_ThArea[m_nIdx];
     }
 
     /**
@@ -355,7 +330,7 @@ public class GMCell implements Serializable {
      * @return  thinning removals
      */
     public float getM_ThRem() {
-        return m_ThRem;
+        return m_pStore.m_ThRem[m_nIdx];
     }
 
     /**
@@ -363,7 +338,7 @@ public class GMCell implements Serializable {
      * @return thinning residues
      */
     public float getM_ThSlash() {
-        return m_ThSlash;
+        return m_pStore.m_ThSlash[m_nIdx];
     }
 
     /**
@@ -371,7 +346,7 @@ public class GMCell implements Serializable {
      * @return thinned area
      */
     public float getM_ThinArea() {
-        return m_ThinArea;
+        return m_pStore.m_ThinArea[m_nIdx];
     }
 
     /**
@@ -379,7 +354,7 @@ public class GMCell implements Serializable {
      * @return share of thinning
      */
     public float getM_ThinShare() {
-        return m_ThinShare;
+        return m_pStore.m_ThinShare[m_nIdx];
     }
 
     /**
@@ -388,7 +363,7 @@ public class GMCell implements Serializable {
      * @return susceptibility to wind non stand replacing
      */
     public float getM_WindNonReplSus() {
-        return m_WindNonReplSus;
+        return m_pStore.m_WindNonReplSus[m_nIdx];
     }
 
     /**
@@ -397,7 +372,7 @@ public class GMCell implements Serializable {
      * @return susceptibility to wind stand replacing
      */
     public float getM_WindReplSus() {
-        return m_WindReplSus;
+        return m_pStore.m_WindReplSus[m_nIdx];
     }
 
     /**
@@ -405,7 +380,7 @@ public class GMCell implements Serializable {
      * @return maximal value by x
      */
     public float getM_Xmax() {
-        return m_Xmax;
+        return m_pStore.m_Xmax[m_nIdx];
     }
 
     /**
@@ -413,7 +388,7 @@ public class GMCell implements Serializable {
      * @return minimal value by x
      */
     public float getM_Xmin() {
-        return m_Xmin;
+        return m_pStore.m_Xmin[m_nIdx];
     }
 
     /**
@@ -421,7 +396,7 @@ public class GMCell implements Serializable {
      * @return middle value by x
      */
     public float getM_Xval() {
-        return m_Xval;
+        return m_pStore.m_Xval[m_nIdx];
     }
 
     /**
@@ -429,7 +404,7 @@ public class GMCell implements Serializable {
      * @return maximal value by y
      */
     public float getM_Ymax() {
-        return m_Ymax;
+        return m_pStore.m_Ymax[m_nIdx];
     }
 
     /**
@@ -437,7 +412,7 @@ public class GMCell implements Serializable {
      * @return minimal value by y
      */
     public float getM_Ymin() {
-        return m_Ymin;
+        return m_pStore.m_Ymin[m_nIdx];
     }
 
     /**
@@ -445,7 +420,7 @@ public class GMCell implements Serializable {
      * @return middle value by y
      */
     public float getM_Yval() {
-        return m_Yval;
+        return m_pStore.m_Yval[m_nIdx];
     }
 
     /**
@@ -453,7 +428,7 @@ public class GMCell implements Serializable {
      * @return true if cell could be thinned
      */
     public boolean isM_bThinned() {
-        return m_bThinned;
+        return m_pStore.m_bThinned[m_nIdx];
     }
 
     /**
@@ -469,7 +444,7 @@ public class GMCell implements Serializable {
      * @return area of the cell
      */
     public float getArea () {
-        return m_Area;
+        return m_pStore.m_Area[m_nIdx];
     }
 
     /**
@@ -477,7 +452,8 @@ public class GMCell implements Serializable {
      * @param m_Area value to be assigned
      */
     public void setM_Area(float m_Area) {
-        this.m_Area = m_Area;
+        m_pStore.m_Area[m_nIdx] = m_Area;
+        m_pStore.touch();
     }
 
     /**
@@ -485,7 +461,7 @@ public class GMCell implements Serializable {
      * @param m_DWood value to be assigned
      */
     public void setM_DWood(float m_DWood) {
-        this.m_DWood = m_DWood;
+        m_pStore.m_DWood[m_nIdx] = m_DWood;
     }
 
     /**
@@ -493,7 +469,7 @@ public class GMCell implements Serializable {
      * @param m_FelArea value to be assigned
      */
     public void setM_FelArea(float m_FelArea) {
-        this.m_FelArea = m_FelArea;
+        m_pStore.m_FelArea[m_nIdx] = m_FelArea;
     }
 
     /**
@@ -501,7 +477,7 @@ public class GMCell implements Serializable {
      * @param m_FelRem value to be assigned
      */
     public void setM_FelRem(float m_FelRem) {
-        this.m_FelRem = m_FelRem;
+        m_pStore.m_FelRem[m_nIdx] = m_FelRem;
     }
 
     /**
@@ -509,7 +485,7 @@ public class GMCell implements Serializable {
      * @param m_FelSlash value to be assigned
      */
     public void setM_FelSlash(float m_FelSlash) {
-        this.m_FelSlash = m_FelSlash;
+        m_pStore.m_FelSlash[m_nIdx] = m_FelSlash;
     }
 
     /**
@@ -517,7 +493,8 @@ public class GMCell implements Serializable {
      * @param m_FellingsShare value to be assigned
      */
     public void setM_FellingsShare(float m_FellingsShare) {
-        this.m_FellingsShare = m_FellingsShare;
+        m_pStore.m_FellingsShare[m_nIdx] = m_FellingsShare;
+        m_pStore.touch();
     }
 
     /**
@@ -525,7 +502,7 @@ public class GMCell implements Serializable {
      * @param m_FireNonReplSus value to be assigned
      */
     public void setM_FireNonReplSus(float m_FireNonReplSus) {
-        this.m_FireNonReplSus = m_FireNonReplSus;
+        m_pStore.m_FireNonReplSus[m_nIdx] = m_FireNonReplSus;
     }
 
     /**
@@ -533,7 +510,7 @@ public class GMCell implements Serializable {
      * @param m_FireReplSus value to be assigned
      */
     public void setM_FireReplSus(float m_FireReplSus) {
-        this.m_FireReplSus = m_FireReplSus;
+        m_pStore.m_FireReplSus[m_nIdx] = m_FireReplSus;
     }
 
     /**
@@ -541,7 +518,7 @@ public class GMCell implements Serializable {
      * @param m_Income value to be assigned
      */
     public void setM_Income(float m_Income) {
-        this.m_Income = m_Income;
+        m_pStore.m_Income[m_nIdx] = m_Income;
     }
 
     /**
@@ -549,7 +526,7 @@ public class GMCell implements Serializable {
      * @param m_InsNonReplSus value to be assigned
      */
     public void setM_InsNonReplSus(float m_InsNonReplSus) {
-        this.m_InsNonReplSus = m_InsNonReplSus;
+        m_pStore.m_InsNonReplSus[m_nIdx] = m_InsNonReplSus;
     }
 
     /**
@@ -557,7 +534,7 @@ public class GMCell implements Serializable {
      * @param m_InsReplSus value to be assigned
      */
     public void setM_InsReplSus(float m_InsReplSus) {
-        this.m_InsReplSus = m_InsReplSus;
+        m_pStore.m_InsReplSus[m_nIdx] = m_InsReplSus;
     }
 
     /**
@@ -565,7 +542,7 @@ public class GMCell implements Serializable {
      * @param m_Move value to be assigned
      */
     public void setM_Move(float m_Move) {
-        this.m_Move = m_Move;
+        m_pStore.m_Move[m_nIdx] = m_Move;
     }
 
     /**
@@ -573,7 +550,7 @@ public class GMCell implements Serializable {
      * @param m_MoveAsThin value to be assigned
      */
     public void setM_MoveAsThin(float m_MoveAsThin) {
-        this.m_MoveAsThin = m_MoveAsThin;
+        m_pStore.m_MoveAsThin[m_nIdx] = m_MoveAsThin;
     }
 
     /**
@@ -581,7 +558,7 @@ public class GMCell implements Serializable {
      * @param m_MoveAway value to be assigned
      */
     public void setM_MoveAway(float m_MoveAway) {
-        this.m_MoveAway = m_MoveAway;
+        m_pStore.m_MoveAway[m_nIdx] = m_MoveAway;
     }
 
     /**
@@ -589,7 +566,7 @@ public class GMCell implements Serializable {
      * @param m_MoveByX value to be assigned
      */
     public void setM_MoveByX(float m_MoveByX) {
-        this.m_MoveByX = m_MoveByX;
+        m_pStore.m_MoveByX[m_nIdx] = m_MoveByX;
     }
 
     /**
@@ -597,7 +574,7 @@ public class GMCell implements Serializable {
      * @param m_MoveByXOrg value to be assigned
      */
     public void setM_MoveByXOrg(float m_MoveByXOrg) {
-        this.m_MoveByXOrg = m_MoveByXOrg;
+        m_pStore.m_MoveByXOrg[m_nIdx] = m_MoveByXOrg;
     }
 
     /**
@@ -605,7 +582,7 @@ public class GMCell implements Serializable {
      * @param m_MoveByXY value to be assigned
      */
     public void setM_MoveByXY(float m_MoveByXY) {
-        this.m_MoveByXY = m_MoveByXY;
+        m_pStore.m_MoveByXY[m_nIdx] = m_MoveByXY;
     }
 
     /**
@@ -613,7 +590,7 @@ public class GMCell implements Serializable {
      * @param m_MoveByXYOrg value to be assigned
      */
     public void setM_MoveByXYOrg(float m_MoveByXYOrg) {
-        this.m_MoveByXYOrg = m_MoveByXYOrg;
+        m_pStore.m_MoveByXYOrg[m_nIdx] = m_MoveByXYOrg;
     }
 
     /**
@@ -621,7 +598,7 @@ public class GMCell implements Serializable {
      * @param m_MoveByY value to be assigned
      */
     public void setM_MoveByY(float m_MoveByY) {
-        this.m_MoveByY = m_MoveByY;
+        m_pStore.m_MoveByY[m_nIdx] = m_MoveByY;
     }
 
     /**
@@ -629,7 +606,7 @@ public class GMCell implements Serializable {
      * @param m_MoveByYOrg value to be assigned
      */
     public void setM_MoveByYOrg(float m_MoveByYOrg) {
-        this.m_MoveByYOrg = m_MoveByYOrg;
+        m_pStore.m_MoveByYOrg[m_nIdx] = m_MoveByYOrg;
     }
 
     /**
@@ -637,7 +614,7 @@ public class GMCell implements Serializable {
      * @param m_NatMrt value to be assigned
      */
     public void setM_NatMrt(float m_NatMrt) {
-        this.m_NatMrt = m_NatMrt;
+        m_pStore.m_NatMrt[m_nIdx] = m_NatMrt;
     }
 
     /**
@@ -645,7 +622,7 @@ public class GMCell implements Serializable {
      * @param m_ThArea value to be assigned
      */
     public void setM_ThArea(float m_ThArea) {
-        this.m_ThArea = m_ThArea;
+        m_pStore.m_ThArea[m_nIdx] = m_ThArea;
     }
 
     /**
@@ -653,7 +630,7 @@ public class GMCell implements Serializable {
      * @param m_ThRem value to be assigned
      */
     public void setM_ThRem(float m_ThRem) {
-        this.m_ThRem = m_ThRem;
+        m_pStore.m_ThRem[m_nIdx] = m_ThRem;
     }
 
     /**
@@ -661,7 +638,7 @@ public class GMCell implements Serializable {
      * @param m_ThSlash value to be assigned
      */
     public void setM_ThSlash(float m_ThSlash) {
-        this.m_ThSlash = m_ThSlash;
+        m_pStore.m_ThSlash[m_nIdx] = m_ThSlash;
     }
 
     /**
@@ -669,7 +646,7 @@ public class GMCell implements Serializable {
      * @param m_ThinArea value to be assigned
      */
     public void setM_ThinArea(float m_ThinArea) {
-        this.m_ThinArea = m_ThinArea;
+        m_pStore.m_ThinArea[m_nIdx] = m_ThinArea;
     }
 
     /**
@@ -677,7 +654,8 @@ public class GMCell implements Serializable {
      * @param m_ThinShare value to be assigned
      */
     public void setM_ThinShare(float m_ThinShare) {
-        this.m_ThinShare = m_ThinShare;
+        m_pStore.m_ThinShare[m_nIdx] = m_ThinShare;
+        m_pStore.touch();
     }
 
     /**
@@ -685,7 +663,7 @@ public class GMCell implements Serializable {
      * @param m_WindNonReplSus value to be assigned
      */
     public void setM_WindNonReplSus(float m_WindNonReplSus) {
-        this.m_WindNonReplSus = m_WindNonReplSus;
+        m_pStore.m_WindNonReplSus[m_nIdx] = m_WindNonReplSus;
     }
 
     /**
@@ -693,7 +671,7 @@ public class GMCell implements Serializable {
      * @param m_WindReplSus value to be assigned
      */
     public void setM_WindReplSus(float m_WindReplSus) {
-        this.m_WindReplSus = m_WindReplSus;
+        m_pStore.m_WindReplSus[m_nIdx] = m_WindReplSus;
     }
 
     /**
@@ -701,7 +679,7 @@ public class GMCell implements Serializable {
      * @param m_Xmax value to be assigned
      */
     public void setM_Xmax(float m_Xmax) {
-        this.m_Xmax = m_Xmax;
+        m_pStore.m_Xmax[m_nIdx] = m_Xmax;
     }
 
     /**
@@ -709,7 +687,7 @@ public class GMCell implements Serializable {
      * @param m_Xmin value to be assigned
      */
     public void setM_Xmin(float m_Xmin) {
-        this.m_Xmin = m_Xmin;
+        m_pStore.m_Xmin[m_nIdx] = m_Xmin;
     }
 
     /**
@@ -717,7 +695,7 @@ public class GMCell implements Serializable {
      * @param m_Xval value to be assigned
      */
     public void setM_Xval(float m_Xval) {
-        this.m_Xval = m_Xval;
+        m_pStore.m_Xval[m_nIdx] = m_Xval;
     }
 
     /**
@@ -725,7 +703,7 @@ public class GMCell implements Serializable {
      * @param m_Ymax value to be assigned
      */
     public void setM_Ymax(float m_Ymax) {
-        this.m_Ymax = m_Ymax;
+        m_pStore.m_Ymax[m_nIdx] = m_Ymax;
     }
 
     /**
@@ -733,7 +711,7 @@ public class GMCell implements Serializable {
      * @param m_Ymin value to be assigned
      */
     public void setM_Ymin(float m_Ymin) {
-        this.m_Ymin = m_Ymin;
+        m_pStore.m_Ymin[m_nIdx] = m_Ymin;
     }
 
     /**
@@ -741,7 +719,8 @@ public class GMCell implements Serializable {
      * @param m_Yval value to be assigned
      */
     public void setM_Yval(float m_Yval) {
-        this.m_Yval = m_Yval;
+        m_pStore.m_Yval[m_nIdx] = m_Yval;
+        m_pStore.touch();
     }
 
     /**
@@ -749,7 +728,8 @@ public class GMCell implements Serializable {
      * @param m_bThinned value to be assigned
      */
     public void setM_bThinned(boolean m_bThinned) {
-        this.m_bThinned = m_bThinned;
+        m_pStore.m_bThinned[m_nIdx] = m_bThinned;
+        m_pStore.touch();
     }
 
     /**
@@ -778,8 +758,8 @@ public class GMCell implements Serializable {
 
     @Override
     public String toString() {
-        return m_wID + " " + m_wX + " " + m_wY + " " + m_FellingsShare
-                + " " + m_bThinned;
+        return m_wID + " " + m_wX + " " + m_wY + " " + getM_FellingsShare()
+                + " " + isM_bThinned();
     }
     
     public boolean equals(Object obj) {
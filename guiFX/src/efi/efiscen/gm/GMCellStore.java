@@ -0,0 +1,244 @@
+/*
+ * Copyright (C) 2016 European Forest Institute
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package efi.efiscen.gm;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Structure-of-arrays storage of the cells of one EFISCEN matrix.
+ * Every cell attribute is kept in its own primitive array, indexed in the
+ * same way as GMMatrix.m_Cells, i.e. (col-1)*m_wYsize+(row-1).
+ * GMCell objects are views to one index of the store.
+ *
+ */
+public class GMCellStore implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /** Number of cells in the store */
+    public int m_nSize;
+
+    /** Changed when area, volume, shares or thinned flags are changed */
+    protected transient int m_nVersion;
+
+    // Coordinates in "real world"
+    public float[] m_Xmin;
+    public float[] m_Xmax;
+    public float[] m_Xval;
+    public float[] m_Ymin;
+    public float[] m_Ymax;
+    public float[] m_Yval;
+
+    // Mefique stuff
+    public float[] m_ThArea;
+    public float[] m_ThRem;
+    public float[] m_FelArea;
+    public float[] m_FelRem;
+
+    // Bioenergy purposes - slash keeping
+    public float[] m_ThSlash;
+    public float[] m_FelSlash;
+
+    // Natural mortality stuff
+    public float[] m_NatMrt;
+    public float[] m_DWood;
+
+    // Natural disturbances
+    public float[] m_FireReplSus;
+    public float[] m_FireNonReplSus;
+    public float[] m_WindReplSus;
+    public float[] m_WindNonReplSus;
+    public float[] m_InsReplSus;
+    public float[] m_InsNonReplSus;
+
+    // Area and its movements
+    public float[] m_Area;
+    public float[] m_ThinArea;
+    public float[] m_MoveAsThin;
+    public float[] m_MoveByX;
+    public float[] m_MoveByY;
+    public float[] m_MoveByXY;
+    public float[] m_MoveByXOrg;
+    public float[] m_MoveByYOrg;
+    public float[] m_MoveByXYOrg;
+    public float[] m_Move;
+    public float[] m_MoveAway;
+    public float[] m_FellingsShare;
+    public float[] m_ThinShare;
+    public float[] m_Income;
+    public boolean[] m_bThinned;
+
+    /**
+     * Parametrized constructor.
+     * All values are set to zero.
+     * @param nsize number of cells
+     */
+    public GMCellStore (int nsize) {
+        m_nSize = nsize;
+        m_Xmin = new float[nsize];
+        m_Xmax = new float[nsize];
+        m_Xval = new float[nsize];
+        m_Ymin = new float[nsize];
+        m_Ymax = new float[nsize];
+        m_Yval = new float[nsize];
+        m_ThArea = new float[nsize];
+        m_ThRem = new float[nsize];
+        m_FelArea = new float[nsize];
+        m_FelRem = new float[nsize];
+        m_ThSlash = new float[nsize];
+        m_FelSlash = new float[nsize];
+        m_NatMrt = new float[nsize];
+        m_DWood = new float[nsize];
+        m_FireReplSus = new float[nsize];
+        m_FireNonReplSus = new float[nsize];
+        m_WindReplSus = new float[nsize];
+        m_WindNonReplSus = new float[nsize];
+        m_InsReplSus = new float[nsize];
+        m_InsNonReplSus = new float[nsize];
+        m_Area = new float[nsize];
+        m_ThinArea = new float[nsize];
+        m_MoveAsThin = new float[nsize];
+        m_MoveByX = new float[nsize];
+        m_MoveByY = new float[nsize];
+        m_MoveByXY = new float[nsize];
+        m_MoveByXOrg = new float[nsize];
+        m_MoveByYOrg = new float[nsize];
+        m_MoveByXYOrg = new float[nsize];
+        m_Move = new float[nsize];
+        m_MoveAway = new float[nsize];
+        m_FellingsShare = new float[nsize];
+        m_ThinShare = new float[nsize];
+        m_Income = new float[nsize];
+        m_bThinned = new boolean[nsize];
+    }
+
+    /**
+     * Get number of cells in the store.
+     * @return number of cells
+     */
+    public int getSize () {
+        return m_nSize;
+    }
+
+    /**
+     * Get version of the values, is changed by touch.
+     * @return version
+     */
+    public int getVersion () {
+        return m_nVersion;
+    }
+
+    /**
+     * Marks the values as changed, so the potentials cached by the matrix
+     * are calculated again.
+     */
+    public void touch () {
+        m_nVersion++;
+    }
+
+    /**
+     * Copy all attributes of one cell of the source store to the given
+     * index of this store.
+     * @param ndest destination index
+     * @param pSrc source store
+     * @param nsrc source index
+     */
+    public void copyCell (int ndest, GMCellStore pSrc, int nsrc) {
+        m_Xmin[ndest] = pSrc.m_Xmin[nsrc];
+        m_Xmax[ndest] = pSrc.m_Xmax[nsrc];
+        m_Xval[ndest] = pSrc.m_Xval[nsrc];
+        m_Ymin[ndest] = pSrc.m_Ymin[nsrc];
+        m_Ymax[ndest] = pSrc.m_Ymax[nsrc];
+        m_Yval[ndest] = pSrc.m_Yval[nsrc];
+        m_ThArea[ndest] = pSrc.m_ThArea[nsrc];
+        m_ThRem[ndest] = pSrc.m_ThRem[nsrc];
+        m_FelArea[ndest] = pSrc.m_FelArea[nsrc];
+        m_FelRem[ndest] = pSrc.m_FelRem[nsrc];
+        m_ThSlash[ndest] = pSrc.m_ThSlash[nsrc];
+        m_FelSlash[ndest] = pSrc.m_FelSlash[nsrc];
+        m_NatMrt[ndest] = pSrc.m_NatMrt[nsrc];
+        m_DWood[ndest] = pSrc.m_DWood[nsrc];
+        m_FireReplSus[ndest] = pSrc.m_FireReplSus[nsrc];
+        m_FireNonReplSus[ndest] = pSrc.m_FireNonReplSus[nsrc];
+        m_WindReplSus[ndest] = pSrc.m_WindReplSus[nsrc];
+        m_WindNonReplSus[ndest] = pSrc.m_WindNonReplSus[nsrc];
+        m_InsReplSus[ndest] = pSrc.m_InsReplSus[nsrc];
+        m_InsNonReplSus[ndest] = pSrc.m_InsNonReplSus[nsrc];
+        m_Area[ndest] = pSrc.m_Area[nsrc];
+        m_ThinArea[ndest] = pSrc.m_ThinArea[nsrc];
+        m_MoveAsThin[ndest] = pSrc.m_MoveAsThin[nsrc];
+        m_MoveByX[ndest] = pSrc.m_MoveByX[nsrc];
+        m_MoveByY[ndest] = pSrc.m_MoveByY[nsrc];
+        m_MoveByXY[ndest] = pSrc.m_MoveByXY[nsrc];
+        m_MoveByXOrg[ndest] = pSrc.m_MoveByXOrg[nsrc];
+        m_MoveByYOrg[ndest] = pSrc.m_MoveByYOrg[nsrc];
+        m_MoveByXYOrg[ndest] = pSrc.m_MoveByXYOrg[nsrc];
+        m_Move[ndest] = pSrc.m_Move[nsrc];
+        m_MoveAway[ndest] = pSrc.m_MoveAway[nsrc];
+        m_FellingsShare[ndest] = pSrc.m_FellingsShare[nsrc];
+        m_ThinShare[ndest] = pSrc.m_ThinShare[nsrc];
+        m_Income[ndest] = pSrc.m_Income[nsrc];
+        m_bThinned[ndest] = pSrc.m_bThinned[nsrc];
+        touch();
+    }
+
+    /**
+     * Deep copy of the store.
+     * @return new store with the same values
+     */
+    public GMCellStore copy () {
+        GMCellStore pCopy = new GMCellStore(0);
+        pCopy.m_nSize = m_nSize;
+        pCopy.m_Xmin = Arrays.copyOf(m_Xmin, m_nSize);
+        pCopy.m_Xmax = Arrays.copyOf(m_Xmax, m_nSize);
+        pCopy.m_Xval = Arrays.copyOf(m_Xval, m_nSize);
+        pCopy.m_Ymin = Arrays.copyOf(m_Ymin, m_nSize);
+        pCopy.m_Ymax = Arrays.copyOf(m_Ymax, m_nSize);
+        pCopy.m_Yval = Arrays.copyOf(m_Yval, m_nSize);
+        pCopy.m_ThArea = Arrays.copyOf(m_ThArea, m_nSize);
+        pCopy.m_ThRem = Arrays.copyOf(m_ThRem, m_nSize);
+        pCopy.m_FelArea = Arrays.copyOf(m_FelArea, m_nSize);
+        pCopy.m_FelRem = Arrays.copyOf(m_FelRem, m_nSize);
+        pCopy.m_ThSlash = Arrays.copyOf(m_ThSlash, m_nSize);
+        pCopy.m_FelSlash = Arrays.copyOf(m_FelSlash, m_nSize);
+        pCopy.m_NatMrt = Arrays.copyOf(m_NatMrt, m_nSize);
+        pCopy.m_DWood = Arrays.copyOf(m_DWood, m_nSize);
+        pCopy.m_FireReplSus = Arrays.copyOf(m_FireReplSus, m_nSize);
+        pCopy.m_FireNonReplSus = Arrays.copyOf(m_FireNonReplSus, m_nSize);
+        pCopy.m_WindReplSus = Arrays.copyOf(m_WindReplSus, m_nSize);
+        pCopy.m_WindNonReplSus = Arrays.copyOf(m_WindNonReplSus, m_nSize);
+        pCopy.m_InsReplSus = Arrays.copyOf(m_InsReplSus, m_nSize);
+        pCopy.m_InsNonReplSus = Arrays.copyOf(m_InsNonReplSus, m_nSize);
+        pCopy.m_Area = Arrays.copyOf(m_Area, m_nSize);
+        pCopy.m_ThinArea = Arrays.copyOf(m_ThinArea, m_nSize);
+        pCopy.m_MoveAsThin = Arrays.copyOf(m_MoveAsThin, m_nSize);
+        pCopy.m_MoveByX = Arrays.copyOf(m_MoveByX, m_nSize);
+        pCopy.m_MoveByY = Arrays.copyOf(m_MoveByY, m_nSize);
+        pCopy.m_MoveByXY = Arrays.copyOf(m_MoveByXY, m_nSize);
+        pCopy.m_MoveByXOrg = Arrays.copyOf(m_MoveByXOrg, m_nSize);
+        pCopy.m_MoveByYOrg = Arrays.copyOf(m_MoveByYOrg, m_nSize);
+        pCopy.m_MoveByXYOrg = Arrays.copyOf(m_MoveByXYOrg, m_nSize);
+        pCopy.m_Move = Arrays.copyOf(m_Move, m_nSize);
+        pCopy.m_MoveAway = Arrays.copyOf(m_MoveAway, m_nSize);
+        pCopy.m_FellingsShare = Arrays.copyOf(m_FellingsShare, m_nSize);
+        pCopy.m_ThinShare = Arrays.copyOf(m_ThinShare, m_nSize);
+        pCopy.m_Income = Arrays.copyOf(m_Income, m_nSize);
+        pCopy.m_bThinned = Arrays.copyOf(m_bThinned, m_nSize);
+        return pCopy;
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright (C) 2016 European Forest Institute
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package efi.efiscen.gm;
+
+import efi.efiscen.com.ComArFlt;
+import java.util.ArrayList;
+
+/**
+ * Distribution history of one matrix for one variable of GMDistrHistory.
+ * Replaces the ComArFlt of lists in the distribution maps of GMEfiscen,
+ * the rows are kept in the packed store. getData returns a copy of the
+ * row; the exporters read the bins through getWidth and getValue.
+ *
+ */
+public class GMDistrColumn extends ComArFlt<ArrayList<Float>> {
+
+    private static final long serialVersionUID = 1L;
+
+    protected GMDistrHistory m_pHistory; // Store of the rows
+    protected int m_nVar; // Variable in the store
+    protected int m_nInd; // Column index in the store
+
+    /**
+     * Parametrized constructor.
+     * @param pHistory store of the rows
+     * @param nvar variable
+     * @param nind column index
+     */
+    public GMDistrColumn (GMDistrHistory pHistory, int nvar, int nind) {
+        super(0);
+        m_pHistory = pHistory;
+        m_nVar = nvar;
+        m_nInd = nind;
+    }
+
+    /**
+     * Copy of the rows detached from the store.
+     * @return new collection with copies of the rows
+     */
+    @Override
+    public ComArFlt<ArrayList<Float>> copy () {
+        int nsize = getSize();
+        ComArFlt<ArrayList<Float>> pCopy = new ComArFlt<>(nsize);
+        for (int i=0;i<nsize;i++)
+            pCopy.addData(getData(i));
+        return pCopy;
+    }
+
+    /**
+     * Get the store of the rows.
+     * @return store
+     */
+    public GMDistrHistory getHistory () {
+        return m_pHistory;
+    }
+
+    /**
+     * Get the variable in the store.
+     * @return variable
+     */
+    public int getVariable () {
+        return m_nVar;
+    }
+
+    /**
+     * Get the column index in the store.
+     * @return column index
+     */
+    public int getIndex () {
+        return m_nInd;
+    }
+
+    /**
+     * Set the row at given index. PrintStackTrace() in case of exception.
+     * @param nid array index
+     * @param val values to be stored
+     * @return 1 if successful -1 else
+     */
+    @Override
+    public int setData (int nid, ArrayList<Float> val) {
+        try {
+            m_pHistory.setRow(m_nVar, m_nInd, nid, val);
+        } catch (IndexOutOfBoundsException iob) {
+            iob.printStackTrace();
+            return -1;
+        }
+        return 1;
+    }
+
+    /**
+     * Add row to the array, the values are copied to the store.
+     * @param val values to be added
+     * @return index of the top element in the array
+     */
+    @Override
+    public int addData (ArrayList<Float> val) {
+        return m_pHistory.addRow(m_nVar, m_nInd, val);
+    }
+
+    /**
+     * Add row to the array without boxing the values.
+     * @param afRow values to be added
+     * @return index of the top element in the array
+     */
+    public int addData (float[] afRow) {
+        return m_pHistory.addRow(m_nVar, m_nInd, afRow);
+    }
+
+    /**
+     * Return copy of the row at given index.
+     * @param nid array index
+     * @return values at given index or null if not found
+     */
+    @Override
+    public ArrayList<Float> getData (int nid) {
+        if (nid<0 || nid>=getSize())
+            return null;
+        return m_pHistory.getRow(m_nVar, m_nInd, nid);
+    }
+
+    /**
+     * Get the size of the array.
+     * @return number of stored rows
+     */
+    @Override
+    public int getSize () {
+        return m_pHistory.getSize(m_nVar, m_nInd);
+    }
+
+    /**
+     * Get number of bins of the rows.
+     * @return number of bins
+     */
+    public int getWidth () {
+        return m_pHistory.getWidth(m_nVar);
+    }
+
+    /**
+     * Value of the bin at given index without copying the row.
+     * @param nid array index
+     * @param nbin bin
+     * @return value
+     * @throws IndexOutOfBoundsException if the index or bin is out of range
+     */
+    public float getValue (int nid, int nbin) {
+        return m_pHistory.getValue(m_nVar, m_nInd, nid, nbin);
+    }
+
+    /**
+     * Number of bins of the row at given index of any distribution history.
+     * @param pAr distribution history
+     * @param nid array index
+     * @return number of bins or -1 if there is no row at the index
+     */
+    public static int getWidth (ComArFlt<ArrayList<Float>> pAr, int nid) {
+        if (pAr instanceof GMDistrColumn) {
+            GMDistrColumn pCol = (GMDistrColumn)pAr;
+            return nid>=0 && nid<pCol.getSize() ? pCol.getWidth() : -1;
+        }
+        ArrayList<Float> pRow = pAr.getData(nid);
+        return pRow == null ? -1 : pRow.size();
+    }
+
+    /**
+     * Add row to any distribution history.
+     * @param pAr distribution history
+     * @param afRow values to be added
+     * @return index of the top element in the array
+     */
+    public static int addData (ComArFlt<ArrayList<Float>> pAr, float[] afRow) {
+        if (pAr instanceof GMDistrColumn)
+            return ((GMDistrColumn)pAr).addData(afRow);
+        ArrayList<Float> pRow = new ArrayList<>(afRow.length);
+        for (float val : afRow)
+            pRow.add(val);
+        return pAr.addData(pRow);
+    }
+
+    /**
+     * Value of the bin at given index of any distribution history.
+     * @param pAr distribution history
+     * @param nid array index
+     * @param nbin bin
+     * @return value
+     * @throws IndexOutOfBoundsException if the bin is out of range
+     * @throws NullPointerException if there is no row at the index
+     */
+    public static float getValue (ComArFlt<ArrayList<Float>> pAr, int nid, int nbin) {
+        if (pAr instanceof GMDistrColumn)
+            return ((GMDistrColumn)pAr).getValue(nid, nbin);
+        return pAr.getData(nid).get(nbin);
+    }
+}
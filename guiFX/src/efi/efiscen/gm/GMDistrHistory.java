@@ -0,0 +1,299 @@
+/*
+ * Copyright (C) 2016 European Forest Institute
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package efi.efiscen.gm;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Packed store of the distribution histories of matrixes (area, stock,
+ * carbon, harvest etc. by age classes). Every variable has a fixed number
+ * of bins and keeps the rows of a matrix in one primitive array, laid out
+ * as [step][bin]. Columns are the matrix keys, translated to indexes by a
+ * dictionary shared by all variables.
+ * The variables are accessed through GMDistrMap and GMDistrColumn, which
+ * implement the map of ComArFlt used by the reporting code.
+ *
+ */
+public class GMDistrHistory implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    protected HashMap<Long,Integer> m_mIndex; // Column index of the key
+    protected long[] m_alKeys; // Key of the column
+    protected int m_nKeys; // Number of columns
+    protected int m_nCap; // Columns allocated
+    protected ArrayList<Integer> m_aWidths; // Number of bins of the variables
+    protected ArrayList<float[][]> m_aData; // Rows of the columns of the variables
+    protected ArrayList<int[]> m_aSizes; // Number of steps in the columns
+
+    /**
+     * Default constructor.
+     */
+    public GMDistrHistory () {
+        this(16);
+    }
+
+    /**
+     * Constructor with the expected number of columns.
+     * @param ncap number of columns
+     */
+    public GMDistrHistory (int ncap) {
+        m_nCap = Math.max(ncap,1);
+        m_mIndex = new HashMap<>();
+        m_alKeys = new long[m_nCap];
+        m_nKeys = 0;
+        m_aWidths = new ArrayList<>();
+        m_aData = new ArrayList<>();
+        m_aSizes = new ArrayList<>();
+    }
+
+    /**
+     * Deep copy of the store, the rows are copied as primitive arrays.
+     * @return copy
+     */
+    public GMDistrHistory copy () {
+        GMDistrHistory pCopy = new GMDistrHistory(m_nCap);
+        pCopy.m_mIndex.putAll(m_mIndex);
+        pCopy.m_alKeys = m_alKeys.clone();
+        pCopy.m_nKeys = m_nKeys;
+        pCopy.m_aWidths.addAll(m_aWidths);
+        for (float[][] aafData : m_aData) {
+            float[][] aafCopy = new float[aafData.length][];
+            for (int i=0;i<aafData.length;i++)
+                if (aafData[i] != null)
+                    aafCopy[i] = aafData[i].clone();
+            pCopy.m_aData.add(aafCopy);
+        }
+        for (int[] anSizes : m_aSizes)
+            pCopy.m_aSizes.add(anSizes.clone());
+        return pCopy;
+    }
+
+    /**
+     * Adds a new variable.
+     * @param nwidth number of bins
+     * @return index of the variable
+     */
+    public int addVariable (int nwidth) {
+        m_aWidths.add(Math.max(nwidth,1));
+        m_aData.add(new float[m_nCap][]);
+        m_aSizes.add(new int[m_nCap]);
+        return m_aWidths.size()-1;
+    }
+
+    /**
+     * Adds a new variable and the map to access it.
+     * @param nwidth number of bins
+     * @return map of the variable
+     */
+    public GMDistrMap createMap (int nwidth) {
+        return new GMDistrMap(this, addVariable(nwidth));
+    }
+
+    /**
+     * Get number of variables.
+     * @return number of variables
+     */
+    public int getNumVariables () {
+        return m_aWidths.size();
+    }
+
+    /**
+     * Get number of bins of the variable.
+     * @param nvar variable
+     * @return number of bins
+     */
+    public int getWidth (int nvar) {
+        return m_aWidths.get(nvar);
+    }
+
+    /**
+     * Get number of columns.
+     * @return number of columns
+     */
+    public int getNumKeys () {
+        return m_nKeys;
+    }
+
+    /**
+     * Key of the column.
+     * @param nind column index
+     * @return key
+     */
+    public long getKey (int nind) {
+        return m_alKeys[nind];
+    }
+
+    /**
+     * Column index of the key.
+     * @param ukey key
+     * @return index, -1 if the key has no column
+     */
+    public int getIndex (long ukey) {
+        Integer nind = m_mIndex.get(ukey);
+        return nind == null ? -1 : nind;
+    }
+
+    /**
+     * Column index of the key, the column is added if needed.
+     * @param ukey key
+     * @return index
+     */
+    public int addKey (long ukey) {
+        Integer nind = m_mIndex.get(ukey);
+        if (nind != null)
+            return nind;
+        if (m_nKeys == m_nCap) {
+            m_nCap *= 2;
+            for (int i=0;i<m_aWidths.size();i++) {
+                m_aData.set(i, Arrays.copyOf(m_aData.get(i), m_nCap));
+                m_aSizes.set(i, Arrays.copyOf(m_aSizes.get(i), m_nCap));
+            }
+            m_alKeys = Arrays.copyOf(m_alKeys, m_nCap);
+        }
+        m_alKeys[m_nKeys] = ukey;
+        m_mIndex.put(ukey, m_nKeys);
+        return m_nKeys++;
+    }
+
+    /**
+     * Number of steps stored in the column.
+     * @param nvar variable
+     * @param nind column index
+     * @return number of steps
+     */
+    public int getSize (int nvar, int nind) {
+        return m_aSizes.get(nvar)[nind];
+    }
+
+    /**
+     * Value of the bin of the column at the step.
+     * @param nvar variable
+     * @param nind column index
+     * @param nstep step
+     * @param nbin bin
+     * @return value
+     * @throws IndexOutOfBoundsException if the step or bin is not stored
+     */
+    public float getValue (int nvar, int nind, int nstep, int nbin) {
+        int nwidth = m_aWidths.get(nvar);
+        checkStep(nvar, nind, nstep);
+        if (nbin<0 || nbin>=nwidth)
+            throw new IndexOutOfBoundsException("Bin: "+nbin+", Width: "+nwidth);
+        return m_aData.get(nvar)[nind][nstep*nwidth+nbin];
+    }
+
+    /**
+     * Row of the column at the step as a new list.
+     * @param nvar variable
+     * @param nind column index
+     * @param nstep step
+     * @return values of the bins
+     * @throws IndexOutOfBoundsException if the step is not stored
+     */
+    public ArrayList<Float> getRow (int nvar, int nind, int nstep) {
+        int nwidth = m_aWidths.get(nvar);
+        checkStep(nvar, nind, nstep);
+        float[] afData = m_aData.get(nvar)[nind];
+        ArrayList<Float> pRow = new ArrayList<>(nwidth);
+        for (int i=nstep*nwidth;i<(nstep+1)*nwidth;i++)
+            pRow.add(afData[i]);
+        return pRow;
+    }
+
+    /**
+     * Sets row of the column at the step.
+     * @param nvar variable
+     * @param nind column index
+     * @param nstep step
+     * @param pRow values of the bins
+     * @throws IndexOutOfBoundsException if the step is not stored
+     * @throws IllegalArgumentException if the number of values differs
+     * from the number of bins
+     */
+    public void setRow (int nvar, int nind, int nstep, List<Float> pRow) {
+        checkStep(nvar, nind, nstep);
+        copyRow(m_aData.get(nvar)[nind], nstep, m_aWidths.get(nvar), pRow);
+    }
+
+    /**
+     * Appends row to the column.
+     * @param nvar variable
+     * @param nind column index
+     * @param pRow values of the bins
+     * @return step of the row
+     * @throws IllegalArgumentException if the number of values differs
+     * from the number of bins
+     */
+    public int addRow (int nvar, int nind, List<Float> pRow) {
+        int nwidth = m_aWidths.get(nvar);
+        if (pRow.size() != nwidth)
+            throw new IllegalArgumentException("Row of "+pRow.size()+" values, "+nwidth+" expected");
+        int nstep = m_aSizes.get(nvar)[nind];
+        copyRow(growColumn(nvar, nind), nstep, nwidth, pRow);
+        m_aSizes.get(nvar)[nind] = nstep+1;
+        return nstep;
+    }
+
+    /**
+     * Appends row to the column without boxing the values.
+     * @param nvar variable
+     * @param nind column index
+     * @param afRow values of the bins
+     * @return step of the row
+     * @throws IllegalArgumentException if the number of values differs
+     * from the number of bins
+     */
+    public int addRow (int nvar, int nind, float[] afRow) {
+        int nwidth = m_aWidths.get(nvar);
+        if (afRow.length != nwidth)
+            throw new IllegalArgumentException("Row of "+afRow.length+" values, "+nwidth+" expected");
+        int nstep = m_aSizes.get(nvar)[nind];
+        System.arraycopy(afRow, 0, growColumn(nvar, nind), nstep*nwidth, nwidth);
+        m_aSizes.get(nvar)[nind] = nstep+1;
+        return nstep;
+    }
+
+    private float[] growColumn (int nvar, int nind) {
+        int nwidth = m_aWidths.get(nvar);
+        float[][] aafData = m_aData.get(nvar);
+        int nstep = m_aSizes.get(nvar)[nind];
+        float[] afData = aafData[nind];
+        if (afData == null)
+            afData = aafData[nind] = new float[16*nwidth];
+        else if (afData.length < (nstep+1)*nwidth)
+            afData = aafData[nind] = Arrays.copyOf(afData, 2*afData.length);
+        return afData;
+    }
+
+    private void checkStep (int nvar, int nind, int nstep) {
+        if (nstep<0 || nstep>=m_aSizes.get(nvar)[nind])
+            throw new IndexOutOfBoundsException("Index: "+nstep+", Size: "+m_aSizes.get(nvar)[nind]);
+    }
+
+    private static void copyRow (float[] afData, int nstep, int nwidth, List<Float> pRow) {
+        if (pRow.size() != nwidth)
+            throw new IllegalArgumentException("Row of "+pRow.size()+" values, "+nwidth+" expected");
+        int noff = nstep*nwidth;
+        for (int i=0;i<nwidth;i++)
+            afData[noff+i] = pRow.get(i);
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2016 European Forest Institute
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package efi.efiscen.gm;
+
+import efi.efiscen.com.ComArFlt;
+import java.util.ArrayList;
+
+/**
+ * Map of the distribution histories of one variable of GMDistrHistory by
+ * matrix keys. New columns are created by addColumn; the map can still
+ * hold other ComArFlt (e.g. histories of a loaded session).
+ *
+ */
+public class GMDistrMap extends GMKeyMap<ComArFlt<ArrayList<Float>>> {
+
+    private static final long serialVersionUID = 1L;
+
+    protected GMDistrHistory m_pHistory; // Store of the rows
+    protected int m_nVar; // Variable in the store
+
+    /**
+     * Parametrized constructor.
+     * @param pHistory store of the rows
+     * @param nvar variable
+     */
+    public GMDistrMap (GMDistrHistory pHistory, int nvar) {
+        m_pHistory = pHistory;
+        m_nVar = nvar;
+    }
+
+    /**
+     * Constructor with the initial capacity.
+     * @param pHistory store of the rows
+     * @param nvar variable
+     * @param ncap initial capacity
+     */
+    public GMDistrMap (GMDistrHistory pHistory, int nvar, int ncap) {
+        super(ncap);
+        m_pHistory = pHistory;
+        m_nVar = nvar;
+    }
+
+    /**
+     * Copy of the map for a copy of its store, iterating in the same order.
+     * Columns of the store are bound to the same columns of the given
+     * store, other values are copied with their rows.
+     * @param pHistory copy of the store (see GMDistrHistory.copy)
+     * @return copy of the map
+     */
+    public GMDistrMap copy (GMDistrHistory pHistory) {
+        return copyOrdered(this,
+                ncap -> ncap == 0 ? new GMDistrMap(pHistory, m_nVar) : new GMDistrMap(pHistory, m_nVar, ncap),
+                pVal -> {
+                    if (pVal instanceof GMDistrColumn) {
+                        GMDistrColumn pCol = (GMDistrColumn)pVal;
+                        if (pCol.getHistory() == m_pHistory)
+                            return new GMDistrColumn(pHistory, pCol.getVariable(), pCol.getIndex());
+                        return pCol.copy();
+                    }
+                    ComArFlt<ArrayList<Float>> pCopy = new ComArFlt<>(pVal.getSize());
+                    for (int i=0;i<pVal.getSize();i++) {
+                        ArrayList<Float> pRow = pVal.getData(i);
+                        pCopy.addData(pRow == null ? null : new ArrayList<>(pRow));
+                    }
+                    return pCopy;
+                });
+    }
+
+    /**
+     * Get the store of the rows.
+     * @return store
+     */
+    public GMDistrHistory getHistory () {
+        return m_pHistory;
+    }
+
+    /**
+     * Get the variable in the store.
+     * @return variable
+     */
+    public int getVariable () {
+        return m_nVar;
+    }
+
+    /**
+     * Creates the column of the key and puts it to the map.
+     * @param ukey matrix key
+     * @return column
+     */
+    public GMDistrColumn addColumn (long ukey) {
+        GMDistrColumn pCol = new GMDistrColumn(m_pHistory, m_nVar, m_pHistory.addKey(ukey));
+        put(ukey, pCol);
+        return pCol;
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright (C) 2016 European Forest Institute
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package efi.efiscen.gm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Totals and age class distributions of one matrix collected in a single
+ * sweep over the cells by GMMatrix.reportDistr. The bins are the same as
+ * in getAreaDistr, getStockDistr etc.: a value goes to the first bin whose
+ * limit is not below the upper age limit of the cell, the last bin takes
+ * the rest. The object can be reused for all matrixes of a step.
+ *
+ */
+public class GMDistrReport {
+
+    public int m_nSize; // Number of bins
+    protected float[] m_afLims; // Upper limits of the first m_nSize-1 bins
+
+    // Totals
+    public float m_fValue; // Growing stock, as getValue
+    public float m_fArea; // Area with bare land, as getArea
+    public float m_fBiomass; // Carbon in biomass, as getBiomassDistr
+
+    // Carbon compartments
+    public float[] m_afStem;
+    public float[] m_afBranches;
+    public float[] m_afLeaves;
+    public float[] m_afCroots;
+    public float[] m_afFroots;
+
+    // Areas and stocks
+    public float[] m_afAreas;
+    public float[] m_afStocks;
+
+    // Mefique stuff
+    public float[] m_afThAreas;
+    public float[] m_afThRems;
+    public float[] m_afFelAreas;
+    public float[] m_afFelRems;
+
+    // Bioenergy
+    public float[] m_afThSlash;
+    public float[] m_afFelSlash;
+
+    // Natural mortality and deadwood
+    public float[] m_afNatMort;
+    public float[] m_afDeadWood;
+
+    /**
+     * Parametrized constructor.
+     * @param pLims age limits
+     * @param nsize number of bins
+     */
+    public GMDistrReport (ArrayList<Float> pLims, int nsize) {
+        m_nSize = nsize;
+        m_afLims = new float[Math.max(nsize-1,0)];
+        for (int i=0;i<nsize-1;i++)
+            m_afLims[i] = pLims.get(i);
+        m_afStem = new float[nsize];
+        m_afBranches = new float[nsize];
+        m_afLeaves = new float[nsize];
+        m_afCroots = new float[nsize];
+        m_afFroots = new float[nsize];
+        m_afAreas = new float[nsize];
+        m_afStocks = new float[nsize];
+        m_afThAreas = new float[nsize];
+        m_afThRems = new float[nsize];
+        m_afFelAreas = new float[nsize];
+        m_afFelRems = new float[nsize];
+        m_afThSlash = new float[nsize];
+        m_afFelSlash = new float[nsize];
+        m_afNatMort = new float[nsize];
+        m_afDeadWood = new float[nsize];
+    }
+
+    /**
+     * Sets all totals and bins to zero.
+     */
+    public void clear () {
+        m_fValue = 0.0f;
+        m_fArea = 0.0f;
+        m_fBiomass = 0.0f;
+        Arrays.fill(m_afStem, 0.0f);
+        Arrays.fill(m_afBranches, 0.0f);
+        Arrays.fill(m_afLeaves, 0.0f);
+        Arrays.fill(m_afCroots, 0.0f);
+        Arrays.fill(m_afFroots, 0.0f);
+        Arrays.fill(m_afAreas, 0.0f);
+        Arrays.fill(m_afStocks, 0.0f);
+        Arrays.fill(m_afThAreas, 0.0f);
+        Arrays.fill(m_afThRems, 0.0f);
+        Arrays.fill(m_afFelAreas, 0.0f);
+        Arrays.fill(m_afFelRems, 0.0f);
+        Arrays.fill(m_afThSlash, 0.0f);
+        Arrays.fill(m_afFelSlash, 0.0f);
+        Arrays.fill(m_afNatMort, 0.0f);
+        Arrays.fill(m_afDeadWood, 0.0f);
+    }
+
+    /**
+     * Bin of the upper age limit.
+     * @param xmax upper age limit of the cell
+     * @return bin
+     */
+    public int getBin (float xmax) {
+        int jj = 0;
+        while (jj < m_nSize-1 && xmax > m_afLims[jj])
+            jj+=1;
+        return jj;
+    }
+
+    /**
+     * List of nsize zeros, used for the reference distribution methods.
+     * @param nsize number of bins
+     * @return list of zeros
+     */
+    public static ArrayList<Float> zeros (int nsize) {
+        ArrayList<Float> pRet = new ArrayList<>(nsize);
+        for (int i=0;i<nsize;i++)
+            pRet.add(0.0f);
+        return pRet;
+    }
+
+    /**
+     * Copies the list to the bins.
+     * @param pSrc values
+     * @param afDest bins
+     */
+    public static void copy (ArrayList<Float> pSrc, float[] afDest) {
+        for (int i=0;i<afDest.length;i++)
+            afDest[i] = pSrc.get(i);
+    }
+}
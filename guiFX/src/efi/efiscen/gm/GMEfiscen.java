@@ -16,10 +16,19 @@
  */
 package efi.efiscen.gm;
 
+import efi.efiscen.com.ComArDouble;
+import efi.efiscen.com.ComArFloat;
 import efi.efiscen.com.ComArFlt;
+import efi.efiscen.com.ComSum;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.io.Serializable;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 //import int_.efi.efiscen.io.*;
 
 /**
@@ -27,7 +36,7 @@ import java.io.Serializable;
  * space of parameters. Takes care of the output.
  * 
  */
-public class GMEfiscen implements Serializable {
+public class GMEfiscen implements Serializable, Cloneable {
 
     public int historyUpdateCounter = 0;//Added by Janne for GUI purposes
     
@@ -82,32 +91,35 @@ public class GMEfiscen implements Serializable {
                                       // (may be not thinned?)
 
     // Main matrixes data
-    public HashMap<Long,ComArFlt<Float>> m_mafArea;
-    public HashMap<Long,ComArFlt<Float>> m_mafGrStock;
-    public HashMap<Long,ComArFlt<Float>> m_mafIncrement;
-    public HashMap<Long,ComArFlt<Float>> m_mafAvrIncrement;
-    public HashMap<Long,ComArFlt<Float>> m_mafThinnings;
-    public HashMap<Long,ComArFlt<Float>> m_mafFellings;
-    public HashMap<Long,ComArFlt<Float>> m_mafBiomass;
-    public HashMap<Long,ComArFlt<Float>> m_mafDeadWood;
-    public HashMap<Long,ComArFlt<Float>> m_mafNatMort;
+    public GMHistory m_pTableHistory; // Columnar store of the matrix histories
+    public GMHistory m_pSoilHistory; // Columnar store of the soil histories
+    public GMDistrHistory m_pDistrHistory; // Packed store of the distribution histories
+    public GMHistoryMap m_mafArea;
+    public GMHistoryMap m_mafGrStock;
+    public GMHistoryMap m_mafIncrement;
+    public GMHistoryMap m_mafAvrIncrement;
+    public GMHistoryMap m_mafThinnings;
+    public GMHistoryMap m_mafFellings;
+    public GMHistoryMap m_mafBiomass;
+    public GMHistoryMap m_mafDeadWood;
+    public GMHistoryMap m_mafNatMort;
     
     // Affor fund added by Janne 2012 for storing afforfund historydata
-    public HashMap<Long,ComArFlt<Float>> m_mafAfforFund;
-    public HashMap<Long,ComArFlt<Float>> m_mafBareArea;
-    public HashMap<Long,ComArFlt<Float>> m_mafPotentialFellingsArea;
-    public HashMap<Long,ComArFlt<Float>> m_mafPotentialFellingsVolume;
+    public GMHistoryMap m_mafAfforFund;
+    public GMHistoryMap m_mafBareArea;
+    public GMHistoryMap m_mafPotentialFellingsArea;
+    public GMHistoryMap m_mafPotentialFellingsVolume;
     // Soils data
-    public HashMap<Long,ComArFlt<Float>> m_mafSoilCwl;
-    public HashMap<Long,ComArFlt<Float>> m_mafSoilFwl;
-    public HashMap<Long,ComArFlt<Float>> m_mafSoilNwl;
-    public HashMap<Long,ComArFlt<Float>> m_mafSoilCel;
-    public HashMap<Long,ComArFlt<Float>> m_mafSoilSol;
-    public HashMap<Long,ComArFlt<Float>> m_mafSoilLig;
-    public HashMap<Long,ComArFlt<Float>> m_mafSoilHm1;
-    public HashMap<Long,ComArFlt<Float>> m_mafSoilHm2;
-    public HashMap<Long,ComArFlt<Float>> m_mafSoilClost;
-    public HashMap<Long,ComArFlt<Float>> m_mafCSoil;   // Total carbon stock in soil
+    public GMHistoryMap m_mafSoilCwl;
+    public GMHistoryMap m_mafSoilFwl;
+    public GMHistoryMap m_mafSoilNwl;
+    public GMHistoryMap m_mafSoilCel;
+    public GMHistoryMap m_mafSoilSol;
+    public GMHistoryMap m_mafSoilLig;
+    public GMHistoryMap m_mafSoilHm1;
+    public GMHistoryMap m_mafSoilHm2;
+    public GMHistoryMap m_mafSoilClost;
+    public GMHistoryMap m_mafCSoil;   // Total carbon stock in soil
 
     // Soil data - litter input. Added 12.07.2007 
     // 
@@ -121,34 +133,34 @@ public class GMEfiscen implements Serializable {
     public float m_ThinInt;
     public boolean m_bIsStart;
 
-    public HashMap<Long,GMMatrix> m_mTables;
+    public GMKeyMap<GMMatrix> m_mTables;
     public HashMap<Long,GMCollection> m_mRegions;
     public HashMap<Long,GMCollection> m_mOwners;
     public HashMap<Long,GMCollection> m_mSites;
     public HashMap<Long,GMCollection> m_mSpecies;
-    public HashMap<Long,GMSoil> m_mSoils;
+    public GMKeyMap<GMSoil> m_mSoils;
 
     public ArrayList<Float> m_pDistrLims;
 
-    public HashMap<Long,ComArFlt<ArrayList<Float>>> m_mafAreas;
-    public HashMap<Long,ComArFlt<ArrayList<Float>>> m_mafStocks;
-    public HashMap<Long,ComArFlt<ArrayList<Float>>> m_mafCStem;
-    public HashMap<Long,ComArFlt<ArrayList<Float>>> m_mafCBranches;
-    public HashMap<Long,ComArFlt<ArrayList<Float>>> m_mafCLeaves;
-    public HashMap<Long,ComArFlt<ArrayList<Float>>> m_mafCCRoots;
-    public HashMap<Long,ComArFlt<ArrayList<Float>>> m_mafCFRoots;
-    public HashMap<Long,ComArFlt<ArrayList<Float>>> m_mafMfqThAreas;
-    public HashMap<Long,ComArFlt<ArrayList<Float>>> m_mafMfqThRems;
-    public HashMap<Long,ComArFlt<ArrayList<Float>>> m_mafMfqFelAreas;
-    public HashMap<Long,ComArFlt<ArrayList<Float>>> m_mafMfqFelRems;
-    public HashMap<Long,ComArFlt<ArrayList<Float>>> m_mafBeThSlash;
-    public HashMap<Long,ComArFlt<ArrayList<Float>>> m_mafBeFelSlash;
-    public HashMap<Long,ComArFlt<ArrayList<Float>>> m_mafThRsd;
-    public HashMap<Long,ComArFlt<ArrayList<Float>>> m_mafFelRsd;
-    public HashMap<Long,ComArFlt<ArrayList<Float>>> m_mafThRsdRem;
-    public HashMap<Long,ComArFlt<ArrayList<Float>>> m_mafFelRsdRem;
-    public HashMap<Long,ComArFlt<ArrayList<Float>>> m_mafNatMortDistr;
-    public HashMap<Long,ComArFlt<ArrayList<Float>>> m_mafDeadWoodDistr;
+    public GMDistrMap m_mafAreas;
+    public GMDistrMap m_mafStocks;
+    public GMDistrMap m_mafCStem;
+    public GMDistrMap m_mafCBranches;
+    public GMDistrMap m_mafCLeaves;
+    public GMDistrMap m_mafCCRoots;
+    public GMDistrMap m_mafCFRoots;
+    public GMDistrMap m_mafMfqThAreas;
+    public GMDistrMap m_mafMfqThRems;
+    public GMDistrMap m_mafMfqFelAreas;
+    public GMDistrMap m_mafMfqFelRems;
+    public GMDistrMap m_mafBeThSlash;
+    public GMDistrMap m_mafBeFelSlash;
+    public GMDistrMap m_mafThRsd;
+    public GMDistrMap m_mafFelRsd;
+    public GMDistrMap m_mafThRsdRem;
+    public GMDistrMap m_mafFelRsdRem;
+    public GMDistrMap m_mafNatMortDistr;
+    public GMDistrMap m_mafDeadWoodDistr;
     public HashMap<Long,Float> grsprev;
 
     // Growing stock and biomass data
@@ -176,6 +188,12 @@ public class GMEfiscen implements Serializable {
     public ComArFlt<Float> m_afSoilClost;
     
     public boolean deferr = false;   //true if not enough area to perform deforestation
+    public boolean m_bFusedStep = true; //fused stepV4 instead of growV4 + updateV4
+    public int m_nParallelism = 1; //threads for per matrix phases, 1 - sequential
+    private transient ForkJoinPool m_pPool; //pool of m_nParallelism threads
+    private transient HashMap<Long,GMMatrixPars> m_mPars; //resolved parameters by key
+    private transient GMParLocator[] m_aplBound; //locators m_mPars was resolved from
+    private transient int[] m_anBound; //modification counts of m_aplBound
     
     /**
      * Default constructor.
@@ -189,12 +207,12 @@ public class GMEfiscen implements Serializable {
         m_nStep = 5;
         m_FelInt = 1.0f;
         m_ThinInt = 1.0f;
-        m_mTables = new HashMap<>();
+        m_mTables = new GMKeyMap<>();
         m_mRegions = new HashMap<>();
         m_mOwners = new HashMap<>();
         m_mSites = new HashMap<>();
         m_mSpecies = new HashMap<>();
-        m_mSoils = new HashMap<>();
+        m_mSoils = new GMKeyMap<>();
         grsprev = new HashMap<>();
 
         m_plAgeNum = new GMParLocator("Age class count");
@@ -232,81 +250,84 @@ public class GMEfiscen implements Serializable {
         m_plMortRateXvals = new GMParLocator("Mortality rate Xvals");
         m_plMortRate = new GMParLocator("Mortality rate");
 
-        m_mafArea = new HashMap<>();
-        m_mafGrStock = new HashMap<>();
-        m_mafIncrement = new HashMap<>();
-        m_mafAvrIncrement = new HashMap<>();
-        m_mafThinnings = new HashMap<>();
-        m_mafFellings = new HashMap<>();
-        m_mafBiomass = new HashMap<>();
-        m_mafDeadWood = new HashMap<>();
-        m_mafNatMort = new HashMap<>();
-        m_mafAfforFund = new HashMap<>();
-        m_mafBareArea = new HashMap<>();
-        m_mafPotentialFellingsArea = new HashMap<>();
-        m_mafPotentialFellingsVolume = new HashMap<>();
-
-        m_mafSoilCwl = new HashMap<>();
-        m_mafSoilFwl = new HashMap<>();
-        m_mafSoilNwl = new HashMap<>();
-        m_mafSoilCel = new HashMap<>();
-        m_mafSoilSol = new HashMap<>();
-        m_mafSoilLig = new HashMap<>();
-        m_mafSoilHm1 = new HashMap<>();
-        m_mafSoilHm2 = new HashMap<>();
-        m_mafSoilClost = new HashMap<>();
-        m_mafCSoil = new HashMap<>();
+        m_pTableHistory = new GMHistory();
+        m_pSoilHistory = new GMHistory();
+        m_pDistrHistory = new GMDistrHistory();
+        m_mafArea = m_pTableHistory.createMap();
+        m_mafGrStock = m_pTableHistory.createMap();
+        m_mafIncrement = m_pTableHistory.createMap();
+        m_mafAvrIncrement = m_pTableHistory.createMap();
+        m_mafThinnings = m_pTableHistory.createMap();
+        m_mafFellings = m_pTableHistory.createMap();
+        m_mafBiomass = m_pTableHistory.createMap();
+        m_mafDeadWood = m_pTableHistory.createMap();
+        m_mafNatMort = m_pTableHistory.createMap();
+        m_mafAfforFund = m_pTableHistory.createMap();
+        m_mafBareArea = m_pTableHistory.createMap();
+        m_mafPotentialFellingsArea = m_pTableHistory.createMap();
+        m_mafPotentialFellingsVolume = m_pTableHistory.createMap();
+
+        m_mafSoilCwl = m_pSoilHistory.createMap();
+        m_mafSoilFwl = m_pSoilHistory.createMap();
+        m_mafSoilNwl = m_pSoilHistory.createMap();
+        m_mafSoilCel = m_pSoilHistory.createMap();
+        m_mafSoilSol = m_pSoilHistory.createMap();
+        m_mafSoilLig = m_pSoilHistory.createMap();
+        m_mafSoilHm1 = m_pSoilHistory.createMap();
+        m_mafSoilHm2 = m_pSoilHistory.createMap();
+        m_mafSoilClost = m_pSoilHistory.createMap();
+        m_mafCSoil = m_pSoilHistory.createMap();
 
         m_mafSoilCwlIn = new HashMap<>();
         m_mafSoilFwlIn = new HashMap<>();
         m_mafSoilNwlIn = new HashMap<>();
         m_mafSoilInOut = new HashMap<>();
 
-        m_mafAreas = new HashMap<>();
-        m_mafStocks = new HashMap<>();
-        m_mafCStem = new HashMap<>();
-        m_mafCBranches = new HashMap<>();
-        m_mafCLeaves = new HashMap<>();
-        m_mafCCRoots = new HashMap<>();
-        m_mafCFRoots = new HashMap<>();
-        m_mafMfqThAreas = new HashMap<>();
-        m_mafMfqThRems = new HashMap<>();
-        m_mafMfqFelAreas = new HashMap<>();
-        m_mafMfqFelRems = new HashMap<>();
-        m_mafBeThSlash = new HashMap<>();
-        m_mafBeFelSlash = new HashMap<>();
-        m_mafThRsd = new HashMap<>();
-        m_mafFelRsd = new HashMap<>();
-        m_mafThRsdRem = new HashMap<>();
-        m_mafFelRsdRem = new HashMap<>();
-        m_mafNatMortDistr = new HashMap<>();
-        m_mafDeadWoodDistr = new HashMap<>();
+        m_mafAreas = m_pDistrHistory.createMap(16);
+        m_mafStocks = m_pDistrHistory.createMap(16);
+        m_mafCStem = m_pDistrHistory.createMap(16);
+        m_mafCBranches = m_pDistrHistory.createMap(16);
+        m_mafCLeaves = m_pDistrHistory.createMap(16);
+        m_mafCCRoots = m_pDistrHistory.createMap(16);
+        m_mafCFRoots = m_pDistrHistory.createMap(16);
+        m_mafMfqThAreas = m_pDistrHistory.createMap(16);
+        m_mafMfqThRems = m_pDistrHistory.createMap(16);
+        m_mafMfqFelAreas = m_pDistrHistory.createMap(16);
+        m_mafMfqFelRems = m_pDistrHistory.createMap(16);
+        m_mafBeThSlash = m_pDistrHistory.createMap(16);
+        m_mafBeFelSlash = m_pDistrHistory.createMap(16);
+        m_mafThRsd = m_pDistrHistory.createMap(4);
+        m_mafFelRsd = m_pDistrHistory.createMap(4);
+        m_mafThRsdRem = m_pDistrHistory.createMap(4);
+        m_mafFelRsdRem = m_pDistrHistory.createMap(4);
+        m_mafNatMortDistr = m_pDistrHistory.createMap(16);
+        m_mafDeadWoodDistr = m_pDistrHistory.createMap(16);
 
         m_pDistrLims = new ArrayList<>(16);
 
         for (int i=0;i<16;i++)
             m_pDistrLims.add((float)((i+1)*10.0));
 
-        m_afStock = new ComArFlt();
-        m_afCarbon = new ComArFlt();
-        m_afStem = new ComArFlt();
-        m_afBranches = new ComArFlt();
-        m_afLeaves = new ComArFlt();
-        m_afCroots = new ComArFlt();
-        m_afFroots = new ComArFlt();
-
-        m_afThinVolume = new ComArFlt();
-        m_afFellVolume = new ComArFlt();
-
-        m_afSoilCwl = new ComArFlt();
-        m_afSoilFwl = new ComArFlt();
-        m_afSoilNwl = new ComArFlt();
-        m_afSoilCel = new ComArFlt();
-        m_afSoilSol = new ComArFlt();
-        m_afSoilLig = new ComArFlt();
-        m_afSoilHm1 = new ComArFlt();
-        m_afSoilHm2 = new ComArFlt();
-        m_afSoilClost = new ComArFlt();
+        m_afStock = new ComArFloat();
+        m_afCarbon = new ComArFloat();
+        m_afStem = new ComArDouble();
+        m_afBranches = new ComArDouble();
+        m_afLeaves = new ComArDouble();
+        m_afCroots = new ComArDouble();
+        m_afFroots = new ComArDouble();
+
+        m_afThinVolume = new ComArFloat();
+        m_afFellVolume = new ComArFloat();
+
+        m_afSoilCwl = new ComArFloat();
+        m_afSoilFwl = new ComArFloat();
+        m_afSoilNwl = new ComArFloat();
+        m_afSoilCel = new ComArFloat();
+        m_afSoilSol = new ComArFloat();
+        m_afSoilLig = new ComArFloat();
+        m_afSoilHm1 = new ComArFloat();
+        m_afSoilHm2 = new ComArFloat();
+        m_afSoilClost = new ComArFloat();
     }
 
     /**
@@ -323,12 +344,12 @@ public class GMEfiscen implements Serializable {
         m_nStep = 5;
         m_FelInt = 1.0f;
         m_ThinInt = 1.0f;
-        m_mTables = new HashMap<>();
+        m_mTables = new GMKeyMap<>();
         m_mRegions = new HashMap<>();
         m_mOwners = new HashMap<>();
         m_mSites = new HashMap<>();
         m_mSpecies = new HashMap<>();
-        m_mSoils = new HashMap<>();
+        m_mSoils = new GMKeyMap<>();
 
         m_plAgeNum = new GMParLocator("Age class count");
         m_plAgeClasses  = new GMParLocator("Age classes");
@@ -366,81 +387,204 @@ public class GMEfiscen implements Serializable {
         m_plMortRate = new GMParLocator("Mortality rate");
         grsprev = new HashMap<>();
 
-        m_mafArea = new HashMap<>();
-        m_mafGrStock = new HashMap<>();
-        m_mafIncrement = new HashMap<>();
-        m_mafAvrIncrement = new HashMap<>();
-        m_mafThinnings = new HashMap<>();
-        m_mafFellings = new HashMap<>();
-        m_mafBiomass = new HashMap<>();
-        m_mafDeadWood = new HashMap<>();
-        m_mafNatMort = new HashMap<>();
-        m_mafAfforFund = new HashMap<>();
-        m_mafBareArea = new HashMap<>();
-        m_mafPotentialFellingsArea = new HashMap<>();
-        m_mafPotentialFellingsVolume = new HashMap<>();
-
-        m_mafSoilCwl = new HashMap<>();
-        m_mafSoilFwl = new HashMap<>();
-        m_mafSoilNwl = new HashMap<>();
-        m_mafSoilCel = new HashMap<>();
-        m_mafSoilSol = new HashMap<>();
-        m_mafSoilLig = new HashMap<>();
-        m_mafSoilHm1 = new HashMap<>();
-        m_mafSoilHm2 = new HashMap<>();
-        m_mafSoilClost = new HashMap<>();
-        m_mafCSoil = new HashMap<>();
+        m_pTableHistory = new GMHistory();
+        m_pSoilHistory = new GMHistory();
+        m_pDistrHistory = new GMDistrHistory();
+        m_mafArea = m_pTableHistory.createMap();
+        m_mafGrStock = m_pTableHistory.createMap();
+        m_mafIncrement = m_pTableHistory.createMap();
+        m_mafAvrIncrement = m_pTableHistory.createMap();
+        m_mafThinnings = m_pTableHistory.createMap();
+        m_mafFellings = m_pTableHistory.createMap();
+        m_mafBiomass = m_pTableHistory.createMap();
+        m_mafDeadWood = m_pTableHistory.createMap();
+        m_mafNatMort = m_pTableHistory.createMap();
+        m_mafAfforFund = m_pTableHistory.createMap();
+        m_mafBareArea = m_pTableHistory.createMap();
+        m_mafPotentialFellingsArea = m_pTableHistory.createMap();
+        m_mafPotentialFellingsVolume = m_pTableHistory.createMap();
+
+        m_mafSoilCwl = m_pSoilHistory.createMap();
+        m_mafSoilFwl = m_pSoilHistory.createMap();
+        m_mafSoilNwl = m_pSoilHistory.createMap();
+        m_mafSoilCel = m_pSoilHistory.createMap();
+        m_mafSoilSol = m_pSoilHistory.createMap();
+        m_mafSoilLig = m_pSoilHistory.createMap();
+        m_mafSoilHm1 = m_pSoilHistory.createMap();
+        m_mafSoilHm2 = m_pSoilHistory.createMap();
+        m_mafSoilClost = m_pSoilHistory.createMap();
+        m_mafCSoil = m_pSoilHistory.createMap();
 
         m_mafSoilCwlIn = new HashMap<>();
         m_mafSoilFwlIn = new HashMap<>();
         m_mafSoilNwlIn = new HashMap<>();
         m_mafSoilInOut = new HashMap<>();
 
-        m_mafAreas = new HashMap<>();
-        m_mafStocks = new HashMap<>();
-        m_mafCStem = new HashMap<>();
-        m_mafCBranches = new HashMap<>();
-        m_mafCLeaves = new HashMap<>();
-        m_mafCCRoots = new HashMap<>();
-        m_mafCFRoots = new HashMap<>();
-        m_mafMfqThAreas = new HashMap<>();
-        m_mafMfqThRems = new HashMap<>();
-        m_mafMfqFelAreas = new HashMap<>();
-        m_mafMfqFelRems = new HashMap<>();
-        m_mafBeThSlash = new HashMap<>();
-        m_mafBeFelSlash = new HashMap<>();
-        m_mafThRsd = new HashMap<>();
-        m_mafFelRsd = new HashMap<>();
-        m_mafThRsdRem = new HashMap<>();
-        m_mafFelRsdRem = new HashMap<>();
-        m_mafNatMortDistr = new HashMap<>();
-        m_mafDeadWoodDistr = new HashMap<>();
+        m_mafAreas = m_pDistrHistory.createMap(16);
+        m_mafStocks = m_pDistrHistory.createMap(16);
+        m_mafCStem = m_pDistrHistory.createMap(16);
+        m_mafCBranches = m_pDistrHistory.createMap(16);
+        m_mafCLeaves = m_pDistrHistory.createMap(16);
+        m_mafCCRoots = m_pDistrHistory.createMap(16);
+        m_mafCFRoots = m_pDistrHistory.createMap(16);
+        m_mafMfqThAreas = m_pDistrHistory.createMap(16);
+        m_mafMfqThRems = m_pDistrHistory.createMap(16);
+        m_mafMfqFelAreas = m_pDistrHistory.createMap(16);
+        m_mafMfqFelRems = m_pDistrHistory.createMap(16);
+        m_mafBeThSlash = m_pDistrHistory.createMap(16);
+        m_mafBeFelSlash = m_pDistrHistory.createMap(16);
+        m_mafThRsd = m_pDistrHistory.createMap(4);
+        m_mafFelRsd = m_pDistrHistory.createMap(4);
+        m_mafThRsdRem = m_pDistrHistory.createMap(4);
+        m_mafFelRsdRem = m_pDistrHistory.createMap(4);
+        m_mafNatMortDistr = m_pDistrHistory.createMap(16);
+        m_mafDeadWoodDistr = m_pDistrHistory.createMap(16);
 
         m_pDistrLims = new ArrayList<>(16);
 
         for (int i=0;i<16;i++)
             m_pDistrLims.add((float)((i+1)*10.0));
 
-        m_afStock = new ComArFlt();
-        m_afCarbon = new ComArFlt();
-        m_afStem = new ComArFlt();
-        m_afBranches = new ComArFlt();
-        m_afLeaves = new ComArFlt();
-        m_afCroots = new ComArFlt();
-        m_afFroots = new ComArFlt();
-
-        m_afThinVolume = new ComArFlt();
-        m_afFellVolume = new ComArFlt();
-
-        m_afSoilCwl = new ComArFlt();
-        m_afSoilFwl = new ComArFlt();
-        m_afSoilNwl = new ComArFlt();
-        m_afSoilCel = new ComArFlt();
-        m_afSoilSol = new ComArFlt();
-        m_afSoilLig = new ComArFlt();
-        m_afSoilHm1 = new ComArFlt();
-        m_afSoilHm2 = new ComArFlt();
-        m_afSoilClost = new ComArFlt();
+        m_afStock = new ComArFloat();
+        m_afCarbon = new ComArFloat();
+        m_afStem = new ComArDouble();
+        m_afBranches = new ComArDouble();
+        m_afLeaves = new ComArDouble();
+        m_afCroots = new ComArDouble();
+        m_afFroots = new ComArDouble();
+
+        m_afThinVolume = new ComArFloat();
+        m_afFellVolume = new ComArFloat();
+
+        m_afSoilCwl = new ComArFloat();
+        m_afSoilFwl = new ComArFloat();
+        m_afSoilNwl = new ComArFloat();
+        m_afSoilCel = new ComArFloat();
+        m_afSoilSol = new ComArFloat();
+        m_afSoilLig = new ComArFloat();
+        m_afSoilHm1 = new ComArFloat();
+        m_afSoilHm2 = new ComArFloat();
+        m_afSoilClost = new ComArFloat();
+    }
+
+    /**
+     * Fork of the experiment: an independent copy of its state which can be
+     * simulated further without changing this experiment. Matrixes, soils,
+     * bare fund and histories are copied as primitive arrays; all the maps
+     * iterate in the same order, so the fork gives the same results as the
+     * experiment. The parameter locators and collections are not changed
+     * by the simulation and are shared, they must not be modified in place
+     * after forking.
+     * @return fork
+     */
+    public GMEfiscen fork () {
+        GMEfiscen pFork;
+        try {
+            pFork = (GMEfiscen)super.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError(e);
+        }
+        pFork.m_pPool = null;
+        pFork.m_mPars = null;
+        pFork.m_aplBound = null;
+        pFork.m_anBound = null;
+        pFork.m_BareFund = m_BareFund.copy();
+        pFork.m_mTables = GMKeyMap.copyOrdered(m_mTables,
+                ncap -> ncap == 0 ? new GMKeyMap<GMMatrix>() : new GMKeyMap<GMMatrix>(ncap),
+                GMMatrix::copy);
+        pFork.m_mSoils = GMKeyMap.copyOrdered(m_mSoils,
+                ncap -> ncap == 0 ? new GMKeyMap<GMSoil>() : new GMKeyMap<GMSoil>(ncap),
+                GMSoil::copy);
+        pFork.m_mRegions = GMKeyMap.copyOrdered(m_mRegions, v -> v);
+        pFork.m_mOwners = GMKeyMap.copyOrdered(m_mOwners, v -> v);
+        pFork.m_mSites = GMKeyMap.copyOrdered(m_mSites, v -> v);
+        pFork.m_mSpecies = GMKeyMap.copyOrdered(m_mSpecies, v -> v);
+        pFork.grsprev = GMKeyMap.copyOrdered(grsprev, v -> v);
+        pFork.m_pDistrLims = new ArrayList<>(m_pDistrLims);
+
+        IdentityHashMap<GMHistory,GMHistory> mHist = new IdentityHashMap<>();
+        pFork.m_pTableHistory = mHist.computeIfAbsent(m_pTableHistory, GMHistory::copy);
+        pFork.m_pSoilHistory = mHist.computeIfAbsent(m_pSoilHistory, GMHistory::copy);
+        pFork.m_mafArea = forkMap(m_mafArea, mHist);
+        pFork.m_mafGrStock = forkMap(m_mafGrStock, mHist);
+        pFork.m_mafIncrement = forkMap(m_mafIncrement, mHist);
+        pFork.m_mafAvrIncrement = forkMap(m_mafAvrIncrement, mHist);
+        pFork.m_mafThinnings = forkMap(m_mafThinnings, mHist);
+        pFork.m_mafFellings = forkMap(m_mafFellings, mHist);
+        pFork.m_mafBiomass = forkMap(m_mafBiomass, mHist);
+        pFork.m_mafDeadWood = forkMap(m_mafDeadWood, mHist);
+        pFork.m_mafNatMort = forkMap(m_mafNatMort, mHist);
+        pFork.m_mafAfforFund = forkMap(m_mafAfforFund, mHist);
+        pFork.m_mafBareArea = forkMap(m_mafBareArea, mHist);
+        pFork.m_mafPotentialFellingsArea = forkMap(m_mafPotentialFellingsArea, mHist);
+        pFork.m_mafPotentialFellingsVolume = forkMap(m_mafPotentialFellingsVolume, mHist);
+        pFork.m_mafSoilCwl = forkMap(m_mafSoilCwl, mHist);
+        pFork.m_mafSoilFwl = forkMap(m_mafSoilFwl, mHist);
+        pFork.m_mafSoilNwl = forkMap(m_mafSoilNwl, mHist);
+        pFork.m_mafSoilCel = forkMap(m_mafSoilCel, mHist);
+        pFork.m_mafSoilSol = forkMap(m_mafSoilSol, mHist);
+        pFork.m_mafSoilLig = forkMap(m_mafSoilLig, mHist);
+        pFork.m_mafSoilHm1 = forkMap(m_mafSoilHm1, mHist);
+        pFork.m_mafSoilHm2 = forkMap(m_mafSoilHm2, mHist);
+        pFork.m_mafSoilClost = forkMap(m_mafSoilClost, mHist);
+        pFork.m_mafCSoil = forkMap(m_mafCSoil, mHist);
+
+        pFork.m_mafSoilCwlIn = GMKeyMap.copyOrdered(m_mafSoilCwlIn, ComArFlt::copy);
+        pFork.m_mafSoilFwlIn = GMKeyMap.copyOrdered(m_mafSoilFwlIn, ComArFlt::copy);
+        pFork.m_mafSoilNwlIn = GMKeyMap.copyOrdered(m_mafSoilNwlIn, ComArFlt::copy);
+        pFork.m_mafSoilInOut = GMKeyMap.copyOrdered(m_mafSoilInOut, ComArFlt::copy);
+
+        IdentityHashMap<GMDistrHistory,GMDistrHistory> mDistr = new IdentityHashMap<>();
+        pFork.m_pDistrHistory = mDistr.computeIfAbsent(m_pDistrHistory, GMDistrHistory::copy);
+        pFork.m_mafAreas = forkMap(m_mafAreas, mDistr);
+        pFork.m_mafStocks = forkMap(m_mafStocks, mDistr);
+        pFork.m_mafCStem = forkMap(m_mafCStem, mDistr);
+        pFork.m_mafCBranches = forkMap(m_mafCBranches, mDistr);
+        pFork.m_mafCLeaves = forkMap(m_mafCLeaves, mDistr);
+        pFork.m_mafCCRoots = forkMap(m_mafCCRoots, mDistr);
+        pFork.m_mafCFRoots = forkMap(m_mafCFRoots, mDistr);
+        pFork.m_mafMfqThAreas = forkMap(m_mafMfqThAreas, mDistr);
+        pFork.m_mafMfqThRems = forkMap(m_mafMfqThRems, mDistr);
+        pFork.m_mafMfqFelAreas = forkMap(m_mafMfqFelAreas, mDistr);
+        pFork.m_mafMfqFelRems = forkMap(m_mafMfqFelRems, mDistr);
+        pFork.m_mafBeThSlash = forkMap(m_mafBeThSlash, mDistr);
+        pFork.m_mafBeFelSlash = forkMap(m_mafBeFelSlash, mDistr);
+        pFork.m_mafThRsd = forkMap(m_mafThRsd, mDistr);
+        pFork.m_mafFelRsd = forkMap(m_mafFelRsd, mDistr);
+        pFork.m_mafThRsdRem = forkMap(m_mafThRsdRem, mDistr);
+        pFork.m_mafFelRsdRem = forkMap(m_mafFelRsdRem, mDistr);
+        pFork.m_mafNatMortDistr = forkMap(m_mafNatMortDistr, mDistr);
+        pFork.m_mafDeadWoodDistr = forkMap(m_mafDeadWoodDistr, mDistr);
+
+        pFork.m_afStock = m_afStock.copy();
+        pFork.m_afCarbon = m_afCarbon.copy();
+        pFork.m_afStem = m_afStem.copy();
+        pFork.m_afBranches = m_afBranches.copy();
+        pFork.m_afLeaves = m_afLeaves.copy();
+        pFork.m_afCroots = m_afCroots.copy();
+        pFork.m_afFroots = m_afFroots.copy();
+        pFork.m_afThinVolume = m_afThinVolume.copy();
+        pFork.m_afFellVolume = m_afFellVolume.copy();
+        pFork.m_afSoilCwl = m_afSoilCwl.copy();
+        pFork.m_afSoilFwl = m_afSoilFwl.copy();
+        pFork.m_afSoilNwl = m_afSoilNwl.copy();
+        pFork.m_afSoilCel = m_afSoilCel.copy();
+        pFork.m_afSoilSol = m_afSoilSol.copy();
+        pFork.m_afSoilLig = m_afSoilLig.copy();
+        pFork.m_afSoilHm1 = m_afSoilHm1.copy();
+        pFork.m_afSoilHm2 = m_afSoilHm2.copy();
+        pFork.m_afSoilClost = m_afSoilClost.copy();
+        return pFork;
+    }
+
+    private static GMHistoryMap forkMap (GMHistoryMap mSrc,
+            IdentityHashMap<GMHistory,GMHistory> mHist) {
+        return mSrc.copy(mHist.computeIfAbsent(mSrc.getHistory(), GMHistory::copy));
+    }
+
+    private static GMDistrMap forkMap (GMDistrMap mSrc,
+            IdentityHashMap<GMDistrHistory,GMDistrHistory> mDistr) {
+        return mSrc.copy(mDistr.computeIfAbsent(mSrc.getHistory(), GMDistrHistory::copy));
     }
 
     /**
@@ -458,6 +602,12 @@ public class GMEfiscen implements Serializable {
         float retval = 0;
         long ulKey;
 
+        if (maSrc instanceof GMHistoryMap) {
+            // Columnar histories keep the group sums in the same order
+            GMHistoryMap pMap = (GMHistoryMap)maSrc;
+            if (pMap.getOrder() != null)
+                return pMap.summarize(lr,lo,lst,lsp,ind);
+        }
         ulKey = (lr<<24) + (lo<<16) + (lst<<8) + lsp;
         ComArFlt<Float> pVector;
         for (Long uKey : maSrc.keySet())
@@ -496,6 +646,16 @@ public class GMEfiscen implements Serializable {
         long ulKey;
         ulKey = (lr<<24) + (lo<<16) + (lst<<8) + lsp;
         ComArFlt<ArrayList<Float>> pVector;
+        if (maSrc instanceof GMKeyMap) {
+            // Only the matching keys are visited, in the same order
+            GMRollup pRollup = ((GMKeyMap<?>)maSrc).getRollup();
+            for (int npos : pRollup.getMembers(lr,lo,lst,lsp)) {
+                pVector = maSrc.get(pRollup.getKey(npos));
+                if (GMDistrColumn.getWidth(pVector,ind) >= 0)
+                    retval += GMDistrColumn.getValue(pVector,ind,0);
+            }
+            return retval;
+        }
         for (Long uKey : maSrc.keySet())
         {
             pVector = maSrc.get(uKey);
@@ -505,9 +665,8 @@ public class GMEfiscen implements Serializable {
             if (lst == 0) uKey = uKey & ~0xFF00;
             if (lsp == 0) uKey = uKey & ~0xFF;
             if (ulKey==uKey) {
-                ArrayList<Float> pdest = pVector.getData(ind);
-                if(pdest!=null)
-                    retval += pdest.get(0);
+                if (GMDistrColumn.getWidth(pVector,ind) >= 0)
+                    retval += GMDistrColumn.getValue(pVector,ind,0);
             }
         }
 
@@ -531,6 +690,17 @@ public class GMEfiscen implements Serializable {
         long ulKey;
         ulKey = (lr<<24) + (lo<<16) + (lst<<8) + lsp;
         ComArFlt<ArrayList<Float>> pVector;
+        if (maSrc instanceof GMKeyMap) {
+            // Only the matching keys are visited, in the same order
+            GMRollup pRollup = ((GMKeyMap<?>)maSrc).getRollup();
+            for (int npos : pRollup.getMembers(lr,lo,lst,lsp)) {
+                pVector = maSrc.get(pRollup.getKey(npos));
+                int nwidth = GMDistrColumn.getWidth(pVector,ind);
+                for (int i=0;i<nwidth;i++)
+                    retval += GMDistrColumn.getValue(pVector,ind,i);
+            }
+            return retval;
+        }
         for (Long uKey : maSrc.keySet())
         {
             pVector = maSrc.get(uKey);
@@ -540,10 +710,9 @@ public class GMEfiscen implements Serializable {
             if (lst == 0) uKey = uKey & ~0xFF00;
             if (lsp == 0) uKey = uKey & ~0xFF;
             if (ulKey==uKey) {
-                ArrayList<Float> pdest = pVector.getData(ind);
-                if(pdest!=null)
-                    for(float fl : pdest)
-                        retval += fl;
+                int nwidth = GMDistrColumn.getWidth(pVector,ind);
+                for (int i=0;i<nwidth;i++)
+                    retval += GMDistrColumn.getValue(pVector,ind,i);
             }
         }
 
@@ -588,56 +757,78 @@ public class GMEfiscen implements Serializable {
         }
     }
     
+    /**
+     * Appends distribution row to the history of the matrix, if it exists.
+     * @param pMap distribution histories
+     * @param uKey key of the matrix
+     * @param afRow values of the bins
+     */
+    private static void appendDistr (HashMap<Long,ComArFlt<ArrayList<Float>>> pMap,
+            Long uKey, float[] afRow) {
+        ComArFlt<ArrayList<Float>> pPComar = pMap.get(uKey);
+        if (pPComar != null) {
+            GMDistrColumn.addData(pPComar, afRow);
+            pMap.put(uKey, pPComar);
+        }
+    }
+
     public int updateHistory () throws GMParLocator.GMParLocatorException {
         historyUpdateCounter+=1;
         float grstock, val;
-        grstock = 0.0f;
+        ComSum pStock = new ComSum(m_mTables.size());
         GMMatrix pTable;
         ComArFlt<Float> pComarFloat;
         ComArFlt<Double> pComarDouble;
         GMCarbonAlloc pCAl;
+        GMMatrixPars pPars;
         GMSoil pSl;
+        GMDistrReport pRep = new GMDistrReport(m_pDistrLims,16);
+        checkParameters();
         //float grsprev = 0;
-        for (Long uKey : m_mTables.keySet())
+        for (Long uKey : getMatrixKeys())
         {
             pTable = m_mTables.get(uKey);
-            val = pTable.getValue();
+            pPars = getMatrixPars(uKey);
+            pCAl = pPars.newCarbonAlloc();
+            // Totals and distributions in one sweep over the matrix
+            pTable.reportDistr(pCAl,pRep);
+            val = pRep.m_fValue;
             pComarFloat = m_mafGrStock.get(uKey);
             if (pComarFloat != null) {
-                pComarFloat.addData(val);
+                ComArFloat.append(pComarFloat, val);
                 m_mafGrStock.put(uKey, pComarFloat);
             }
-            grstock+=val;
-            val = pTable.getArea();
+            pStock.add(val);
+            val = pRep.m_fArea;
             pComarFloat = m_mafArea.get(uKey);
             if (pComarFloat != null) {
-                pComarFloat.addData(val);
+                ComArFloat.append(pComarFloat, val);
                 m_mafArea.put(uKey, pComarFloat);
             }
             val = pTable.getIncrement();
             val = val/m_nStep;
             pComarFloat = m_mafIncrement.get(uKey);
             if (pComarFloat != null) {
-                pComarFloat.addData(val);
+                ComArFloat.append(pComarFloat, val);
                 m_mafIncrement.put(uKey, pComarFloat);
             }
             // Deadwood
             pComarFloat = m_mafDeadWood.get(uKey);
             if (pComarFloat != null) {
-                pComarFloat.addData(pTable.m_DeadWood);
+                ComArFloat.append(pComarFloat, pTable.m_DeadWood);
                 m_mafDeadWood.put(uKey, pComarFloat);
             }
             
             // Afforfund added by Janne 2012
             pComarFloat = m_mafAfforFund.get(uKey);
             if (pComarFloat != null) {
-                pComarFloat.addData(pTable.m_BareArea);
+                ComArFloat.append(pComarFloat, pTable.m_BareArea);
                 m_mafAfforFund.put(uKey, pComarFloat);
             }
             
             pComarFloat = m_mafBareArea.get(uKey);
             if (pComarFloat != null) {
-                pComarFloat.addData(m_BareFund.getFund(uKey));
+                ComArFloat.append(pComarFloat, m_BareFund.getFund(uKey));
                 m_mafBareArea.put(uKey, pComarFloat);
             }
      
@@ -649,195 +840,57 @@ public class GMEfiscen implements Serializable {
             pFl = pTable.reportHarvest(pFl);
             pComarFloat = m_mafPotentialFellingsArea.get(uKey);
             if (pComarFloat != null) {
-                pComarFloat.addData((float)pFl.getF_area() * m_FelInt);
+                ComArFloat.append(pComarFloat, (float)pFl.getF_area() * m_FelInt);
                 m_mafPotentialFellingsArea.put(uKey, pComarFloat);
             }
             pComarFloat = m_mafPotentialFellingsVolume.get(uKey);
             if (pComarFloat != null) {
-                pComarFloat.addData((float)pFl.getF_volume() * m_FelInt);
+                ComArFloat.append(pComarFloat, (float)pFl.getF_volume() * m_FelInt);
                 m_mafPotentialFellingsVolume.put(uKey, pComarFloat);
             }
             
-            pCAl = new GMCarbonAlloc();
-            pCAl.setCa_cstem(0.0);
-            pCAl.setCa_cbranch(0.0);
-            pCAl.setCa_ccroots(0.0);
-            pCAl.setCa_cfroots(0.0);
-            pCAl.setCa_cleaves(0.0);
-            pCAl.setCa_ccont(m_plCcont.getParameterValue(uKey,0));
-            pCAl.setCa_dns(m_plWoodDens.getParameterValue(uKey,0));
-            pCAl.setCa_nsize(m_plCompXvals.getParameter(uKey).m_nSize);
-            pCAl.setCa_pxvals(m_plCompXvals.getParameter(uKey).m_Vals);
-            pCAl.setCa_pstem(m_plStemShare.getParameter(uKey).m_Vals);
-            pCAl.setCa_pbranch(m_plBranchShare.getParameter(uKey).m_Vals);
-            pCAl.setCa_pcroots(m_plCrootsShare.getParameter(uKey).m_Vals);
-            pCAl.setCa_pfroots(m_plFrootsShare.getParameter(uKey).m_Vals);
-            pCAl.setCa_pleaves(m_plLeavesShare.getParameter(uKey).m_Vals);
-
             //val = pTable.getBiomass(pCAl);
             //pComar = m_mafBiomass.get(uKey);
             //if (pComar != null)
             //	pComar.addData(val);
 
-            // Compartments
-            ArrayList<Float> pvalSt = new ArrayList<>(16);
-            for (int i=0;i<16;i++) 
-                pvalSt.add(0.0f);
-            ArrayList<Float> pvalLv = new ArrayList<>(16);
-            for (int i=0;i<16;i++)
-                pvalLv.add(0.0f);
-            ArrayList<Float> pvalBr = new ArrayList<>(16);
-            for (int i=0;i<16;i++)
-                pvalBr.add(0.0f);
-            ArrayList<Float> pvalCr = new ArrayList<>(16);
-            for (int i=0;i<16;i++)
-                pvalCr.add(0.0f);
-            ArrayList<Float> pvalFr = new ArrayList<>(16);
-            for (int i=0;i<16;i++)
-                pvalFr.add(0.0f);
-
-            val = pTable.getBiomassDistr(pCAl,m_pDistrLims,pvalSt,pvalBr,pvalLv,pvalCr,pvalFr,16);
-
+            val = pRep.m_fBiomass;
             pComarFloat = m_mafBiomass.get(uKey);
             if (pComarFloat != null) {
-                pComarFloat.addData(val);
+                ComArFloat.append(pComarFloat, val);
                 m_mafBiomass.put(uKey, pComarFloat);
             }
 
-            ComArFlt<ArrayList<Float>> pPComar;
-
-            pPComar = m_mafCStem.get(uKey);
-            if (pPComar != null) {
-                pPComar.addData(pvalSt);
-                m_mafCStem.put(uKey, pPComar);
-            }
-            pPComar = m_mafCLeaves.get(uKey);
-            if (pPComar != null) {
-                pPComar.addData(pvalLv);
-                m_mafCLeaves.put(uKey, pPComar);
-            }
-            pPComar = m_mafCBranches.get(uKey);
-            if (pPComar != null) {
-                pPComar.addData(pvalBr);
-                m_mafCBranches.put(uKey, pPComar);
-            }
-            pPComar = m_mafCCRoots.get(uKey);
-            if (pPComar != null) {
-                pPComar.addData(pvalCr);
-                m_mafCCRoots.put(uKey, pPComar);
-            }
-            pPComar = m_mafCFRoots.get(uKey);
-            if (pPComar != null) {
-                pPComar.addData(pvalFr);
-                m_mafCFRoots.put(uKey, pPComar);
-            }
+            // Compartments
+            appendDistr(m_mafCStem, uKey, pRep.m_afStem);
+            appendDistr(m_mafCLeaves, uKey, pRep.m_afLeaves);
+            appendDistr(m_mafCBranches, uKey, pRep.m_afBranches);
+            appendDistr(m_mafCCRoots, uKey, pRep.m_afCroots);
+            appendDistr(m_mafCFRoots, uKey, pRep.m_afFroots);
 
             // Areas and stocks distribution
-            ArrayList<Float> pval = new ArrayList<>(16);
-            for (int i=0;i<16;i++)
-                pval.add(0.0f);
-            pval = pTable.getAreaDistr(m_pDistrLims,pval,16);
-
-            pPComar = m_mafAreas.get(uKey);
-            if (pPComar != null) {
-                pPComar.addData(pval);
-                m_mafAreas.put(uKey, pPComar);
-            }
-            ArrayList<Float> pvalStocks = new ArrayList<>(16);
-            for (int i=0;i<16;i++)
-                pvalStocks.add(0.0f);
-            pvalStocks = pTable.getStockDistr(m_pDistrLims,pvalStocks,16);
-            pPComar = m_mafStocks.get(uKey);
-            if (pPComar != null) {
-                pPComar.addData(pvalStocks);
-                m_mafStocks.put(uKey, pPComar);
-            }
+            appendDistr(m_mafAreas, uKey, pRep.m_afAreas);
+            appendDistr(m_mafStocks, uKey, pRep.m_afStocks);
 
             // Mefique stuff!
-            ArrayList<Float> pvalTha = new ArrayList<>(16);
-            for (int i=0;i<16;i++)
-                pvalTha.add(0.0f);
-            ArrayList<Float> pvalThr = new ArrayList<>(16);
-            for (int i=0;i<16;i++)
-                pvalThr.add(0.0f);
-            ArrayList<Float> pvalFla = new ArrayList<>(16);
-            for (int i=0;i<16;i++)
-                pvalFla.add(0.0f);
-            ArrayList<Float> pvalFlr = new ArrayList<>(16);
-            for (int i=0;i<16;i++)
-                pvalFlr.add(0.0f);
-            pTable.getMefiqueDistr(m_pDistrLims,pvalTha,pvalThr,pvalFla,pvalFlr,16);
-            pPComar = m_mafMfqThAreas.get(uKey);
-            if (pPComar != null) {
-                pPComar.addData(pvalTha);
-                m_mafMfqThAreas.put(uKey, pPComar);
-            }
-            pPComar = m_mafMfqThRems.get(uKey);
-            if (pPComar != null) {
-                pPComar.addData(pvalThr);
-                m_mafMfqThRems.put(uKey, pPComar);
-            }
-            pPComar = m_mafMfqFelAreas.get(uKey);
-            if (pPComar != null) {
-                pPComar.addData(pvalFla);
-                m_mafMfqFelAreas.put(uKey, pPComar);
-            }
-            pPComar = m_mafMfqFelRems.get(uKey);
-            if (pPComar != null) {
-                pPComar.addData(pvalFlr);
-                m_mafMfqFelRems.put(uKey, pPComar);
-            }
+            appendDistr(m_mafMfqThAreas, uKey, pRep.m_afThAreas);
+            appendDistr(m_mafMfqThRems, uKey, pRep.m_afThRems);
+            appendDistr(m_mafMfqFelAreas, uKey, pRep.m_afFelAreas);
+            appendDistr(m_mafMfqFelRems, uKey, pRep.m_afFelRems);
             // End Mefique!
             // Bioenergy stuff
-            ArrayList<Float> pvalThSl = new ArrayList<>(16);
-            for (int i=0;i<16;i++)
-                pvalThSl.add(0.0f);
-            ArrayList<Float> pvalFlSl = new ArrayList<>(16);
-            for (int i=0;i<16;i++)
-                pvalFlSl.add(0.0f);
-            pTable.getSlashDistr(m_pDistrLims,pvalThSl,pvalFlSl,16);
-            pPComar = m_mafBeThSlash.get(uKey);
-            if (pPComar != null) {
-                pPComar.addData(pvalThSl);
-                m_mafBeThSlash.put(uKey, pPComar);
-            }
-            pPComar = m_mafBeFelSlash.get(uKey);
-            if (pPComar != null) {
-                pPComar.addData(pvalFlSl);
-                m_mafBeFelSlash.put(uKey, pPComar);
-            }
+            appendDistr(m_mafBeThSlash, uKey, pRep.m_afThSlash);
+            appendDistr(m_mafBeFelSlash, uKey, pRep.m_afFelSlash);
             // End bioenegy
             // Natural mortality 
-            ArrayList<Float> pvalnm = new ArrayList<>(16);
-            for (int i=0;i<16;i++)
-                pvalnm.add(0.0f);
-            pvalnm = pTable.getMortDistr(m_pDistrLims,pvalnm,16);
-
-            pPComar = m_mafNatMortDistr.get(uKey);
-            if (pPComar != null) {
-                pPComar.addData(pvalnm);
-                m_mafNatMortDistr.put(uKey, pPComar);
-            }
-            ArrayList<Float> pvaldw = new ArrayList<>(16);
-            for (int i=0;i<16;i++)
-                pvaldw.add(0.0f);
-
-            pTable.getDwoodDistrFromPipe(m_pDistrLims,pvaldw,16);
-            //for (int i=0;i<16;i++)
-            //    pvaldw.add(0.0f);
-            //pTable.getDwoodDistr(m_pDistrLims,pvaldw,16);
-
-            pPComar = m_mafDeadWoodDistr.get(uKey);
-            if (pPComar != null) {
-                pPComar.addData(pvaldw);
-                m_mafDeadWoodDistr.put(uKey, pPComar);
-            }
+            appendDistr(m_mafNatMortDistr, uKey, pRep.m_afNatMort);
+            appendDistr(m_mafDeadWoodDistr, uKey, pRep.m_afDeadWood);
             pComarFloat = m_mafAvrIncrement.get(uKey);
             if (pComarFloat != null) {
                 float ccont = 0;
                 float dens = 0;
-                ccont = m_plCcont.getParameterValue(uKey,0);
-                dens  = m_plWoodDens.getParameterValue(uKey,0);
+                ccont = pPars.m_fCcont;
+                dens  = pPars.m_fWoodDens;
                 if (ccont==0.0) {
                     ccont = 0.5f;
                 }
@@ -877,11 +930,11 @@ public class GMEfiscen implements Serializable {
                     nmort = (Float)pComarNM.getData(i-1);
                     hrvthin = summarize(ur,uo,ust,usp,m_mafThinnings,i-1);
                     hrvfel = summarize(ur,uo,ust,usp,m_mafFellings,i-1);
-                    hrvthinres = pPComarThRes.getData(i-1).get(0);
-                    hrvfelres = pPComarFelRes.getData(i-1).get(0);
+                    hrvthinres = GMDistrColumn.getValue(pPComarThRes,i-1,0);
+                    hrvfelres = GMDistrColumn.getValue(pPComarFelRes,i-1,0);
                     // Adding topwood removals ...
-                    hrvthinres += pPComarThResRem.getData(i-1).get(0); 
-                    hrvfelres += pPComarFelResRem.getData(i-1).get(0);
+                    hrvthinres += GMDistrColumn.getValue(pPComarThResRem,i-1,0); 
+                    hrvfelres += GMDistrColumn.getValue(pPComarFelResRem,i-1,0);
 
                     float prev = grsprev.get(uKey);
                     grincr = (grs - prev + hrvthin + hrvfel + nmort
@@ -894,11 +947,12 @@ public class GMEfiscen implements Serializable {
                     grincr/=garea*m_nStep;
                 }
                 grsprev.put(uKey, grs);
-                pComarFloat.addData(grincr);
+                ComArFloat.append(pComarFloat, grincr);
                 m_mafAvrIncrement.put(uKey, pComarFloat);
             }
         }
-        m_afStock.addData(grstock);
+        grstock = (float)pStock.sum();
+        ComArFloat.append(m_afStock, grstock);
         // Carbon history update
         GMCarbonAlloc pCarAl = new GMCarbonAlloc();
         pCarAl.setCa_cstem(0.0);
@@ -908,12 +962,12 @@ public class GMEfiscen implements Serializable {
         pCarAl.setCa_cleaves(0.0);
 
         float bioms = getCarbon(0,0,0,0,pCarAl);
-        m_afCarbon.addData(bioms);
-        m_afStem.addData(pCarAl.getCa_cstem());
-        m_afLeaves.addData(pCarAl.getCa_cleaves());
-        m_afBranches.addData(pCarAl.getCa_cbranch());
-        m_afCroots.addData(pCarAl.getCa_ccroots());
-        m_afFroots.addData(pCarAl.getCa_cfroots());
+        ComArFloat.append(m_afCarbon, bioms);
+        ComArDouble.append(m_afStem, pCarAl.getCa_cstem());
+        ComArDouble.append(m_afLeaves, pCarAl.getCa_cleaves());
+        ComArDouble.append(m_afBranches, pCarAl.getCa_cbranch());
+        ComArDouble.append(m_afCroots, pCarAl.getCa_ccroots());
+        ComArDouble.append(m_afFroots, pCarAl.getCa_cfroots());
 
         // Soils update - general
         GMSoilComp scStock = new GMSoilComp();
@@ -927,15 +981,15 @@ public class GMEfiscen implements Serializable {
         scStock.setSc_hm2(0.0f);
         scStock.setSc_clost(0.0f);
         scStock = getAllSoils(scStock);
-        m_afSoilCwl.addData(scStock.getSc_cwl());
-        m_afSoilFwl.addData(scStock.getSc_fwl());
-        m_afSoilNwl.addData(scStock.getSc_nwl());
-        m_afSoilSol.addData(scStock.getSc_sol());
-        m_afSoilCel.addData(scStock.getSc_cel());
-        m_afSoilLig.addData(scStock.getSc_lig());
-        m_afSoilHm1.addData(scStock.getSc_hm1());
-        m_afSoilHm2.addData(scStock.getSc_hm2());
-        m_afSoilClost.addData(scStock.getSc_clost());
+        ComArFloat.append(m_afSoilCwl, scStock.getSc_cwl());
+        ComArFloat.append(m_afSoilFwl, scStock.getSc_fwl());
+        ComArFloat.append(m_afSoilNwl, scStock.getSc_nwl());
+        ComArFloat.append(m_afSoilSol, scStock.getSc_sol());
+        ComArFloat.append(m_afSoilCel, scStock.getSc_cel());
+        ComArFloat.append(m_afSoilLig, scStock.getSc_lig());
+        ComArFloat.append(m_afSoilHm1, scStock.getSc_hm1());
+        ComArFloat.append(m_afSoilHm2, scStock.getSc_hm2());
+        ComArFloat.append(m_afSoilClost, scStock.getSc_clost());
         // Soils update - main
         for (Long uKey : m_mSoils.keySet())
         {
@@ -953,67 +1007,67 @@ public class GMEfiscen implements Serializable {
 
             pComarFloat = m_mafSoilCwl.get(uKey);
             if (pComarFloat != null) {
-                pComarFloat.addData(scStock.getSc_cwl());
+                ComArFloat.append(pComarFloat, scStock.getSc_cwl());
                 m_mafSoilCwl.put(uKey, pComarFloat);
             }
             pComarFloat = m_mafSoilFwl.get(uKey);
             if (pComarFloat != null) {
-                pComarFloat.addData(scStock.getSc_fwl());
+                ComArFloat.append(pComarFloat, scStock.getSc_fwl());
                 m_mafSoilFwl.put(uKey, pComarFloat);
             }
             pComarFloat = m_mafSoilNwl.get(uKey);
             if (pComarFloat != null) {
-                pComarFloat.addData(scStock.getSc_nwl());
+                ComArFloat.append(pComarFloat, scStock.getSc_nwl());
                 m_mafSoilNwl.put(uKey, pComarFloat);
             }
             pComarFloat = m_mafSoilSol.get(uKey);
             if (pComarFloat != null) {
-                pComarFloat.addData(scStock.getSc_sol());
+                ComArFloat.append(pComarFloat, scStock.getSc_sol());
                 m_mafSoilSol.put(uKey, pComarFloat);
             }
             pComarFloat = m_mafSoilCel.get(uKey);
             if (pComarFloat != null) {
-                pComarFloat.addData(scStock.getSc_cel());
+                ComArFloat.append(pComarFloat, scStock.getSc_cel());
                 m_mafSoilCel.put(uKey, pComarFloat);
             }
             pComarFloat = m_mafSoilLig.get(uKey);
             if (pComarFloat != null) {
-                pComarFloat.addData(scStock.getSc_lig());
+                ComArFloat.append(pComarFloat, scStock.getSc_lig());
                 m_mafSoilLig.put(uKey, pComarFloat);
             }
             pComarFloat = m_mafSoilHm1.get(uKey);
             if (pComarFloat != null) {
-                pComarFloat.addData(scStock.getSc_hm1());
+                ComArFloat.append(pComarFloat, scStock.getSc_hm1());
                 m_mafSoilHm1.put(uKey, pComarFloat);
             }
             pComarFloat = m_mafSoilHm2.get(uKey);
             if (pComarFloat != null) {
-                pComarFloat.addData(scStock.getSc_hm2());
+                ComArFloat.append(pComarFloat, scStock.getSc_hm2());
                 m_mafSoilHm2.put(uKey, pComarFloat);
             }
             pComarFloat = m_mafSoilClost.get(uKey);
             if (pComarFloat != null) {
-                pComarFloat.addData(scStock.getSc_clost());
+                ComArFloat.append(pComarFloat, scStock.getSc_clost());
                 m_mafSoilClost.put(uKey, pComarFloat);
             }
             pComarDouble = m_mafSoilCwlIn.get(uKey);
             if (pComarDouble != null) {
-                pComarDouble.addData(pSl.m_CwBasket);
+                ComArDouble.append(pComarDouble, pSl.m_CwBasket);
                 m_mafSoilCwlIn.put(uKey, pComarDouble);
             }
             pComarDouble = m_mafSoilFwlIn.get(uKey);
             if (pComarDouble != null) {
-                pComarDouble.addData(pSl.m_FwBasket);
+                ComArDouble.append(pComarDouble, pSl.m_FwBasket);
                 m_mafSoilFwlIn.put(uKey, pComarDouble);
             }
             pComarDouble = m_mafSoilNwlIn.get(uKey);
             if (pComarDouble != null) {
-                pComarDouble.addData(pSl.m_NwBasket);
+                ComArDouble.append(pComarDouble, pSl.m_NwBasket);
                 m_mafSoilNwlIn.put(uKey, pComarDouble);
             }
             pComarDouble = m_mafSoilInOut.get(uKey);
             if (pComarDouble != null) {
-                pComarDouble.addData(pSl.getInOut());
+                ComArDouble.append(pComarDouble, pSl.getInOut());
                 m_mafSoilInOut.put(uKey, pComarDouble);
             }
             float ctotal = scStock.getSc_cwl() + scStock.getSc_cel() +
@@ -1022,7 +1076,7 @@ public class GMEfiscen implements Serializable {
                     scStock.getSc_nwl() + scStock.getSc_sol();
             pComarFloat = m_mafCSoil.get(uKey);
             if (pComarFloat != null) {
-                pComarFloat.addData(ctotal);
+                ComArFloat.append(pComarFloat, ctotal);
                 m_mafCSoil.put(uKey, pComarFloat);
             }
             pSl.setInOut(0.0);
@@ -1032,6 +1086,80 @@ public class GMEfiscen implements Serializable {
         }
         return 1;
     }
+    /**
+     * Scales the areas of the matrices given by the scaling definitions and
+     * resets the history. Zero in a key part of a definition stands for all
+     * the regions, owners, sites or species. A matrix matched by several
+     * definitions is scaled by all of them.
+     * @param plScaling scaling definitions, first value is the scaling
+     * @throws GMParLocator.GMParLocatorException if history could not be reset
+     */
+    public void scaleMatrices (ArrayList<GMParArray> plScaling) throws GMParLocator.GMParLocatorException {
+        for (GMParArray pDef : plScaling) {
+            long cr = pDef.m_uRegion, co = pDef.m_uOwner;
+            long cst = pDef.m_uSite, csp = pDef.m_uSpecies;
+            long key = (cr << 24) + (co << 16) + (cst << 8) + csp;
+            float scaling = pDef.m_Vals.get(0);
+            for (long r : m_mRegions.keySet()) {
+                for (long o : m_mOwners.keySet()) {
+                    for (long st : m_mSites.keySet()) {
+                        for (long sp : m_mSpecies.keySet()) {
+                            long cKey = (r << 24) + (o << 16) + (st << 8) + sp;
+                            long uKey = cKey;
+                            if (cr == 0)  cKey = cKey & ~0xFF000000;
+                            if (co == 0)  cKey = cKey & ~0xFF0000;
+                            if (cst == 0) cKey = cKey & ~0xFF00;
+                            if (csp == 0) cKey = cKey & ~0xFF;
+                            if (key == cKey)
+                                scaleMatrix(uKey, scaling);
+                        }
+                    }
+                }
+            }
+        }
+        resetHistory();
+    }
+
+    /**
+     * Scales the area of a matrix and sets its fellings, thinnings and
+     * thinning history again.
+     * @param key key of the matrix
+     * @param scaling scaling of the area
+     */
+    private void scaleMatrix (long key, float scaling) {
+        GMMatrix pTable = m_mTables.get(key);
+        if (pTable != null) {
+            try {
+                float ageh, agel;
+                GMParArray parAr = m_plHarvestAge.getParameter(pTable.m_wID);
+                if (parAr != null) {
+                    if (parAr.m_nSize == 6) {
+                        float abage = (float) ((1.0 - parAr.m_Vals.get(5)) * parAr.m_Vals.get(0));
+                        pTable.setFellingsRegimes(parAr.m_Vals.get(0), parAr.m_Vals.get(1), parAr.m_Vals.get(2),
+                                parAr.m_Vals.get(3), parAr.m_Vals.get(4), abage);
+                    } else {
+                        ageh = parAr.m_Vals.get(0);
+                        pTable.setFellingsSimple(ageh);
+                    }
+                } else {
+                    pTable.setFellingsSimple(50.0f);
+                }
+                agel = m_plThinRange.getParameterValue(pTable.m_wID, 0);
+                ageh = m_plThinRange.getParameterValue(pTable.m_wID, 1);
+                if (agel < 5.) {
+                    agel = 5.0f;
+                }
+                pTable.setThinningsSimple(agel, ageh);
+                pTable.scaleArea(scaling);
+                //now we have to reinit history for step 0!
+                ageh = m_plThHistory.getParameterValue(pTable.m_wID, 0);
+                pTable.resetThinHistory(ageh,scaling);
+            } catch (GMParLocator.GMParLocatorException ex) {
+                System.err.println(ex);
+            }
+        }
+    }
+
     /**
      * Reset history. For use in case something is changing after 
      * loading. Currently after matrices scaling
@@ -1042,14 +1170,16 @@ public class GMEfiscen implements Serializable {
         if (historyUpdateCounter>1)
             return 0;
         float grstock, val;
-        grstock = 0.0f;
+        ComSum pStock = new ComSum(m_mTables.size());
         GMMatrix pTable;
         ComArFlt<Float> pComar;
         ComArFlt<Double> pComarDouble;
         GMCarbonAlloc pCAl;
+        GMMatrixPars pPars;
         GMSoil pSl;
+        checkParameters();
         //float grsprev = 0;
-        for (Long uKey : m_mTables.keySet())
+        for (Long uKey : getMatrixKeys())
         {
             pTable = m_mTables.get(uKey);
             val = pTable.getValue();
@@ -1058,7 +1188,7 @@ public class GMEfiscen implements Serializable {
                 pComar.setData(0,val);
                 m_mafGrStock.put(uKey, pComar);
             }
-            grstock+=val;
+            pStock.add(val);
             val = pTable.getArea();
             pComar = m_mafArea.get(uKey);
             if (pComar != null) {
@@ -1109,21 +1239,8 @@ public class GMEfiscen implements Serializable {
                 m_mafPotentialFellingsVolume.put(uKey, pComar);
             }
             
-            pCAl = new GMCarbonAlloc();
-            pCAl.setCa_cstem(0.0);
-            pCAl.setCa_cbranch(0.0);
-            pCAl.setCa_ccroots(0.0);
-            pCAl.setCa_cfroots(0.0);
-            pCAl.setCa_cleaves(0.0);
-            pCAl.setCa_ccont(m_plCcont.getParameterValue(uKey,0));
-            pCAl.setCa_dns(m_plWoodDens.getParameterValue(uKey,0));
-            pCAl.setCa_nsize(m_plCompXvals.getParameter(uKey).m_nSize);
-            pCAl.setCa_pxvals(m_plCompXvals.getParameter(uKey).m_Vals);
-            pCAl.setCa_pstem(m_plStemShare.getParameter(uKey).m_Vals);
-            pCAl.setCa_pbranch(m_plBranchShare.getParameter(uKey).m_Vals);
-            pCAl.setCa_pcroots(m_plCrootsShare.getParameter(uKey).m_Vals);
-            pCAl.setCa_pfroots(m_plFrootsShare.getParameter(uKey).m_Vals);
-            pCAl.setCa_pleaves(m_plLeavesShare.getParameter(uKey).m_Vals);
+            pPars = getMatrixPars(uKey);
+            pCAl = pPars.newCarbonAlloc();
 
             //val = pTable.getBiomass(pCAl);
             //pComar = m_mafBiomass.get(uKey);
@@ -1287,8 +1404,8 @@ public class GMEfiscen implements Serializable {
             if (pComar != null) {
                 float ccont = 0;
                 float dens = 0;
-                ccont = m_plCcont.getParameterValue(uKey,0);
-                dens  = m_plWoodDens.getParameterValue(uKey,0);
+                ccont = pPars.m_fCcont;
+                dens  = pPars.m_fWoodDens;
                 if (ccont==0.0) {
                     ccont = 0.5f;
                 }
@@ -1328,15 +1445,11 @@ public class GMEfiscen implements Serializable {
                     nmort = pComarNM.getData(i-1);
                     hrvthin = summarize(ur,uo,ust,usp,m_mafThinnings,i-1);
                     hrvfel = summarize(ur,uo,ust,usp,m_mafFellings,i-1);
-                    ArrayList<Float> arrayTemp = pPComarThRes.getData(i-1);
-                    hrvthinres = arrayTemp.get(0);
-                    arrayTemp = pPComarFelRes.getData(i-1);
-                    hrvfelres = arrayTemp.get(0);
+                    hrvthinres = GMDistrColumn.getValue(pPComarThRes,i-1,0);
+                    hrvfelres = GMDistrColumn.getValue(pPComarFelRes,i-1,0);
                     // Adding topwood removals ...
-                    arrayTemp = pPComarThResRem.getData(i-1);
-                    hrvthinres += arrayTemp.get(0);
-                    arrayTemp = pPComarFelResRem.getData(i-1);
-                    hrvfelres += arrayTemp.get(0);
+                    hrvthinres += GMDistrColumn.getValue(pPComarThResRem,i-1,0);
+                    hrvfelres += GMDistrColumn.getValue(pPComarFelResRem,i-1,0);
 
                     float prev = grsprev.get(uKey);
                     grincr = (grs - prev + hrvthin + hrvfel + nmort
@@ -1353,6 +1466,7 @@ public class GMEfiscen implements Serializable {
                 m_mafAvrIncrement.put(uKey, pComar);
             }
         }
+        grstock = (float)pStock.sum();
         m_afStock.setData(0,grstock);
         // Carbon history update
         GMCarbonAlloc pCarAl = new GMCarbonAlloc();
@@ -1499,7 +1613,9 @@ public class GMEfiscen implements Serializable {
         GMMatrix pTable;
         ComArFlt<Float> pComar;
         GMCarbonAlloc pCAl;
+        GMMatrixPars pPars;
         GMSoil pSl;
+        checkParameters();
         //float grsprev = 0;
         pTable = m_mTables.get(uKey);
         val = pTable.getValue();
@@ -1559,21 +1675,8 @@ public class GMEfiscen implements Serializable {
                 m_mafPotentialFellingsVolume.put(uKey, pComar);
         }
             
-        pCAl = new GMCarbonAlloc();
-        pCAl.setCa_cstem(0.0);
-        pCAl.setCa_cbranch(0.0);
-        pCAl.setCa_ccroots(0.0);
-        pCAl.setCa_cfroots(0.0);
-        pCAl.setCa_cleaves(0.0);
-        pCAl.setCa_ccont(m_plCcont.getParameterValue(uKey,0));
-        pCAl.setCa_dns(m_plWoodDens.getParameterValue(uKey,0));
-        pCAl.setCa_nsize(m_plCompXvals.getParameter(uKey).m_nSize);
-        pCAl.setCa_pxvals(m_plCompXvals.getParameter(uKey).m_Vals);
-        pCAl.setCa_pstem(m_plStemShare.getParameter(uKey).m_Vals);
-        pCAl.setCa_pbranch(m_plBranchShare.getParameter(uKey).m_Vals);
-        pCAl.setCa_pcroots(m_plCrootsShare.getParameter(uKey).m_Vals);
-        pCAl.setCa_pfroots(m_plFrootsShare.getParameter(uKey).m_Vals);
-        pCAl.setCa_pleaves(m_plLeavesShare.getParameter(uKey).m_Vals);
+        pPars = getMatrixPars(uKey);
+        pCAl = pPars.newCarbonAlloc();
 
             //val = pTable.getBiomass(pCAl);
             //pComar = m_mafBiomass.get(uKey);
@@ -1737,8 +1840,8 @@ public class GMEfiscen implements Serializable {
         if (pComar != null) {
                 float ccont = 0;
                 float dens = 0;
-                ccont = m_plCcont.getParameterValue(uKey,0);
-                dens  = m_plWoodDens.getParameterValue(uKey,0);
+                ccont = pPars.m_fCcont;
+                dens  = pPars.m_fWoodDens;
                 if (ccont==0.0) {
                     ccont = 0.5f;
                 }
@@ -1925,26 +2028,12 @@ public class GMEfiscen implements Serializable {
      * @return soil by given id or null if not found
      */
     public GMSoil findSoil (long ulKey) {
-        GMSoil pSol = null, pEl = null;
-        long uKeyCopy, lr, lo, lst, lsp;
-        for (Long uKey : m_mSoils.keySet())
-        {
-            pEl = m_mSoils.get(uKey);
-            uKeyCopy = ulKey;
-            lr = uKey>>24;
-            lo = uKey&0xFF0000;
-            lo = lo>>16;
-            lst = uKey&0xFF00;
-            lst = lst>>8;
-            lsp = uKey&0xFF;
-            if (lr == 0)  uKeyCopy = uKeyCopy & ~0xFF000000;
-            if (lo == 0)  uKeyCopy = uKeyCopy & ~0xFF0000;
-            if (lst == 0) uKeyCopy = uKeyCopy & ~0xFF00;
-            if (lsp == 0) uKeyCopy = uKeyCopy & ~0xFF;
-            if (uKeyCopy==uKey)
-                pSol = pEl;
-        }
-        return pSol;
+        // The last matching soil in the map wins
+        GMRollup pRollup = m_mSoils.getRollup();
+        int npos = pRollup.findLast(ulKey);
+        if (npos < 0)
+            return null;
+        return m_mSoils.get(pRollup.getKey(npos));
     }
 
     /**
@@ -1960,21 +2049,14 @@ public class GMEfiscen implements Serializable {
     public GMFellings reportHarvestLevel (long lr, long lo, long lst, long lsp,
             GMFellings pFl) {
         //float retval = 0;
-        long ulKey;
         GMMatrix pTable;
 
-        ulKey = (lr<<24) + (lo<<16) + (lst<<8) + lsp;
-        for (Long uKey : m_mTables.keySet())
+        GMRollup pRollup = m_mTables.getRollup();
+        for (int npos : pRollup.getMembers(lr,lo,lst,lsp))
         {
-            pTable = m_mTables.get(uKey);
-
-            if (lr == 0)  uKey = uKey & ~0xFF000000;
-            if (lo == 0)  uKey = uKey & ~0xFF0000;
-            if (lst == 0) uKey = uKey & ~0xFF00;
-            if (lsp == 0) uKey = uKey & ~0xFF;
-            if (ulKey==uKey)
-                //retval+=pTable.reportHarvest(pFl);
-                pFl = pTable.reportHarvest(pFl);
+            pTable = m_mTables.get(pRollup.getKey(npos));
+            //retval+=pTable.reportHarvest(pFl);
+            pFl = pTable.reportHarvest(pFl);
         }
         return pFl;
     }
@@ -1992,20 +2074,13 @@ public class GMEfiscen implements Serializable {
     public GMFellings reportThinningsLevel (long lr, long lo, long lst, long lsp,
             GMFellings pFl) {
         //float retval = 0;
-        long ulKey;
         GMMatrix pTable;
 
-        ulKey = (lr<<24) + (lo<<16) + (lst<<8) + lsp;
-        for (Long uKey : m_mTables.keySet())
+        GMRollup pRollup = m_mTables.getRollup();
+        for (int npos : pRollup.getMembers(lr,lo,lst,lsp))
         {
-            pTable = m_mTables.get(uKey);
-
-            if (lr == 0)  uKey = uKey & ~0xFF000000;
-            if (lo == 0)  uKey = uKey & ~0xFF0000;
-            if (lst == 0) uKey = uKey & ~0xFF00;
-            if (lsp == 0) uKey = uKey & ~0xFF;
-            if (ulKey==uKey)
-                pFl = pTable.reportThinnings(pFl);
+            pTable = m_mTables.get(pRollup.getKey(npos));
+            pFl = pTable.reportThinnings(pFl);
         }
         return pFl;
     }
@@ -2023,25 +2098,19 @@ public class GMEfiscen implements Serializable {
     public GMFellings reportHarvestLevel (long lr, long lo, long lst, long lsp,
             GMFellings pFl, GMParLocator plRem) throws GMParLocator.GMParLocatorException {
         //float retval = 0;
-        long ulKey, uSaveKey;
+        long uSaveKey;
         GMMatrix pTable;
 
-        ulKey = (lr<<24) + (lo<<16) + (lst<<8) + lsp;
-        for (Long uKey : m_mTables.keySet())
+        GMRollup pRollup = m_mTables.getRollup();
+        for (int npos : pRollup.getMembers(lr,lo,lst,lsp))
         {
-            pTable = m_mTables.get(uKey);
-            uSaveKey = uKey;
-            if (lr == 0)  uKey = uKey & ~0xFF000000;
-            if (lo == 0)  uKey = uKey & ~0xFF0000;
-            if (lst == 0) uKey = uKey & ~0xFF00;
-            if (lsp == 0) uKey = uKey & ~0xFF;
-            if (ulKey==uKey) {
-                pFl.setF_stem(plRem.getParameterValue(uSaveKey,0));
-                pFl.setF_branch(plRem.getParameterValue(uSaveKey,2));
-                pFl.setF_leaves(plRem.getParameterValue(uSaveKey,3));
-                //retval+=pTable.reportHarvest(pFl);
-                pFl = pTable.reportHarvest(pFl);
-            }
+            pTable = m_mTables.get(pRollup.getKey(npos));
+            uSaveKey = pRollup.getKey(npos);
+            pFl.setF_stem(plRem.getParameterValue(uSaveKey,0));
+            pFl.setF_branch(plRem.getParameterValue(uSaveKey,2));
+            pFl.setF_leaves(plRem.getParameterValue(uSaveKey,3));
+            //retval+=pTable.reportHarvest(pFl);
+            pFl = pTable.reportHarvest(pFl);
         }
         return pFl;
     }
@@ -2059,42 +2128,168 @@ public class GMEfiscen implements Serializable {
     public GMFellings reportThinningsLevel (long lr, long lo, long lst, long lsp,
             GMFellings pFl, GMParLocator plRem) throws GMParLocator.GMParLocatorException {
         //float retval = 0;
-        long ulKey, uSaveKey;
+        long uSaveKey;
         GMMatrix pTable;
 
-        ulKey = (lr<<24) + (lo<<16) + (lst<<8) + lsp;
-        for (Long uKey : m_mTables.keySet())
+        GMRollup pRollup = m_mTables.getRollup();
+        for (int npos : pRollup.getMembers(lr,lo,lst,lsp))
         {
-            pTable = m_mTables.get(uKey);
-            uSaveKey = uKey;
-            if (lr == 0)  uKey = uKey & ~0xFF000000;
-            if (lo == 0)  uKey = uKey & ~0xFF0000;
-            if (lst == 0) uKey = uKey & ~0xFF00;
-            if (lsp == 0) uKey = uKey & ~0xFF;
-            if (ulKey==uKey) {
-                pFl.setF_stem(plRem.getParameterValue(uSaveKey,5));
-                pFl.setF_branch(plRem.getParameterValue(uSaveKey,7));
-                pFl.setF_leaves(plRem.getParameterValue(uSaveKey,8));
-                //retval+=pTable.reportThinnings(pFl);
-                pFl = pTable.reportThinningsV4(pFl);
-            }
+            pTable = m_mTables.get(pRollup.getKey(npos));
+            uSaveKey = pRollup.getKey(npos);
+            pFl.setF_stem(plRem.getParameterValue(uSaveKey,5));
+            pFl.setF_branch(plRem.getParameterValue(uSaveKey,7));
+            pFl.setF_leaves(plRem.getParameterValue(uSaveKey,8));
+            //retval+=pTable.reportThinnings(pFl);
+            pFl = pTable.reportThinningsV4(pFl);
         }
         return pFl;
     }
 
+    /**
+     * Harvest and thinnings levels of several groups of matrixes at once,
+     * as reportHarvestLevel and reportThinningsLevel with removals definition
+     * report them for each group from zero volume. Matrixes are put to the
+     * groups in one pass and the potential volume of every matrix is
+     * reported once, concurrently if parallelism is set; the volumes are
+     * summed by groups in the same order as reportHarvestLevel does.
+     * @param paGroups groups, region, owner, site and species of the
+     * parameter arrays with 0 meaning any
+     * @param abFell groups needing the fellings level
+     * @param abThin groups needing the thinnings level
+     * @param plRem removals
+     * @return fellings (index 0) and thinnings (index 1) volume by groups,
+     * zero if not needed
+     * @throws efi.efiscen.gm.GMParLocator.GMParLocatorException
+     */
+    public double[][] reportCutLevels (ArrayList<GMParArray> paGroups, boolean[] abFell,
+            boolean[] abThin, GMParLocator plRem) throws GMParLocator.GMParLocatorException {
+        GMRollup pRollup = m_mTables.getRollup();
+        int nsize = pRollup.size();
+        int[][] aanMembers = new int[paGroups.size()][];
+        double[] adFellStem = new double[nsize];
+        double[] adThinStem = new double[nsize];
+        boolean[] abFellPos = new boolean[nsize];
+        boolean[] abThinPos = new boolean[nsize];
+        // Removals are located in the order reportHarvestLevel does
+        for (int g=0;g<paGroups.size();g++) {
+            GMParArray pEl = paGroups.get(g);
+            aanMembers[g] = pRollup.getMembers(pEl.m_uRegion,pEl.m_uOwner,
+                    pEl.m_uSite,pEl.m_uSpecies);
+            for (int npos : aanMembers[g]) {
+                long uKey = pRollup.getKey(npos);
+                if (abFell[g] && !abFellPos[npos]) {
+                    adFellStem[npos] = plRem.getParameterValue(uKey,0);
+                    checkRemovals(plRem,uKey,3);
+                    abFellPos[npos] = true;
+                }
+            }
+            for (int npos : aanMembers[g]) {
+                long uKey = pRollup.getKey(npos);
+                if (abThin[g] && !abThinPos[npos]) {
+                    adThinStem[npos] = plRem.getParameterValue(uKey,5);
+                    checkRemovals(plRem,uKey,8);
+                    abThinPos[npos] = true;
+                }
+            }
+        }
+        double[] adFell = new double[nsize];
+        double[] adThin = new double[nsize];
+        ArrayList<Callable<Integer>> paTasks = new ArrayList<>(nsize);
+        for (int i=0;i<nsize;i++) {
+            if (!abFellPos[i] && !abThinPos[i])
+                continue;
+            final int npos = i;
+            final GMMatrix pTable = m_mTables.get(pRollup.getKey(npos));
+            paTasks.add(() -> {
+                if (abFellPos[npos])
+                    adFell[npos] = pTable.reportHarvest(new GMFellings(1.0,0.0,0.0,
+                            adFellStem[npos],0.0,0.0,0.0,0.0)).getF_volume();
+                if (abThinPos[npos])
+                    adThin[npos] = pTable.reportThinningsV4(new GMFellings(1.0,0.0,0.0,
+                            adThinStem[npos],0.0,0.0,0.0,0.0)).getF_volume();
+                return npos;
+            });
+        }
+        if (isParallel() && paTasks.size()>1)
+            invokeTasks(paTasks);
+        else {
+            try {
+                for (Callable<Integer> pTask : paTasks)
+                    pTask.call();
+            } catch (RuntimeException ex) {
+                throw ex;
+            } catch (Exception ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+        double[][] aadRet = new double[paGroups.size()][2];
+        for (int g=0;g<paGroups.size();g++) {
+            for (int npos : aanMembers[g]) {
+                if (abFell[g])
+                    aadRet[g][0] = aadRet[g][0] + adFell[npos];
+                if (abThin[g])
+                    aadRet[g][1] = aadRet[g][1] + adThin[npos];
+            }
+        }
+        return aadRet;
+    }
+
+    /**
+     * Checks that the removals of the matrix reach the given index. The
+     * branch and leaves shares do not change the volume, so reportCutLevels
+     * does not read them, but a removals row too short for them must fail
+     * as it does in reportHarvestLevel and reportThinningsLevel.
+     * @param plRem removals
+     * @param uKey matrix key
+     * @param nlast last index needed
+     * @throws efi.efiscen.gm.GMParLocator.GMParLocatorException
+     */
+    private static void checkRemovals (GMParLocator plRem, long uKey, int nlast)
+            throws GMParLocator.GMParLocatorException {
+        GMParArray pAr = plRem.getParameter(uKey);
+        if (pAr != null && nlast >= pAr.m_Vals.size())
+            throw new IndexOutOfBoundsException("Removals of matrix "+uKey+" have no value "+nlast);
+    }
+
     /**
      * Performing Fellings with intensity common for all matrixes.
      * @param intens intensity
      * @return fellings volume
      */
     public float doFellings (float intens) throws GMParLocator.GMParLocatorException {
-        GMFellings pgmFel = new GMFellings();
-        GMCarbonAlloc pgmCa = new GMCarbonAlloc();
+        final GMFellings pgmSettings = new GMFellings();
         if (intens>1.0)
             intens = 1.0f;
         if (intens<0)
             intens = 0.0f;
-        pgmFel.setF_ratio(intens);
+        pgmSettings.setF_ratio(intens);
+        pgmSettings.setF_area(0.0);
+        pgmSettings.setF_volume(0.0);
+        pgmSettings.setF_stem(0.95);
+        pgmSettings.setF_branch(0.0);
+        pgmSettings.setF_croots(0.0);
+        pgmSettings.setF_froots(0.0);
+        pgmSettings.setF_leaves(0.0);
+        ArrayList<GMStepResult> paRes = runPhase(pRes -> {
+            GMFellings pgmFel = phaseFellings(pgmSettings);
+            GMCarbonAlloc pgmCa = pRes.m_pPars.newCarbonAlloc();
+            pRes.m_fValue = (float)pRes.m_pTable.makeFellings(pgmFel,pgmCa);
+            keepResidues(pRes,pgmFel,pgmCa);
+        });
+        mergeResults(paRes,m_mafFellings,m_mafFelRsd,m_mafFelRsdRem,true);
+        float ret = (float) phaseVolume(paRes);
+        return ret;
+    }
+
+    /**
+     * @deprecated 
+     * Performing Fellings with intensities in the plR Parlocator.
+     * @param plR intensities
+     * @return fellings volume
+     */
+    public float doFellingsEx (GMParLocator plR) throws GMParLocator.GMParLocatorException {
+        GMFellings pgmFel = new GMFellings();
+        GMCarbonAlloc pgmCa = new GMCarbonAlloc();
         pgmFel.setF_area(0.0);
         pgmFel.setF_volume(0.0);
         pgmFel.setF_stem(0.95);
@@ -2107,6 +2302,7 @@ public class GMEfiscen implements Serializable {
         {
             pTable = m_mTables.get(uKey);
             // Carbon allocate structure filling
+            pgmFel.setF_ratio(plR.getParameterValue(uKey,0));
             pgmCa.setCa_ccont(m_plCcont.getParameterValue(uKey,0));
             pgmCa.setCa_dns(m_plWoodDens.getParameterValue(uKey,0));
             pgmCa.setCa_nsize(m_plCompXvals.getParameter(uKey).m_nSize);
@@ -2129,106 +2325,7 @@ public class GMEfiscen implements Serializable {
                 pComar.addData(felval);
                 m_mafFellings.put(uKey, pComar);
             }
-            m_BareFund.addArea(uKey,pgmFel.getF_area());
-            // Residuals keeping
-            ArrayList<Float> pvalFlRsd = new ArrayList<>();
-            pvalFlRsd.add((float)pgmCa.getCa_cstem());
-            pvalFlRsd.add((float)pgmCa.getCa_cbranch());
-            pvalFlRsd.add((float)pgmCa.getCa_cleaves());
-            pvalFlRsd.add((float)pgmCa.getCa_ccroots());
-            
-            ComArFlt pPComar = m_mafFelRsd.get(uKey);
-            if (pPComar != null) {
-                pPComar.addData(pvalFlRsd);
-                /*pPComar.addData((float)pgmCa.getCa_cbranch());
-                pPComar.addData((float)pgmCa.getCa_cleaves());
-                pPComar.addData((float)pgmCa.getCa_ccroots()); // 3->4 (Uppsala 2009)*/
-                m_mafFelRsd.put(uKey, pPComar);
-            }
-            // Resrems keeping! To integrity with scenarios
-            ArrayList<Float> pvalFlRsdRem = new ArrayList<>();
-            pvalFlRsdRem.add(0.0f);
-            pvalFlRsdRem.add(0.0f);
-            pvalFlRsdRem.add(0.0f);
-            pvalFlRsdRem.add(0.0f);
-            
-            pPComar = m_mafFelRsdRem.get(uKey);
-            if (pPComar != null) {
-                pPComar.addData(pvalFlRsdRem); //(float)pgmCa.getCa_cstem();
-                /*pPComar.addData(0.0f); //(float)pgmCa.getCa_cbranch();
-                pPComar.addData(0.0f); //(float)pgmCa.getCa_cleaves();
-                pPComar.addData(0.0f); // 3->4 (Uppsala 2009)*/
-                m_mafFelRsdRem.put(uKey, pPComar);
-            }
-            // Coarse roots management  January 2010
-            float cr2wl = 1.0f;
-            GMParArray paCr2Wl = null;
-            paCr2Wl = m_plCroots2CWL.getParameter(uKey);
-            if (paCr2Wl != null)
-                cr2wl = paCr2Wl.m_Vals.get(0);
-            else
-                System.err.println("Could not locate the coarse woody litter share\nwill use 1.0");
-
-            // Soil Litter update
-            GMSoil pSol = findSoil(uKey);
-            if (pSol != null) {
-                pSol.addLitter((pgmCa.getCa_cleaves()+pgmCa.getCa_cfroots())/m_nStep,
-                    (pgmCa.getCa_cbranch()+(1.0-cr2wl)*pgmCa.getCa_ccroots())/m_nStep,
-                    (pgmCa.getCa_cstem()+cr2wl*pgmCa.getCa_ccroots())/m_nStep);
-                //m_mSoils.put(uKey, pSol);
-            }
-            pgmFel.setF_area(0.0);
-            m_mTables.put(uKey, pTable);
-        }
-        float ret = (float) pgmFel.getF_volume();
-        return ret;
-    }
-
-    /**
-     * @deprecated 
-     * Performing Fellings with intensities in the plR Parlocator.
-     * @param plR intensities
-     * @return fellings volume
-     */
-    public float doFellingsEx (GMParLocator plR) throws GMParLocator.GMParLocatorException {
-        GMFellings pgmFel = new GMFellings();
-        GMCarbonAlloc pgmCa = new GMCarbonAlloc();
-        pgmFel.setF_area(0.0);
-        pgmFel.setF_volume(0.0);
-        pgmFel.setF_stem(0.95);
-        pgmFel.setF_branch(0.0);
-        pgmFel.setF_croots(0.0);
-        pgmFel.setF_froots(0.0);
-        pgmFel.setF_leaves(0.0);
-        GMMatrix pTable;
-        for (Long uKey : m_mTables.keySet())
-        {
-            pTable = m_mTables.get(uKey);
-            // Carbon allocate structure filling
-            pgmFel.setF_ratio(plR.getParameterValue(uKey,0));
-            pgmCa.setCa_ccont(m_plCcont.getParameterValue(uKey,0));
-            pgmCa.setCa_dns(m_plWoodDens.getParameterValue(uKey,0));
-            pgmCa.setCa_nsize(m_plCompXvals.getParameter(uKey).m_nSize);
-            pgmCa.setCa_pxvals(m_plCompXvals.getParameter(uKey).m_Vals);
-            pgmCa.setCa_pstem(m_plStemShare.getParameter(uKey).m_Vals);
-            pgmCa.setCa_pbranch(m_plBranchShare.getParameter(uKey).m_Vals);
-            pgmCa.setCa_pcroots(m_plCrootsShare.getParameter(uKey).m_Vals);
-            pgmCa.setCa_pfroots(m_plFrootsShare.getParameter(uKey).m_Vals);
-            pgmCa.setCa_pleaves(m_plLeavesShare.getParameter(uKey).m_Vals);
-            pgmCa.setCa_cstem(0.0);
-            pgmCa.setCa_cbranch(0.0);
-            pgmCa.setCa_ccroots(0.0);
-            pgmCa.setCa_cfroots(0.0);
-            pgmCa.setCa_cleaves(0.0);
-
-            float felval;
-            felval = (float)pTable.makeFellings(pgmFel,pgmCa);
-            ComArFlt pComar = m_mafFellings.get(uKey);
-            if (pComar != null) {
-                pComar.addData(felval);
-                m_mafFellings.put(uKey, pComar);
-            }
-            //pTable.makeFellings(pgmFel,pgmCa);
+            //pTable.makeFellings(pgmFel,pgmCa);
             m_BareFund.addArea(uKey,pgmFel.getF_area());
             // Residuals keeping
             ArrayList pvalFlRsd = new ArrayList();
@@ -2275,19 +2372,17 @@ public class GMEfiscen implements Serializable {
      * @return fellings volume
      */
     public float doFellingsEx (GMParLocator plR, GMParLocator plRem) throws GMParLocator.GMParLocatorException {
-        GMFellings pgmFel = new GMFellings();
-        GMCarbonAlloc pgmCa = new GMCarbonAlloc();
-        pgmFel.setF_area(0.0);
-        pgmFel.setF_volume(0.0);
-        pgmFel.setF_stem(0.95);
-        pgmFel.setF_branch(0.0);
-        pgmFel.setF_croots(0.0);
-        pgmFel.setF_froots(0.0);
-        pgmFel.setF_leaves(0.0);
-        GMMatrix pTable;
-        for (Long uKey : m_mTables.keySet())
-        {
-            pTable = m_mTables.get(uKey);
+        final GMFellings pgmSettings = new GMFellings();
+        pgmSettings.setF_area(0.0);
+        pgmSettings.setF_volume(0.0);
+        pgmSettings.setF_stem(0.95);
+        pgmSettings.setF_branch(0.0);
+        pgmSettings.setF_croots(0.0);
+        pgmSettings.setF_froots(0.0);
+        pgmSettings.setF_leaves(0.0);
+        ArrayList<GMStepResult> paRes = runPhase(pRes -> {
+            GMFellings pgmFel = phaseFellings(pgmSettings);
+            long uKey = pRes.m_uKey;
             // Intencity retrieving
             pgmFel.setF_ratio(plR.getParameterValue(uKey,0));
             // Removals definition
@@ -2296,99 +2391,12 @@ public class GMEfiscen implements Serializable {
             pgmFel.setF_leaves(plRem.getParameterValue(uKey,3));	//2
             pgmFel.setF_froots(plRem.getParameterValue(uKey,4));
             pgmFel.setF_croots(plRem.getParameterValue(uKey,10)); // coarse roots (Uppsala)
-            // Carbon allocate structure filling
-            pgmCa.setCa_ccont(m_plCcont.getParameterValue(uKey,0));
-            pgmCa.setCa_dns(m_plWoodDens.getParameterValue(uKey,0));
-            pgmCa.setCa_nsize(m_plCompXvals.getParameter(uKey).m_nSize);
-            pgmCa.setCa_pxvals(m_plCompXvals.getParameter(uKey).m_Vals);
-            pgmCa.setCa_pstem(m_plStemShare.getParameter(uKey).m_Vals);
-            pgmCa.setCa_pbranch(m_plBranchShare.getParameter(uKey).m_Vals);
-            pgmCa.setCa_pcroots(m_plCrootsShare.getParameter(uKey).m_Vals);
-            pgmCa.setCa_pfroots(m_plFrootsShare.getParameter(uKey).m_Vals);
-            pgmCa.setCa_pleaves(m_plLeavesShare.getParameter(uKey).m_Vals);
-            pgmCa.setCa_cstem(0.0);
-            pgmCa.setCa_cbranch(0.0);
-            pgmCa.setCa_ccroots(0.0);
-            pgmCa.setCa_cfroots(0.0);
-            pgmCa.setCa_cleaves(0.0);
-
-            float felval;
-            felval = (float)pTable.makeFellings(pgmFel,pgmCa);
-            ComArFlt pComar = m_mafFellings.get(uKey);
-            if (pComar != null) {
-                pComar.addData(felval);
-                m_mafFellings.put(uKey, pComar);
-            }
-            //pTable.makeFellings(pgmFel,pgmCa);
-            m_BareFund.addArea(uKey,pgmFel.getF_area());
-            float stres,stresrem,brres,brresrem,lvres,lvresrem,crres,crresrem; //(Uppsala)
-            stres = (float)pgmCa.getCa_cstem();
-            stresrem = stres*plRem.getParameterValue(uKey,1);
-            stres-=stresrem;
-            
-            brres = (float)pgmCa.getCa_cbranch();
-            brresrem = 0.0f;
-            if (pgmFel.getF_branch()<1.0)
-                brresrem = (float)(pgmFel.getF_branch()*brres/(1-pgmFel.getF_branch()));
-            lvres = (float)pgmCa.getCa_cleaves();
-            lvresrem = 0.0f;
-            if (pgmFel.getF_leaves()<1.0)
-                lvresrem = (float)(pgmFel.getF_leaves()*lvres/(1-pgmFel.getF_leaves()));
-            crres = (float)pgmCa.getCa_ccroots();
-            crresrem = 0.0f;
-            if (pgmFel.getF_croots()<1.0)
-                crresrem = (float)(pgmFel.getF_croots()*crres/(1-pgmFel.getF_croots()));
-            
-            // Residuals keepings
-            ArrayList pvalFlRsd = new ArrayList();
-            pvalFlRsd.add((float)stres);
-            pvalFlRsd.add((float)brres);
-            pvalFlRsd.add((float)lvres);
-            pvalFlRsd.add((float)crres);
-            
-            ComArFlt<ArrayList<Float>> pPComar = m_mafFelRsd.get(uKey);
-            if (pPComar != null) {
-                pPComar.addData(pvalFlRsd); //(float)pgmCa.getCa_cstem();
-                /*pPComar.addData(brres); //(float)pgmCa.getCa_cbranch();
-                pPComar.addData(lvres); //(float)pgmCa.getCa_cleaves();
-                pPComar.addData(crres); //(float)pgmCa.getCa_ccroots(); (Uppsala)*/
-                m_mafFelRsd.put(uKey, pPComar);
-            }
-            ArrayList<Float> pvalFlRsdRem = new ArrayList<>();
-            pvalFlRsdRem.add(stresrem);
-            pvalFlRsdRem.add(brresrem);
-            pvalFlRsdRem.add(lvresrem);
-            pvalFlRsdRem.add(crresrem);
-            
-            pPComar = m_mafFelRsdRem.get(uKey);
-            if (pPComar != null) {
-                pPComar.addData(pvalFlRsdRem); //(float)pgmCa.setCa_cstem;
-                /*pPComar.addData(brresrem); //(float)pgmCa.setCa_cbranch;
-                pPComar.addData(lvresrem); //(float)pgmCa.setCa_cleaves;
-                pPComar.addData(crresrem); //(float)pgmCa.setCa_ccroots; (Uppsala)*/
-                m_mafFelRsdRem.put(uKey, pPComar);
-            }
-            // Coarse roots management  January 2010 
-            float cr2wl = 1.0f;
-            GMParArray paCr2Wl = null;
-            paCr2Wl = m_plCroots2CWL.getParameter(uKey);
-            if (paCr2Wl != null)
-                cr2wl = paCr2Wl.m_Vals.get(0);
-            else
-                System.err.println("Could not locate the coarse woody litter share\nwill use 1.0");
-
-            // Soil Litter update
-            GMSoil pSol = findSoil(uKey);
-            if (pSol != null) {
-                pSol.addLitter((pgmCa.getCa_cleaves()+pgmCa.getCa_cfroots())/m_nStep,
-                    (pgmCa.getCa_cbranch()+(1.0-cr2wl)*pgmCa.getCa_ccroots())/m_nStep,
-                    (stres+cr2wl*pgmCa.getCa_ccroots())/m_nStep);
-                //m_mSoils.put(uKey, pSol);
-            }
-            pgmFel.setF_area(0.0);
-            m_mTables.put(uKey, pTable);
-        }
-        float ret = (float) pgmFel.getF_volume();
+            GMCarbonAlloc pgmCa = pRes.m_pPars.newCarbonAlloc();
+            pRes.m_fValue = (float)pRes.m_pTable.makeFellings(pgmFel,pgmCa);
+            keepResidues(pRes,pgmFel,pgmCa,plRem.getParameterValue(uKey,1));
+        });
+        mergeResults(paRes,m_mafFellings,m_mafFelRsd,m_mafFelRsdRem,true);
+        float ret = (float) phaseVolume(paRes);
         return ret;
     }
 
@@ -2398,98 +2406,27 @@ public class GMEfiscen implements Serializable {
      * @return thinnings volume
      */
     public float doThinnings (float intens) throws GMParLocator.GMParLocatorException {
-        GMFellings pgmFel = new GMFellings();
-        GMCarbonAlloc pgmCa = new GMCarbonAlloc();
+        final GMFellings pgmSettings = new GMFellings();
         if (intens>1.0)
             intens = 1.0f;
         if (intens<0)
             intens = 0.0f;
-        pgmFel.setF_ratio(intens);
-        pgmFel.setF_area(0.0);
-        pgmFel.setF_volume(0.0);
-        pgmFel.setF_stem(0.9);
-        pgmFel.setF_branch(0.0);
-        pgmFel.setF_croots(0.0);
-        pgmFel.setF_froots(0.0);
-        pgmFel.setF_leaves(0.0);
-        GMMatrix pTable;
-        for (Long uKey : m_mTables.keySet())
-        {
-            pTable = m_mTables.get(uKey);
-            // Carbon allocate structure filling
-            pgmCa.setCa_ccont(m_plCcont.getParameterValue(uKey,0));
-            pgmCa.setCa_dns(m_plWoodDens.getParameterValue(uKey,0));
-            pgmCa.setCa_nsize(m_plCompXvals.getParameter(uKey).m_nSize);
-            pgmCa.setCa_pxvals(m_plCompXvals.getParameter(uKey).m_Vals);
-            pgmCa.setCa_pstem(m_plStemShare.getParameter(uKey).m_Vals);
-            pgmCa.setCa_pbranch(m_plBranchShare.getParameter(uKey).m_Vals);
-            pgmCa.setCa_pcroots(m_plCrootsShare.getParameter(uKey).m_Vals);
-            pgmCa.setCa_pfroots(m_plFrootsShare.getParameter(uKey).m_Vals);
-            pgmCa.setCa_pleaves(m_plLeavesShare.getParameter(uKey).m_Vals);
-            pgmCa.setCa_cstem(0.0f);
-            pgmCa.setCa_cbranch(0.0f);
-            pgmCa.setCa_ccroots(0.0f);
-            pgmCa.setCa_cfroots(0.0f);
-            pgmCa.setCa_cleaves(0.0f);
-            float thinval;
-            //thinval = pTable.doThinning(pgmFel,pgmCa);
-            thinval = (float)pTable.doThinningV4(pgmFel,pgmCa);
-            ComArFlt<Float> pComar = m_mafThinnings.get(uKey);
-            if (pComar != null) {
-                pComar.addData(thinval);
-                m_mafThinnings.put(uKey, pComar);
-            }
-            // Residuals keeping
-            ArrayList<Float> pvalThRsd = new ArrayList<>();
-            pvalThRsd.add((float)pgmCa.getCa_cstem());
-            pvalThRsd.add((float)pgmCa.getCa_cbranch());
-            pvalThRsd.add((float)pgmCa.getCa_cleaves());
-            pvalThRsd.add((float)pgmCa.getCa_ccroots());
-            
-            ComArFlt<ArrayList<Float>> pPComar = m_mafThRsd.get(uKey);
-            if (pPComar != null) {
-                pPComar.addData(pvalThRsd);
-                /*pPComar.addData((float)pgmCa.getCa_cbranch());
-                pPComar.addData((float)pgmCa.getCa_cleaves());
-                pPComar.addData((float)pgmCa.getCa_ccroots()); // (Uppsala)*/
-                m_mafThRsd.put(uKey, pPComar);
-            }
-            
-            ArrayList<Float> pvalThRsdRem = new ArrayList<>();
-            pvalThRsdRem.add(0.0f);
-            pvalThRsdRem.add(0.0f);
-            pvalThRsdRem.add(0.0f);
-            pvalThRsdRem.add(0.0f);
-            
-            pPComar = m_mafThRsdRem.get(uKey);
-            if (pPComar != null) {
-                pPComar.addData(pvalThRsdRem); //(float)pgmCa.getCa_cstem();
-                /*pPComar.addData(0.0f); //(float)pgmCa.getCa_cbranch();
-                pPComar.addData(0.0f); //(float)pgmCa.getCa_cleaves();
-                pPComar.addData(0.0f); //(Uppsala)*/
-                m_mafThRsdRem.put(uKey, pPComar);
-            }
-
-            // Coarse roots management r January 2010 
-            float cr2wl = 1.0f;
-            GMParArray paCr2Wl = null;
-            paCr2Wl = m_plCroots2CWL.getParameter(uKey);
-            if (paCr2Wl != null)
-                cr2wl = paCr2Wl.m_Vals.get(0);
-            else
-                System.err.println("Could not locate the coarse woody litter share\nwill use 1.0");
-
-            GMSoil pSol = findSoil(uKey);
-            if (pSol != null) {
-                pSol.addLitter((pgmCa.getCa_cleaves()+pgmCa.getCa_cfroots())/m_nStep,
-                        (pgmCa.getCa_cbranch()+(1.0-cr2wl)*pgmCa.getCa_ccroots())/m_nStep,
-                        (pgmCa.getCa_cstem()+cr2wl*pgmCa.getCa_ccroots())/m_nStep);
-                //m_mSoils.put(uKey, pSol);
-            }
-            pgmFel.setF_area(0.0);
-            m_mTables.put(uKey, pTable);
-        }
-        float ret = (float) pgmFel.getF_volume();
+        pgmSettings.setF_ratio(intens);
+        pgmSettings.setF_area(0.0);
+        pgmSettings.setF_volume(0.0);
+        pgmSettings.setF_stem(0.9);
+        pgmSettings.setF_branch(0.0);
+        pgmSettings.setF_croots(0.0);
+        pgmSettings.setF_froots(0.0);
+        pgmSettings.setF_leaves(0.0);
+        ArrayList<GMStepResult> paRes = runPhase(pRes -> {
+            GMFellings pgmFel = phaseFellings(pgmSettings);
+            GMCarbonAlloc pgmCa = pRes.m_pPars.newCarbonAlloc();
+            pRes.m_fValue = (float)pRes.m_pTable.doThinningV4(pgmFel,pgmCa);
+            keepResidues(pRes,pgmFel,pgmCa);
+        });
+        mergeResults(paRes,m_mafThinnings,m_mafThRsd,m_mafThRsdRem,false);
+        float ret = (float) phaseVolume(paRes);
         return ret;
     }
 
@@ -2578,120 +2515,34 @@ public class GMEfiscen implements Serializable {
      * Performing thinnings with intensity in the plR - ParLocator and plRem
      * - ParLocator with removals definition.
      * @param plR intensities
-     * @return thinnings volume
-     */
-    public float doThinningsEx (GMParLocator plR, GMParLocator plRem) throws GMParLocator.GMParLocatorException {
-        GMFellings pgmFel = new GMFellings();
-        GMCarbonAlloc pgmCa = new GMCarbonAlloc();
-        pgmFel.setF_area(0.0);
-        pgmFel.setF_volume(0.0);
-        pgmFel.setF_stem(0.9);
-        pgmFel.setF_branch(0.0);
-        pgmFel.setF_croots(0.0);
-        pgmFel.setF_froots(0.0);
-        pgmFel.setF_leaves(0.0);
-        GMMatrix pTable;
-        for (Long uKey : m_mTables.keySet())
-        {
-            pTable = m_mTables.get(uKey);
-			// Intensity retrieving
-            pgmFel.setF_ratio(plR.getParameterValue(uKey,1));
-            // Removals definition
-            pgmFel.setF_stem(plRem.getParameterValue(uKey,5));	//3
-            pgmFel.setF_branch(plRem.getParameterValue(uKey,7));	//4
-            pgmFel.setF_leaves(plRem.getParameterValue(uKey,8));	//5
-            pgmFel.setF_froots(plRem.getParameterValue(uKey,9));
-            pgmFel.setF_croots(plRem.getParameterValue(uKey,11)); //coarse roots (Uppsala)
-            // Carbon allocate structure filling
-            pgmCa.setCa_ccont(m_plCcont.getParameterValue(uKey,0));
-            pgmCa.setCa_dns(m_plWoodDens.getParameterValue(uKey,0));
-            pgmCa.setCa_nsize(m_plCompXvals.getParameter(uKey).m_nSize);
-            pgmCa.setCa_pxvals(m_plCompXvals.getParameter(uKey).m_Vals);
-            pgmCa.setCa_pstem(m_plStemShare.getParameter(uKey).m_Vals);
-            pgmCa.setCa_pbranch(m_plBranchShare.getParameter(uKey).m_Vals);
-            pgmCa.setCa_pcroots(m_plCrootsShare.getParameter(uKey).m_Vals);
-            pgmCa.setCa_pfroots(m_plFrootsShare.getParameter(uKey).m_Vals);
-            pgmCa.setCa_pleaves(m_plLeavesShare.getParameter(uKey).m_Vals);
-            pgmCa.setCa_cstem(0.0f);
-            pgmCa.setCa_cbranch(0.0f);
-            pgmCa.setCa_ccroots(0.0f);
-            pgmCa.setCa_cfroots(0.0f);
-            pgmCa.setCa_cleaves(0.0f);
-            float thinval;
-            thinval = (float)pTable.doThinningV4(pgmFel,pgmCa); // !!
-            ComArFlt<Float> pComar = m_mafThinnings.get(uKey);
-            if (pComar != null) {
-                pComar.addData(thinval);
-                m_mafThinnings.put(uKey, pComar);
-            }
-            float stres,stresrem,brres,brresrem,lvres,lvresrem,crres,crresrem;
-            stres = (float)pgmCa.getCa_cstem();
-            stresrem = stres*plRem.getParameterValue(uKey,6);
-            stres-=stresrem;
-            //removals
-            brres = (float)pgmCa.getCa_cbranch();
-            brresrem = 0.0f;
-            if (pgmFel.getF_branch()<1.0)
-                brresrem = (float)(pgmFel.getF_branch()*brres/(1-pgmFel.getF_branch()));
-            lvres = (float)pgmCa.getCa_cleaves();
-            lvresrem = 0.0f;
-            if (pgmFel.getF_leaves()<1.0)
-                lvresrem = (float)(pgmFel.getF_leaves()*lvres/(1-pgmFel.getF_leaves()));
-            crres = (float)pgmCa.getCa_ccroots();
-            crresrem = 0.0f;
-            if (pgmFel.getF_croots()<1.0)
-                crresrem = (float)(pgmFel.getF_croots()*crres/(1-pgmFel.getF_croots()));
-            // End dirty part!
-            // Residuals keeping
-            ArrayList<Float> pvalThRsd = new ArrayList<>();
-            pvalThRsd.add(stres);
-            pvalThRsd.add(brres);
-            pvalThRsd.add(lvres);
-            pvalThRsd.add(crres);
-            
-            ComArFlt<ArrayList<Float>> pPComar = m_mafThRsd.get(uKey);
-            if (pPComar != null) {
-                pPComar.addData(pvalThRsd);
-                /*pPComar.addData(brres);
-                pPComar.addData(lvres);
-                pPComar.addData(crres); // (Uppsala)*/
-                m_mafThRsd.put(uKey, pPComar);
-            }
-            
-            ArrayList<Float> pvalThRsdRem = new ArrayList<>();
-            pvalThRsdRem.add(stresrem);
-            pvalThRsdRem.add(brresrem);
-            pvalThRsdRem.add(lvresrem);
-            pvalThRsdRem.add(crresrem);
-            
-            pPComar = m_mafThRsdRem.get(uKey);
-            if (pPComar != null) {
-                pPComar.addData(pvalThRsdRem);//(float)pgmCa.setCa_cstem;
-                /*pPComar.addData(brresrem);//(float)pgmCa.setCa_cbranch;
-                pPComar.addData(lvresrem);//(float)pgmCa.setCa_cleaves;
-                pPComar.addData(crresrem); //(Uppsala)*/
-                m_mafThRsdRem.put(uKey, pPComar);
-            }
-            // Coarse roots management  January 2010 
-            float cr2wl = 1.0f;
-            GMParArray paCr2Wl = null;
-            paCr2Wl = m_plCroots2CWL.getParameter(uKey);
-            if (paCr2Wl != null)
-                cr2wl = paCr2Wl.m_Vals.get(0);
-            else
-                System.err.println("Could not locate the coarse woody litter share\nwill use 1.0");
-            // Soil Litter update
-            GMSoil pSol = findSoil(uKey);
-            if (pSol != null) {
-                pSol.addLitter((pgmCa.getCa_cleaves()+pgmCa.getCa_cfroots())/m_nStep,
-                        (pgmCa.getCa_cbranch()+(1.0-cr2wl)*pgmCa.getCa_ccroots())/m_nStep,
-                        (stres+cr2wl*pgmCa.getCa_ccroots())/m_nStep);
-                //m_mSoils.put(uKey, pSol);
-            }
-            pgmFel.setF_area(0.0);
-            m_mTables.put(uKey, pTable);
-        }
-        float ret = (float) pgmFel.getF_volume();
+     * @return thinnings volume
+     */
+    public float doThinningsEx (GMParLocator plR, GMParLocator plRem) throws GMParLocator.GMParLocatorException {
+        final GMFellings pgmSettings = new GMFellings();
+        pgmSettings.setF_area(0.0);
+        pgmSettings.setF_volume(0.0);
+        pgmSettings.setF_stem(0.9);
+        pgmSettings.setF_branch(0.0);
+        pgmSettings.setF_croots(0.0);
+        pgmSettings.setF_froots(0.0);
+        pgmSettings.setF_leaves(0.0);
+        ArrayList<GMStepResult> paRes = runPhase(pRes -> {
+            GMFellings pgmFel = phaseFellings(pgmSettings);
+            long uKey = pRes.m_uKey;
+            // Intensity retrieving
+            pgmFel.setF_ratio(plR.getParameterValue(uKey,1));
+            // Removals definition
+            pgmFel.setF_stem(plRem.getParameterValue(uKey,5));	//3
+            pgmFel.setF_branch(plRem.getParameterValue(uKey,7));	//4
+            pgmFel.setF_leaves(plRem.getParameterValue(uKey,8));	//5
+            pgmFel.setF_froots(plRem.getParameterValue(uKey,9));
+            pgmFel.setF_croots(plRem.getParameterValue(uKey,11)); //coarse roots (Uppsala)
+            GMCarbonAlloc pgmCa = pRes.m_pPars.newCarbonAlloc();
+            pRes.m_fValue = (float)pRes.m_pTable.doThinningV4(pgmFel,pgmCa); // !!
+            keepResidues(pRes,pgmFel,pgmCa,plRem.getParameterValue(uKey,6));
+        });
+        mergeResults(paRes,m_mafThinnings,m_mafThRsd,m_mafThRsdRem,false);
+        float ret = (float) phaseVolume(paRes);
         return ret;
     }
 
@@ -2730,77 +2581,374 @@ public class GMEfiscen implements Serializable {
      * @return fellings volume
      */
     public float doNaturalMortality () throws GMParLocator.GMParLocatorException {
-        GMFellings pgmFel = new GMFellings();
-        GMCarbonAlloc pgmCa = new GMCarbonAlloc();
-
-        pgmFel.setF_ratio(1.0);
-        pgmFel.setF_area(0.0);
-        pgmFel.setF_volume(0.0);
-        pgmFel.setF_stem(1.0);
-        pgmFel.setF_branch(0.0);
-        pgmFel.setF_croots(0.0);
-        pgmFel.setF_froots(0.0);
-        pgmFel.setF_leaves(0.0);
-        GMMatrix pTable;
-        for (Long uKey : m_mTables.keySet())
-        {
-            pTable = m_mTables.get(uKey);
-            // Carbon allocate structure filling
-            pgmCa.setCa_ccont(m_plCcont.getParameterValue(uKey,0));
-            pgmCa.setCa_dns(m_plWoodDens.getParameterValue(uKey,0));
-            pgmCa.setCa_nsize(m_plCompXvals.getParameter(uKey).m_nSize);
-            pgmCa.setCa_pxvals(m_plCompXvals.getParameter(uKey).m_Vals);
-            pgmCa.setCa_pstem(m_plStemShare.getParameter(uKey).m_Vals);
-            pgmCa.setCa_pbranch(m_plBranchShare.getParameter(uKey).m_Vals);
-            pgmCa.setCa_pcroots(m_plCrootsShare.getParameter(uKey).m_Vals);
-            pgmCa.setCa_pfroots(m_plFrootsShare.getParameter(uKey).m_Vals);
-            pgmCa.setCa_pleaves(m_plLeavesShare.getParameter(uKey).m_Vals);
-            pgmCa.setCa_cstem(0.0);
-            pgmCa.setCa_cbranch(0.0);
-            pgmCa.setCa_ccroots(0.0);
-            pgmCa.setCa_cfroots(0.0);
-            pgmCa.setCa_cleaves(0.0);
+        final GMFellings pgmSettings = new GMFellings();
+
+        pgmSettings.setF_ratio(1.0);
+        pgmSettings.setF_area(0.0);
+        pgmSettings.setF_volume(0.0);
+        pgmSettings.setF_stem(1.0);
+        pgmSettings.setF_branch(0.0);
+        pgmSettings.setF_croots(0.0);
+        pgmSettings.setF_froots(0.0);
+        pgmSettings.setF_leaves(0.0);
+        ArrayList<GMStepResult> paRes = runPhase(pRes -> {
+            GMFellings pgmFel = phaseFellings(pgmSettings);
+            GMMatrixPars pPars = pRes.m_pPars;
+            GMCarbonAlloc pgmCa = pPars.newCarbonAlloc();
             ArrayList<Float> flims,frates;
             int ns;
-            flims = null;
-            frates = null;
-            // Not now GMParArray pPar = null;
-            // A bit dirty
-            flims = m_plMortRateXvals.getParameter(uKey).m_Vals;
-            frates = m_plMortRate.getParameter(uKey).m_Vals;
-            ns = m_plMortRateXvals.getParameter(uKey).m_nSize;
+            flims = pPars.getMortRateXvals();
+            frates = pPars.getMortRate();
+            ns = pPars.m_paMortRateXvals.m_nSize;
             // Getting deadwood decay rate!
-            pgmFel.setF_ratio(m_plDeadWoodDrate.getParameterValue(uKey,0));
-            float dwood;
-            dwood = (float)pTable.doNaturalMortality(pgmFel,pgmCa,flims,frates,ns);
-            // Keeping history
-            ComArFlt<Float> pComar = m_mafNatMort.get(uKey);
-            if (pComar != null) {
-                pComar.addData(dwood);
-                m_mafNatMort.put(uKey, pComar);
+            pgmFel.setF_ratio(pPars.m_fDeadWoodDrate);
+            pRes.m_fValue = (float)pRes.m_pTable.doNaturalMortality(pgmFel,pgmCa,flims,frates,ns);
+            keepResidues(pRes,pgmFel,pgmCa);
+        });
+        // Keeping history and adding litter to the soil
+        mergeResults(paRes,m_mafNatMort,null,null,false);
+        float ret = (float) phaseVolume(paRes);
+        return ret;
+    }
+
+    /**
+     * Growth and update of all matrixes.
+     * @return pairwise sum of the update results in the order of matrix keys
+     */
+    public float growMatrixes () throws GMParLocator.GMParLocatorException {
+        ArrayList<GMStepResult> paRes = runPhase(pRes -> {
+            GMMatrix pTable = pRes.m_pTable;
+            if (pTable != null) {
+                if (m_bFusedStep)
+                    pRes.m_fValue = pTable.stepV4();
+                else {
+                    pTable.growV4();
+                    pRes.m_fValue = pTable.updateV4();
+                }
             }
-            // Adding litter to the soil
-            // Coarse roots management  January 2010 
-            float cr2wl = 1.0f;
-            GMParArray paCr2Wl = null;
-            paCr2Wl = m_plCroots2CWL.getParameter(uKey);
-            if (paCr2Wl != null)
-                cr2wl = paCr2Wl.m_Vals.get(0);
-            else
-                System.err.println("Could not locate the coarse woody litter share\nwill use 1.0");
+        });
+        ComSum pSum = new ComSum(paRes.size());
+        for (GMStepResult pRes : paRes)
+        {
+            if (pRes.m_pTable != null)
+                pSum.add(pRes.m_fValue);
+        }
+        return (float)pSum.sum();
+    }
+
+    /**
+     * Sets the number of threads used for the per matrix phases of a step.
+     * Results do not depend on it: shared structures are always updated and
+     * summed in the order of matrix keys.
+     * @param npar number of threads, 1 for sequential processing
+     */
+    public void setParallelism (int npar) {
+        if (npar<1)
+            npar = 1;
+        if (npar!=m_nParallelism)
+            close();
+        m_nParallelism = npar;
+    }
+
+    /**
+     * Gets the number of threads used for the per matrix phases of a step.
+     * @return number of threads
+     */
+    public int getParallelism () {
+        return m_nParallelism;
+    }
+
+    /**
+     * Checks if the per matrix phases are run concurrently.
+     * @return true if more than one thread is used for more than one matrix
+     */
+    public boolean isParallel () {
+        return m_nParallelism>1 && m_mTables.size()>1;
+    }
+
+    /**
+     * Shuts down the threads of the per matrix phases. The experiment can
+     * still be simulated, a new pool is started when it is needed again.
+     * Must be called when a parallel experiment is not used any more.
+     */
+    public void close () {
+        if (m_pPool != null) {
+            m_pPool.shutdown();
+            m_pPool = null;
+        }
+    }
+
+    /**
+     * Per matrix part of a phase of the simulation step. It may change only
+     * its matrix and the result, everything shared between matrixes is
+     * updated afterwards.
+     */
+    interface GMMatrixPhase {
+        void run (GMStepResult pRes) throws GMParLocator.GMParLocatorException;
+    }
+
+    /**
+     * Runs the phase for all matrixes, concurrently if parallelism is set.
+     * @param pPhase per matrix part of the phase
+     * @return results in the order of getMatrixKeys
+     */
+    private ArrayList<GMStepResult> runPhase (GMMatrixPhase pPhase) throws GMParLocator.GMParLocatorException {
+        ArrayList<GMStepResult> paRes = new ArrayList<>(m_mTables.size());
+        checkParameters();
+        for (Long uKey : getMatrixKeys()) {
+            GMStepResult pRes = new GMStepResult(uKey,m_mTables.get(uKey));
+            pRes.m_pPars = getMatrixPars(uKey);
+            paRes.add(pRes);
+        }
+        if (!isParallel()) {
+            for (GMStepResult pRes : paRes)
+                pPhase.run(pRes);
+            return paRes;
+        }
+        ArrayList<Callable<GMStepResult>> paTasks = new ArrayList<>(paRes.size());
+        for (GMStepResult pRes : paRes) {
+            paTasks.add(() -> {
+                pPhase.run(pRes);
+                return pRes;
+            });
+        }
+        invokeTasks(paTasks);
+        return paRes;
+    }
+
+    /**
+     * Runs the per matrix tasks on the pool of m_nParallelism threads.
+     * @param paTasks tasks
+     */
+    private <T> void invokeTasks (ArrayList<Callable<T>> paTasks) throws GMParLocator.GMParLocatorException {
+        if (m_pPool == null)
+            m_pPool = new ForkJoinPool(m_nParallelism);
+        try {
+            // Failures are reported for the first task in the list
+            for (Future<T> pDone : m_pPool.invokeAll(paTasks))
+                pDone.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted matrix phase",ex);
+        } catch (ExecutionException ex) {
+            Throwable pCause = ex.getCause();
+            if (pCause instanceof GMParLocator.GMParLocatorException)
+                throw (GMParLocator.GMParLocatorException)pCause;
+            if (pCause instanceof RuntimeException)
+                throw (RuntimeException)pCause;
+            if (pCause instanceof Error)
+                throw (Error)pCause;
+            throw new IllegalStateException(pCause);
+        }
+    }
+
+    /**
+     * Fellings summator for one matrix of a phase. Every matrix collects
+     * its own volume, so the totals do not depend on the parallelism.
+     * @param pgmSettings settings of the phase
+     * @return summator to use for the matrix
+     */
+    private GMFellings phaseFellings (GMFellings pgmSettings) {
+        return new GMFellings(pgmSettings.getF_ratio(),0.0,0.0,pgmSettings.getF_stem(),
+                pgmSettings.getF_branch(),pgmSettings.getF_leaves(),
+                pgmSettings.getF_croots(),pgmSettings.getF_froots());
+    }
+
+    /**
+     * Total volume collected by a phase, summed pairwise in the order of
+     * matrix keys.
+     * @param paRes results of the phase
+     * @return volume
+     */
+    private double phaseVolume (ArrayList<GMStepResult> paRes) {
+        ComSum pSum = new ComSum(paRes.size());
+        for (GMStepResult pRes : paRes)
+            pSum.add(pRes.m_dVolume);
+        return pSum.sum();
+    }
+
+    /**
+     * Locators of the parameters kept in GMMatrixPars.
+     * @return locators
+     */
+    private GMParLocator[] parLocators () {
+        return new GMParLocator[] {m_plCcont, m_plWoodDens, m_plCompXvals,
+            m_plStemShare, m_plBranchShare, m_plCrootsShare, m_plFrootsShare,
+            m_plLeavesShare, m_plCroots2CWL, m_plLtrCompXvals, m_plLtrStemShare,
+            m_plLtrBranchShare, m_plLtrCrootsShare, m_plLtrFrootsShare,
+            m_plLtrLeavesShare, m_plMortRateXvals, m_plMortRate, m_plDeadWoodDrate};
+    }
+
+    /**
+     * Drops the resolved parameters if any of their locators was replaced
+     * or got new parameters since they were resolved.
+     */
+    public void checkParameters () {
+        GMParLocator[] apl = parLocators();
+        boolean bValid = m_mPars != null && m_aplBound != null;
+        for (int i=0;bValid && i<apl.length;i++)
+            bValid = apl[i] == m_aplBound[i] &&
+                    (apl[i] == null || apl[i].getModCount() == m_anBound[i]);
+        if (bValid)
+            return;
+        m_aplBound = apl;
+        m_anBound = new int[apl.length];
+        for (int i=0;i<apl.length;i++)
+            m_anBound[i] = apl[i] == null ? 0 : apl[i].getModCount();
+        m_mPars = new HashMap<>();
+    }
+
+    /**
+     * Drops all resolved parameters, they are located again on the next use.
+     */
+    public void invalidateParameters () {
+        m_mPars = null;
+        m_aplBound = null;
+    }
+
+    /**
+     * Parameters of the matrix or soil resolved from the locators. The
+     * bundle is created on the first request and kept until the locators
+     * change (see checkParameters).
+     * @param uKey key of the matrix or soil
+     * @return parameters
+     */
+    public GMMatrixPars getMatrixPars (long uKey) {
+        if (m_mPars == null)
+            checkParameters();
+        GMMatrixPars pPars = m_mPars.get(uKey);
+        if (pPars == null) {
+            pPars = new GMMatrixPars(this,uKey);
+            m_mPars.put(uKey, pPars);
+        }
+        return pPars;
+    }
+
+    /**
+     * Keys of all matrixes in ascending order. Phases of a step are merged
+     * and summed in this order, which does not depend on the state of
+     * the m_mTables hash map.
+     * @return sorted matrix keys
+     */
+    public ArrayList<Long> getMatrixKeys () {
+        ArrayList<Long> paKeys = new ArrayList<>(m_mTables.keySet());
+        Collections.sort(paKeys);
+        return paKeys;
+    }
+
+    /**
+     * Keeps the residues of a matrix when nothing is removed from the forest.
+     * @param pRes result of the matrix
+     * @param pgmFel fellings summator used for the matrix
+     * @param pgmCa carbon allocation used for the matrix
+     */
+    private void keepResidues (GMStepResult pRes, GMFellings pgmFel, GMCarbonAlloc pgmCa)
+            throws GMParLocator.GMParLocatorException {
+        pRes.m_pCa = pgmCa;
+        pRes.m_dArea = pgmFel.getF_area();
+        pRes.m_dVolume = pgmFel.getF_volume();
+        pgmFel.setF_area(0.0);
+        // Residuals keeping
+        pRes.m_pRsd = new ArrayList<>();
+        pRes.m_pRsd.add((float)pgmCa.getCa_cstem());
+        pRes.m_pRsd.add((float)pgmCa.getCa_cbranch());
+        pRes.m_pRsd.add((float)pgmCa.getCa_cleaves());
+        pRes.m_pRsd.add((float)pgmCa.getCa_ccroots());
+        // Resrems keeping! To integrity with scenarios
+        pRes.m_pRsdRem = new ArrayList<>();
+        pRes.m_pRsdRem.add(0.0f);
+        pRes.m_pRsdRem.add(0.0f);
+        pRes.m_pRsdRem.add(0.0f);
+        pRes.m_pRsdRem.add(0.0f);
+        pRes.m_dStemLitter = pgmCa.getCa_cstem();
+        pRes.m_fCr2Wl = pRes.m_pPars.getCroots2Cwl();
+    }
+
+    /**
+     * Keeps the residues of a matrix with removals definition.
+     * @param pRes result of the matrix
+     * @param pgmFel fellings summator used for the matrix
+     * @param pgmCa carbon allocation used for the matrix
+     * @param stemrem share of stem residues removed
+     */
+    private void keepResidues (GMStepResult pRes, GMFellings pgmFel, GMCarbonAlloc pgmCa,
+            float stemrem) throws GMParLocator.GMParLocatorException {
+        pRes.m_pCa = pgmCa;
+        pRes.m_dArea = pgmFel.getF_area();
+        pRes.m_dVolume = pgmFel.getF_volume();
+        pgmFel.setF_area(0.0);
+        float stres,stresrem,brres,brresrem,lvres,lvresrem,crres,crresrem; //(Uppsala)
+        stres = (float)pgmCa.getCa_cstem();
+        stresrem = stres*stemrem;
+        stres-=stresrem;
+        //removals
+        brres = (float)pgmCa.getCa_cbranch();
+        brresrem = 0.0f;
+        if (pgmFel.getF_branch()<1.0)
+            brresrem = (float)(pgmFel.getF_branch()*brres/(1-pgmFel.getF_branch()));
+        lvres = (float)pgmCa.getCa_cleaves();
+        lvresrem = 0.0f;
+        if (pgmFel.getF_leaves()<1.0)
+            lvresrem = (float)(pgmFel.getF_leaves()*lvres/(1-pgmFel.getF_leaves()));
+        crres = (float)pgmCa.getCa_ccroots();
+        crresrem = 0.0f;
+        if (pgmFel.getF_croots()<1.0)
+            crresrem = (float)(pgmFel.getF_croots()*crres/(1-pgmFel.getF_croots()));
+        // Residuals keeping
+        pRes.m_pRsd = new ArrayList<>();
+        pRes.m_pRsd.add(stres);
+        pRes.m_pRsd.add(brres);
+        pRes.m_pRsd.add(lvres);
+        pRes.m_pRsd.add(crres);
+        pRes.m_pRsdRem = new ArrayList<>();
+        pRes.m_pRsdRem.add(stresrem);
+        pRes.m_pRsdRem.add(brresrem);
+        pRes.m_pRsdRem.add(lvresrem);
+        pRes.m_pRsdRem.add(crresrem);
+        pRes.m_dStemLitter = stres;
+        pRes.m_fCr2Wl = pRes.m_pPars.getCroots2Cwl();
+    }
 
+    /**
+     * Merges the results of a phase to history, bare land fund and soils
+     * in the order of matrix keys.
+     * @param paRes results of the phase
+     * @param mafVal history of the volumes
+     * @param mafRsd history of the residues, can be null
+     * @param mafRsdRem history of the removed residues, can be null
+     * @param bBare true if the felled area goes to the bare land fund
+     */
+    private void mergeResults (ArrayList<GMStepResult> paRes, HashMap<Long,ComArFlt<Float>> mafVal,
+            HashMap<Long,ComArFlt<ArrayList<Float>>> mafRsd,
+            HashMap<Long,ComArFlt<ArrayList<Float>>> mafRsdRem, boolean bBare) {
+        for (GMStepResult pRes : paRes)
+        {
+            Long uKey = pRes.m_uKey;
+            ComArFlt<Float> pComar = mafVal.get(uKey);
+            if (pComar != null)
+                ComArFloat.append(pComar, pRes.m_fValue);
+            if (bBare)
+                m_BareFund.addArea(uKey,pRes.m_dArea);
+            if (mafRsd != null) {
+                ComArFlt<ArrayList<Float>> pPComar = mafRsd.get(uKey);
+                if (pPComar != null)
+                    pPComar.addData(pRes.m_pRsd);
+            }
+            if (mafRsdRem != null) {
+                ComArFlt<ArrayList<Float>> pPComar = mafRsdRem.get(uKey);
+                if (pPComar != null)
+                    pPComar.addData(pRes.m_pRsdRem);
+            }
+            // Soil Litter update
+            GMCarbonAlloc pgmCa = pRes.m_pCa;
+            float cr2wl = pRes.m_fCr2Wl;
             GMSoil pSol = findSoil(uKey);
             if (pSol != null) {
                 pSol.addLitter((pgmCa.getCa_cleaves()+pgmCa.getCa_cfroots())/m_nStep,
                         (pgmCa.getCa_cbranch()+(1.0-cr2wl)*pgmCa.getCa_ccroots())/m_nStep,
-                        (pgmCa.getCa_cstem()+cr2wl*pgmCa.getCa_ccroots())/m_nStep);
-                //m_mSoils.put(uKey, pSol);
+                        (pRes.m_dStemLitter+cr2wl*pgmCa.getCa_ccroots())/m_nStep);
             }
-            pgmFel.setF_area(0.0);
-            m_mTables.put(uKey, pTable);
         }
-        float ret = (float) pgmFel.getF_volume();
-        return ret;
     }
 
     /**
@@ -3100,8 +3248,8 @@ public class GMEfiscen implements Serializable {
 
         thh = doThinningsEx(plR);
         fh = doFellingsEx(plR);
-        m_afThinVolume.addData(thh);
-        m_afFellVolume.addData(fh);
+        ComArFloat.append(m_afThinVolume, thh);
+        ComArFloat.append(m_afFellVolume, fh);
 
         if (m_bIsStart)
             setDeadWood();
@@ -3152,8 +3300,8 @@ public class GMEfiscen implements Serializable {
 
         thh = doThinningsEx(plR);
         fh = doFellingsEx(plR);
-        m_afThinVolume.addData(thh);
-        m_afFellVolume.addData(fh);
+        ComArFloat.append(m_afThinVolume, thh);
+        ComArFloat.append(m_afFellVolume, fh);
 
         if (m_bIsStart)
             setDeadWood();
@@ -3209,8 +3357,8 @@ public class GMEfiscen implements Serializable {
 
         thh = doThinningsEx(plR,plRem);
         fh = doFellingsEx(plR,plRem);
-        m_afThinVolume.addData(thh);
-        m_afFellVolume.addData(fh);
+        ComArFloat.append(m_afThinVolume, thh);
+        ComArFloat.append(m_afFellVolume, fh);
 
         if (m_bIsStart)
             setDeadWoodEx(plRem);
@@ -3230,16 +3378,7 @@ public class GMEfiscen implements Serializable {
         // Natural mortality
         doNaturalMortality();
 
-        GMMatrix pTable;
-        for (Long uKey : m_mTables.keySet())
-        {
-            pTable = m_mTables.get(uKey);
-            if (pTable != null) {
-                pTable.growV4();
-                ret += pTable.updateV4();
-                m_mTables.put(uKey, pTable);
-            }
-        }
+        ret += growMatrixes();
         // Soils development
         soilGo();
         //GMSoil pSol;
@@ -3279,8 +3418,8 @@ public class GMEfiscen implements Serializable {
 
         thh = doThinningsEx(plR,plRem);
         fh = doFellingsEx(plR,plRem);
-        m_afThinVolume.addData(thh);
-        m_afFellVolume.addData(fh);
+        ComArFloat.append(m_afThinVolume, thh);
+        ComArFloat.append(m_afFellVolume, fh);
 
         if (m_bIsStart)
             setDeadWoodEx(plRem);
@@ -3300,16 +3439,7 @@ public class GMEfiscen implements Serializable {
         // Natural mortality
         doNaturalMortality();
         
-        GMMatrix pTable;
-        for (Long uKey : m_mTables.keySet())
-        {
-            pTable = m_mTables.get(uKey);
-            if (pTable != null) {
-                pTable.growV4();
-                ret += pTable.updateV4();
-                m_mTables.put(uKey, pTable);
-            }
-        }
+        ret += growMatrixes();
         // Soils development
         if (m_bIsStart) {
             reInitSoilStocks(0);
@@ -3335,8 +3465,8 @@ public class GMEfiscen implements Serializable {
         thh = doThinnings(m_ThinInt);
         //thh = doThinningsV4(m_ThinInt);
         fh = doFellings(m_FelInt);
-        m_afThinVolume.addData(thh);
-        m_afFellVolume.addData(fh);
+        ComArFloat.append(m_afThinVolume, thh);
+        ComArFloat.append(m_afFellVolume, fh);
 
         if (m_bIsStart)
             setDeadWood();
@@ -3351,17 +3481,7 @@ public class GMEfiscen implements Serializable {
 
         // Fast bare lands grow 
         doAfforSimple(1.0);
-        GMMatrix pTable;
-        for (Long uKey : m_mTables.keySet())
-        {
-            pTable = m_mTables.get(uKey);
-            if (pTable != null) {
-                //pTable.grow();
-                pTable.growV4();
-                ret += pTable.updateV4();
-                m_mTables.put(uKey, pTable);
-            }
-        }
+        ret += growMatrixes();
         // Soils developmnet
         soilGo();
         //GMSoil pSol;
@@ -3383,40 +3503,12 @@ public class GMEfiscen implements Serializable {
     public float soilGo () throws GMParLocator.GMParLocatorException {
         float ret = 0.0f;
         GMSoil pSol;
+        checkParameters();
         for (Long uKey : m_mSoils.keySet())
         {
             pSol = m_mSoils.get(uKey);
-            GMLitterCollect pLc = new GMLitterCollect();
-            GMCarbonAlloc pCa = new GMCarbonAlloc();
-            // Carbon allocate structure filling
-            pCa.setCa_ccont(m_plCcont.getParameterValue(uKey,0));
-            pCa.setCa_dns(m_plWoodDens.getParameterValue(uKey,0));
-            pCa.setCa_nsize(m_plCompXvals.getParameter(uKey).m_nSize);
-            pCa.setCa_pxvals(m_plCompXvals.getParameter(uKey).m_Vals);
-            pCa.setCa_pstem(m_plStemShare.getParameter(uKey).m_Vals);
-            pCa.setCa_pbranch(m_plBranchShare.getParameter(uKey).m_Vals);
-            pCa.setCa_pcroots(m_plCrootsShare.getParameter(uKey).m_Vals);
-            pCa.setCa_pfroots(m_plFrootsShare.getParameter(uKey).m_Vals);
-            pCa.setCa_pleaves(m_plLeavesShare.getParameter(uKey).m_Vals);
-            pCa.setCa_cstem(0.0);
-            pCa.setCa_cbranch(0.0);
-            pCa.setCa_ccroots(0.0);
-            pCa.setCa_cfroots(0.0);
-            pCa.setCa_cleaves(0.0);
-            // Litter collect structure filling
-            pLc.setLc_pCalloc(pCa);
-            pLc.setLc_nsize(m_plLtrCompXvals.getParameter(uKey).m_nSize);
-            pLc.setLc_pxvals(m_plLtrCompXvals.getParameter(uKey).m_Vals);
-            pLc.setLc_pstem(m_plLtrStemShare.getParameter(uKey).m_Vals);
-            pLc.setLc_pbranch(m_plLtrBranchShare.getParameter(uKey).m_Vals);
-            pLc.setLc_pcroots(m_plLtrCrootsShare.getParameter(uKey).m_Vals);
-            pLc.setLc_pfroots(m_plLtrFrootsShare.getParameter(uKey).m_Vals);
-            pLc.setLc_pleaves(m_plLtrLeavesShare.getParameter(uKey).m_Vals);
-            pLc.setLc_cstem(0.0);
-            pLc.setLc_cbranch(0.0);
-            pLc.setLc_ccroots(0.0);
-            pLc.setLc_cfroots(0.0);
-            pLc.setLc_cleaves(0.0);
+            // Carbon allocate and litter collect structures
+            GMLitterCollect pLc = getMatrixPars(uKey).newLitterCollect();
             pLc = collectLitter(uKey,pLc);
             double ccwl = 0,cfwl = 0,cnwl = 0;
             if (pLc != null) {
@@ -3446,20 +3538,13 @@ public class GMEfiscen implements Serializable {
      */
     public float getArea (long lr, long lo, long lst, long lsp) {
         float retval = 0;
-        long ulKey;
         GMMatrix pTable;
 
-        ulKey = (lr<<24) + (lo<<16) + (lst<<8) + lsp;
-        for (Long uKey : m_mTables.keySet())
+        GMRollup pRollup = m_mTables.getRollup();
+        for (int npos : pRollup.getMembers(lr,lo,lst,lsp))
         {
-            pTable = m_mTables.get(uKey);
-
-            if (lr == 0)  uKey = uKey & ~0xFF000000;
-            if (lo == 0)  uKey = uKey & ~0xFF0000;
-            if (lst == 0) uKey = uKey & ~0xFF00;
-            if (lsp == 0) uKey = uKey & ~0xFF;
-            if (ulKey==uKey)
-                retval+=pTable.getArea();
+            pTable = m_mTables.get(pRollup.getKey(npos));
+            retval+=pTable.getArea();
         }
         return retval;
     }
@@ -3474,20 +3559,13 @@ public class GMEfiscen implements Serializable {
      */
     public float getIncrement (long lr, long lo, long lst, long lsp) {
         float retval = 0;
-        long ulKey;
         GMMatrix pTable;
 
-        ulKey = (lr<<24) + (lo<<16) + (lst<<8) + lsp;
-        for (Long uKey : m_mTables.keySet())
+        GMRollup pRollup = m_mTables.getRollup();
+        for (int npos : pRollup.getMembers(lr,lo,lst,lsp))
         {
-            pTable = m_mTables.get(uKey);
-
-            if (lr == 0)  uKey = uKey & ~0xFF000000;
-            if (lo == 0)  uKey = uKey & ~0xFF0000;
-            if (lst == 0) uKey = uKey & ~0xFF00;
-            if (lsp == 0) uKey = uKey & ~0xFF;
-            if (ulKey==uKey)
-                retval+=pTable.getIncrement();
+            pTable = m_mTables.get(pRollup.getKey(npos));
+            retval+=pTable.getIncrement();
         }
         return retval/m_nStep;
     }
@@ -3502,20 +3580,13 @@ public class GMEfiscen implements Serializable {
      */
     public float getZeroClass (long lr, long lo, long lst, long lsp) {
         float retval = 0;
-        long ulKey;
         GMMatrix pTable;
 
-        ulKey = (lr<<24) + (lo<<16) + (lst<<8) + lsp;
-        for (Long uKey : m_mTables.keySet())
+        GMRollup pRollup = m_mTables.getRollup();
+        for (int npos : pRollup.getMembers(lr,lo,lst,lsp))
         {
-            pTable = m_mTables.get(uKey);
-
-            if (lr == 0)  uKey = uKey & ~0xFF000000;
-            if (lo == 0)  uKey = uKey & ~0xFF0000;
-            if (lst == 0) uKey = uKey & ~0xFF00;
-            if (lsp == 0) uKey = uKey & ~0xFF;
-            if (ulKey==uKey)
-                retval+=pTable.m_BareArea;
+            pTable = m_mTables.get(pRollup.getKey(npos));
+            retval+=pTable.m_BareArea;
         }
         return retval;
     }
@@ -3531,20 +3602,13 @@ public class GMEfiscen implements Serializable {
      */
     public float getValue (long lr, long lo, long lst, long lsp) {
         float retval = 0;
-        long ulKey;
         GMMatrix pTable;
 
-        ulKey = (lr<<24) + (lo<<16) + (lst<<8) + lsp;
-        for (Long uKey : m_mTables.keySet())
+        GMRollup pRollup = m_mTables.getRollup();
+        for (int npos : pRollup.getMembers(lr,lo,lst,lsp))
         {
-            pTable = m_mTables.get(uKey);
-
-            if (lr == 0)  uKey = uKey & ~0xFF000000;
-            if (lo == 0)  uKey = uKey & ~0xFF0000;
-            if (lst == 0) uKey = uKey & ~0xFF00;
-            if (lsp == 0) uKey = uKey & ~0xFF;
-            if (ulKey==uKey)
-                retval+=pTable.getValue();
+            pTable = m_mTables.get(pRollup.getKey(npos));
+            retval+=pTable.getValue();
         }
         return retval;
     }
@@ -3561,32 +3625,29 @@ public class GMEfiscen implements Serializable {
     public float getCarbon (long lr, long lo, long lst, long lsp,
             GMCarbonAlloc pCa) throws GMParLocator.GMParLocatorException {
         float retval = 0;
-        long ulKey, uKeyCopy;
+        long uKeyCopy;
         GMMatrix pTable;
 
-        ulKey = (lr<<24) + (lo<<16) + (lst<<8) + lsp;
-        for (Long uKey : m_mTables.keySet())
+        checkParameters();
+        GMRollup pRollup = m_mTables.getRollup();
+        for (int npos : pRollup.getMembers(lr,lo,lst,lsp))
         {
-            pTable = m_mTables.get(uKey);
-            uKeyCopy = uKey;
-            if (lr == 0)  uKey = uKey & ~0xFF000000;
-            if (lo == 0)  uKey = uKey & ~0xFF0000;
-            if (lst == 0) uKey = uKey & ~0xFF00;
-            if (lsp == 0) uKey = uKey & ~0xFF;
-            if (ulKey==uKey) {
-                // Carbon allocate structure filling
-                pCa.setCa_ccont(m_plCcont.getParameterValue(uKeyCopy,0));
-                pCa.setCa_dns(m_plWoodDens.getParameterValue(uKeyCopy,0));
-                pCa.setCa_nsize(m_plCompXvals.getParameter(uKeyCopy).m_nSize);
-                pCa.setCa_pxvals(m_plCompXvals.getParameter(uKeyCopy).m_Vals);
-                pCa.setCa_pstem(m_plStemShare.getParameter(uKeyCopy).m_Vals);
-                pCa.setCa_pbranch(m_plBranchShare.getParameter(uKeyCopy).m_Vals);
-                pCa.setCa_pcroots(m_plCrootsShare.getParameter(uKeyCopy).m_Vals);
-                pCa.setCa_pfroots(m_plFrootsShare.getParameter(uKeyCopy).m_Vals);
-                pCa.setCa_pleaves(m_plLeavesShare.getParameter(uKeyCopy).m_Vals);
-
-                retval+=pTable.getBiomass(pCa);
-            }
+            pTable = m_mTables.get(pRollup.getKey(npos));
+            uKeyCopy = pRollup.getKey(npos);
+            // Carbon allocate structure filling
+            GMMatrixPars pPars = getMatrixPars(uKeyCopy);
+            pPars.resolveCarbon();
+            pCa.setCa_ccont(pPars.m_fCcont);
+            pCa.setCa_dns(pPars.m_fWoodDens);
+            pCa.setCa_nsize(pPars.m_paCompXvals.m_nSize);
+            pCa.setCa_pxvals(pPars.m_paCompXvals.m_Vals);
+            pCa.setCa_pstem(pPars.m_paStemShare.m_Vals);
+            pCa.setCa_pbranch(pPars.m_paBranchShare.m_Vals);
+            pCa.setCa_pcroots(pPars.m_paCrootsShare.m_Vals);
+            pCa.setCa_pfroots(pPars.m_paFrootsShare.m_Vals);
+            pCa.setCa_pleaves(pPars.m_paLeavesShare.m_Vals);
+
+            retval+=pTable.getBiomass(pCa);
         }
         return retval;
     }
@@ -3669,17 +3730,12 @@ public class GMEfiscen implements Serializable {
         lst = ulKey & 0xFF00;
         lst = lst>>8;
         lsp = ulKey & 0xFF;
-        for (Long uKey : m_mTables.keySet())
+        GMRollup pRollup = m_mTables.getRollup();
+        for (int npos : pRollup.getMembers(lr,lo,lst,lsp))
         {
-            pTable = m_mTables.get(uKey);
-
-            if (lr == 0)  uKey = uKey & ~0xFF000000;
-            if (lo == 0)  uKey = uKey & ~0xFF0000;
-            if (lst == 0) uKey = uKey & ~0xFF00;
-            if (lsp == 0) uKey = uKey & ~0xFF;
-            if (ulKey==uKey)
-                //retval+=pTable.getLitter(pLc);
-                pLc = pTable.getLitter(pLc);
+            pTable = m_mTables.get(pRollup.getKey(npos));
+            //retval+=pTable.getLitter(pLc);
+            pLc = pTable.getLitter(pLc);
         }
         return pLc;
     }
@@ -3700,16 +3756,11 @@ public class GMEfiscen implements Serializable {
         lst = ulKey & 0xFF00;
         lst = lst>>8;
         lsp = ulKey & 0xFF;
-        for (Long uKey : m_mTables.keySet())
+        GMRollup pRollup = m_mTables.getRollup();
+        for (int npos : pRollup.getMembers(lr,lo,lst,lsp))
         {
-            pTable = m_mTables.get(uKey);
-
-            if (lr == 0)  uKey = uKey & ~0xFF000000;
-            if (lo == 0)  uKey = uKey & ~0xFF0000;
-            if (lst == 0) uKey = uKey & ~0xFF00;
-            if (lsp == 0) uKey = uKey & ~0xFF;
-            if (ulKey==uKey)
-                retval+=pTable.getArea();
+            pTable = m_mTables.get(pRollup.getKey(npos));
+            retval+=pTable.getArea();
         }
         return retval;
     }
@@ -3722,42 +3773,13 @@ public class GMEfiscen implements Serializable {
         float retval = 0;
         GMSoil pSol;
         GMLitterCollect pLc;
-        GMCarbonAlloc pCa;
 
+        checkParameters();
         for (Long uKey : m_mSoils.keySet())
         {
             pSol = m_mSoils.get(uKey);
-            pLc = new GMLitterCollect();
-            pCa = new GMCarbonAlloc();
-            // Carbon allocate structure filling
-            pCa.setCa_ccont(m_plCcont.getParameterValue(uKey,0));
-            pCa.setCa_dns(m_plWoodDens.getParameterValue(uKey,0));
-            pCa.setCa_nsize(m_plCompXvals.getParameter(uKey).m_nSize);
-            pCa.setCa_pxvals(m_plCompXvals.getParameter(uKey).m_Vals);
-            pCa.setCa_pstem(m_plStemShare.getParameter(uKey).m_Vals);
-            pCa.setCa_pbranch(m_plBranchShare.getParameter(uKey).m_Vals);
-            pCa.setCa_pcroots(m_plCrootsShare.getParameter(uKey).m_Vals);
-            pCa.setCa_pfroots(m_plFrootsShare.getParameter(uKey).m_Vals);
-            pCa.setCa_pleaves(m_plLeavesShare.getParameter(uKey).m_Vals);
-            pCa.setCa_cstem(0.0);
-            pCa.setCa_cbranch(0.0);
-            pCa.setCa_ccroots(0.0);
-            pCa.setCa_cfroots(0.0);
-            pCa.setCa_cleaves(0.0);
-            // Litter collect structure filling
-            pLc.setLc_pCalloc(pCa);
-            pLc.setLc_nsize(m_plLtrCompXvals.getParameter(uKey).m_nSize);
-            pLc.setLc_pxvals(m_plLtrCompXvals.getParameter(uKey).m_Vals);
-            pLc.setLc_pstem(m_plLtrStemShare.getParameter(uKey).m_Vals);
-            pLc.setLc_pbranch(m_plLtrBranchShare.getParameter(uKey).m_Vals);
-            pLc.setLc_pcroots(m_plLtrCrootsShare.getParameter(uKey).m_Vals);
-            pLc.setLc_pfroots(m_plLtrFrootsShare.getParameter(uKey).m_Vals);
-            pLc.setLc_pleaves(m_plLtrLeavesShare.getParameter(uKey).m_Vals);
-            pLc.setLc_cstem(0.0);
-            pLc.setLc_cbranch(0.0);
-            pLc.setLc_ccroots(0.0);
-            pLc.setLc_cfroots(0.0);
-            pLc.setLc_cleaves(0.0);
+            // Carbon allocate and litter collect structures
+            pLc = getMatrixPars(uKey).newLitterCollect();
             pLc = collectLitter(uKey,pLc);
             double ccwl = 0,cfwl = 0,cnwl = 0;
             if (pLc != null) {
@@ -3782,43 +3804,14 @@ public class GMEfiscen implements Serializable {
         GMSoilComp scStock = new GMSoilComp();
         GMSoil pSol;
         GMLitterCollect pLc;
-        GMCarbonAlloc pCa;
         float retval = 0;
 
+        checkParameters();
         for (Long uKey : m_mSoils.keySet())
         {
             pSol = m_mSoils.get(uKey);
-            pLc = new GMLitterCollect();
-            pCa = new GMCarbonAlloc();
-            // Carbon allocate structure filling
-            pCa.setCa_ccont(m_plCcont.getParameterValue(uKey,0));
-            pCa.setCa_dns(m_plWoodDens.getParameterValue(uKey,0));
-            pCa.setCa_nsize(m_plCompXvals.getParameter(uKey).m_nSize);
-            pCa.setCa_pxvals(m_plCompXvals.getParameter(uKey).m_Vals);
-            pCa.setCa_pstem(m_plStemShare.getParameter(uKey).m_Vals);
-            pCa.setCa_pbranch(m_plBranchShare.getParameter(uKey).m_Vals);
-            pCa.setCa_pcroots(m_plCrootsShare.getParameter(uKey).m_Vals);
-            pCa.setCa_pfroots(m_plFrootsShare.getParameter(uKey).m_Vals);
-            pCa.setCa_pleaves(m_plLeavesShare.getParameter(uKey).m_Vals);
-            pCa.setCa_cstem(0.0);
-            pCa.setCa_cbranch(0.0);
-            pCa.setCa_ccroots(0.0);
-            pCa.setCa_cfroots(0.0);
-            pCa.setCa_cleaves(0.0);
-            // Litter collect structure filling
-            pLc.setLc_pCalloc(pCa);
-            pLc.setLc_nsize(m_plLtrCompXvals.getParameter(uKey).m_nSize);
-            pLc.setLc_pxvals(m_plLtrCompXvals.getParameter(uKey).m_Vals);
-            pLc.setLc_pstem(m_plLtrStemShare.getParameter(uKey).m_Vals);
-            pLc.setLc_pbranch(m_plLtrBranchShare.getParameter(uKey).m_Vals);
-            pLc.setLc_pcroots(m_plLtrCrootsShare.getParameter(uKey).m_Vals);
-            pLc.setLc_pfroots(m_plLtrFrootsShare.getParameter(uKey).m_Vals);
-            pLc.setLc_pleaves(m_plLtrLeavesShare.getParameter(uKey).m_Vals);
-            pLc.setLc_cstem(0.0);
-            pLc.setLc_cbranch(0.0);
-            pLc.setLc_ccroots(0.0);
-            pLc.setLc_cfroots(0.0);
-            pLc.setLc_cleaves(0.0);
+            // Carbon allocate and litter collect structures
+            pLc = getMatrixPars(uKey).newLitterCollect();
             pLc = collectLitter(uKey,pLc);
             double ccwl = 0,cfwl = 0,cnwl = 0;
             if (pLc != null) {
@@ -4033,24 +4026,7 @@ public class GMEfiscen implements Serializable {
      * @return number of matrixes
      */
     public int getNumMatr (long lr, long lo, long lst, long lsp) {
-        int retval;
-        retval = 0;
-        long ulKey;
-        GMMatrix pTable;
-
-        ulKey = (lr<<24) + (lo<<16) + (lst<<8) + lsp;
-        for (Long uKey : m_mTables.keySet())
-        {
-            pTable = m_mTables.get(uKey);
-
-            if (lr == 0)  uKey = uKey & ~0xFF000000;
-            if (lo == 0)  uKey = uKey & ~0xFF0000;
-            if (lst == 0) uKey = uKey & ~0xFF00;
-            if (lsp == 0) uKey = uKey & ~0xFF;
-            if (ulKey==uKey)
-                retval+=1;
-        }
-        return retval;
+        return m_mTables.getRollup().getMembers(lr,lo,lst,lsp).length;
     }
 
     /**
@@ -4075,46 +4051,46 @@ public class GMEfiscen implements Serializable {
         m_BareFund.m_mdOutcome.put(pAdd.m_wID,arIn);
 
         // Data keeping storages initialization
-        m_mafGrStock.put(pAdd.m_wID,new ComArFlt<Float>());
-        m_mafThinnings.put(pAdd.m_wID,new ComArFlt<Float>());
-        m_mafFellings.put(pAdd.m_wID,new ComArFlt<Float>());
-        m_mafArea.put(pAdd.m_wID,new ComArFlt<Float>());
-        m_mafIncrement.put(pAdd.m_wID,new ComArFlt<Float>());
-        m_mafAvrIncrement.put(pAdd.m_wID,new ComArFlt<Float>());
+        m_mafGrStock.addColumn(pAdd.m_wID);
+        m_mafThinnings.addColumn(pAdd.m_wID);
+        m_mafFellings.addColumn(pAdd.m_wID);
+        m_mafArea.addColumn(pAdd.m_wID);
+        m_mafIncrement.addColumn(pAdd.m_wID);
+        m_mafAvrIncrement.addColumn(pAdd.m_wID);
         grsprev.put(pAdd.m_wID,0f);
-        m_mafBiomass.put(pAdd.m_wID,new ComArFlt<Float>());
-        m_mafDeadWood.put(pAdd.m_wID,new ComArFlt<Float>());
-        m_mafNatMort.put(pAdd.m_wID,new ComArFlt<Float>());
-        m_mafAfforFund.put(pAdd.m_wID,new ComArFlt<Float>());
-        m_mafBareArea.put(pAdd.m_wID,new ComArFlt<Float>());   
-        m_mafPotentialFellingsVolume.put(pAdd.m_wID,new ComArFlt<Float>());
-        m_mafPotentialFellingsArea.put(pAdd.m_wID,new ComArFlt<Float>());
+        m_mafBiomass.addColumn(pAdd.m_wID);
+        m_mafDeadWood.addColumn(pAdd.m_wID);
+        m_mafNatMort.addColumn(pAdd.m_wID);
+        m_mafAfforFund.addColumn(pAdd.m_wID);
+        m_mafBareArea.addColumn(pAdd.m_wID);   
+        m_mafPotentialFellingsVolume.addColumn(pAdd.m_wID);
+        m_mafPotentialFellingsArea.addColumn(pAdd.m_wID);
         
         // Areas and stocks distributions
-        m_mafAreas.put(pAdd.m_wID,new ComArFlt<ArrayList<Float>>(16));
-        m_mafStocks.put(pAdd.m_wID,new ComArFlt<ArrayList<Float>>(16));
+        m_mafAreas.addColumn(pAdd.m_wID);
+        m_mafStocks.addColumn(pAdd.m_wID);
         // Compartments
-        m_mafCStem.put(pAdd.m_wID,new ComArFlt<ArrayList<Float>>(16));
-        m_mafCLeaves.put(pAdd.m_wID,new ComArFlt<ArrayList<Float>>(16));
-        m_mafCBranches.put(pAdd.m_wID,new ComArFlt<ArrayList<Float>>(16));
-        m_mafCCRoots.put(pAdd.m_wID,new ComArFlt<ArrayList<Float>>(16));
-        m_mafCFRoots.put(pAdd.m_wID,new ComArFlt<ArrayList<Float>>(16));
+        m_mafCStem.addColumn(pAdd.m_wID);
+        m_mafCLeaves.addColumn(pAdd.m_wID);
+        m_mafCBranches.addColumn(pAdd.m_wID);
+        m_mafCCRoots.addColumn(pAdd.m_wID);
+        m_mafCFRoots.addColumn(pAdd.m_wID);
         // Mefique stuff and Bioenergy!
-        m_mafMfqFelAreas.put(pAdd.m_wID,new ComArFlt<ArrayList<Float>>(16));
-        m_mafMfqFelRems.put(pAdd.m_wID,new ComArFlt<ArrayList<Float>>(16));
-        m_mafMfqThAreas.put(pAdd.m_wID,new ComArFlt<ArrayList<Float>>(16));
-        m_mafMfqThRems.put(pAdd.m_wID,new ComArFlt<ArrayList<Float>>(16));
-        m_mafBeFelSlash.put(pAdd.m_wID,new ComArFlt<ArrayList<Float>>(16));
-        m_mafBeThSlash.put(pAdd.m_wID,new ComArFlt<ArrayList<Float>>(16));
+        m_mafMfqFelAreas.addColumn(pAdd.m_wID);
+        m_mafMfqFelRems.addColumn(pAdd.m_wID);
+        m_mafMfqThAreas.addColumn(pAdd.m_wID);
+        m_mafMfqThRems.addColumn(pAdd.m_wID);
+        m_mafBeFelSlash.addColumn(pAdd.m_wID);
+        m_mafBeThSlash.addColumn(pAdd.m_wID);
         // Residuals
-        m_mafFelRsd.put(pAdd.m_wID,new ComArFlt<ArrayList<Float>>(4));
-        m_mafThRsd.put(pAdd.m_wID,new ComArFlt<ArrayList<Float>>(4));
-        m_mafFelRsdRem.put(pAdd.m_wID,new ComArFlt<ArrayList<Float>>(4));
-        m_mafThRsdRem.put(pAdd.m_wID,new ComArFlt<ArrayList<Float>>(4));
+        m_mafFelRsd.addColumn(pAdd.m_wID);
+        m_mafThRsd.addColumn(pAdd.m_wID);
+        m_mafFelRsdRem.addColumn(pAdd.m_wID);
+        m_mafThRsdRem.addColumn(pAdd.m_wID);
 
         // Natural mortality Femke and MJ :-)
-        m_mafNatMortDistr.put(pAdd.m_wID,new ComArFlt<ArrayList<Float>>(16));
-        m_mafDeadWoodDistr.put(pAdd.m_wID,new ComArFlt<ArrayList<Float>>(16));
+        m_mafNatMortDistr.addColumn(pAdd.m_wID);
+        m_mafDeadWoodDistr.addColumn(pAdd.m_wID);
     }
 
     /**
@@ -4123,20 +4099,20 @@ public class GMEfiscen implements Serializable {
      */
     public void addSoil (GMSoil pAdd) {
         m_mSoils.put(pAdd.m_wID,pAdd);
-        m_mafSoilCwl.put(pAdd.m_wID,new ComArFlt<Float>());
-        m_mafSoilNwl.put(pAdd.m_wID,new ComArFlt<Float>());
-        m_mafSoilFwl.put(pAdd.m_wID,new ComArFlt<Float>());
-        m_mafSoilCel.put(pAdd.m_wID,new ComArFlt<Float>());
-        m_mafSoilSol.put(pAdd.m_wID,new ComArFlt<Float>());
-        m_mafSoilLig.put(pAdd.m_wID,new ComArFlt<Float>());
-        m_mafSoilHm1.put(pAdd.m_wID,new ComArFlt<Float>());
-        m_mafSoilHm2.put(pAdd.m_wID,new ComArFlt<Float>());
-        m_mafSoilClost.put(pAdd.m_wID,new ComArFlt<Float>());
-        m_mafSoilCwlIn.put(pAdd.m_wID,new ComArFlt<Double>());
-        m_mafSoilFwlIn.put(pAdd.m_wID,new ComArFlt<Double>());
-        m_mafSoilNwlIn.put(pAdd.m_wID,new ComArFlt<Double>());
-        m_mafSoilInOut.put(pAdd.m_wID,new ComArFlt<Double>());
-        m_mafCSoil.put(pAdd.m_wID,new ComArFlt<Float>());
+        m_mafSoilCwl.addColumn(pAdd.m_wID);
+        m_mafSoilNwl.addColumn(pAdd.m_wID);
+        m_mafSoilFwl.addColumn(pAdd.m_wID);
+        m_mafSoilCel.addColumn(pAdd.m_wID);
+        m_mafSoilSol.addColumn(pAdd.m_wID);
+        m_mafSoilLig.addColumn(pAdd.m_wID);
+        m_mafSoilHm1.addColumn(pAdd.m_wID);
+        m_mafSoilHm2.addColumn(pAdd.m_wID);
+        m_mafSoilClost.addColumn(pAdd.m_wID);
+        m_mafSoilCwlIn.put(pAdd.m_wID,new ComArDouble());
+        m_mafSoilFwlIn.put(pAdd.m_wID,new ComArDouble());
+        m_mafSoilNwlIn.put(pAdd.m_wID,new ComArDouble());
+        m_mafSoilInOut.put(pAdd.m_wID,new ComArDouble());
+        m_mafCSoil.addColumn(pAdd.m_wID);
     }
     
     /**
@@ -4179,6 +4155,39 @@ public class GMEfiscen implements Serializable {
         return m_mSoils;
     }
     
+    /**
+     * Calculates the transitions of all the matrixes again from the growth
+     * function coefficients (m_plGrCoeff), beta (m_plBeta) and the volume
+     * series (m_plVolSers, m_plAgeLims) in the same way as the loader, e.g.
+     * after the parameters have been changed. Every matrix gets its own
+     * growth function. Climate ratios of the matrixes are reset.
+     * @throws efi.efiscen.gm.GMParLocator.GMParLocatorException if some
+     * parameter of a matrix is missing
+     */
+    public void calcTransitions () throws GMParLocator.GMParLocatorException {
+        for (Long uKey : m_mTables.keySet()) {
+            GMMatrix pTable = m_mTables.get(uKey);
+            long ukey = pTable.m_wID;
+            GMParArray pVols = m_plVolSers.getParameter(ukey);
+            GMParArray pLages = m_plAgeLims.getParameter(ukey);
+            GMParArray pCoef = m_plGrCoeff.getParameter(ukey);
+            GMParArray pBeta = m_plBeta.getParameter(ukey);
+            GMParLocator plMissing = pVols == null ? m_plVolSers : pLages == null ? m_plAgeLims
+                    : pCoef == null ? m_plGrCoeff : pBeta == null ? m_plBeta : null;
+            if (plMissing != null)
+                throw new GMParLocator.GMParLocatorException("could not locate param",
+                        plMissing.m_sName, ukey>>24, (ukey>>16)&0xFF, (ukey>>8)&0xFF, ukey&0xFF);
+            ArrayList<Float> grc = pCoef.m_Vals;
+            GMGrFunDefault pFun = new GMGrFunDefault();
+            if (pCoef.m_nSize == 5)
+                pFun.setCoeffEx(grc.get(0), grc.get(1), grc.get(2), grc.get(3), grc.get(4));
+            else
+                pFun.setCoeff(grc.get(0), grc.get(1), grc.get(2));
+            pTable.setGrFunction(pFun);
+            pTable.calcTransitions(pVols.m_Vals, pLages.m_Vals, pLages.m_nSize, pBeta.m_Vals.get(0));
+        }
+    }
+
     /**
      * Sets HarvestAge depending on step of the simulation if felling change
      * file is provided in scenario file
@@ -0,0 +1,159 @@
+/*
+ * Copyright (C) 2016 European Forest Institute
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package efi.efiscen.gm;
+
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Runs several scenarios (members of the ensemble) on the same experiment.
+ * The experiment is loaded once and every member runs on its own fork, so
+ * the members can run at the same time. Each member must have its own
+ * scenario object, cut ratios of the scenario are changed by the run.
+ * The matrix scaling of a scenario is applied to the fork of its member
+ * only, so the experiment must be loaded without it.
+ *
+ */
+public class GMEnsemble {
+
+    /**
+     * Receives the experiment of a member after its run, for example to
+     * save the outputs. Called from the thread running the member.
+     */
+    public interface GMMemberOutput {
+        void save (int nmember, GMScenario pScenario, GMEfiscen pExperiment);
+    }
+
+    private final GMEfiscen m_pExperiment; // Experiment state after loading
+    private int m_nMembers; // Members run at the same time
+
+    /**
+     * Parametrized constructor. Later changes of the experiment do not
+     * change the members.
+     * @param pExperiment loaded experiment
+     */
+    public GMEnsemble (GMEfiscen pExperiment) {
+        m_pExperiment = pExperiment.fork();
+        m_nMembers = 1;
+    }
+
+    /**
+     * Sets the number of members run at the same time.
+     * @param nmembers number of members, 1 for running one by one
+     */
+    public void setMembers (int nmembers) {
+        m_nMembers = Math.max(nmembers,1);
+    }
+
+    /**
+     * Gets the number of members run at the same time.
+     * @return number of members
+     */
+    public int getMembers () {
+        return m_nMembers;
+    }
+
+    /**
+     * New fork of the experiment as it was when the ensemble was created.
+     * @return experiment
+     */
+    public GMEfiscen newExperiment () {
+        return m_pExperiment.fork();
+    }
+
+    /**
+     * Runs the scenario on a new fork of the experiment. The caller must
+     * close the returned experiment.
+     * @param pScenario scenario
+     * @param nsteps number of steps
+     * @return experiment after the run
+     */
+    public GMEfiscen runMember (GMScenario pScenario, int nsteps) {
+        GMEfiscen pExperiment = newExperiment();
+        runMember(pExperiment,pScenario,nsteps);
+        return pExperiment;
+    }
+
+    /**
+     * Runs the scenario on the given fork of the experiment. The matrices
+     * of the fork are scaled first if the scenario has a matrix scaling.
+     * @param pExperiment fork of the experiment
+     * @param pScenario scenario
+     * @param nsteps number of steps
+     */
+    private void runMember (GMEfiscen pExperiment, GMScenario pScenario, int nsteps) {
+        if (pScenario.m_plMatrixScaling != null) {
+            try {
+                pExperiment.scaleMatrices(pScenario.m_plMatrixScaling);
+            } catch (GMParLocator.GMParLocatorException ex) {
+                throw new IllegalStateException("Matrix scaling failed",ex);
+            }
+        }
+        GMSimulation sim = new GMSimulation(pExperiment, pScenario, 0);
+        for (int i=0;i<nsteps;i++)
+            sim.onGo();
+    }
+
+    /**
+     * Runs all the scenarios, at most getMembers of them at the same time.
+     * The experiment of a member is given to the output and dropped when
+     * the member is finished.
+     * @param plScenarios scenarios of the members
+     * @param nsteps number of steps
+     * @param pOutput output of the members
+     * @return number of failed members
+     */
+    public int run (ArrayList<GMScenario> plScenarios, int nsteps, GMMemberOutput pOutput) {
+        ArrayList<Callable<Boolean>> paTasks = new ArrayList<>(plScenarios.size());
+        for (int i=0;i<plScenarios.size();i++) {
+            final int nmember = i;
+            final GMScenario pScenario = plScenarios.get(i);
+            paTasks.add(() -> {
+                GMEfiscen pExperiment = newExperiment();
+                try {
+                    runMember(pExperiment,pScenario,nsteps);
+                    pOutput.save(nmember,pScenario,pExperiment);
+                } finally {
+                    pExperiment.close();
+                }
+                return true;
+            });
+        }
+        int nfailed = 0;
+        ForkJoinPool pPool = new ForkJoinPool(m_nMembers);
+        try {
+            ArrayList<Future<Boolean>> paDone = new ArrayList<>(pPool.invokeAll(paTasks));
+            for (int i=0;i<paDone.size();i++) {
+                try {
+                    paDone.get(i).get();
+                } catch (ExecutionException ex) {
+                    System.err.println("Ensemble member " + (i+1) + " failed: " + ex.getCause());
+                    nfailed+=1;
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted ensemble",ex);
+        } finally {
+            pPool.shutdown();
+        }
+        return nfailed;
+    }
+}
@@ -22,7 +22,7 @@ import java.io.Serializable;
  * Base class to implement growth function in EFISCEN
  * 
  */
-public class GMGrFunction implements Serializable {
+public class GMGrFunction implements Serializable, Cloneable {
 
     /**
      * Calculated value
@@ -46,5 +46,17 @@ public class GMGrFunction implements Serializable {
         return m_value;
     }
 
+    /**
+     * Copy of the function.
+     * @return copy
+     */
+    public GMGrFunction copy () {
+        try {
+            return (GMGrFunction)super.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError(e);
+        }
+    }
+
 }
 
@@ -0,0 +1,385 @@
+/*
+ * Copyright (C) 2016 European Forest Institute
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package efi.efiscen.gm;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Columnar store of the time series of matrixes (or soils). Every variable
+ * keeps its values in blocks of CHUNK steps; a block holds one row of
+ * all columns per step, so the values of all matrixes at a step are
+ * contiguous. Columns are the matrix keys, translated to indexes by a
+ * dictionary shared by all variables.
+ * The variables are accessed through GMHistoryMap and GMHistoryColumn,
+ * which implement the map of ComArFlt used by the reporting code.
+ *
+ */
+public class GMHistory implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Number of steps in a block.
+     */
+    public static final int CHUNK = 64;
+
+    protected HashMap<Long,Integer> m_mIndex; // Column index of the key
+    protected long[] m_alKeys; // Key of the column
+    protected int m_nKeys; // Number of columns
+    protected int m_nCap; // Columns allocated in the blocks
+    protected ArrayList<ArrayList<float[]>> m_aBlocks; // Blocks of the variables
+    protected ArrayList<int[]> m_aSizes; // Number of steps in the columns
+    protected int[] m_anMinSize; // Shortest column of the variables
+    protected int[] m_anAtMin; // Number of columns of the shortest length
+    protected int[] m_anMaxSize; // Longest column of the variables
+    protected ArrayList<int[]> m_aStamps; // Number of changes of the steps
+
+    /**
+     * Default constructor.
+     */
+    public GMHistory () {
+        this(16);
+    }
+
+    /**
+     * Constructor with the expected number of columns.
+     * @param ncap number of columns
+     */
+    public GMHistory (int ncap) {
+        m_nCap = Math.max(ncap,1);
+        m_mIndex = new HashMap<>();
+        m_alKeys = new long[m_nCap];
+        m_nKeys = 0;
+        m_aBlocks = new ArrayList<>();
+        m_aSizes = new ArrayList<>();
+        m_anMinSize = new int[0];
+        m_anAtMin = new int[0];
+        m_anMaxSize = new int[0];
+        m_aStamps = new ArrayList<>();
+    }
+
+    /**
+     * Deep copy of the store, the blocks are copied as primitive arrays.
+     * @return copy
+     */
+    public GMHistory copy () {
+        GMHistory pCopy = new GMHistory(m_nCap);
+        pCopy.m_mIndex.putAll(m_mIndex);
+        pCopy.m_alKeys = m_alKeys.clone();
+        pCopy.m_nKeys = m_nKeys;
+        for (ArrayList<float[]> paBlocks : m_aBlocks) {
+            ArrayList<float[]> paCopy = new ArrayList<>(paBlocks.size());
+            for (float[] afBlock : paBlocks)
+                paCopy.add(afBlock.clone());
+            pCopy.m_aBlocks.add(paCopy);
+        }
+        for (int[] anSizes : m_aSizes)
+            pCopy.m_aSizes.add(anSizes.clone());
+        pCopy.m_anMinSize = m_anMinSize.clone();
+        pCopy.m_anAtMin = m_anAtMin.clone();
+        pCopy.m_anMaxSize = m_anMaxSize.clone();
+        for (int[] anStamps : m_aStamps)
+            pCopy.m_aStamps.add(anStamps.clone());
+        return pCopy;
+    }
+
+    /**
+     * Adds a new variable.
+     * @return index of the variable
+     */
+    public int addVariable () {
+        m_aBlocks.add(new ArrayList<>());
+        m_aSizes.add(new int[m_nCap]);
+        m_anMinSize = Arrays.copyOf(m_anMinSize, m_aBlocks.size());
+        m_anAtMin = Arrays.copyOf(m_anAtMin, m_aBlocks.size());
+        m_anAtMin[m_aBlocks.size()-1] = m_nKeys;
+        m_anMaxSize = Arrays.copyOf(m_anMaxSize, m_aBlocks.size());
+        m_aStamps.add(new int[CHUNK]);
+        return m_aBlocks.size()-1;
+    }
+
+    /**
+     * Adds a new variable and the map to access it.
+     * @return map of the variable
+     */
+    public GMHistoryMap createMap () {
+        return new GMHistoryMap(this, addVariable());
+    }
+
+    /**
+     * Get number of variables.
+     * @return number of variables
+     */
+    public int getNumVariables () {
+        return m_aBlocks.size();
+    }
+
+    /**
+     * Get number of columns.
+     * @return number of columns
+     */
+    public int getNumKeys () {
+        return m_nKeys;
+    }
+
+    /**
+     * Key of the column.
+     * @param nind column index
+     * @return key
+     */
+    public long getKey (int nind) {
+        return m_alKeys[nind];
+    }
+
+    /**
+     * Column index of the key.
+     * @param ukey key
+     * @return index, -1 if the key has no column
+     */
+    public int getIndex (long ukey) {
+        Integer nind = m_mIndex.get(ukey);
+        return nind == null ? -1 : nind;
+    }
+
+    /**
+     * Column index of the key, the column is added if needed.
+     * @param ukey key
+     * @return index
+     */
+    public int addKey (long ukey) {
+        Integer nind = m_mIndex.get(ukey);
+        if (nind != null)
+            return nind;
+        if (m_nKeys == m_nCap)
+            grow(2*m_nCap);
+        m_alKeys[m_nKeys] = ukey;
+        m_mIndex.put(ukey, m_nKeys);
+        for (int nvar=0;nvar<m_anMinSize.length;nvar++) {
+            if (m_anMinSize[nvar] > 0 || m_nKeys == 0) {
+                m_anMinSize[nvar] = 0;
+                m_anAtMin[nvar] = 0;
+            }
+            m_anAtMin[nvar]++;
+        }
+        return m_nKeys++;
+    }
+
+    /**
+     * Reallocates the blocks for the given number of columns.
+     * @param ncap number of columns
+     */
+    protected void grow (int ncap) {
+        for (ArrayList<float[]> paBlocks : m_aBlocks) {
+            for (int i=0;i<paBlocks.size();i++) {
+                float[] afOld = paBlocks.get(i);
+                float[] afNew = new float[CHUNK*ncap];
+                for (int nrow=0;nrow<CHUNK;nrow++)
+                    System.arraycopy(afOld, nrow*m_nCap, afNew, nrow*ncap, m_nCap);
+                paBlocks.set(i, afNew);
+            }
+        }
+        for (int i=0;i<m_aSizes.size();i++)
+            m_aSizes.set(i, Arrays.copyOf(m_aSizes.get(i), ncap));
+        m_alKeys = Arrays.copyOf(m_alKeys, ncap);
+        m_nCap = ncap;
+    }
+
+    /**
+     * Number of steps stored in the column.
+     * @param nvar variable
+     * @param nind column index
+     * @return number of steps
+     */
+    public int getSize (int nvar, int nind) {
+        return m_aSizes.get(nvar)[nind];
+    }
+
+    /**
+     * Number of steps stored in the shortest column of the variable.
+     * @param nvar variable
+     * @return number of steps
+     */
+    public int getMinSize (int nvar) {
+        return m_anMinSize[nvar];
+    }
+
+    /**
+     * Number of steps stored in the longest column of the variable.
+     * @param nvar variable
+     * @return number of steps
+     */
+    public int getMaxSize (int nvar) {
+        return m_anMaxSize[nvar];
+    }
+
+    /**
+     * Number of changes of the values of the variable at the step, lets
+     * the users keep results computed from the values.
+     * @param nvar variable
+     * @param nstep step
+     * @return number of changes
+     */
+    public int getStamp (int nvar, int nstep) {
+        int[] anStamps = m_aStamps.get(nvar);
+        return nstep>=0 && nstep<anStamps.length ? anStamps[nstep] : 0;
+    }
+
+    /**
+     * Value of the column at the step.
+     * @param nvar variable
+     * @param nind column index
+     * @param nstep step
+     * @return value
+     * @throws IndexOutOfBoundsException if the step is not stored
+     */
+    public float getValue (int nvar, int nind, int nstep) {
+        if (nstep<0 || nstep>=m_aSizes.get(nvar)[nind])
+            throw new IndexOutOfBoundsException("Index: "+nstep+", Size: "+m_aSizes.get(nvar)[nind]);
+        return m_aBlocks.get(nvar).get(nstep/CHUNK)[(nstep%CHUNK)*m_nCap+nind];
+    }
+
+    /**
+     * Sets value of the column at the step.
+     * @param nvar variable
+     * @param nind column index
+     * @param nstep step
+     * @param val value
+     * @throws IndexOutOfBoundsException if the step is not stored
+     */
+    public void setValue (int nvar, int nind, int nstep, float val) {
+        if (nstep<0 || nstep>=m_aSizes.get(nvar)[nind])
+            throw new IndexOutOfBoundsException("Index: "+nstep+", Size: "+m_aSizes.get(nvar)[nind]);
+        m_aBlocks.get(nvar).get(nstep/CHUNK)[(nstep%CHUNK)*m_nCap+nind] = val;
+        m_aStamps.get(nvar)[nstep]++;
+    }
+
+    /**
+     * Appends value to the column.
+     * @param nvar variable
+     * @param nind column index
+     * @param val value
+     * @return step of the value
+     */
+    public int addValue (int nvar, int nind, float val) {
+        int[] anSizes = m_aSizes.get(nvar);
+        int nstep = anSizes[nind];
+        ArrayList<float[]> paBlocks = m_aBlocks.get(nvar);
+        while (paBlocks.size()*CHUNK <= nstep)
+            paBlocks.add(new float[CHUNK*m_nCap]);
+        paBlocks.get(nstep/CHUNK)[(nstep%CHUNK)*m_nCap+nind] = val;
+        anSizes[nind] = nstep+1;
+        int[] anStamps = m_aStamps.get(nvar);
+        if (nstep >= anStamps.length)
+            m_aStamps.set(nvar, anStamps = Arrays.copyOf(anStamps, 2*anStamps.length));
+        anStamps[nstep]++;
+        if (nstep >= m_anMaxSize[nvar])
+            m_anMaxSize[nvar] = nstep+1;
+        if (nstep == m_anMinSize[nvar] && --m_anAtMin[nvar] == 0) {
+            // The last shortest column has grown
+            int nmin = Integer.MAX_VALUE, nat = 0;
+            for (int i=0;i<m_nKeys;i++) {
+                if (anSizes[i] < nmin) {
+                    nmin = anSizes[i];
+                    nat = 0;
+                }
+                if (anSizes[i] == nmin)
+                    nat++;
+            }
+            m_anMinSize[nvar] = nmin;
+            m_anAtMin[nvar] = nat;
+        }
+        return nstep;
+    }
+
+    /**
+     * Sums of the values at the step by groups of columns. The columns are
+     * visited in the given order, so every group sum equals the sum over
+     * its members in that order.
+     * @param nvar variable
+     * @param anOrder column indexes in the order of summation
+     * @param anGroupOf group of the columns by position in anOrder
+     * @param ngroups number of groups
+     * @param nstep step
+     * @return sums by group
+     */
+    public float[] sumGroups (int nvar, int[] anOrder, int[] anGroupOf,
+            int ngroups, int nstep) {
+        float[] afSums = new float[ngroups];
+        int[] anSizes = m_aSizes.get(nvar);
+        ArrayList<float[]> paBlocks = m_aBlocks.get(nvar);
+        if (nstep<0 || nstep/CHUNK>=paBlocks.size())
+            return afSums;
+        float[] afRow = paBlocks.get(nstep/CHUNK);
+        int noff = (nstep%CHUNK)*m_nCap;
+        for (int npos=0;npos<anOrder.length;npos++) {
+            int nind = anOrder[npos];
+            if (nstep < anSizes[nind])
+                afSums[anGroupOf[npos]] += afRow[noff+nind];
+        }
+        return afSums;
+    }
+
+    /**
+     * Sum of the values at the step of the columns matching the given
+     * region, owner, site and species (0 matches any). The columns are
+     * visited in the given order and the sum stops at the first column
+     * shorter than the step, as GMEfiscen.summarize does. When no column
+     * is that short only the given members are visited.
+     * @param nvar variable
+     * @param anOrder column indexes in the order of summation
+     * @param anMembers positions in anOrder of the matching columns
+     * (see GMRollup.getMembers), null to visit all columns
+     * @param lr region
+     * @param lo owner
+     * @param lst site
+     * @param lsp species
+     * @param nstep step
+     * @return sum
+     */
+    public float summarize (int nvar, int[] anOrder, int[] anMembers, long lr,
+            long lo, long lst, long lsp, int nstep) {
+        float retval = 0;
+        long ulKey = (lr<<24) + (lo<<16) + (lst<<8) + lsp;
+        long lmask = -1L;
+        if (lr == 0)  lmask = lmask & ~0xFF000000;
+        if (lo == 0)  lmask = lmask & ~0xFF0000;
+        if (lst == 0) lmask = lmask & ~0xFF00;
+        if (lsp == 0) lmask = lmask & ~0xFF;
+        int[] anSizes = m_aSizes.get(nvar);
+        ArrayList<float[]> paBlocks = m_aBlocks.get(nvar);
+        float[] afRow = nstep>=0 && nstep/CHUNK<paBlocks.size() ? paBlocks.get(nstep/CHUNK) : null;
+        int noff = (nstep%CHUNK)*m_nCap;
+        if (anMembers != null && nstep <= m_anMinSize[nvar]) {
+            for (int npos : anMembers) {
+                int nind = anOrder[npos];
+                if (nstep >= 0 && nstep < anSizes[nind])
+                    retval += afRow[noff+nind];
+            }
+            return retval;
+        }
+        for (int nind : anOrder) {
+            if (nstep > anSizes[nind])
+                return retval;
+            if ((m_alKeys[nind] & lmask) == ulKey && nstep >= 0 && nstep < anSizes[nind])
+                retval += afRow[noff+nind];
+        }
+        return retval;
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright (C) 2016 European Forest Institute
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package efi.efiscen.gm;
+
+import efi.efiscen.com.ComArFloat;
+
+/**
+ * Time series of one matrix for one variable of GMHistory. Replaces
+ * the ComArFloat of the matrix in the history maps of GMEfiscen, the
+ * values are kept in the columnar store.
+ *
+ */
+public class GMHistoryColumn extends ComArFloat {
+
+    private static final long serialVersionUID = 1L;
+
+    protected GMHistory m_pHistory; // Store of the values
+    protected int m_nVar; // Variable in the store
+    protected int m_nInd; // Column index in the store
+
+    /**
+     * Parametrized constructor.
+     * @param pHistory store of the values
+     * @param nvar variable
+     * @param nind column index
+     */
+    public GMHistoryColumn (GMHistory pHistory, int nvar, int nind) {
+        super((float[])null);
+        m_pHistory = pHistory;
+        m_nVar = nvar;
+        m_nInd = nind;
+    }
+
+    /**
+     * Copy of the values detached from the store.
+     * @return new collection with the same values
+     */
+    @Override
+    public ComArFloat copy () {
+        int nsize = getSize();
+        ComArFloat pCopy = new ComArFloat(nsize);
+        for (int i=0;i<nsize;i++)
+            pCopy.addFloat(getFloat(i));
+        return pCopy;
+    }
+
+    /**
+     * Get the store of the values.
+     * @return store
+     */
+    public GMHistory getHistory () {
+        return m_pHistory;
+    }
+
+    /**
+     * Get the variable in the store.
+     * @return variable
+     */
+    public int getVariable () {
+        return m_nVar;
+    }
+
+    /**
+     * Get the column index in the store.
+     * @return column index
+     */
+    public int getIndex () {
+        return m_nInd;
+    }
+
+    /**
+     * Set the data at given index. PrintStackTrace() in case of exception.
+     * @param nid array index
+     * @param val value to be stored
+     * @return 1 if successful -1 else
+     */
+    @Override
+    public int setData (int nid, Float val) {
+        try {
+            m_pHistory.setValue(m_nVar, m_nInd, nid, val);
+        } catch (IndexOutOfBoundsException iob) {
+            iob.printStackTrace();
+            return -1;
+        }
+        return 1;
+    }
+
+    /**
+     * Return data at given index.
+     * @param nid array index
+     * @return data at given index or null if not found
+     */
+    @Override
+    public Float getData (int nid) {
+        if (nid<0 || nid>=getSize())
+            return null;
+        return m_pHistory.getValue(m_nVar, m_nInd, nid);
+    }
+
+    /**
+     * Get the size of the array.
+     * @return number of stored values
+     */
+    @Override
+    public int getSize () {
+        return m_pHistory.getSize(m_nVar, m_nInd);
+    }
+
+    /**
+     * Add value to the array without boxing.
+     * @param val value to be added
+     * @return index of the top element in the array
+     */
+    @Override
+    public int addFloat (float val) {
+        return m_pHistory.addValue(m_nVar, m_nInd, val);
+    }
+
+    /**
+     * Value at given index without boxing.
+     * @param nid array index
+     * @return value
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    @Override
+    public float getFloat (int nid) {
+        return m_pHistory.getValue(m_nVar, m_nInd, nid);
+    }
+}
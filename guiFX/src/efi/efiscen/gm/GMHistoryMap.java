@@ -0,0 +1,215 @@
+/*
+ * Copyright (C) 2016 European Forest Institute
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package efi.efiscen.gm;
+
+import efi.efiscen.com.ComArFlt;
+import java.util.ArrayList;
+import java.util.Map;
+
+/**
+ * Map of the time series of one variable of GMHistory by matrix keys.
+ * New columns are created by addColumn; the map can still hold other
+ * ComArFlt (e.g. histories of a loaded session), in which case the
+ * columnar shortcuts are not used.
+ * Group sums (by region, owner, site, species or their combinations) are
+ * kept per step and pattern. All the groups of the pattern are summed in
+ * one pass at the first query after the values of the step have changed.
+ *
+ */
+public class GMHistoryMap extends GMKeyMap<ComArFlt<Float>> {
+
+    private static final long serialVersionUID = 1L;
+
+    protected GMHistory m_pHistory; // Store of the values
+    protected int m_nVar; // Variable in the store
+    private transient int[] m_anOrder; // Column indexes in the order of keySet
+    private transient GMRollup m_pSumRollup; // Index the group sums are kept for
+    private transient int[] m_anSumOrder; // Order the group sums are kept for
+    private transient ArrayList<float[][]> m_aSums; // Group sums by step and pattern
+    private transient ArrayList<int[]> m_aSumStamps; // Stamps of the group sums
+
+    /**
+     * Parametrized constructor.
+     * @param pHistory store of the values
+     * @param nvar variable
+     */
+    public GMHistoryMap (GMHistory pHistory, int nvar) {
+        m_pHistory = pHistory;
+        m_nVar = nvar;
+        m_anOrder = null;
+    }
+
+    /**
+     * Constructor with the initial capacity.
+     * @param pHistory store of the values
+     * @param nvar variable
+     * @param ncap initial capacity
+     */
+    public GMHistoryMap (GMHistory pHistory, int nvar, int ncap) {
+        super(ncap);
+        m_pHistory = pHistory;
+        m_nVar = nvar;
+        m_anOrder = null;
+    }
+
+    /**
+     * Copy of the map for a copy of its store, iterating in the same order.
+     * Columns of the store are bound to the same columns of the given
+     * store, other values are copied.
+     * @param pHistory copy of the store (see GMHistory.copy)
+     * @return copy of the map
+     */
+    public GMHistoryMap copy (GMHistory pHistory) {
+        return copyOrdered(this,
+                ncap -> ncap == 0 ? new GMHistoryMap(pHistory, m_nVar) : new GMHistoryMap(pHistory, m_nVar, ncap),
+                pVal -> {
+                    if (pVal instanceof GMHistoryColumn && ((GMHistoryColumn)pVal).getHistory() == m_pHistory) {
+                        GMHistoryColumn pCol = (GMHistoryColumn)pVal;
+                        return new GMHistoryColumn(pHistory, pCol.getVariable(), pCol.getIndex());
+                    }
+                    return pVal.copy();
+                });
+    }
+
+    /**
+     * Get the store of the values.
+     * @return store
+     */
+    public GMHistory getHistory () {
+        return m_pHistory;
+    }
+
+    /**
+     * Get the variable in the store.
+     * @return variable
+     */
+    public int getVariable () {
+        return m_nVar;
+    }
+
+    /**
+     * Creates the column of the key and puts it to the map.
+     * @param ukey matrix key
+     * @return column
+     */
+    public GMHistoryColumn addColumn (long ukey) {
+        GMHistoryColumn pCol = new GMHistoryColumn(m_pHistory, m_nVar, m_pHistory.addKey(ukey));
+        put(ukey, pCol);
+        return pCol;
+    }
+
+    @Override
+    public ComArFlt<Float> put (Long ukey, ComArFlt<Float> pVal) {
+        ComArFlt<Float> pOld = super.put(ukey, pVal);
+        if (pOld != pVal)
+            m_anOrder = null;
+        return pOld;
+    }
+
+    @Override
+    public ComArFlt<Float> remove (Object ukey) {
+        m_anOrder = null;
+        return super.remove(ukey);
+    }
+
+    @Override
+    public void clear () {
+        m_anOrder = null;
+        super.clear();
+    }
+
+    /**
+     * Column indexes of the values in the iteration order of the map.
+     * @return indexes or null if some value is not the column of its key
+     * in the variable
+     */
+    public int[] getOrder () {
+        int[] anOrder = m_anOrder;
+        if (anOrder != null && anOrder.length == size())
+            return anOrder;
+        anOrder = new int[size()];
+        int i = 0;
+        for (Map.Entry<Long,ComArFlt<Float>> pEntry : entrySet()) {
+            if (!(pEntry.getValue() instanceof GMHistoryColumn))
+                return null;
+            GMHistoryColumn pCol = (GMHistoryColumn)pEntry.getValue();
+            if (pCol.getHistory() != m_pHistory || pCol.getVariable() != m_nVar
+                    || m_pHistory.getKey(pCol.getIndex()) != pEntry.getKey())
+                return null;
+            anOrder[i++] = pCol.getIndex();
+        }
+        m_anOrder = anOrder;
+        return anOrder;
+    }
+
+    /**
+     * Sum of the values at the step of the columns matching the given
+     * region, owner, site and species (0 matches any), equal to
+     * GMEfiscen.summarize. The map must hold only columns of the variable
+     * (getOrder() not null).
+     * @param lr region
+     * @param lo owner
+     * @param lst site
+     * @param lsp species
+     * @param nstep step
+     * @return sum
+     */
+    public synchronized float summarize (long lr, long lo, long lst, long lsp, int nstep) {
+        int[] anOrder = getOrder();
+        GMRollup pRollup = getRollup();
+        if (nstep < 0 || nstep > m_pHistory.getMinSize(m_nVar))
+            // Some series end before the step, the scan stops there
+            return m_pHistory.summarize(m_nVar,anOrder,pRollup.getMembers(lr,lo,lst,lsp),
+                    lr,lo,lst,lsp,nstep);
+        int ngroup = pRollup.getGroup(lr,lo,lst,lsp);
+        if (ngroup < 0)
+            return 0;
+        if (pRollup != m_pSumRollup || anOrder != m_anSumOrder || m_aSums == null) {
+            m_pSumRollup = pRollup;
+            m_anSumOrder = anOrder;
+            m_aSums = new ArrayList<>();
+            m_aSumStamps = new ArrayList<>();
+        }
+        while (m_aSums.size() <= nstep) {
+            m_aSums.add(new float[16][]);
+            m_aSumStamps.add(new int[16]);
+        }
+        int npat = GMRollup.getPattern(lr,lo,lst,lsp);
+        int nstamp = m_pHistory.getStamp(m_nVar, nstep);
+        float[][] aafSums = m_aSums.get(nstep);
+        int[] anStamps = m_aSumStamps.get(nstep);
+        if (aafSums[npat] == null || anStamps[npat] != nstamp) {
+            // Once per change of the step, the other groups of the pattern
+            // are usually queried next (reports go over all the groups)
+            aafSums[npat] = m_pHistory.sumGroups(m_nVar,anOrder,pRollup.getGroupOf(npat),
+                    pRollup.getNumGroups(npat),nstep);
+            anStamps[npat] = nstamp;
+        }
+        return aafSums[npat][ngroup];
+    }
+
+    /**
+     * Last step stored in all columns when the columns have equal length.
+     * @return step or -1 if the columns differ or hold no values
+     */
+    public int getLatestStep () {
+        int nmin = m_pHistory.getMinSize(m_nVar);
+        if (nmin == 0 || nmin != m_pHistory.getMaxSize(m_nVar) || getOrder() == null)
+            return -1;
+        return nmin-1;
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2016 European Forest Institute
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package efi.efiscen.gm;
+
+import java.util.ArrayList;
+
+/**
+ * Filter of keys (Region::Owner::Site::Species, see GMMatrix) given as a
+ * set of patterns. A 0 subkey of a pattern matches any subkey, as in the
+ * queries of GMEfiscen. An empty filter matches all keys.
+ *
+ */
+public class GMKeyFilter {
+
+    private final ArrayList<Long> m_paPatterns; // Keys of the patterns
+    private final ArrayList<Long> m_paMasks; // Key masks of the patterns
+
+    /**
+     * Default constructor, the filter matches all keys.
+     */
+    public GMKeyFilter () {
+        m_paPatterns = new ArrayList<>();
+        m_paMasks = new ArrayList<>();
+    }
+
+    /**
+     * Adds a pattern.
+     * @param lr region, 0 for any
+     * @param lo owner, 0 for any
+     * @param lst site, 0 for any
+     * @param lsp species, 0 for any
+     */
+    public void addPattern (long lr, long lo, long lst, long lsp) {
+        m_paPatterns.add((lr<<24) + (lo<<16) + (lst<<8) + lsp);
+        m_paMasks.add(GMRollup.getMask(GMRollup.getPattern(lr, lo, lst, lsp)));
+    }
+
+    /**
+     * Tells whether the filter has no patterns.
+     * @return true if all keys are matched
+     */
+    public boolean isEmpty () {
+        return m_paPatterns.isEmpty();
+    }
+
+    /**
+     * Tells whether the key of a matrix matches a pattern of the filter.
+     * @param ulKey key of the matrix
+     * @return true if the key matches or the filter is empty
+     */
+    public boolean matches (long ulKey) {
+        if (m_paPatterns.isEmpty())
+            return true;
+        for (int i=0;i<m_paPatterns.size();i++)
+            if ((ulKey & m_paMasks.get(i)) == m_paPatterns.get(i))
+                return true;
+        return false;
+    }
+
+    /**
+     * Tells whether a key with its own 0 subkeys as wildcards (e.g. soils or
+     * parameters given for groups of matrices) can apply to a matrix
+     * matching the filter.
+     * @param ulKey key
+     * @return true if the key can apply to a matching matrix or the filter
+     * is empty
+     */
+    public boolean overlaps (long ulKey) {
+        if (m_paPatterns.isEmpty())
+            return true;
+        long lmask = GMRollup.getMask(GMRollup.getPattern((ulKey>>24) & 0xFF,
+                (ulKey>>16) & 0xFF, (ulKey>>8) & 0xFF, ulKey & 0xFF));
+        for (int i=0;i<m_paPatterns.size();i++)
+            if (((ulKey ^ m_paPatterns.get(i)) & m_paMasks.get(i) & lmask) == 0)
+                return true;
+        return false;
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2016 European Forest Institute
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package efi.efiscen.gm;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.IntFunction;
+import java.util.function.UnaryOperator;
+
+/**
+ * Map by keys Region::Owner::Site::Species keeping a rollup index of its
+ * keys (GMRollup). The index is built on the first use and again after
+ * keys have been added or removed; replacing the value of a key keeps it.
+ * The map iterates in the order the keys were added, so sums over the
+ * map and over its copies (copyOrdered) are added up in that order.
+ *
+ * @param <V> type of the values
+ */
+public class GMKeyMap<V> extends LinkedHashMap<Long,V> {
+
+    private static final long serialVersionUID = 1L;
+
+    private transient volatile GMRollup m_pRollup; // Index of the keys
+
+    /**
+     * Default constructor.
+     */
+    public GMKeyMap () {
+        super();
+    }
+
+    /**
+     * Constructor with the initial capacity.
+     * @param ncap initial capacity
+     */
+    public GMKeyMap (int ncap) {
+        super(ncap);
+    }
+
+    /**
+     * Rollup index of the keys in the iteration order of the map.
+     * @return index
+     */
+    public GMRollup getRollup () {
+        GMRollup pRollup = m_pRollup;
+        if (pRollup == null || pRollup.size() != size()) {
+            synchronized (this) {
+                pRollup = m_pRollup;
+                if (pRollup == null || pRollup.size() != size()) {
+                    pRollup = new GMRollup(keySet());
+                    m_pRollup = pRollup;
+                }
+            }
+        }
+        return pRollup;
+    }
+
+    /**
+     * Copies the entries of the map to a new map iterating in the same
+     * order, so that sums over the copy are added up in the same order.
+     * The entries are put in the iteration order of the source, which
+     * the copy keeps as it iterates in the insertion order.
+     * @param <V> type of the values
+     * @param <M> type of the map
+     * @param mSrc copied map
+     * @param fnNew new empty map iterating in the insertion order, of the
+     * given capacity, 0 for the default
+     * @param fnCopy copy of a value
+     * @return copy of the map
+     */
+    public static <V,M extends LinkedHashMap<Long,V>> M copyOrdered (Map<Long,V> mSrc,
+            IntFunction<M> fnNew, UnaryOperator<V> fnCopy) {
+        M mCopy = fnNew.apply(capacity(mSrc.size()));
+        for (Map.Entry<Long,V> pEntry : mSrc.entrySet())
+            mCopy.put(pEntry.getKey(), fnCopy.apply(pEntry.getValue()));
+        return mCopy;
+    }
+
+    /**
+     * Copies the entries of the map to a new LinkedHashMap iterating in
+     * the same order (see the other copyOrdered).
+     * @param <V> type of the values
+     * @param mSrc copied map
+     * @param fnCopy copy of a value
+     * @return copy of the map
+     */
+    public static <V> HashMap<Long,V> copyOrdered (Map<Long,V> mSrc, UnaryOperator<V> fnCopy) {
+        return copyOrdered(mSrc, ncap -> ncap == 0 ? new LinkedHashMap<Long,V>() : new LinkedHashMap<Long,V>(ncap), fnCopy);
+    }
+
+    /**
+     * Capacity holding the entries without rehashing.
+     * @param nsize number of entries
+     * @return capacity, 0 for the default
+     */
+    private static int capacity (int nsize) {
+        return nsize <= 12 ? 0 : nsize*4/3 + 1;
+    }
+
+    @Override
+    public V put (Long ukey, V pVal) {
+        if (!containsKey(ukey))
+            m_pRollup = null;
+        return super.put(ukey, pVal);
+    }
+
+    @Override
+    public void putAll (Map<? extends Long,? extends V> mSrc) {
+        m_pRollup = null;
+        super.putAll(mSrc);
+    }
+
+    @Override
+    public V remove (Object ukey) {
+        m_pRollup = null;
+        return super.remove(ukey);
+    }
+
+    @Override
+    public void clear () {
+        m_pRollup = null;
+        super.clear();
+    }
+}
@@ -93,6 +93,32 @@ public class GMLitterCollect implements Serializable {
         lc_pleaves = new ArrayList<>();
     }
 
+    /**
+     * Parameterized constructor sharing the given litter vectors,
+     * litter values are zero.
+     * @param lc_pCalloc carbon allocation structure
+     * @param nsize size of vectors
+     * @param lc_pxvals x limits
+     * @param lc_pstem stem's shares of litter
+     * @param lc_pbranch branches shares of litter
+     * @param lc_pcroots coarse roots shares of litter
+     * @param lc_pfroots fine roots shares of litter
+     * @param lc_pleaves leaves shares of litter
+     */
+    public GMLitterCollect (GMCarbonAlloc lc_pCalloc, int nsize,
+            ArrayList<Float> lc_pxvals, ArrayList<Float> lc_pstem,
+            ArrayList<Float> lc_pbranch, ArrayList<Float> lc_pcroots,
+            ArrayList<Float> lc_pfroots, ArrayList<Float> lc_pleaves) {
+        this.lc_pCalloc = lc_pCalloc;
+        this.lc_nsize = nsize;
+        this.lc_pxvals = lc_pxvals;
+        this.lc_pstem = lc_pstem;
+        this.lc_pbranch = lc_pbranch;
+        this.lc_pcroots = lc_pcroots;
+        this.lc_pfroots = lc_pfroots;
+        this.lc_pleaves = lc_pleaves;
+    }
+
     /**
      * Getter for branches litter
      * @return litter from branches
@@ -19,6 +19,7 @@ package efi.efiscen.gm;
 import efi.efiscen.com.ComFltPipeElement;
 import efi.efiscen.com.ComFltPipe;
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.io.Serializable;
 
 /**
@@ -26,7 +27,7 @@ import java.io.Serializable;
  * function. Performs all main actions: growth, management and harvest.
  * 
  */
-public class GMMatrix implements Serializable {
+public class GMMatrix implements Serializable, Cloneable {
 
     // Not just an ID, but at the same time info storage:lowest, byte:spec,
     // highest:reg. Exactly - regionID::ownerID::siteID::speciesID.
@@ -51,6 +52,9 @@ public class GMMatrix implements Serializable {
 
     public ArrayList<GMCell> m_Cells;
 
+    // Attribute arrays of the cells, m_Cells are views to it
+    private GMCellStore m_pCellStore;
+
     private float m_Xbottom;
     private float m_Xtop;
     private float m_Ybottom;
@@ -73,12 +77,25 @@ public class GMMatrix implements Serializable {
     // To keep deadwood monitoring
     private ComFltPipe m_fpDwPipe;
 
+    // Climate ratios applied last to the original transitions
+    // by setClimGrowV4
+    private float[] m_afClimLims;
+    private float[] m_afClimRat;
+    private int m_nClimRet;
+
+    // Potential fellings and thinnings cached by reportHarvest,
+    // reportThinnings and reportThinningsV4
+    private transient GMPotential m_pHarvestPot;
+    private transient GMPotential m_pThinPot;
+    private transient GMPotential m_pThinV4Pot;
+
     /**
      * Default constructor.
      */
     public GMMatrix () {
         m_sName = "Undefined";
         m_Cells = null;
+        m_pCellStore = null;
         m_Xclasses = null;
         m_Yclasses = null;
         m_pFunction = null;
@@ -98,6 +115,7 @@ public class GMMatrix implements Serializable {
         m_wXsize = cols;
         m_wYsize = rows;
         m_Cells = new ArrayList<>(cols*rows);
+        m_pCellStore = null;
         //Remark 2012
         //We need to init arrays here
         //will reinit them later
@@ -117,6 +135,49 @@ public class GMMatrix implements Serializable {
         m_DeadWood = 0.0f;
     }
 
+    /**
+     * Deep copy of the matrix. The cell stores are copied as primitive
+     * arrays and the cells of the copy view the copied stores.
+     * @return copy
+     */
+    public GMMatrix copy () {
+        GMMatrix pCopy;
+        try {
+            pCopy = (GMMatrix)super.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError(e);
+        }
+        if (m_Xclasses != null)
+            pCopy.m_Xclasses = new ArrayList<>(m_Xclasses);
+        if (m_Yclasses != null)
+            pCopy.m_Yclasses = new ArrayList<>(m_Yclasses);
+        IdentityHashMap<GMCellStore,GMCellStore> mStores = new IdentityHashMap<>();
+        if (m_pCellStore != null) {
+            pCopy.m_pCellStore = m_pCellStore.copy();
+            mStores.put(m_pCellStore, pCopy.m_pCellStore);
+        }
+        if (m_Cells != null) {
+            pCopy.m_Cells = new ArrayList<>(m_Cells.size());
+            for (GMCell pCell : m_Cells) {
+                GMCellStore pStore = mStores.computeIfAbsent(pCell.getM_pStore(), GMCellStore::copy);
+                GMMatrix pOwner = pCell.getM_pmOwner() == this ? pCopy : pCell.getM_pmOwner();
+                pCopy.m_Cells.add(pCell.copy(pStore, pOwner));
+            }
+        }
+        if (m_pFunction != null)
+            pCopy.m_pFunction = m_pFunction.copy();
+        if (m_fpDwPipe != null)
+            pCopy.m_fpDwPipe = m_fpDwPipe.copy();
+        if (m_afClimLims != null)
+            pCopy.m_afClimLims = m_afClimLims.clone();
+        if (m_afClimRat != null)
+            pCopy.m_afClimRat = m_afClimRat.clone();
+        pCopy.m_pHarvestPot = null;
+        pCopy.m_pThinPot = null;
+        pCopy.m_pThinV4Pot = null;
+        return pCopy;
+    }
+
     /**
      * Get the potential increment per matrix.
      * @return the potential increment
@@ -212,6 +273,7 @@ public class GMMatrix implements Serializable {
         int ret;
 
         ret = 0;
+        m_afClimRat = null;
         GMCell pCell;
         nHowMany = m_wXsize*m_wYsize - 1;
 
@@ -625,10 +687,43 @@ public class GMMatrix implements Serializable {
 
     /**
      * Reporting harverst.
+     * The area and volume are cached until the cells of the matrix are
+     * changed, the cached values are added to pFl.
      * @param pFl fellings
      * @return fellings object with harvest data
      */
     public GMFellings reportHarvest (GMFellings pFl) {
+        if (!isPacked())
+            return reportHarvestCells(pFl);
+        if (m_pHarvestPot == null)
+            m_pHarvestPot = new GMPotential();
+        if (!m_pHarvestPot.isValid(m_pCellStore, pFl)) {
+            m_pHarvestPot.set(m_pCellStore, reportHarvestCells(zeroFellings(pFl)));
+        }
+        return m_pHarvestPot.apply(pFl);
+    }
+
+    /**
+     * Fellings with the ratio and stem share of pFl and nothing reported
+     * yet, for the cached potentials.
+     * @param pFl fellings
+     * @return new fellings object
+     */
+    private static GMFellings zeroFellings (GMFellings pFl) {
+        GMFellings pZero = new GMFellings();
+        pZero.setF_ratio(pFl.getF_ratio());
+        pZero.setF_stem(pFl.getF_stem());
+        pZero.setF_area(0.0);
+        pZero.setF_volume(0.0);
+        return pZero;
+    }
+
+    /**
+     * Cell by cell version of reportHarvest.
+     * @param pFl fellings
+     * @return pFl
+     */
+    private GMFellings reportHarvestCells (GMFellings pFl) {
         int nHowMany;
         //double ret = 0.0;
         double factor;
@@ -661,10 +756,28 @@ public class GMMatrix implements Serializable {
     /**
      * Reporting thinnigs and growth.
      * Idea: to make thinnings by moving area one volume class down.
+     * The area and volume are cached until the cells of the matrix are
+     * changed, the cached values are added to pFl.
      * @param pFl fellings
      * @return fellings object with thinnings data
      */
     public GMFellings reportThinnings (GMFellings pFl) {
+        if (!isPacked())
+            return reportThinningsCells(pFl);
+        if (m_pThinPot == null)
+            m_pThinPot = new GMPotential();
+        if (!m_pThinPot.isValid(m_pCellStore, pFl)) {
+            m_pThinPot.set(m_pCellStore, reportThinningsCells(zeroFellings(pFl)));
+        }
+        return m_pThinPot.apply(pFl);
+    }
+
+    /**
+     * Cell by cell version of reportThinnings.
+     * @param pFl fellings
+     * @return pFl
+     */
+    private GMFellings reportThinningsCells (GMFellings pFl) {
         int nHowMany;
         //double ret = 0.0;
         double factor;
@@ -697,10 +810,28 @@ public class GMMatrix implements Serializable {
      * Version from "old" EFISCEN thanks to ALTERRA (MJ and Ari)
      * Reporting thinnigs and growth.
      * Idea: to make thinnings by moving area one volume class down.
+     * The area and volume are cached until the cells of the matrix are
+     * changed, the cached values are added to pFl.
      * @param pFl fellings
      * @return fellings object with thinnings data
      */
     public GMFellings reportThinningsV4 (GMFellings pFl) {
+        if (!isPacked())
+            return reportThinningsV4Cells(pFl);
+        if (m_pThinV4Pot == null)
+            m_pThinV4Pot = new GMPotential();
+        if (!m_pThinV4Pot.isValid(m_pCellStore, pFl)) {
+            m_pThinV4Pot.set(m_pCellStore, reportThinningsV4Cells(zeroFellings(pFl)));
+        }
+        return m_pThinV4Pot.apply(pFl);
+    }
+
+    /**
+     * Cell by cell version of reportThinningsV4.
+     * @param pFl fellings
+     * @return pFl
+     */
+    private GMFellings reportThinningsV4Cells (GMFellings pFl) {
         int nHowMany;
         //double ret = 0.0;
         GMCell pCell;
@@ -1280,6 +1411,194 @@ public class GMMatrix implements Serializable {
         return ret;
     }
     
+    /**
+     * Checks if the cells are views to the cell store of the matrix.
+     * @return true if the cells are packed
+     */
+    private boolean isPacked () {
+        return m_pCellStore != null && !m_Cells.isEmpty()
+                && m_Cells.get(0).getM_pStore() == m_pCellStore;
+    }
+
+    /**
+     * Drops the cached potential fellings and thinnings, needed when the
+     * volume classes are changed.
+     */
+    private void invalidatePotentials () {
+        m_pHarvestPot = null;
+        m_pThinPot = null;
+        m_pThinV4Pot = null;
+    }
+
+    /**
+     * Fused version of growV4 and updateV4.
+     * Grows and updates the matrix in one sweep over the cell store, column
+     * by column, without any object allocation. Gives the same results as
+     * growV4 followed by updateV4, which are kept as the reference path and
+     * are used when the cells are not packed to the cell store.
+     * @return total growing stock after the step
+     */
+    public float stepV4 () {
+        if (!isPacked()) {
+            growV4();
+            return updateV4();
+        }
+        m_pCellStore.touch();
+        float[] area = m_pCellStore.m_Area;
+        float[] thin = m_pCellStore.m_ThinArea;
+        float[] mat = m_pCellStore.m_MoveAsThin;
+        float[] mx = m_pCellStore.m_MoveByX;
+        float[] mxy = m_pCellStore.m_MoveByXY;
+        float[] move = m_pCellStore.m_Move;
+        float[] away = m_pCellStore.m_MoveAway;
+        float[] income = m_pCellStore.m_Income;
+        int i,j,ind,up,col,ncol;
+        int ny = m_wYsize;
+        double partMove,rgrArea;
+        double partMoveByX,partMoveByXY;
+        float ret = 0.0f;
+
+        partMove = m_FromBare*m_BareArea;
+        if (m_BareArea-partMove<0.00000001)
+            partMove = m_BareArea;
+        move[0] = 0.0f;
+        income[0] = (float)partMove;
+        m_BareArea-=partMove;
+        assert partMove >= 0 : negativeArea(partMove);
+        for (i=1;i<m_wXsize;i++) {
+            // Column i gets nothing more once the column i-1 is grown,
+            // so it can be grown and updated at once
+            col = (i-1)*ny;
+            ncol = i*ny;
+            for (j=1;j<ny;j++) {
+                ind = col+j-1;
+                up = ncol+j; // i+1,j+1
+                move[ind] = 0.0f;
+                // Normal area
+                partMove = mxy[ind]*area[ind];
+                income[up] = (float)(income[up]+partMove);
+                move[ind] = (float)(move[ind]+partMove);
+                partMove = area[ind] - move[ind];
+                income[up-1] = (float)(income[up-1]+partMove);
+                move[ind] = (float)(move[ind]+partMove);
+                // Just this step thinned area
+                if (mat[ind] > 0) {
+                    partMove = mx[ind]*mat[ind];
+                    away[up-1] = (float)(away[up-1]+partMove);
+                    mat[ind] = (float)(mat[ind]-partMove);
+                    away[up] = away[up]+mat[ind];
+                    mat[ind] = 0.0f;
+                }
+                // Thinned area from previous steps development
+                if (thin[ind] > 0) {
+                    partMoveByX = mx[ind]*(1-m_RegrGamma)*thin[ind];
+                    partMoveByXY = mxy[ind]*(1-m_RegrGamma)*thin[ind];
+                    partMove = mx[ind]*m_RegrGamma*thin[ind];
+                    rgrArea = mxy[ind]*m_RegrGamma*thin[ind];
+                    away[up] = (float)(away[up]+partMoveByXY);
+                    income[up] = (float)(income[up]+partMove);
+                    away[up-1] = (float)(away[up-1]+partMoveByX);
+                    if (j+2 <= ny)
+                        income[up+1] = (float)(income[up+1]+rgrArea);
+                    else
+                        away[up] = (float)(away[up]+rgrArea);
+                    thin[ind] = 0.0f;
+                }
+            }
+            // Top row - highest volume class
+            ind = col+ny-1;
+            up = ncol+ny-1; // i+1,j
+            partMove = mx[ind]*area[ind];
+            assert partMove >= 0 : negativeArea(partMove);
+            income[up] = (float)(income[up]+partMove);
+            move[ind] = (float)(move[ind]+partMove);
+            assert thin[ind] >= 0 : negativeArea(thin[ind]);
+            if (thin[ind] > 0) {
+                income[up] = income[up]+thin[ind];
+                thin[ind] = 0.0f;
+            }
+            ret = updateColumnV4(col,ret);
+        }
+        // Last column - highest age
+        col = (i-1)*ny;
+        for (j=1;j<ny;j++) {
+            ind = col+j-1;
+            up = ind+1; // i,j+1
+            move[ind] = 0.0f;
+            partMove = mxy[ind]*area[ind];
+            assert partMove >= 0 : negativeArea(partMove);
+            income[up] = (float)(income[up]+partMove);
+            move[ind] = (float)(move[ind]+partMove);
+            if (mat[ind] > 0) {
+                partMove = mx[ind]*mat[ind];
+                away[ind] = (float)(away[ind]+partMove);
+                mat[ind] = (float)(mat[ind]-partMove);
+                away[up] = away[up]+mat[ind];
+                mat[ind] = 0.0f;
+            }
+            if (thin[ind] > 0) {
+                partMoveByX = mx[ind]*(1-m_RegrGamma)*thin[ind];
+                partMoveByXY = mxy[ind]*(1-m_RegrGamma)*thin[ind];
+                partMove = mx[ind]*m_RegrGamma*thin[ind];
+                rgrArea = mxy[ind]*m_RegrGamma*thin[ind];
+                away[up] = (float)(away[up]+partMoveByXY);
+                income[up] = (float)(income[up]+partMove);
+                away[ind] = (float)(away[ind]+partMoveByX);
+                if (j+2 <= ny)
+                    income[up+1] = (float)(income[up+1]+rgrArea);
+                else
+                    away[up] = (float)(away[up]+rgrArea);
+                thin[ind] = 0.0f;
+            }
+        }
+        ret = updateColumnV4(col,ret);
+        return ret;
+    }
+
+    /**
+     * Update of one column of the cell store, same as updateV4 does for
+     * every cell. Used by stepV4.
+     * @param col index of the first cell of the column in the store
+     * @param ret growing stock summed so far
+     * @return growing stock including the column
+     */
+    private float updateColumnV4 (int col, float ret) {
+        float[] area = m_pCellStore.m_Area;
+        float[] thin = m_pCellStore.m_ThinArea;
+        float[] move = m_pCellStore.m_Move;
+        float[] away = m_pCellStore.m_MoveAway;
+        float[] income = m_pCellStore.m_Income;
+        float[] yval = m_pCellStore.m_Yval;
+        boolean[] thinned = m_pCellStore.m_bThinned;
+        double diff;
+        int last = col+m_wYsize;
+        for (int ind=col;ind<last;ind++) {
+            diff = income[ind] - move[ind];
+            area[ind] = (float)(area[ind] + diff);
+            assert area[ind] >= 0 : negativeArea(area[ind]);
+            // Thinnined area update
+            if (thinned[ind])
+                thin[ind] = thin[ind]+away[ind];
+            else
+                area[ind] = area[ind]+away[ind];
+            ret+=(area[ind] + thin[ind]) * yval[ind];
+            move[ind] = 0.0f;
+            away[ind] = 0.0f;
+            income[ind] = 0.0f;
+        }
+        return ret;
+    }
+
+    /**
+     * Message of the negative area assertions of stepV4.
+     * @param area negative area
+     * @return message with the matrix identification
+     */
+    private String negativeArea (double area) {
+        return "Negative area "+area+" in matrix Reg "+getRegionID()+" Owner "+getOwnerID()
+                +" Site "+getSiteID()+" Spec "+getSpeciesID();
+    }
+
     /**
      * @deprecated
      * version of updateV4 method with low volume class
@@ -1350,16 +1669,24 @@ public class GMMatrix implements Serializable {
         int ret;
         float ratio;
 
+        // Same ratios are already applied to the current transitions
+        if (isClimGrowV4(pLims,pRat,nsize))
+            return m_nClimRet;
         ret = 0;
         GMCell pCell;
         nHowMany = m_wXsize*m_wYsize - 1;
 
+        int j = 0;
+        float xmax = 0.0f;
         for (int i=0;i<=nHowMany;i++) {
             pCell = m_Cells.get(i);
-            // Finding ratio
-            int j=0;
-            while (j<nsize-1 && (pCell.getM_Xmax() > pLims.get(j)))
-                j+=1;
+            // Finding ratio, cells of the same column have the same age
+            if (i == 0 || pCell.getM_Xmax() != xmax) {
+                xmax = pCell.getM_Xmax();
+                j = 0;
+                while (j<nsize-1 && (xmax > pLims.get(j)))
+                    j+=1;
+            }
             ratio = pRat.get(j);
             pCell.setM_MoveByXY(ratio*pCell.getM_MoveByXYOrg());
             if (pCell.getM_MoveByXY() > 1.0) {
@@ -1369,10 +1696,44 @@ public class GMMatrix implements Serializable {
             pCell.setM_MoveByX(1.0f - pCell.getM_MoveByXY());
             m_Cells.set(i, pCell);
         }
-
+        // Keeping the ratios for the next call
+        m_afClimLims = new float[nsize];
+        m_afClimRat = new float[nsize];
+        for (int k=0;k<nsize;k++) {
+            m_afClimLims[k] = pLims.get(k);
+            m_afClimRat[k] = pRat.get(k);
+        }
+        m_nClimRet = ret;
         return ret;
     }
-    
+
+    /**
+     * Check if the given climate ratios are the ones applied last by
+     * setClimGrowV4 to the current transitions.
+     * @param pLims age limits
+     * @param pRat ratios
+     * @param nsize array size
+     * @return true if transitions are up to date
+     */
+    public boolean isClimGrowV4 (ArrayList<Float> pLims, ArrayList<Float> pRat, int nsize) {
+        if (m_afClimRat == null || m_afClimRat.length != nsize)
+            return false;
+        for (int k=0;k<nsize;k++) {
+            if (m_afClimLims[k] != pLims.get(k) || m_afClimRat[k] != pRat.get(k))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Drop the climate ratios kept by setClimGrowV4, so that next call
+     * recalculates transitions of all cells.
+     */
+    public void resetClimGrow () {
+        m_afClimRat = null;
+        m_afClimLims = null;
+    }
+
     /**
      * Fills specials fields in the pLc by calculating litters
      * (really Carbon, but can be easily modified).
@@ -2104,6 +2465,164 @@ public class GMMatrix implements Serializable {
         }
     }
 
+    /**
+     * Fused version of getValue, getArea, getBiomassDistr, getAreaDistr,
+     * getStockDistr, getMefiqueDistr, getSlashDistr, getMortDistr and
+     * getDwoodDistrFromPipe. Collects all of them in one sweep over the cell
+     * store and one over the deadwood pipe, the bin is searched once per
+     * age column. Gives the same results as the separate methods, which are
+     * kept as the reference path and are used when the cells are not packed
+     * to the cell store.
+     * @param pCa carbon, compartments are added as by getBiomassDistr
+     * @param pRep destination, cleared first
+     * @return total biomass (carbon)
+     */
+    public float reportDistr (GMCarbonAlloc pCa, GMDistrReport pRep) {
+        int nsize = pRep.m_nSize;
+        pRep.clear();
+        if (!isPacked()) {
+            ArrayList<Float> pSt = GMDistrReport.zeros(nsize);
+            ArrayList<Float> pBr = GMDistrReport.zeros(nsize);
+            ArrayList<Float> pLv = GMDistrReport.zeros(nsize);
+            ArrayList<Float> pCr = GMDistrReport.zeros(nsize);
+            ArrayList<Float> pFr = GMDistrReport.zeros(nsize);
+            ArrayList<Float> pLims = new ArrayList<>(nsize);
+            for (float lim : pRep.m_afLims)
+                pLims.add(lim);
+            pRep.m_fValue = getValue();
+            pRep.m_fArea = getArea();
+            pRep.m_fBiomass = getBiomassDistr(pCa,pLims,pSt,pBr,pLv,pCr,pFr,nsize);
+            GMDistrReport.copy(pSt, pRep.m_afStem);
+            GMDistrReport.copy(pBr, pRep.m_afBranches);
+            GMDistrReport.copy(pLv, pRep.m_afLeaves);
+            GMDistrReport.copy(pCr, pRep.m_afCroots);
+            GMDistrReport.copy(pFr, pRep.m_afFroots);
+            ArrayList<Float> pAr = GMDistrReport.zeros(nsize);
+            getAreaDistr(pLims,pAr,nsize);
+            GMDistrReport.copy(pAr, pRep.m_afAreas);
+            ArrayList<Float> pGs = GMDistrReport.zeros(nsize);
+            getStockDistr(pLims,pGs,nsize);
+            GMDistrReport.copy(pGs, pRep.m_afStocks);
+            ArrayList<Float> pTha = GMDistrReport.zeros(nsize);
+            ArrayList<Float> pThr = GMDistrReport.zeros(nsize);
+            ArrayList<Float> pFla = GMDistrReport.zeros(nsize);
+            ArrayList<Float> pFlr = GMDistrReport.zeros(nsize);
+            getMefiqueDistr(pLims,pTha,pThr,pFla,pFlr,nsize);
+            GMDistrReport.copy(pTha, pRep.m_afThAreas);
+            GMDistrReport.copy(pThr, pRep.m_afThRems);
+            GMDistrReport.copy(pFla, pRep.m_afFelAreas);
+            GMDistrReport.copy(pFlr, pRep.m_afFelRems);
+            ArrayList<Float> pThs = GMDistrReport.zeros(nsize);
+            ArrayList<Float> pFls = GMDistrReport.zeros(nsize);
+            getSlashDistr(pLims,pThs,pFls,nsize);
+            GMDistrReport.copy(pThs, pRep.m_afThSlash);
+            GMDistrReport.copy(pFls, pRep.m_afFelSlash);
+            ArrayList<Float> pNm = GMDistrReport.zeros(nsize);
+            getMortDistr(pLims,pNm,nsize);
+            GMDistrReport.copy(pNm, pRep.m_afNatMort);
+            ArrayList<Float> pDw = GMDistrReport.zeros(nsize);
+            getDwoodDistrFromPipe(pLims,pDw,nsize);
+            GMDistrReport.copy(pDw, pRep.m_afDeadWood);
+            return pRep.m_fBiomass;
+        }
+        float[] area = m_pCellStore.m_Area;
+        float[] thin = m_pCellStore.m_ThinArea;
+        float[] xval = m_pCellStore.m_Xval;
+        float[] xmax = m_pCellStore.m_Xmax;
+        float[] yval = m_pCellStore.m_Yval;
+        float[] tha = m_pCellStore.m_ThArea;
+        float[] thr = m_pCellStore.m_ThRem;
+        float[] fla = m_pCellStore.m_FelArea;
+        float[] flr = m_pCellStore.m_FelRem;
+        float[] ths = m_pCellStore.m_ThSlash;
+        float[] fls = m_pCellStore.m_FelSlash;
+        float[] nmrt = m_pCellStore.m_NatMrt;
+        int ncells = m_wXsize*m_wYsize;
+        int nca = pCa.getCa_nsize();
+        ArrayList<Float> pXvals = pCa.getCa_pxvals();
+        ArrayList<Float> pBranch = pCa.getCa_pbranch();
+        ArrayList<Float> pCroots = pCa.getCa_pcroots();
+        ArrayList<Float> pFroots = pCa.getCa_pfroots();
+        ArrayList<Float> pLeaves = pCa.getCa_pleaves();
+        float factor = nca > 0 ? pCa.getCa_dns()*pCa.getCa_ccont() : 0.0f;
+        double sstem = 0.0;
+        double sbr = 0.0;
+        double scr = 0.0;
+        double sfr = 0.0;
+        double slv = 0.0;
+        float value = 0.0f;
+        float sarea = 0.0f;
+        float lastmax = Float.NaN;
+        float lastx = Float.NaN;
+        int jj = 0;
+        int j = 0;
+        for (int i=0;i<ncells;i++) {
+            float ar = area[i] + thin[i];
+            // Cells of one age column share the limits
+            if (xmax[i] != lastmax) {
+                lastmax = xmax[i];
+                jj = pRep.getBin(lastmax);
+            }
+            value+=ar*yval[i];
+            sarea+=ar;
+            pRep.m_afAreas[jj] = pRep.m_afAreas[jj] + area[i] + thin[i];
+            pRep.m_afStocks[jj] += ar*yval[i];
+            pRep.m_afThAreas[jj] += tha[i];
+            pRep.m_afThRems[jj] += thr[i];
+            pRep.m_afFelAreas[jj] += fla[i];
+            pRep.m_afFelRems[jj] += flr[i];
+            pRep.m_afThSlash[jj] += ths[i];
+            pRep.m_afFelSlash[jj] += fls[i];
+            pRep.m_afNatMort[jj] += nmrt[i];
+            if (nca > 0 && ar > 0.00000001) {
+                float carbon = ar*yval[i]*factor;
+                if (xval[i] != lastx) {
+                    lastx = xval[i];
+                    j = 0;
+                    while (lastx > pXvals.get(j) && j < nca-1)
+                        j+=1;
+                }
+                double fsbr = pBranch.get(j)*carbon;
+                double fscr = pCroots.get(j)*carbon;
+                double fsfr = pFroots.get(j)*carbon;
+                double fslv = pLeaves.get(j)*carbon;
+                sstem += carbon;
+                sbr   += fsbr;
+                scr   += fscr;
+                sfr   += fsfr;
+                slv   += fslv;
+                pRep.m_afStem[jj] += carbon;
+                pRep.m_afBranches[jj] += (float)fsbr;
+                pRep.m_afLeaves[jj] += (float)fslv;
+                pRep.m_afCroots[jj] += (float)fscr;
+                pRep.m_afFroots[jj] += (float)fsfr;
+            }
+        }
+        ComFltPipeElement pPipe;
+        lastmax = Float.NaN;
+        for (int i=0;i<m_fpDwPipe.m_nSize;i++) {
+            pPipe = m_fpDwPipe.getElement(i);
+            if (pPipe.getCfp_uplim() != lastmax) {
+                lastmax = pPipe.getCfp_uplim();
+                jj = pRep.getBin(lastmax);
+            }
+            pRep.m_afThRems[jj] += pPipe.getCfp_threm();
+            pRep.m_afFelRems[jj] += pPipe.getCfp_felrem();
+            pRep.m_afDeadWood[jj] += pPipe.getCfp_value();
+        }
+        pRep.m_fValue = value;
+        pRep.m_fArea = sarea+m_BareArea;
+        if (nca <= 0)
+            return 0.0f;
+        pCa.setCa_cstem(pCa.getCa_cstem()+sstem);
+        pCa.setCa_cbranch(pCa.getCa_cbranch()+sbr);
+        pCa.setCa_ccroots(pCa.getCa_ccroots()+scr);
+        pCa.setCa_cfroots(pCa.getCa_cfroots()+sfr);
+        pCa.setCa_cleaves(pCa.getCa_cleaves()+slv);
+        pRep.m_fBiomass = (float)(sstem + sbr + scr + sfr + slv);
+        return pRep.m_fBiomass;
+    }
+
     /**
      * Transitions calculation.
      * @param pvols
@@ -2118,6 +2637,8 @@ public class GMMatrix implements Serializable {
         float rate,ysize,fraction;
         //float ret = 0.0f;
         GMCell pCell;
+        // Original transitions change, climate ratios must be applied again
+        resetClimGrow();
         for (int i=1;i<=m_wXsize;i++) {
             pCell = getAt(i,1); //m_Cells.get(i);
             // Important!
@@ -2497,6 +3018,7 @@ public class GMMatrix implements Serializable {
 
         for (i=1;i<=m_wYsize;i++)
             m_Yclasses.set(i-1,new Float(m_Ybottom + m_Ystep/2.0 + (i-1)*m_Ystep));
+        invalidatePotentials();
     }
 
     /**
@@ -2513,6 +3035,7 @@ public class GMMatrix implements Serializable {
         float y_min;
         float x_step = (float)(m_Xstep/2.0);
         float y_step = (float)(m_Ystep/2.0);
+        m_pCellStore = new GMCellStore(m_wXsize*m_wYsize);
         pCi.setCi_powner(this);
         m_BareArea = 0;
         m_FromBare = 0.75f;
@@ -2530,7 +3053,7 @@ public class GMMatrix implements Serializable {
                 pCi.setCi_y(y_min + y_step);
                 pCi.setCi_ymax(y_min + m_Ystep);
                 pCi.setCi_area(carea); //(i+1)*100.0 + (j+1)*1.0;
-                pCell = new GMCell(pCi);
+                pCell = new GMCell(m_pCellStore,i*m_wYsize+j,pCi);
                 pCell.setM_MoveByX(0.25f);
                 pCell.setM_MoveByY(0.25f);
                 pCell.setM_MoveByXY(0.25f);
@@ -2558,11 +3081,13 @@ public class GMMatrix implements Serializable {
         m_Yclasses.set(0,(volims.get(0) - m_Ybottom)/2);
         for (int iv=1;iv<m_wYsize;iv++)
             m_Yclasses.set(iv,(volims.get(iv) + volims.get(iv-1))/2);
+        invalidatePotentials();
         m_Ytop = volims.get(m_wYsize-1);
         float x_min = m_Xbottom;
         float y_min;
         float x_step = (float)(m_Xstep/2.0);
         //float y_step = (float)(m_Ystep/2.0);
+        m_pCellStore = new GMCellStore(m_wXsize*m_wYsize);
         pCi.setCi_powner(this);
         m_BareArea = 0;
         m_FromBare = 0.75f;
@@ -2581,7 +3106,7 @@ public class GMMatrix implements Serializable {
                 pCi.setCi_y(m_Yclasses.get(j));
                 pCi.setCi_ymax(volims.get(j));
                 pCi.setCi_area(carea); //(i+1)*100.0 + (j+1)*1.0;
-                pCell = new GMCell(pCi);
+                pCell = new GMCell(m_pCellStore,i*m_wYsize+j,pCi);
                 pCell.setM_MoveByX(0.25f);
                 pCell.setM_MoveByY(0.25f);
                 pCell.setM_MoveByXY(0.25f);
@@ -2622,7 +3147,10 @@ public class GMMatrix implements Serializable {
             return;
         if (nRow <= 0 || nRow > m_wYsize)
             return;
-        m_Cells.set((nCol-1)*m_wYsize+(nRow-1), cell);
+        int ind = (nCol-1)*m_wYsize+(nRow-1);
+        if (m_pCellStore != null)
+            cell.bind(m_pCellStore,ind);
+        m_Cells.set(ind, cell);
         cell.m_wX = nCol;
         cell.m_wY = nRow;
     }
@@ -2645,6 +3173,31 @@ public class GMMatrix implements Serializable {
         return pCell;
     }
 
+    /**
+     * Move all the cells to the common cell store of the matrix so that
+     * each cell attribute is kept in one array.
+     * Is needed for cells added directly to m_Cells.
+     * @return cell store of the matrix
+     */
+    public GMCellStore packCells () {
+        if (m_Cells == null)
+            return null;
+        int nHowMany = m_Cells.size();
+        GMCellStore pStore = new GMCellStore(nHowMany);
+        for (int i=0;i<nHowMany;i++)
+            m_Cells.get(i).bind(pStore,i);
+        m_pCellStore = pStore;
+        return m_pCellStore;
+    }
+
+    /**
+     * Get cell store of the matrix.
+     * @return cell store or null if cells are not packed
+     */
+    public GMCellStore getM_pCellStore() {
+        return m_pCellStore;
+    }
+
     /**
      * Setting Thinnings "history" by assigning the ratio*Area value
      * to the m_ThinArea.
@@ -0,0 +1,189 @@
+/*
+ * Copyright (C) 2016 European Forest Institute
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package efi.efiscen.gm;
+
+import java.util.ArrayList;
+
+/**
+ * Parameters of one matrix (or soil) key resolved from the parameter
+ * locators of the experiment. Each group of parameters (carbon allocation,
+ * litter production, coarse roots, natural mortality) is located on the
+ * first use, so the missing parameters are reported as before.
+ *
+ */
+public class GMMatrixPars {
+
+    public long m_uKey; // Key of the matrix or soil
+
+    // Carbon allocation
+    public float m_fCcont;
+    public float m_fWoodDens;
+    public GMParArray m_paCompXvals;
+    public GMParArray m_paStemShare;
+    public GMParArray m_paBranchShare;
+    public GMParArray m_paCrootsShare;
+    public GMParArray m_paFrootsShare;
+    public GMParArray m_paLeavesShare;
+
+    // Litter production
+    public GMParArray m_paLtrCompXvals;
+    public GMParArray m_paLtrStemShare;
+    public GMParArray m_paLtrBranchShare;
+    public GMParArray m_paLtrCrootsShare;
+    public GMParArray m_paLtrFrootsShare;
+    public GMParArray m_paLtrLeavesShare;
+
+    // Share of coarse roots going to coarse woody litter
+    public GMParArray m_paCroots2CWL;
+
+    // Natural mortality
+    public GMParArray m_paMortRateXvals;
+    public GMParArray m_paMortRate;
+    public float m_fDeadWoodDrate;
+
+    private final GMEfiscen m_pExperiment;
+    private boolean m_bCarbon;
+    private boolean m_bLitter;
+    private boolean m_bCr2Wl;
+    private boolean m_bMortality;
+
+    /**
+     * Parametrized constructor.
+     * @param pExperiment experiment holding the parameter locators
+     * @param ukey key of the matrix or soil
+     */
+    public GMMatrixPars (GMEfiscen pExperiment, long ukey) {
+        m_pExperiment = pExperiment;
+        m_uKey = ukey;
+        m_bCarbon = false;
+        m_bLitter = false;
+        m_bCr2Wl = false;
+        m_bMortality = false;
+    }
+
+    /**
+     * Locates the carbon allocation parameters.
+     * @throws efi.efiscen.gm.GMParLocator.GMParLocatorException
+     */
+    public synchronized void resolveCarbon () throws GMParLocator.GMParLocatorException {
+        if (m_bCarbon)
+            return;
+        m_fCcont = m_pExperiment.m_plCcont.getParameterValue(m_uKey,0);
+        m_fWoodDens = m_pExperiment.m_plWoodDens.getParameterValue(m_uKey,0);
+        m_paCompXvals = m_pExperiment.m_plCompXvals.getParameter(m_uKey);
+        m_paStemShare = m_pExperiment.m_plStemShare.getParameter(m_uKey);
+        m_paBranchShare = m_pExperiment.m_plBranchShare.getParameter(m_uKey);
+        m_paCrootsShare = m_pExperiment.m_plCrootsShare.getParameter(m_uKey);
+        m_paFrootsShare = m_pExperiment.m_plFrootsShare.getParameter(m_uKey);
+        m_paLeavesShare = m_pExperiment.m_plLeavesShare.getParameter(m_uKey);
+        m_bCarbon = true;
+    }
+
+    /**
+     * Locates the litter production parameters.
+     * @throws efi.efiscen.gm.GMParLocator.GMParLocatorException
+     */
+    public synchronized void resolveLitter () throws GMParLocator.GMParLocatorException {
+        if (m_bLitter)
+            return;
+        m_paLtrCompXvals = m_pExperiment.m_plLtrCompXvals.getParameter(m_uKey);
+        m_paLtrStemShare = m_pExperiment.m_plLtrStemShare.getParameter(m_uKey);
+        m_paLtrBranchShare = m_pExperiment.m_plLtrBranchShare.getParameter(m_uKey);
+        m_paLtrCrootsShare = m_pExperiment.m_plLtrCrootsShare.getParameter(m_uKey);
+        m_paLtrFrootsShare = m_pExperiment.m_plLtrFrootsShare.getParameter(m_uKey);
+        m_paLtrLeavesShare = m_pExperiment.m_plLtrLeavesShare.getParameter(m_uKey);
+        m_bLitter = true;
+    }
+
+    /**
+     * Locates the natural mortality parameters.
+     * @throws efi.efiscen.gm.GMParLocator.GMParLocatorException
+     */
+    public synchronized void resolveMortality () throws GMParLocator.GMParLocatorException {
+        if (m_bMortality)
+            return;
+        m_paMortRateXvals = m_pExperiment.m_plMortRateXvals.getParameter(m_uKey);
+        m_paMortRate = m_pExperiment.m_plMortRate.getParameter(m_uKey);
+        m_fDeadWoodDrate = m_pExperiment.m_plDeadWoodDrate.getParameterValue(m_uKey,0);
+        m_bMortality = true;
+    }
+
+    /**
+     * New carbon allocation structure with zero carbon values.
+     * @return carbon allocation structure
+     * @throws efi.efiscen.gm.GMParLocator.GMParLocatorException
+     */
+    public GMCarbonAlloc newCarbonAlloc () throws GMParLocator.GMParLocatorException {
+        resolveCarbon();
+        return new GMCarbonAlloc(m_paCompXvals.m_nSize, m_fCcont, m_fWoodDens,
+                m_paCompXvals.m_Vals, m_paStemShare.m_Vals, m_paBranchShare.m_Vals,
+                m_paCrootsShare.m_Vals, m_paFrootsShare.m_Vals, m_paLeavesShare.m_Vals);
+    }
+
+    /**
+     * New litter collection structure with zero litter values.
+     * @return litter collection structure
+     * @throws efi.efiscen.gm.GMParLocator.GMParLocatorException
+     */
+    public GMLitterCollect newLitterCollect () throws GMParLocator.GMParLocatorException {
+        GMCarbonAlloc pCa = newCarbonAlloc();
+        resolveLitter();
+        return new GMLitterCollect(pCa, m_paLtrCompXvals.m_nSize,
+                m_paLtrCompXvals.m_Vals, m_paLtrStemShare.m_Vals,
+                m_paLtrBranchShare.m_Vals, m_paLtrCrootsShare.m_Vals,
+                m_paLtrFrootsShare.m_Vals, m_paLtrLeavesShare.m_Vals);
+    }
+
+    /**
+     * Share of coarse roots going to coarse woody litter.
+     * @return share, 1.0 if the parameter is missing
+     * @throws efi.efiscen.gm.GMParLocator.GMParLocatorException
+     */
+    public float getCroots2Cwl () throws GMParLocator.GMParLocatorException {
+        synchronized (this) {
+            if (!m_bCr2Wl) {
+                m_paCroots2CWL = m_pExperiment.m_plCroots2CWL.getParameter(m_uKey);
+                m_bCr2Wl = true;
+            }
+        }
+        if (m_paCroots2CWL == null) {
+            System.err.println("Could not locate the coarse woody litter share\nwill use 1.0");
+            return 1.0f;
+        }
+        return m_paCroots2CWL.m_Vals.get(0);
+    }
+
+    /**
+     * Age limits of the natural mortality rates.
+     * @return age limits
+     * @throws efi.efiscen.gm.GMParLocator.GMParLocatorException
+     */
+    public ArrayList<Float> getMortRateXvals () throws GMParLocator.GMParLocatorException {
+        resolveMortality();
+        return m_paMortRateXvals.m_Vals;
+    }
+
+    /**
+     * Natural mortality rates.
+     * @return mortality rates
+     * @throws efi.efiscen.gm.GMParLocator.GMParLocatorException
+     */
+    public ArrayList<Float> getMortRate () throws GMParLocator.GMParLocatorException {
+        resolveMortality();
+        return m_paMortRate.m_Vals;
+    }
+}
@@ -0,0 +1,350 @@
+/*
+ * Copyright (C) 2016 European Forest Institute
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package efi.efiscen.gm;
+
+import efi.efiscen.com.ComArFloat;
+import efi.efiscen.com.ComArFlt;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Runs a scenario on many members with perturbed parameters (Monte Carlo)
+ * and collects statistics of the outputs by step. Every member runs on its
+ * own fork of the experiment, the parameters are multiplied by factors
+ * drawn from the distributions set for them. The factors of a member
+ * depend only on the seed and the number of the member, and the outputs
+ * are added to the statistics in the order of the members, so the results
+ * do not depend on the number of members run at the same time. Only the
+ * output series of the members are kept until they are added.
+ *
+ */
+public class GMMonteCarlo {
+
+    /** Parameters that can be perturbed. */
+    public static final String[] PARAMETERS = {"grcoeff", "beta", "mortrate",
+        "deadwooddrate", "soilrates"};
+    /** Outputs that can be collected. */
+    public static final String[] OUTPUTS = {"stock", "carbon", "soil",
+        "thinnings", "fellings"};
+
+    private final GMEfiscen m_pExperiment; // Experiment state after loading
+    private final GMScenario m_pScenario;
+    private final LinkedHashMap<String,GMParDistribution> m_mDistributions;
+    private long m_lSeed;
+    private int m_nMembers; // Members run at the same time
+    private String[] m_asOutputs;
+    private double[] m_adPercentiles;
+
+    /**
+     * Parametrized constructor. Later changes of the experiment or the
+     * scenario do not change the members.
+     * @param pExperiment loaded experiment
+     * @param pScenario scenario run by every member
+     */
+    public GMMonteCarlo (GMEfiscen pExperiment, GMScenario pScenario) {
+        m_pExperiment = pExperiment.fork();
+        m_pScenario = pScenario.copy();
+        m_mDistributions = new LinkedHashMap<>();
+        m_lSeed = 0;
+        m_nMembers = 1;
+        m_asOutputs = OUTPUTS.clone();
+        m_adPercentiles = new double[] {0.05, 0.5, 0.95};
+    }
+
+    /**
+     * Sets the distribution of a parameter.
+     * @param spar parameter, one of PARAMETERS
+     * @param pDistr distribution, null for not perturbing the parameter
+     * @throws IllegalArgumentException if the parameter is not known
+     */
+    public void setDistribution (String spar, GMParDistribution pDistr) {
+        if (!Arrays.asList(PARAMETERS).contains(spar))
+            throw new IllegalArgumentException("Unknown parameter " + spar);
+        if (pDistr == null)
+            m_mDistributions.remove(spar);
+        else
+            m_mDistributions.put(spar, pDistr);
+    }
+
+    /**
+     * Gets the distribution of a parameter.
+     * @param spar parameter
+     * @return distribution, null if the parameter is not perturbed
+     */
+    public GMParDistribution getDistribution (String spar) {
+        return m_mDistributions.get(spar);
+    }
+
+    /**
+     * Sets the seed of the random numbers.
+     * @param lseed seed
+     */
+    public void setSeed (long lseed) {
+        m_lSeed = lseed;
+    }
+
+    /**
+     * Gets the seed of the random numbers.
+     * @return seed
+     */
+    public long getSeed () {
+        return m_lSeed;
+    }
+
+    /**
+     * Sets the number of members run at the same time.
+     * @param nmembers number of members, 1 for running one by one
+     */
+    public void setMembers (int nmembers) {
+        m_nMembers = Math.max(nmembers,1);
+    }
+
+    /**
+     * Gets the number of members run at the same time.
+     * @return number of members
+     */
+    public int getMembers () {
+        return m_nMembers;
+    }
+
+    /**
+     * Sets the outputs collected.
+     * @param asOutputs outputs, each one of OUTPUTS
+     * @throws IllegalArgumentException if some output is not known
+     */
+    public void setOutputs (String[] asOutputs) {
+        for (String sout : asOutputs)
+            if (!Arrays.asList(OUTPUTS).contains(sout))
+                throw new IllegalArgumentException("Unknown output " + sout);
+        m_asOutputs = asOutputs.clone();
+    }
+
+    /**
+     * Gets the outputs collected.
+     * @return outputs
+     */
+    public String[] getOutputs () {
+        return m_asOutputs.clone();
+    }
+
+    /**
+     * Sets the percentiles estimated for the outputs.
+     * @param adPercentiles percentiles, from 0 to 1
+     * @throws IllegalArgumentException if some percentile is not in 0..1
+     */
+    public void setPercentiles (double[] adPercentiles) {
+        for (double dp : adPercentiles)
+            if (!(dp >= 0 && dp <= 1))
+                throw new IllegalArgumentException("Percentile " + dp + " not in 0..1");
+        m_adPercentiles = adPercentiles.clone();
+    }
+
+    /**
+     * Gets the percentiles estimated for the outputs.
+     * @return percentiles, from 0 to 1
+     */
+    public double[] getPercentiles () {
+        return m_adPercentiles.clone();
+    }
+
+    /**
+     * Seed of a member, mixed from the seed and the number of the member
+     * (SplitMix64) so that members close to each other are not correlated.
+     */
+    private static long memberSeed (long lseed, int nmember) {
+        long z = lseed + (nmember+1L)*0x9E3779B97F4A7C15L;
+        z = (z ^ (z>>>30))*0xBF58476D1CE4E5B9L;
+        z = (z ^ (z>>>27))*0x94D049BB133111EBL;
+        return z ^ (z>>>31);
+    }
+
+    /**
+     * New fork of the experiment with the parameters of the member.
+     * @param nmember number of the member, from 0
+     * @return experiment
+     * @throws efi.efiscen.gm.GMParLocator.GMParLocatorException if the
+     * transitions can not be calculated again
+     */
+    public GMEfiscen newExperiment (int nmember) throws GMParLocator.GMParLocatorException {
+        GMEfiscen pExperiment = m_pExperiment.fork();
+        Random pRandom = new Random(memberSeed(m_lSeed, nmember));
+        boolean bGrowth = false;
+        // Fixed order of the parameters, the same draws for the same seed
+        for (String spar : PARAMETERS) {
+            GMParDistribution pDistr = m_mDistributions.get(spar);
+            if (pDistr == null)
+                continue;
+            switch (spar) {
+                case "grcoeff":
+                    // Values 3 and 4 of the extended function are age limits
+                    pExperiment.m_plGrCoeff = perturb(pExperiment.m_plGrCoeff, pDistr, pRandom, 3, false);
+                    bGrowth = true;
+                    break;
+                case "beta":
+                    pExperiment.m_plBeta = perturb(pExperiment.m_plBeta, pDistr, pRandom, 1, false);
+                    bGrowth = true;
+                    break;
+                case "mortrate":
+                    pExperiment.m_plMortRate = perturb(pExperiment.m_plMortRate, pDistr, pRandom, Integer.MAX_VALUE, true);
+                    break;
+                case "deadwooddrate":
+                    pExperiment.m_plDeadWoodDrate = perturb(pExperiment.m_plDeadWoodDrate, pDistr, pRandom, Integer.MAX_VALUE, true);
+                    break;
+                case "soilrates":
+                    double[] adFactors = new double[8];
+                    for (int i=0;i<adFactors.length;i++)
+                        adFactors[i] = pDistr.draw(pRandom);
+                    for (Long uKey : pExperiment.m_mSoils.keySet())
+                        pExperiment.m_mSoils.get(uKey).scaleDecomposition(adFactors);
+                    break;
+            }
+        }
+        if (bGrowth)
+            pExperiment.calcTransitions();
+        return pExperiment;
+    }
+
+    /**
+     * Copy of the locator with the values of every pararray multiplied by
+     * its own factor.
+     * @param plPar locator
+     * @param pDistr distribution of the factors
+     * @param pRandom generator
+     * @param nvals number of the first values changed
+     * @param bShare true if the values are shares (limited to 0..1)
+     * @return copy
+     */
+    private static GMParLocator perturb (GMParLocator plPar, GMParDistribution pDistr,
+            Random pRandom, int nvals, boolean bShare) {
+        GMParLocator plCopy = plPar.copy();
+        for (Long uKey : plCopy.getElements().keySet()) {
+            GMParArray pPar = plCopy.getElements().get(uKey);
+            double dfactor = pDistr.draw(pRandom);
+            int n = Math.min(nvals, pPar.m_Vals.size());
+            for (int i=0;i<n;i++) {
+                double dval = pPar.m_Vals.get(i)*dfactor;
+                if (bShare)
+                    dval = Math.min(Math.max(dval, 0.0), 1.0);
+                pPar.m_Vals.set(i, (float)dval);
+            }
+        }
+        return plCopy;
+    }
+
+    /**
+     * Value of an output of the experiment at the step. Harvests of a step
+     * are given on the row of the step they lead to, as in the output files.
+     * @param pExperiment experiment after a run
+     * @param sout output, one of OUTPUTS
+     * @param nstep step
+     * @return value, NaN if the step has not been run
+     */
+    public static float getOutput (GMEfiscen pExperiment, String sout, int nstep) {
+        if (nstep >= pExperiment.m_afStock.getSize())
+            return Float.NaN;
+        switch (sout) {
+            case "stock":
+                return ComArFloat.valueAt(pExperiment.m_afStock, nstep);
+            case "carbon":
+                return ComArFloat.valueAt(pExperiment.m_afCarbon, nstep);
+            case "soil":
+                float csoil = 0.0f;
+                for (ComArFlt<Float> pAr : Arrays.asList(pExperiment.m_afSoilCwl,
+                        pExperiment.m_afSoilFwl, pExperiment.m_afSoilNwl,
+                        pExperiment.m_afSoilSol, pExperiment.m_afSoilCel,
+                        pExperiment.m_afSoilLig, pExperiment.m_afSoilHm1,
+                        pExperiment.m_afSoilHm2))
+                    csoil += ComArFloat.valueAt(pAr, nstep);
+                return csoil;
+            case "thinnings":
+                return nstep == 0 ? 0.0f : ComArFloat.valueAt(pExperiment.m_afThinVolume, nstep-1);
+            case "fellings":
+                return nstep == 0 ? 0.0f : ComArFloat.valueAt(pExperiment.m_afFellVolume, nstep-1);
+            default:
+                throw new IllegalArgumentException("Unknown output " + sout);
+        }
+    }
+
+    /**
+     * Runs one member and takes its outputs.
+     * @param nmember number of the member, from 0
+     * @param nsteps number of steps
+     * @return values of the outputs (getOutputs) by step 0..nsteps
+     * @throws efi.efiscen.gm.GMParLocator.GMParLocatorException if the
+     * parameters of the member can not be set
+     */
+    public float[][] runMember (int nmember, int nsteps) throws GMParLocator.GMParLocatorException {
+        GMEfiscen pExperiment = newExperiment(nmember);
+        try {
+            GMSimulation sim = new GMSimulation(pExperiment, m_pScenario.copy(), 0);
+            for (int i=0;i<nsteps;i++)
+                sim.onGo();
+            float[][] aafSeries = new float[m_asOutputs.length][nsteps+1];
+            for (int j=0;j<m_asOutputs.length;j++)
+                for (int i=0;i<=nsteps;i++)
+                    aafSeries[j][i] = getOutput(pExperiment, m_asOutputs[j], i);
+            return aafSeries;
+        } finally {
+            pExperiment.close();
+        }
+    }
+
+    /**
+     * Runs the members, at most getMembers of them at the same time, and
+     * collects the statistics of the outputs. Failed members are reported
+     * and left out of the statistics.
+     * @param nruns number of members
+     * @param nsteps number of steps
+     * @return statistics in the order of getOutputs
+     */
+    public GMOutputStatistics[] run (int nruns, int nsteps) {
+        GMOutputStatistics[] apStats = new GMOutputStatistics[m_asOutputs.length];
+        for (int j=0;j<apStats.length;j++)
+            apStats[j] = new GMOutputStatistics(m_asOutputs[j], nsteps, m_adPercentiles);
+        // Members waiting to be added are limited, so are their outputs
+        int nwindow = 4*m_nMembers;
+        ArrayDeque<Future<float[][]>> pqRunning = new ArrayDeque<>(nwindow);
+        ForkJoinPool pPool = new ForkJoinPool(m_nMembers);
+        try {
+            int nsubmitted = 0;
+            for (int i=0;i<nruns;i++) {
+                while (nsubmitted < nruns && pqRunning.size() < nwindow) {
+                    final int nmember = nsubmitted++;
+                    pqRunning.add(pPool.submit(() -> runMember(nmember, nsteps)));
+                }
+                try {
+                    float[][] aafSeries = pqRunning.poll().get();
+                    for (int j=0;j<apStats.length;j++)
+                        apStats[j].add(aafSeries[j]);
+                } catch (ExecutionException ex) {
+                    System.err.println("Monte Carlo member " + (i+1) + " failed: " + ex.getCause());
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted Monte Carlo run",ex);
+        } finally {
+            pPool.shutdownNow();
+        }
+        return apStats;
+    }
+}
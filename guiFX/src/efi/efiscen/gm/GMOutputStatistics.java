@@ -0,0 +1,165 @@
+/*
+ * Copyright (C) 2016 European Forest Institute
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package efi.efiscen.gm;
+
+/**
+ * Statistics of one output over the members of a Monte Carlo run, for
+ * every step. The series of the members are added one by one and only
+ * the running statistics are kept: count, mean and variance (Welford),
+ * minimum, maximum and streaming estimates of the percentiles.
+ *
+ */
+public class GMOutputStatistics {
+
+    private final String m_sName; // Name of the output
+    private final double[] m_adPercentiles; // Percentiles, 0..1
+    private final long[] m_alCount;
+    private final double[] m_adMean;
+    private final double[] m_adM2; // Sum of squared differences from the mean
+    private final double[] m_adMin;
+    private final double[] m_adMax;
+    private final GMQuantile[][] m_apQuantiles; // [step][percentile]
+
+    /**
+     * Parametrized constructor.
+     * @param sname name of the output
+     * @param nsteps number of steps, statistics are kept for steps 0..nsteps
+     * @param adPercentiles percentiles, from 0 to 1
+     */
+    public GMOutputStatistics (String sname, int nsteps, double[] adPercentiles) {
+        int nrows = nsteps+1;
+        m_sName = sname;
+        m_adPercentiles = adPercentiles.clone();
+        m_alCount = new long[nrows];
+        m_adMean = new double[nrows];
+        m_adM2 = new double[nrows];
+        m_adMin = new double[nrows];
+        m_adMax = new double[nrows];
+        m_apQuantiles = new GMQuantile[nrows][m_adPercentiles.length];
+        for (int i=0;i<nrows;i++) {
+            m_adMin[i] = Double.NaN;
+            m_adMax[i] = Double.NaN;
+            for (int j=0;j<m_adPercentiles.length;j++)
+                m_apQuantiles[i][j] = new GMQuantile(m_adPercentiles[j]);
+        }
+    }
+
+    /**
+     * Adds the series of one member. NaN values (missing steps) are skipped.
+     * @param afSeries values of the output by step
+     */
+    public void add (float[] afSeries) {
+        int n = Math.min(afSeries.length, m_alCount.length);
+        for (int i=0;i<n;i++) {
+            double dx = afSeries[i];
+            if (Double.isNaN(dx))
+                continue;
+            long lcount = ++m_alCount[i];
+            double ddelta = dx - m_adMean[i];
+            m_adMean[i] += ddelta/lcount;
+            m_adM2[i] += ddelta*(dx - m_adMean[i]);
+            if (lcount == 1) {
+                m_adMin[i] = dx;
+                m_adMax[i] = dx;
+            } else {
+                m_adMin[i] = Math.min(m_adMin[i], dx);
+                m_adMax[i] = Math.max(m_adMax[i], dx);
+            }
+            for (GMQuantile pQ : m_apQuantiles[i])
+                pQ.add(dx);
+        }
+    }
+
+    /**
+     * Get name of the output.
+     * @return name
+     */
+    public String getName () {
+        return m_sName;
+    }
+
+    /**
+     * Get number of steps.
+     * @return number of steps
+     */
+    public int getNumSteps () {
+        return m_alCount.length-1;
+    }
+
+    /**
+     * Get the percentiles.
+     * @return percentiles, from 0 to 1
+     */
+    public double[] getPercentiles () {
+        return m_adPercentiles.clone();
+    }
+
+    /**
+     * Number of values at the step.
+     * @param nstep step
+     * @return number of values
+     */
+    public long getCount (int nstep) {
+        return m_alCount[nstep];
+    }
+
+    /**
+     * Mean at the step.
+     * @param nstep step
+     * @return mean, NaN if there are no values
+     */
+    public double getMean (int nstep) {
+        return m_alCount[nstep] == 0 ? Double.NaN : m_adMean[nstep];
+    }
+
+    /**
+     * Sample standard deviation at the step.
+     * @param nstep step
+     * @return standard deviation, NaN if there are less than two values
+     */
+    public double getStdDev (int nstep) {
+        return m_alCount[nstep] < 2 ? Double.NaN : Math.sqrt(m_adM2[nstep]/(m_alCount[nstep]-1));
+    }
+
+    /**
+     * Minimum at the step.
+     * @param nstep step
+     * @return minimum, NaN if there are no values
+     */
+    public double getMin (int nstep) {
+        return m_adMin[nstep];
+    }
+
+    /**
+     * Maximum at the step.
+     * @param nstep step
+     * @return maximum, NaN if there are no values
+     */
+    public double getMax (int nstep) {
+        return m_adMax[nstep];
+    }
+
+    /**
+     * Estimated percentile at the step.
+     * @param nstep step
+     * @param np index of the percentile in getPercentiles
+     * @return estimate, NaN if there are no values
+     */
+    public double getPercentile (int nstep, int np) {
+        return m_apQuantiles[nstep][np].getValue();
+    }
+}
@@ -69,6 +69,20 @@ public class GMParArray implements Serializable {
         m_uSpecies = 0;
     }
 
+    /**
+     * Copy of the pararray.
+     * @return copy
+     */
+    public GMParArray copy () {
+        GMParArray pCopy = new GMParArray(m_nSize);
+        pCopy.m_Vals.addAll(m_Vals);
+        pCopy.m_uRegion = m_uRegion;
+        pCopy.m_uOwner = m_uOwner;
+        pCopy.m_uSite = m_uSite;
+        pCopy.m_uSpecies = m_uSpecies;
+        return pCopy;
+    }
+
     public int getM_nSize() {
         return m_nSize;
     }
@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2016 European Forest Institute
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package efi.efiscen.gm;
+
+import java.util.Random;
+
+/**
+ * Distribution of the relative change of an uncertain parameter. Draws
+ * factors the parameter values are multiplied by, centered at 1.
+ *
+ */
+public class GMParDistribution {
+
+    public static final int NORMAL = 0; // 1 + spread * N(0,1), at least 0
+    public static final int UNIFORM = 1; // 1 + spread * U(-1,1), at least 0
+    public static final int LOGNORMAL = 2; // exp(spread * N(0,1))
+
+    private final int m_nType;
+    private final double m_dSpread;
+
+    /**
+     * Parametrized constructor.
+     * @param ntype type of the distribution (NORMAL, UNIFORM or LOGNORMAL)
+     * @param dspread relative standard deviation (NORMAL), half width
+     * (UNIFORM) or standard deviation of the logarithm (LOGNORMAL)
+     */
+    public GMParDistribution (int ntype, double dspread) {
+        if (ntype < NORMAL || ntype > LOGNORMAL)
+            throw new IllegalArgumentException("Unknown distribution type " + ntype);
+        if (!(dspread >= 0))
+            throw new IllegalArgumentException("Negative spread " + dspread);
+        m_nType = ntype;
+        m_dSpread = dspread;
+    }
+
+    /**
+     * Distribution by name.
+     * @param stype normal, uniform or lognormal
+     * @param dspread spread of the distribution
+     * @return distribution
+     * @throws IllegalArgumentException if the name is not known
+     */
+    public static GMParDistribution parse (String stype, double dspread) {
+        switch (stype.toLowerCase()) {
+            case "normal":
+                return new GMParDistribution(NORMAL, dspread);
+            case "uniform":
+                return new GMParDistribution(UNIFORM, dspread);
+            case "lognormal":
+                return new GMParDistribution(LOGNORMAL, dspread);
+            default:
+                throw new IllegalArgumentException("Unknown distribution " + stype);
+        }
+    }
+
+    /**
+     * Get type of the distribution.
+     * @return type
+     */
+    public int getType () {
+        return m_nType;
+    }
+
+    /**
+     * Get spread of the distribution.
+     * @return spread
+     */
+    public double getSpread () {
+        return m_dSpread;
+    }
+
+    /**
+     * Draws a factor.
+     * @param pRandom generator
+     * @return factor, not negative
+     */
+    public double draw (Random pRandom) {
+        switch (m_nType) {
+            case UNIFORM:
+                return Math.max(1.0 + m_dSpread*(2.0*pRandom.nextDouble()-1.0), 0.0);
+            case LOGNORMAL:
+                return Math.exp(m_dSpread*pRandom.nextGaussian());
+            default:
+                return Math.max(1.0 + m_dSpread*pRandom.nextGaussian(), 0.0);
+        }
+    }
+}
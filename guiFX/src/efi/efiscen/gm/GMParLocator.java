@@ -17,6 +17,7 @@
 package efi.efiscen.gm;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.HashMap;
 
 /**
@@ -57,6 +58,30 @@ public class GMParLocator implements Serializable {
 
     protected HashMap<Long,GMParArray> m_mElements;
 
+    // Key masks of the 16 wildcard patterns. Bits of the pattern:
+    // 8 - region, 4 - owner, 2 - site, 1 - species does not matter
+    private static final long[] m_alMasks = new long[16];
+    static {
+        for (int npat=0;npat<16;npat++) {
+            long lmask = -1L;
+            if ((npat & 8) != 0) lmask = lmask & ~0xFF000000;
+            if ((npat & 4) != 0) lmask = lmask & ~0xFF0000;
+            if ((npat & 2) != 0) lmask = lmask & ~0xFF00;
+            if ((npat & 1) != 0) lmask = lmask & ~0xFF;
+            m_alMasks[npat] = lmask;
+        }
+    }
+
+    // Lookup index of m_mElements, rebuilt after parameters are added:
+    // wildcard patterns present, from most to least specific
+    private transient volatile int[] m_anPatterns;
+    // Position of every element in the iteration order of m_mElements
+    private transient HashMap<Long,Integer> m_mOrder;
+    // Size of m_mElements when the index was built
+    private transient int m_nIndexed;
+    // Number of parameters added, lets the users detect changes
+    private transient int m_nModCount;
+
     private int m_bRegion;
     private int m_bOwner;
     private int m_bSite;
@@ -83,6 +108,21 @@ public class GMParLocator implements Serializable {
         m_bSpecies = 0;
     }
     
+    /**
+     * Copy of the locator with copies of the pararrays, iterating in the
+     * same order.
+     * @return copy
+     */
+    public GMParLocator copy () {
+        GMParLocator pCopy = new GMParLocator(m_sName);
+        pCopy.m_mElements = GMKeyMap.copyOrdered(m_mElements, GMParArray::copy);
+        pCopy.m_bRegion = m_bRegion;
+        pCopy.m_bOwner = m_bOwner;
+        pCopy.m_bSite = m_bSite;
+        pCopy.m_bSpecies = m_bSpecies;
+        return pCopy;
+    }
+
     public int getNumElements() {
         return m_mElements.size();
     }
@@ -91,6 +131,14 @@ public class GMParLocator implements Serializable {
         return m_mElements;
     }
 
+    /**
+     * Number of modifications, changes whenever a parameter is added.
+     * @return modification count
+     */
+    public int getModCount() {
+        return m_nModCount;
+    }
+
     /**
      * Adds the given pararray to the hashmap.
      * @param pPar added pararray
@@ -108,10 +156,54 @@ public class GMParLocator implements Serializable {
         ulSp = (long) pPar.m_uSpecies;
         ulKey = ulR + ulO + ulSt + ulSp;
         m_mElements.put(ulKey,pPar);
+        m_anPatterns = null;
+        m_nModCount++;
 
         return ulKey;
     }
 
+    /**
+     * Wildcard pattern of the pararray: set bits for the subkeys which
+     * are 0.
+     * @param pPar pararray
+     * @return pattern from 0 (all subkeys given) to 15 (all wildcards)
+     */
+    public static int getPattern (GMParArray pPar) {
+        int npat = 0;
+        if (pPar.m_uRegion == 0)  npat |= 8;
+        if (pPar.m_uOwner == 0)   npat |= 4;
+        if (pPar.m_uSite == 0)    npat |= 2;
+        if (pPar.m_uSpecies == 0) npat |= 1;
+        return npat;
+    }
+
+    /**
+     * Builds the lookup index. Called automatically after parameters have
+     * been added with addParameter, elements changed directly in the map
+     * need an explicit call.
+     */
+    public synchronized void buildIndex () {
+        boolean[] abUsed = new boolean[16];
+        HashMap<Long,Integer> mOrder = new HashMap<>();
+        int norder = 0;
+        for (Long uKey : m_mElements.keySet())
+        {
+            abUsed[getPattern(m_mElements.get(uKey))] = true;
+            mOrder.put(uKey,norder++);
+        }
+        ArrayList<Integer> paPatterns = new ArrayList<>();
+        for (int nwild=0;nwild<=4;nwild++)
+            for (int npat=0;npat<16;npat++)
+                if (abUsed[npat] && Integer.bitCount(npat) == nwild)
+                    paPatterns.add(npat);
+        int[] anPatterns = new int[paPatterns.size()];
+        for (int i=0;i<anPatterns.length;i++)
+            anPatterns[i] = paPatterns.get(i);
+        m_mOrder = mOrder;
+        m_nIndexed = m_mElements.size();
+        m_anPatterns = anPatterns;
+    }
+
     /**
      * Gets the pararray corresponding to the key from the hashmap.
      * @param ulkey key to the array
@@ -119,21 +211,28 @@ public class GMParLocator implements Serializable {
      * @throws efi.efiscen.gm.GMParLocator.GMParLocatorException
      */
     public GMParArray getParameter (long ulkey) throws GMParLocatorException {
+        int[] anPatterns = m_anPatterns;
+        if (anPatterns == null || m_nIndexed != m_mElements.size()) {
+            buildIndex();
+            anPatterns = m_anPatterns;
+        }
         GMParArray pRet = null;
+        int nbest = Integer.MAX_VALUE;
         long inkey;
-        for (Long uKey : m_mElements.keySet())
+        for (int npat : anPatterns)
         {
             GMParArray pEl;
-            inkey = ulkey;
-            pEl = m_mElements.get(uKey);
-            if (pEl.m_uRegion == 0)  inkey = inkey & ~0xFF000000;
-            if (pEl.m_uOwner == 0)   inkey = inkey & ~0xFF0000;
-            if (pEl.m_uSite == 0)    inkey = inkey & ~0xFF00;
-            if (pEl.m_uSpecies == 0) inkey = inkey & ~0xFF;
-            
-            if (uKey==inkey) {
+            inkey = ulkey & m_alMasks[npat];
+            pEl = m_mElements.get(inkey);
+            if (pEl == null || getPattern(pEl) != npat)
+                continue;
+            if (anPatterns.length == 1)
+                return pEl;
+            // Several entries can match: the first one in the map wins
+            int norder = m_mOrder.get(inkey);
+            if (norder < nbest) {
+                nbest = norder;
                 pRet = pEl;
-                return pRet;
             }
         }
         if (pRet == null) {
@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2016 European Forest Institute
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package efi.efiscen.gm;
+
+/**
+ * Potential area and volume of fellings or thinnings of one matrix, as
+ * reported by GMMatrix.reportHarvest etc. for zero area and volume.
+ * The values are valid for the ratio and stem share they were calculated
+ * with, until the cell store of the matrix is changed.
+ *
+ */
+public class GMPotential {
+
+    protected GMCellStore m_pStore; // Store the values were calculated from
+    protected int m_nVersion; // Version of the store
+    protected double m_dRatio; // Harvest ratio
+    protected double m_dStem; // Part of stem wood removals
+    protected double m_dArea; // Potential area
+    protected double m_dVolume; // Potential volume
+
+    /**
+     * Checks if the values are calculated from the current cells with the
+     * ratio and stem share of the fellings.
+     * @param pStore cell store of the matrix
+     * @param pFl fellings
+     * @return true if the values can be used
+     */
+    public synchronized boolean isValid (GMCellStore pStore, GMFellings pFl) {
+        return m_pStore == pStore && m_nVersion == pStore.getVersion()
+                && m_dRatio == pFl.getF_ratio() && m_dStem == pFl.getF_stem();
+    }
+
+    /**
+     * Sets the values.
+     * @param pStore cell store of the matrix
+     * @param pFl fellings reported from zero area and volume
+     */
+    public synchronized void set (GMCellStore pStore, GMFellings pFl) {
+        m_pStore = pStore;
+        m_nVersion = pStore.getVersion();
+        m_dRatio = pFl.getF_ratio();
+        m_dStem = pFl.getF_stem();
+        m_dArea = pFl.getF_area();
+        m_dVolume = pFl.getF_volume();
+    }
+
+    /**
+     * Adds the potential area and volume to the fellings.
+     * @param pFl fellings
+     * @return pFl
+     */
+    public synchronized GMFellings apply (GMFellings pFl) {
+        pFl.setF_area(pFl.getF_area()+m_dArea);
+        pFl.setF_volume(pFl.getF_volume()+m_dVolume);
+        return pFl;
+    }
+
+    /**
+     * Get potential area.
+     * @return area
+     */
+    public synchronized double getArea () {
+        return m_dArea;
+    }
+
+    /**
+     * Get potential volume.
+     * @return volume
+     */
+    public synchronized double getVolume () {
+        return m_dVolume;
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2016 European Forest Institute
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package efi.efiscen.gm;
+
+import java.util.Arrays;
+
+/**
+ * Streaming estimate of a quantile by the P-square algorithm (Jain and
+ * Chlamtac, 1985). Keeps five markers instead of the observations; the
+ * estimate is exact for up to five observations. The result depends on
+ * the order of the observations.
+ *
+ */
+public class GMQuantile {
+
+    private final double m_dP; // Quantile, 0..1
+    private final double[] m_adQ; // Heights of the markers
+    private final double[] m_adN; // Positions of the markers
+    private final double[] m_adNp; // Desired positions of the markers
+    private final double[] m_adDn; // Increments of the desired positions
+    private long m_lCount; // Number of observations
+
+    /**
+     * Parametrized constructor.
+     * @param dp quantile, from 0 to 1
+     */
+    public GMQuantile (double dp) {
+        if (!(dp >= 0 && dp <= 1))
+            throw new IllegalArgumentException("Quantile " + dp + " not in 0..1");
+        m_dP = dp;
+        m_adQ = new double[5];
+        m_adN = new double[] {0, 1, 2, 3, 4};
+        m_adNp = new double[] {0, 2*dp, 4*dp, 2+2*dp, 4};
+        m_adDn = new double[] {0, dp/2, dp, (1+dp)/2, 1};
+        m_lCount = 0;
+    }
+
+    /**
+     * Get the quantile.
+     * @return quantile, from 0 to 1
+     */
+    public double getP () {
+        return m_dP;
+    }
+
+    /**
+     * Get number of observations.
+     * @return number of observations
+     */
+    public long getCount () {
+        return m_lCount;
+    }
+
+    /**
+     * Adds an observation.
+     * @param dx observation
+     */
+    public void add (double dx) {
+        if (m_lCount < 5) {
+            m_adQ[(int)m_lCount++] = dx;
+            if (m_lCount == 5)
+                Arrays.sort(m_adQ);
+            return;
+        }
+        m_lCount++;
+        int k;
+        if (dx < m_adQ[0]) {
+            m_adQ[0] = dx;
+            k = 0;
+        } else if (dx >= m_adQ[4]) {
+            m_adQ[4] = dx;
+            k = 3;
+        } else {
+            k = 0;
+            while (dx >= m_adQ[k+1])
+                k++;
+        }
+        for (int i=k+1;i<5;i++)
+            m_adN[i] += 1;
+        for (int i=0;i<5;i++)
+            m_adNp[i] += m_adDn[i];
+        for (int i=1;i<4;i++) {
+            double d = m_adNp[i] - m_adN[i];
+            if ((d >= 1 && m_adN[i+1]-m_adN[i] > 1) || (d <= -1 && m_adN[i-1]-m_adN[i] < -1)) {
+                int nd = d > 0 ? 1 : -1;
+                double q = parabolic(i, nd);
+                if (m_adQ[i-1] < q && q < m_adQ[i+1])
+                    m_adQ[i] = q;
+                else
+                    m_adQ[i] += nd*(m_adQ[i+nd]-m_adQ[i])/(m_adN[i+nd]-m_adN[i]);
+                m_adN[i] += nd;
+            }
+        }
+    }
+
+    private double parabolic (int i, int nd) {
+        return m_adQ[i] + nd/(m_adN[i+1]-m_adN[i-1])
+                *((m_adN[i]-m_adN[i-1]+nd)*(m_adQ[i+1]-m_adQ[i])/(m_adN[i+1]-m_adN[i])
+                + (m_adN[i+1]-m_adN[i]-nd)*(m_adQ[i]-m_adQ[i-1])/(m_adN[i]-m_adN[i-1]));
+    }
+
+    /**
+     * Current estimate of the quantile. Up to five observations the
+     * quantile is interpolated linearly between the sorted observations;
+     * quantiles 0 and 1 are the exact minimum and maximum.
+     * @return estimate, NaN if there are no observations
+     */
+    public double getValue () {
+        if (m_lCount == 0)
+            return Double.NaN;
+        if (m_lCount <= 5) {
+            int n = (int)m_lCount;
+            double[] adSorted = Arrays.copyOf(m_adQ, n);
+            Arrays.sort(adSorted);
+            double dpos = m_dP*(n-1);
+            int i = (int)Math.floor(dpos);
+            if (i >= n-1)
+                return adSorted[n-1];
+            return adSorted[i] + (dpos-i)*(adSorted[i+1]-adSorted[i]);
+        }
+        if (m_dP == 0)
+            return m_adQ[0];
+        if (m_dP == 1)
+            return m_adQ[4];
+        return m_adQ[2];
+    }
+}
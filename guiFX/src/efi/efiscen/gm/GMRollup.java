@@ -0,0 +1,217 @@
+/*
+ * Copyright (C) 2016 European Forest Institute
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package efi.efiscen.gm;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+
+/**
+ * Rollup index of a set of keys (Region::Owner::Site::Species, see
+ * GMMatrix). For each of the 16 wildcard patterns of a query the keys are
+ * grouped by their masked value, so the keys matching a query are found
+ * without scanning all keys. The members of a group are kept in the
+ * iteration order of the keys, so sums over the members give the same
+ * result as the scans they replace.
+ * The index is immutable, maps holding it (GMKeyMap) build a new one when
+ * their keys change.
+ *
+ */
+public class GMRollup {
+
+    // Key masks of the 16 wildcard patterns. Bits of the pattern:
+    // 8 - region, 4 - owner, 2 - site, 1 - species does not matter
+    private static final long[] m_alMasks = new long[16];
+    static {
+        for (int npat=0;npat<16;npat++) {
+            long lmask = -1L;
+            if ((npat & 8) != 0) lmask = lmask & ~0xFF000000;
+            if ((npat & 4) != 0) lmask = lmask & ~0xFF0000;
+            if ((npat & 2) != 0) lmask = lmask & ~0xFF00;
+            if ((npat & 1) != 0) lmask = lmask & ~0xFF;
+            m_alMasks[npat] = lmask;
+        }
+    }
+
+    private static final int[] m_anEmpty = new int[0];
+
+    private final long[] m_alKeys; // Keys in iteration order
+    private final HashMap<Long,Integer> m_mOrder; // Position of the keys
+    private final ArrayList<HashMap<Long,Integer>> m_amGroups; // Group numbers of the patterns
+    private final int[][][] m_aaanMembers; // Positions of the group members
+    private final int[][] m_aanGroupOf; // Group of the positions
+
+    /**
+     * Parametrized constructor.
+     * @param paKeys keys in iteration order
+     */
+    public GMRollup (Collection<Long> paKeys) {
+        m_alKeys = new long[paKeys.size()];
+        m_mOrder = new HashMap<>();
+        int npos = 0;
+        for (Long uKey : paKeys) {
+            m_alKeys[npos] = uKey;
+            m_mOrder.put(uKey, npos++);
+        }
+        m_amGroups = new ArrayList<>(16);
+        m_aaanMembers = new int[16][][];
+        m_aanGroupOf = new int[16][m_alKeys.length];
+        for (int npat=0;npat<16;npat++) {
+            HashMap<Long,Integer> mGroups = new HashMap<>();
+            ArrayList<ArrayList<Integer>> paGroups = new ArrayList<>();
+            for (int i=0;i<m_alKeys.length;i++) {
+                long uGroup = m_alKeys[i] & m_alMasks[npat];
+                Integer ngroup = mGroups.get(uGroup);
+                if (ngroup == null) {
+                    ngroup = paGroups.size();
+                    mGroups.put(uGroup, ngroup);
+                    paGroups.add(new ArrayList<Integer>());
+                }
+                paGroups.get(ngroup).add(i);
+                m_aanGroupOf[npat][i] = ngroup;
+            }
+            m_aaanMembers[npat] = new int[paGroups.size()][];
+            for (int ngroup=0;ngroup<paGroups.size();ngroup++) {
+                ArrayList<Integer> paMembers = paGroups.get(ngroup);
+                int[] anMembers = new int[paMembers.size()];
+                for (int i=0;i<anMembers.length;i++)
+                    anMembers[i] = paMembers.get(i);
+                m_aaanMembers[npat][ngroup] = anMembers;
+            }
+            m_amGroups.add(mGroups);
+        }
+    }
+
+    /**
+     * Wildcard pattern of a query: set bits for the subkeys which are 0.
+     * @param lr region
+     * @param lo owner
+     * @param lst site
+     * @param lsp species
+     * @return pattern from 0 (all subkeys given) to 15 (all wildcards)
+     */
+    public static int getPattern (long lr, long lo, long lst, long lsp) {
+        int npat = 0;
+        if (lr == 0)  npat |= 8;
+        if (lo == 0)  npat |= 4;
+        if (lst == 0) npat |= 2;
+        if (lsp == 0) npat |= 1;
+        return npat;
+    }
+
+    /**
+     * Key mask of the pattern.
+     * @param npat pattern
+     * @return mask
+     */
+    public static long getMask (int npat) {
+        return m_alMasks[npat];
+    }
+
+    /**
+     * Get number of keys.
+     * @return number of keys
+     */
+    public int size () {
+        return m_alKeys.length;
+    }
+
+    /**
+     * Key at the position.
+     * @param npos position in iteration order
+     * @return key
+     */
+    public long getKey (int npos) {
+        return m_alKeys[npos];
+    }
+
+    /**
+     * Position of the key.
+     * @param ukey key
+     * @return position in iteration order, -1 if the key is not indexed
+     */
+    public int getPosition (long ukey) {
+        Integer npos = m_mOrder.get(ukey);
+        return npos == null ? -1 : npos;
+    }
+
+    /**
+     * Positions of the keys matching the query, as the scans in GMEfiscen
+     * do: subkeys 0 of the query match any value.
+     * @param lr region
+     * @param lo owner
+     * @param lst site
+     * @param lsp species
+     * @return positions in iteration order, shared array not to be changed
+     */
+    public int[] getMembers (long lr, long lo, long lst, long lsp) {
+        int ngroup = getGroup(lr,lo,lst,lsp);
+        if (ngroup < 0)
+            return m_anEmpty;
+        return m_aaanMembers[getPattern(lr,lo,lst,lsp)][ngroup];
+    }
+
+    /**
+     * Group of the keys matching the query within its pattern (see
+     * getPattern).
+     * @param lr region
+     * @param lo owner
+     * @param lst site
+     * @param lsp species
+     * @return group number, -1 if no key matches
+     */
+    public int getGroup (long lr, long lo, long lst, long lsp) {
+        long ulKey = (lr<<24) + (lo<<16) + (lst<<8) + lsp;
+        Integer ngroup = m_amGroups.get(getPattern(lr,lo,lst,lsp)).get(ulKey);
+        return ngroup == null ? -1 : ngroup;
+    }
+
+    /**
+     * Get number of groups of the pattern.
+     * @param npat pattern
+     * @return number of groups
+     */
+    public int getNumGroups (int npat) {
+        return m_aaanMembers[npat].length;
+    }
+
+    /**
+     * Groups of the keys for the pattern.
+     * @param npat pattern
+     * @return group number by position, shared array not to be changed
+     */
+    public int[] getGroupOf (int npat) {
+        return m_aanGroupOf[npat];
+    }
+
+    /**
+     * Position of the last key which matches the given full key when its
+     * own 0 subkeys are treated as wildcards (e.g. soils or parameters
+     * given for groups of matrixes).
+     * @param ulkey full key
+     * @return position in iteration order, -1 if no key matches
+     */
+    public int findLast (long ulkey) {
+        int nlast = -1;
+        for (int npat=0;npat<16;npat++) {
+            Integer npos = m_mOrder.get(ulkey & m_alMasks[npat]);
+            if (npos != null && npos > nlast)
+                nlast = npos;
+        }
+        return nlast;
+    }
+}
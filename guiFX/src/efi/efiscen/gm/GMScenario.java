@@ -18,14 +18,13 @@ package efi.efiscen.gm;
 
 import java.io.Serializable;
 import java.util.ArrayList;
-import java.util.Iterator;
 
 /**
  * Scenario realization. Keeps growth changes, soil climate, demands for
  * thinning and felling, aforestation, deforestation and tree species change.
  * 
  */
-public class GMScenario implements Serializable {
+public class GMScenario implements Serializable, Cloneable {
 
     public String m_sName;
     public String climName; //climate scenario name
@@ -56,9 +55,12 @@ public class GMScenario implements Serializable {
     // Additional parlocators to keep ratios of fellings and thinnings
     public GMParLocator m_plCutRatios;
     public GMParLocator m_plClimAgeLims;
+    // Matrix scaling definitions, null if not given
+    public ArrayList<GMParArray> m_plMatrixScaling;
 
     // Current scenarios items keeping
     public GMEfiscenario m_pCurSoilClim;
+    public GMClFunction m_pSoilClFunction; // Climate function of the soils, null if not given
     public GMEfiscenario m_pCurForClim;
     public GMEfiscenario m_pCurCuttings;
     public GMEfiscenario m_pCurAfor;
@@ -82,15 +84,25 @@ public class GMScenario implements Serializable {
     public boolean isCirclingGUI = false;  // whether scenario has started circling (for GUI)
     public boolean allow_circling = false;  // for GUI allowing circling
 
-    transient private Iterator m_posCuttings;
-    transient private Iterator m_posForClim;
-    transient private Iterator m_posSoilClim;
-    transient private Iterator m_posAfor;
-    transient private Iterator m_posDefor;
-    transient private Iterator m_posCutProps;
-    transient private Iterator m_posSpecCh;
-    transient private Iterator m_posThinAge;
-    transient private Iterator m_posFellAge;
+    // Channels of the scenario in the order checkScenario processes them
+    public static final int CH_CUTTINGS = 0;
+    public static final int CH_FORCLIM = 1;
+    public static final int CH_SOILCLIM = 2;
+    public static final int CH_AFOR = 3;
+    public static final int CH_DEFOR = 4;
+    public static final int CH_CUTPROPS = 5;
+    public static final int CH_SPECCH = 6;
+    public static final int CH_THINAGE = 7;
+    public static final int CH_FELLAGE = 8;
+    public static final int NUM_CHANNELS = 9;
+
+    // Longest scenario compiled to the timeline
+    private static final int MAX_TIMELINE = 100000;
+
+    private int[] m_anPos; // Positions of the current items, -1 if none
+    private boolean[] m_abChanged; // Channels changed by the last check
+    transient private GMScenarioTimeline m_pTimeline;
+    transient private int m_nNextStep;
     
     private boolean defaultScenario;
 
@@ -118,15 +130,8 @@ public class GMScenario implements Serializable {
         m_pCurThinAge   = null;
         m_pCurFellAge  = null;
 
-        m_posCuttings  = null;
-        m_posForClim   = null;
-        m_posSoilClim  = null;
-        m_posAfor      = null;
-        m_posDefor     = null;
-        m_posCutProps  = null;
-        m_posSpecCh    = null;
-        m_posThinAge    = null;
-        m_posFellAge    = null;
+        m_anPos = null;
+        m_abChanged = null;
 
         m_plCuttings = new ArrayList<>();
         m_plForClim = new ArrayList<>();
@@ -171,15 +176,8 @@ public class GMScenario implements Serializable {
         m_pCurThinAge   = pCurThinAge;
         m_pCurFellAge  = pCurFellAge;
 
-        m_posCuttings  = null;
-        m_posForClim   = null;
-        m_posSoilClim  = null;
-        m_posAfor      = null;
-        m_posDefor     = null;
-        m_posCutProps  = null;
-        m_posSpecCh    = null;
-        m_posThinAge    = null;
-        m_posFellAge    = null;
+        m_anPos = null;
+        m_abChanged = null;
 
         m_plCuttings = new ArrayList<>();
         m_plCuttings.add(pCurCuttings);
@@ -206,8 +204,31 @@ public class GMScenario implements Serializable {
         defaultScenario = false;
     }
 
+    /**
+     * Copy of the scenario at its current steps. The cut ratios, changed
+     * by the simulation, are copied; the scenario items and the compiled
+     * timeline are shared.
+     * @return copy
+     */
+    public GMScenario copy () {
+        GMScenario pCopy;
+        try {
+            pCopy = (GMScenario)super.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError(e);
+        }
+        pCopy.m_plCutRatios = m_plCutRatios.copy();
+        if (m_anPos != null)
+            pCopy.m_anPos = m_anPos.clone();
+        if (m_abChanged != null)
+            pCopy.m_abChanged = m_abChanged.clone();
+        return pCopy;
+    }
+
     /**
      * Checks the current scenarios and updates the steps if necessary.
+     * Consecutive steps are looked up from the timeline compiled on the
+     * first check.
      * @param nst next step
      * @return zero if successful else -1
      */
@@ -215,198 +236,214 @@ public class GMScenario implements Serializable {
         if (m_pCurCuttings == null && m_pCurForClim == null && m_pCurSoilClim == null
                 && m_pCurAfor == null && m_pCurDefor == null)
             return -1;
-        if (m_pCurCuttings.getEs_nStep() <= nst-m_nStepsCut) {
-            if (!isCircling && !m_posCuttings.hasNext())
-                if (m_pCurCuttings.getEs_nStep() == nst-m_nStepsCut)
-                    isCircling = true;
-            if (allow_circling) {
-                //m_posCuttings = m_plCuttings.iterator();
-                //m_nStepsCut+=m_pCurCuttings.getEs_nStep();
-                isCircling = false;
-                allow_circling = false;
-                isCirclingGUI = false;
-            }
-            
-            if (!isCircling && m_posCuttings.hasNext()) {
-                m_pCurCuttings = (GMEfiscenario) m_posCuttings.next();
-                if (!allow_circling && !m_posCuttings.hasNext()) isCirclingGUI = true;
+        if (m_anPos == null)
+            getHeads();
+        if (m_pTimeline != null && !isTimelineValid(nst))
+            m_pTimeline = null;
+        if (m_pTimeline == null && !allow_circling)
+            m_pTimeline = compileTimeline(nst);
+        if (m_pTimeline != null) {
+            for (int nch=0;nch<NUM_CHANNELS;nch++) {
+                m_anPos[nch] = m_pTimeline.getPosition(nst,nch);
+                if (m_anPos[nch] >= 0)
+                    setCurrent(nch,getChannel(nch).get(m_anPos[nch]));
+                m_abChanged[nch] = m_pTimeline.isChanged(nst,nch);
             }
+            isCircling = m_pTimeline.isCircling(nst);
+            isCirclingGUI = m_pTimeline.isCirclingGUI(nst);
         }
-        
-        if (m_pCurForClim.getEs_nStep() <= nst-m_nStepsFor) {
-            if (!isCircling && !m_posForClim.hasNext())
-                if (m_pCurForClim.getEs_nStep() == nst-m_nStepsFor)
-                        isCircling = true;
-            
-            if (allow_circling) {
-                //m_posForClim = m_plCuttings.iterator();
-                //m_nStepsFor+=m_pCurForClim.getEs_nStep();
-                isCircling = false;
-                allow_circling = false;
+        else
+            checkChannels(nst);
+        m_nNextStep = nst+1;
+        return 0;
+    }
+
+    /**
+     * Checks if the timeline continues from the current state.
+     * @param nst next step
+     * @return true if the step can be looked up
+     */
+    private boolean isTimelineValid (int nst) {
+        if (nst != m_nNextStep || allow_circling)
+            return false;
+        if (nst == m_pTimeline.getFirst())
+            return true;
+        return isCircling == m_pTimeline.isCircling(nst-1)
+                && isCirclingGUI == m_pTimeline.isCirclingGUI(nst-1);
+    }
+
+    /**
+     * Checks all the channels for the step.
+     * @param nst next step
+     */
+    private void checkChannels (int nst) {
+        for (int nch=0;nch<NUM_CHANNELS;nch++) {
+            m_abChanged[nch] = false;
+            checkChannel(nch,nst);
+        }
+    }
+
+    /**
+     * Moves the channel to the next item if its step is reached. Thinning
+     * and felling ages do not start the circling.
+     * @param nch channel
+     * @param nst next step
+     */
+    private void checkChannel (int nch, int nst) {
+        GMEfiscenario pCur = getCurrent(nch);
+        if (pCur == null || pCur.getEs_nStep() > nst-getStepsOffset(nch))
+            return;
+        ArrayList<GMEfiscenario> plItems = getChannel(nch);
+        boolean bNext = m_anPos[nch]+1 < plItems.size();
+        if (nch < CH_THINAGE && !isCircling && !bNext
+                && pCur.getEs_nStep() == nst-getStepsOffset(nch))
+            isCircling = true;
+
+        if (allow_circling) {
+            isCircling = false;
+            allow_circling = false;
+            if (nch != CH_SOILCLIM)
                 isCirclingGUI = false;
-            }
-            
-            if (!isCircling && m_posForClim.hasNext()) {
-                m_pCurForClim = (GMEfiscenario) m_posForClim.next();
-                if (!allow_circling && !m_posForClim.hasNext()) isCirclingGUI = true;
-            }
         }
 
-        if (m_pCurSoilClim.getEs_nStep() <= nst-m_nStepsSoil) {
-            if (!isCircling && !m_posSoilClim.hasNext())
-                if (m_pCurSoilClim.getEs_nStep() == nst-m_nStepsSoil)
-                        isCircling = true;
-            
-            if (allow_circling) {
-                //m_posSoilClim = m_plSoilClim.iterator();
-                //m_nStepsSoil+=m_pCurSoilClim.getEs_nStep();
-                isCircling = false;
-                allow_circling = false;
-            }
-            
-            if (!isCircling && m_posSoilClim.hasNext()) {
-                m_pCurSoilClim = (GMEfiscenario) m_posSoilClim.next();
-                if (!allow_circling && !m_posSoilClim.hasNext()) isCirclingGUI = true;
-            }
+        if (!isCircling && bNext) {
+            m_anPos[nch]+=1;
+            setCurrent(nch,plItems.get(m_anPos[nch]));
+            m_abChanged[nch] = true;
+            if (nch < CH_THINAGE && !allow_circling && m_anPos[nch]+1 >= plItems.size())
+                isCirclingGUI = true;
         }
+    }
 
-        if (m_pCurAfor.getEs_nStep() <= nst-m_nStepsAfor) {
-            if (!isCircling && !m_posAfor.hasNext())
-                if (m_pCurAfor.getEs_nStep() == nst-m_nStepsAfor)
-                        isCircling = true;
-            
-            if (allow_circling) {
-                //m_posAfor = m_plAfor.iterator();
-                //m_nStepsAfor+=m_pCurAfor.getEs_nStep();
-                isCircling = false;
-                allow_circling = false;
-                isCirclingGUI = false;
-            }
-            
-            if (!isCircling && m_posAfor.hasNext()) {
-                m_pCurAfor = (GMEfiscenario) m_posAfor.next();
-                if (!allow_circling && !m_posAfor.hasNext()) isCirclingGUI = true;
+    /**
+     * Runs the checks from the step on till nothing changes any more and
+     * keeps the results. The state of the scenario is not changed.
+     * @param nfirst first step
+     * @return timeline or null if the scenario is too long
+     */
+    private GMScenarioTimeline compileTimeline (int nfirst) {
+        int nlast = nfirst;
+        int nitems = 0;
+        for (int nch=0;nch<NUM_CHANNELS;nch++) {
+            for (GMEfiscenario pItem : getChannel(nch)) {
+                if (pItem != null)
+                    nlast = Math.max(nlast,pItem.getEs_nStep()+getStepsOffset(nch));
             }
+            nitems += getChannel(nch).size();
+        }
+        nlast += nitems + 1;
+        if (nlast-nfirst > MAX_TIMELINE)
+            return null;
+        int[] anPos = m_anPos.clone();
+        GMEfiscenario[] apCur = new GMEfiscenario[NUM_CHANNELS];
+        for (int nch=0;nch<NUM_CHANNELS;nch++)
+            apCur[nch] = getCurrent(nch);
+        boolean bCircling = isCircling;
+        boolean bCirclingGUI = isCirclingGUI;
+        GMScenarioTimeline pTl = new GMScenarioTimeline(nfirst,nlast);
+        for (int nst=nfirst;nst<=nlast;nst++) {
+            checkChannels(nst);
+            pTl.setStep(nst,m_anPos,m_abChanged,isCircling,isCirclingGUI);
         }
+        m_anPos = anPos;
+        for (int nch=0;nch<NUM_CHANNELS;nch++)
+            setCurrent(nch,apCur[nch]);
+        isCircling = bCircling;
+        isCirclingGUI = bCirclingGUI;
+        return pTl;
+    }
 
-        if (m_pCurDefor.getEs_nStep() <= nst-m_nStepsDefor) {
-            if (!isCircling && !m_posDefor.hasNext())
-                if (m_pCurDefor.getEs_nStep() == nst-m_nStepsDefor)
-                        isCircling = true;
-            
-            if (allow_circling) {
-                //m_posDefor = m_plDefor.iterator();
-                //m_nStepsDefor+=m_pCurDefor.getEs_nStep();
-                isCircling = false;
-                allow_circling = false;
-                isCirclingGUI = false;
-            }
-            
-            if (!isCircling && m_posDefor.hasNext()) {
-                m_pCurDefor = (GMEfiscenario) m_posDefor.next();
-                if (!allow_circling && !m_posDefor.hasNext()) isCirclingGUI = true;
-            }
+    /**
+     * Checks if the current item of the channel was changed by the last
+     * checkScenario.
+     * @param nch channel
+     * @return true if changed
+     */
+    public boolean isChanged (int nch) {
+        return m_abChanged != null && m_abChanged[nch];
+    }
+
+    /**
+     * Get items of the channel.
+     * @param nch channel
+     * @return list of items
+     */
+    public ArrayList<GMEfiscenario> getChannel (int nch) {
+        switch (nch) {
+            case CH_CUTTINGS: return m_plCuttings;
+            case CH_FORCLIM: return m_plForClim;
+            case CH_SOILCLIM: return m_plSoilClim;
+            case CH_AFOR: return m_plAfor;
+            case CH_DEFOR: return m_plDefor;
+            case CH_CUTPROPS: return m_plCutProps;
+            case CH_SPECCH: return m_plSpecCh;
+            case CH_THINAGE: return m_plThinAge;
+            default: return m_plFellAge;
         }
+    }
 
-        if (m_pCurCutProps.getEs_nStep() <= nst-m_nStepsCutProps) {
-            if (!isCircling && !m_posCutProps.hasNext())
-                if (m_pCurCutProps.getEs_nStep() == nst-m_nStepsCutProps)
-                        isCircling = true;
-            
-            if (allow_circling) {
-               // m_posCutProps = m_plCutProps.iterator();
-                //m_nStepsCutProps+=m_pCurCutProps.getEs_nStep();
-                isCircling = false;
-                allow_circling = false;
-                isCirclingGUI = false;
-            }
-            
-            if (!isCircling && m_posCutProps.hasNext()) {
-                m_pCurCutProps = (GMEfiscenario) m_posCutProps.next();
-                if (!allow_circling && !m_posCutProps.hasNext()) isCirclingGUI = true;
-            }
+    /**
+     * Get current item of the channel.
+     * @param nch channel
+     * @return current item
+     */
+    public GMEfiscenario getCurrent (int nch) {
+        switch (nch) {
+            case CH_CUTTINGS: return m_pCurCuttings;
+            case CH_FORCLIM: return m_pCurForClim;
+            case CH_SOILCLIM: return m_pCurSoilClim;
+            case CH_AFOR: return m_pCurAfor;
+            case CH_DEFOR: return m_pCurDefor;
+            case CH_CUTPROPS: return m_pCurCutProps;
+            case CH_SPECCH: return m_pCurSpecCh;
+            case CH_THINAGE: return m_pCurThinAge;
+            default: return m_pCurFellAge;
         }
-        
-        if (m_pCurSpecCh.getEs_nStep() <= nst-m_nStepsSpecCh) {
-            if (!isCircling && !m_posSpecCh.hasNext())
-                if (m_pCurSpecCh.getEs_nStep() == nst-m_nStepsSpecCh)
-                        isCircling = true;
-            
-            if (allow_circling) {
-                //m_posSpecCh = m_plSpecCh.iterator();
-                //m_nStepsSpecCh+=m_pCurSpecCh.getEs_nStep();
-                isCircling = false;
-                allow_circling = false;
-                isCirclingGUI = false;
-            }
-            
-            if (!isCircling && m_posSpecCh.hasNext()) {
-                m_pCurSpecCh = (GMEfiscenario) m_posSpecCh.next();
-                if (!allow_circling && !m_posSpecCh.hasNext()) isCirclingGUI = true;
-            }
+    }
+
+    private void setCurrent (int nch, GMEfiscenario pCur) {
+        switch (nch) {
+            case CH_CUTTINGS: m_pCurCuttings = pCur; break;
+            case CH_FORCLIM: m_pCurForClim = pCur; break;
+            case CH_SOILCLIM: m_pCurSoilClim = pCur; break;
+            case CH_AFOR: m_pCurAfor = pCur; break;
+            case CH_DEFOR: m_pCurDefor = pCur; break;
+            case CH_CUTPROPS: m_pCurCutProps = pCur; break;
+            case CH_SPECCH: m_pCurSpecCh = pCur; break;
+            case CH_THINAGE: m_pCurThinAge = pCur; break;
+            default: m_pCurFellAge = pCur;
+        }
+    }
+
+    private int getStepsOffset (int nch) {
+        switch (nch) {
+            case CH_CUTTINGS: return m_nStepsCut;
+            case CH_FORCLIM: return m_nStepsFor;
+            case CH_SOILCLIM: return m_nStepsSoil;
+            case CH_AFOR: return m_nStepsAfor;
+            case CH_DEFOR: return m_nStepsDefor;
+            case CH_CUTPROPS: return m_nStepsCutProps;
+            case CH_SPECCH: return m_nStepsSpecCh;
+            case CH_THINAGE: return m_nStepsThinAge;
+            default: return m_nStepsFellAge;
         }
-        
-        if (m_pCurThinAge != null)
-            if (m_pCurThinAge.getEs_nStep() <= nst-m_nStepsThinAge) {
-                if (allow_circling) {
-                    isCircling = false;
-                    allow_circling = false;
-                    isCirclingGUI = false;
-                }
-
-                if (!isCircling && m_posThinAge.hasNext()) {
-                    m_pCurThinAge = (GMEfiscenario) m_posThinAge.next();
-                }
-            }
-        
-        if (m_pCurFellAge != null)
-            if (m_pCurFellAge.getEs_nStep() <= nst-m_nStepsFellAge) {
-
-                if (allow_circling) {
-                    isCircling = false;
-                    allow_circling = false;
-                    isCirclingGUI = false;
-                }
-
-                if (!isCircling && m_posFellAge.hasNext()) {
-                    m_pCurFellAge = (GMEfiscenario) m_posFellAge.next();
-                }
-            }
-        
-        return 0;
     }
 
     /**
      * Set the head positions of all collections
      */
     public void getHeads () {
-        m_posForClim = m_plForClim.iterator();
-        if (m_posForClim.hasNext())
-            m_pCurForClim = (GMEfiscenario)m_posForClim.next();
-        m_posSoilClim = m_plSoilClim.iterator();
-        if (m_posSoilClim.hasNext())
-            m_pCurSoilClim = (GMEfiscenario)m_posSoilClim.next();
-        m_posCuttings = m_plCuttings.iterator();
-        if (m_posCuttings.hasNext())
-            m_pCurCuttings = (GMEfiscenario)m_posCuttings.next();
-        m_posAfor = m_plAfor.iterator();
-        if (m_posAfor.hasNext())
-            m_pCurAfor = (GMEfiscenario)m_posAfor.next();
-        m_posDefor = m_plDefor.iterator();
-        if (m_posDefor.hasNext())
-            m_pCurDefor = (GMEfiscenario)m_posDefor.next();
-        m_posCutProps = m_plCutProps.iterator();
-        if (m_posCutProps.hasNext())
-            m_pCurCutProps = (GMEfiscenario)m_posCutProps.next();
-        m_posSpecCh = m_plSpecCh.iterator();
-        if (m_posSpecCh.hasNext())
-            m_pCurSpecCh = (GMEfiscenario)m_posSpecCh.next();
-        m_posThinAge = m_plThinAge.iterator();
-        if (m_posThinAge.hasNext())
-            m_pCurThinAge = (GMEfiscenario)m_posThinAge.next();
-        m_posFellAge = m_plFellAge.iterator();
-        if (m_posFellAge.hasNext())
-            m_pCurFellAge = (GMEfiscenario)m_posFellAge.next();
+        m_anPos = new int[NUM_CHANNELS];
+        m_abChanged = new boolean[NUM_CHANNELS];
+        for (int nch=0;nch<NUM_CHANNELS;nch++) {
+            ArrayList<GMEfiscenario> plItems = getChannel(nch);
+            m_anPos[nch] = -1;
+            if (!plItems.isEmpty()) {
+                m_anPos[nch] = 0;
+                setCurrent(nch,plItems.get(0));
+            }
+        }
+        m_pTimeline = null;
     }
     
     public boolean getIsCircling() {
@@ -424,6 +461,7 @@ public class GMScenario implements Serializable {
     public void setIsCircling(boolean isCircling) {
         this.isCircling = isCircling;
         allow_circling = !isCircling;
+        m_pTimeline = null;
     }
 
     /**
@@ -0,0 +1,131 @@
+/*
+ * Copyright (C) 2016 European Forest Institute
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package efi.efiscen.gm;
+
+import java.io.Serializable;
+
+/**
+ * Scenario compiled to steps: the position of the current item of every
+ * channel (cuttings, climate etc., see GMScenario.CH_CUTTINGS) and the
+ * circling flags after each call of GMScenario.checkScenario, when it is
+ * called for consecutive steps from the first one. After the last step
+ * nothing changes any more.
+ *
+ */
+public class GMScenarioTimeline implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    protected int m_nFirst; // First step
+    protected int m_nLast; // Last step with changes
+    protected int[][] m_aanPos; // Positions by steps and channels
+    protected boolean[][] m_aabChanged; // Channels changed at the steps
+    protected boolean[] m_abCircling; // isCircling after the steps
+    protected boolean[] m_abCirclingGUI; // isCirclingGUI after the steps
+
+    /**
+     * Parametrized constructor.
+     * @param nfirst first step
+     * @param nlast last step
+     */
+    public GMScenarioTimeline (int nfirst, int nlast) {
+        int nsize = nlast-nfirst+1;
+        m_nFirst = nfirst;
+        m_nLast = nlast;
+        m_aanPos = new int[nsize][];
+        m_aabChanged = new boolean[nsize][];
+        m_abCircling = new boolean[nsize];
+        m_abCirclingGUI = new boolean[nsize];
+    }
+
+    /**
+     * Sets the state after the step.
+     * @param nst step
+     * @param anPos positions of the channels
+     * @param abChanged changed channels
+     * @param bCircling isCircling
+     * @param bCirclingGUI isCirclingGUI
+     */
+    public void setStep (int nst, int[] anPos, boolean[] abChanged,
+            boolean bCircling, boolean bCirclingGUI) {
+        int i = nst-m_nFirst;
+        m_aanPos[i] = anPos.clone();
+        m_aabChanged[i] = abChanged.clone();
+        m_abCircling[i] = bCircling;
+        m_abCirclingGUI[i] = bCirclingGUI;
+    }
+
+    /**
+     * Get first step.
+     * @return step
+     */
+    public int getFirst () {
+        return m_nFirst;
+    }
+
+    /**
+     * Get last step with changes.
+     * @return step
+     */
+    public int getLast () {
+        return m_nLast;
+    }
+
+    private int index (int nst) {
+        if (nst < m_nFirst)
+            throw new IndexOutOfBoundsException("Step: "+nst+", First: "+m_nFirst);
+        return Math.min(nst,m_nLast)-m_nFirst;
+    }
+
+    /**
+     * Position of the current item of the channel after the step.
+     * @param nst step
+     * @param nch channel
+     * @return position in the list of the channel, -1 if none
+     */
+    public int getPosition (int nst, int nch) {
+        return m_aanPos[index(nst)][nch];
+    }
+
+    /**
+     * Checks if the current item of the channel is changed at the step.
+     * @param nst step
+     * @param nch channel
+     * @return true if changed
+     */
+    public boolean isChanged (int nst, int nch) {
+        return nst <= m_nLast && m_aabChanged[index(nst)][nch];
+    }
+
+    /**
+     * isCircling of the scenario after the step.
+     * @param nst step
+     * @return isCircling
+     */
+    public boolean isCircling (int nst) {
+        return m_abCircling[index(nst)];
+    }
+
+    /**
+     * isCirclingGUI of the scenario after the step.
+     * @param nst step
+     * @return isCirclingGUI
+     */
+    public boolean isCirclingGUI (int nst) {
+        return m_abCirclingGUI[index(nst)];
+    }
+}
@@ -17,6 +17,7 @@
 package efi.efiscen.gm;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 
 /**
  * Takes care of the actual simulation.
@@ -34,6 +35,9 @@ public class GMSimulation implements Serializable {
     // written to the logger
     private boolean allow_circling = false;
     //do not serialize!
+    // Whether the climate and age parameters of the scenario are applied to
+    // the experiment, unchanged ones are not applied again
+    transient private boolean m_bApplied = false;
 
     /**
      * Default constructor.
@@ -47,6 +51,22 @@ public class GMSimulation implements Serializable {
         this.m_nStep = m_nStep;
     }
     
+    /**
+     * Fork of the simulation on a fork of its experiment and a copy of its
+     * scenario (see GMEfiscen.fork), e.g. to try another branch of the
+     * simulation or to roll back to the current step.
+     * @return fork
+     */
+    public GMSimulation fork () {
+        GMSimulation pFork = new GMSimulation(m_pExperiment.fork(), m_Scenario.copy(), m_nStep);
+        pFork.m_nStepsByClick = m_nStepsByClick;
+        pFork.m_TotalVolume = m_TotalVolume;
+        pFork.timesteps = timesteps;
+        pFork.allow_circling = allow_circling;
+        pFork.m_bApplied = m_bApplied;
+        return pFork;
+    }
+
     public void setTimeSteps( int timesteps ) {
         this.timesteps = timesteps;
     }
@@ -57,6 +77,7 @@ public class GMSimulation implements Serializable {
     
     public void setM_nStep(int step){
         m_nStep = step;
+        m_bApplied = false;
     }
 
     /**
@@ -68,64 +89,71 @@ public class GMSimulation implements Serializable {
             m_Scenario.checkScenario(m_nStep);
             
             // Changing management parameter (fell age) depending on step
-            if (m_Scenario.m_pCurFellAge != null)
+            if (m_Scenario.m_pCurFellAge != null && isToApply(GMScenario.CH_FELLAGE))
                 m_pExperiment.setHarvestAge(m_Scenario.m_pCurFellAge.getEs_paData());
             
             // Changing management parameter (thin age) depending on step
-            if (m_Scenario.m_pCurThinAge != null)
+            if (m_Scenario.m_pCurThinAge != null && isToApply(GMScenario.CH_THINAGE))
                 m_pExperiment.setThinRange(m_Scenario.m_pCurThinAge.getEs_paData());
             
-            if (m_Scenario.m_pCurSoilClim != null)
+            if (m_Scenario.m_pCurSoilClim != null && isToApply(GMScenario.CH_SOILCLIM)) {
+                GMClFunction pCfun = m_Scenario.m_pSoilClFunction;
+                if (pCfun != null)
+                    m_pExperiment.setSoilClimateVars((float)pCfun.getCf_beta(), (float)pCfun.getCf_gamma(),
+                            (float)pCfun.getCf_tav(), (float)pCfun.getCf_di());
                 m_pExperiment.setSoilClimate(m_Scenario.m_pCurSoilClim.getEs_paData());
+            }
 
-            if (m_Scenario.m_pCurForClim != null) {
+            if (m_Scenario.m_pCurForClim != null && isToApply(GMScenario.CH_FORCLIM)) {
                 m_pExperiment.setForestClimateV4(m_Scenario.m_plClimAgeLims,m_Scenario.m_pCurForClim.getEs_paData()); //V4
                 //m_pExperiment.setForestClimate(m_Scenario.m_pCurForClim.getEs_paData());
             }
+            m_bApplied = true;
             // We are checking for management
             if (m_Scenario.m_pCurCuttings != null) {
-                GMFellings pFl = new GMFellings();
+                GMParLocator plCuttings = m_Scenario.m_pCurCuttings.getEs_paData();
+                ArrayList<Long> paKeys = new ArrayList<>(m_Scenario.m_plCutRatios.m_mElements.keySet());
+                ArrayList<GMParArray> paGroups = new ArrayList<>(paKeys.size());
+                for (Long uKey : paKeys)
+                    paGroups.add(m_Scenario.m_plCutRatios.m_mElements.get(uKey));
+                int ngroups = paGroups.size();
+                float[] afFell = new float[ngroups];
+                float[] afThin = new float[ngroups];
+                boolean[] abFell = new boolean[ngroups];
+                boolean[] abThin = new boolean[ngroups];
+                for (int g=0;g<ngroups;g++) {
+                    long uKey = paKeys.get(g);
+                    afFell[g] = plCuttings.getParameterValue(uKey,0);
+                    abFell[g] = afFell[g]>=0.0;
+                    afThin[g] = plCuttings.getParameterValue(uKey,1);
+                    abThin[g] = afThin[g]>=0.0;
+                }
+                // Levels of all the groups in one pass over the matrixes
+                double[][] aadLevels = m_pExperiment.reportCutLevels(paGroups,abFell,abThin,
+                        m_Scenario.m_pCurCutProps.getEs_paData());
                 float volr;
-                GMParArray pEl;
-                for (Long uKey : m_Scenario.m_plCutRatios.m_mElements.keySet())
-                {
-                    pEl = m_Scenario.m_plCutRatios.m_mElements.get(uKey);
-                    //float remshare = m_Scenario.m_pCurCutProps.getEs_paData().getParameterValue(uKey,0);
-                    pFl.setF_volume(0.0);
-                    pFl.setF_ratio(1.0);
-                    //pFl.setF_stem(remshare);
-                    float parm = m_Scenario.m_pCurCuttings.getEs_paData().getParameterValue(uKey,0);
-                    if (parm>=0.0) {
-                        pFl = m_pExperiment.reportHarvestLevel(pEl.m_uRegion,pEl.m_uOwner,
-                            pEl.m_uSite,pEl.m_uSpecies,pFl,m_Scenario.m_pCurCutProps.getEs_paData()); 
+                for (int g=0;g<ngroups;g++) {
+                    GMParArray pEl = paGroups.get(g);
+                    if (abFell[g]) {
                         volr = 1.0f;
-                        if (pFl.getF_volume() > 0)
-                            volr = (float)(parm/pFl.getF_volume());
+                        if (aadLevels[g][0] > 0)
+                            volr = (float)(afFell[g]/aadLevels[g][0]);
                         if (volr>1.0) 
                             volr = 1.0f;
                         pEl.m_Vals.set(0,volr);
                     }
                     else
                         pEl.m_Vals.set(0,1.0f);
-
-                    //remshare = m_Scenario.m_pCurCutProps.getEs_paData().getParameterValue(uKey,3);
-                    pFl.setF_volume(0.0);
-                    pFl.setF_ratio(1.0);
-                    //pFl.setF_stem(remshare);
-                    parm = m_Scenario.m_pCurCuttings.getEs_paData().getParameterValue(uKey,1);
-                    if (parm>=0.0) {
-                        pFl = m_pExperiment.reportThinningsLevel(pEl.m_uRegion,pEl.m_uOwner,
-                            pEl.m_uSite,pEl.m_uSpecies,pFl,m_Scenario.m_pCurCutProps.getEs_paData()); 
+                    if (abThin[g]) {
                         volr = 1.0f;
-                        if (pFl.getF_volume() > 0)
-                            volr = (float)(parm/pFl.getF_volume());
+                        if (aadLevels[g][1] > 0)
+                            volr = (float)(afThin[g]/aadLevels[g][1]);
                         if (volr>1.0) 
                             volr = 1.0f;
                         pEl.m_Vals.set(1,volr);
                     }
                     else
                         pEl.m_Vals.set(1,1.0f);
-                    m_Scenario.m_plCutRatios.m_mElements.put(uKey, pEl);
                 }
             }
             return m_pExperiment;
@@ -135,6 +163,16 @@ public class GMSimulation implements Serializable {
         return null;
     }
 
+    /**
+     * Checks if the parameters of the channel must be applied to the
+     * experiment at this step.
+     * @param nch channel of the scenario
+     * @return true if not applied yet or changed
+     */
+    private boolean isToApply (int nch) {
+        return !m_bApplied || m_Scenario.isChanged(nch);
+    }
+
     /**
      * Runs the simulation.
      * @return 
@@ -216,6 +254,7 @@ public class GMSimulation implements Serializable {
     
     public void setM_pExperiment(GMEfiscen m_pExperiment) {
         this.m_pExperiment = m_pExperiment;
+        m_bApplied = false;
     }
     
     public void setAllow_circling(boolean allow_circling) {
@@ -23,7 +23,7 @@ import java.util.ArrayList;
  * YASSO soil model realization; takes care of soils simulation.
  * 
  */
-public class GMSoil implements Serializable {
+public class GMSoil implements Serializable, Cloneable {
 
     // Name
     /**
@@ -217,6 +217,18 @@ public class GMSoil implements Serializable {
         m_cpDi = -50;
     }
 
+    /**
+     * Copy of the soil.
+     * @return copy
+     */
+    public GMSoil copy () {
+        try {
+            return (GMSoil)super.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError(e);
+        }
+    }
+
     /**
      * Gets the current in/out pool.
      * @return the current in/out pool
@@ -367,6 +379,33 @@ public class GMSoil implements Serializable {
         return 0;
     }
 
+    /**
+     * Scales the decomposition rates, both the base rates and the current
+     * climate dependent ones, all limited to 0..1. The stocks are not
+     * changed.
+     * @param adFactors factors in the order of getDecompositionRates:
+     * coarse woody, fine woody and non woody litter, soluble, holocellulose,
+     * lignin, humus1 and humus2
+     */
+    public void scaleDecomposition (double[] adFactors) {
+        m_aCwL = Math.min(Math.max(m_aCwL*adFactors[0], 0.0), 1.0);
+        m_aFwL = Math.min(Math.max(m_aFwL*adFactors[1], 0.0), 1.0);
+        m_aNwL = Math.min(Math.max(m_aNwL*adFactors[2], 0.0), 1.0);
+        m_kSol = Math.min(Math.max(m_kSol*adFactors[3], 0.0), 1.0);
+        m_kCel = Math.min(Math.max(m_kCel*adFactors[4], 0.0), 1.0);
+        m_kLig = Math.min(Math.max(m_kLig*adFactors[5], 0.0), 1.0);
+        m_kHumOne = Math.min(Math.max(m_kHumOne*adFactors[6], 0.0), 1.0);
+        m_kHumTwo = Math.min(Math.max(m_kHumTwo*adFactors[7], 0.0), 1.0);
+        m_caCwL = Math.min(Math.max(m_caCwL*adFactors[0], 0.0), 1.0);
+        m_caFwL = Math.min(Math.max(m_caFwL*adFactors[1], 0.0), 1.0);
+        m_caNwL = Math.min(Math.max(m_caNwL*adFactors[2], 0.0), 1.0);
+        m_ckSol = Math.min(Math.max(m_ckSol*adFactors[3], 0.0), 1.0);
+        m_ckCel = Math.min(Math.max(m_ckCel*adFactors[4], 0.0), 1.0);
+        m_ckLig = Math.min(Math.max(m_ckLig*adFactors[5], 0.0), 1.0);
+        m_ckHumOne = Math.min(Math.max(m_ckHumOne*adFactors[6], 0.0), 1.0);
+        m_ckHumTwo = Math.min(Math.max(m_ckHumTwo*adFactors[7], 0.0), 1.0);
+    }
+
     /**
      * Report stockings (Carbon in different soil compartments).
      * @param pSComp stockings container
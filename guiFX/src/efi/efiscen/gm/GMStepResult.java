@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2016 European Forest Institute
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package efi.efiscen.gm;
+
+import java.util.ArrayList;
+
+/**
+ * Result of one phase of a simulation step (thinnings, fellings, natural
+ * mortality or growth) for one matrix. The matrixes are processed
+ * independently and the results are merged to the shared structures
+ * (history, bare land fund, soils) afterwards in the order of matrix keys.
+ *
+ */
+public class GMStepResult {
+
+    public long m_uKey; // Key of the matrix
+    public GMMatrix m_pTable; // Processed matrix
+    public GMMatrixPars m_pPars; // Resolved parameters of the matrix
+    public GMCarbonAlloc m_pCa; // Carbon of the removed biomass
+    public float m_fValue; // Volume returned by the matrix operation
+    public double m_dArea; // Area collected by the fellings summator
+    public double m_dVolume; // Volume collected by the fellings summator
+    public float m_fCr2Wl; // Share of coarse roots going to coarse woody litter
+    public double m_dStemLitter; // Stem carbon going to the soil
+    public ArrayList<Float> m_pRsd; // Residues left in the forest
+    public ArrayList<Float> m_pRsdRem; // Residues removed from the forest
+
+    /**
+     * Parametrized constructor.
+     * @param ukey key of the matrix
+     * @param pTable matrix
+     */
+    public GMStepResult (long ukey, GMMatrix pTable) {
+        m_uKey = ukey;
+        m_pTable = pTable;
+        m_pPars = null;
+        m_pCa = null;
+        m_fValue = 0.0f;
+        m_dArea = 0.0;
+        m_dVolume = 0.0;
+        m_fCr2Wl = 1.0f;
+        m_dStemLitter = 0.0;
+        m_pRsd = null;
+        m_pRsdRem = null;
+    }
+}
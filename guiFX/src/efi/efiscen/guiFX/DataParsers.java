@@ -18,6 +18,7 @@ package efi.efiscen.guiFX;
 
 import efi.efiscen.com.ComArFlt;
 import efi.efiscen.gm.GMEfiscen;
+import efi.efiscen.gm.GMHistoryMap;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Map;
@@ -890,6 +891,19 @@ public class DataParsers {
         protected float extractLatestMatrix(Set<Long> regions, Set<Long> owners, 
                 Set<Long> sites, Set<Long> species, HashMap<Long,? extends ComArFlt<? extends Number>> storage) {
             float point = 0f;
+            if (storage instanceof GMHistoryMap) {
+                // Series of equal length: group sums of the last step
+                GMHistoryMap history = (GMHistoryMap)storage;
+                int last = history.getLatestStep();
+                if (last >= 0) {
+                    for( Long region : regions)
+                        for( Long owner : owners)
+                            for( Long site : sites)
+                                for( Long specie : species)
+                                    point += history.summarize(region, owner, site, specie, last);
+                    return point;
+                }
+            }
             for( Long region : regions) {
                 for( Long owner : owners) {
                     for( Long site : sites) {
@@ -69,6 +69,7 @@ public class EfiscenModel {
         scenarioName = null;
         inputLoader = new InputLoader();
         inputLoader.setM_scaleAreas(1.0f);
+        inputLoader.setParallelLoad(true);
         scenario = inputLoader.getM_Scenario();
         efiscen = inputLoader.getM_pExperiment();
         simulation = null;
@@ -161,6 +162,8 @@ public class EfiscenModel {
                 setLoaded(false);
                 AtomicInteger errors = new AtomicInteger(0);
                 try {
+                    if (efiscen != null)
+                        efiscen.close();
                     efiscen = inputLoader.loadExperiment(experimentName, errors, filenames);
                     if(efiscen==null) {
                         System.err.println("Efiscen experiment could not be loaded");
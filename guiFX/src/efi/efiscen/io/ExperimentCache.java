@@ -0,0 +1,166 @@
+/*
+ * Copyright (C) 2016 European Forest Institute
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package efi.efiscen.io;
+
+import efi.efiscen.gm.GMEfiscen;
+import efi.efiscen.gm.GMGrFunDefault;
+import efi.efiscen.gm.GMMatrix;
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Compiled image of a loaded experiment. The image is saved after the text
+ * files of the experiment have been loaded and keeps the experiment together
+ * with the state of the loader. The file starts with the area scaling and
+ * the paths and the SHA-256 hashes of the source files, and the image is
+ * used only while all of them are unchanged. The paths are relative to the
+ * folder of the image, so a copied experiment folder checks its own files. The experiment itself is
+ * written with Java serialization like the saved sessions.
+ * 
+ */
+public class ExperimentCache implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final int magic = 0x45464943; // EFIC
+    private static final int version = 2;
+
+    GMEfiscen experiment;
+    GMGrFunDefault grFun;
+    GMMatrix curMatrix;
+    int matrNum;
+    TreeSet<Long> matrixIDs;
+    String volClassFile;
+    String bioparametersFile;
+    HashMap<String,String> filenames;
+
+    /**
+     * Computes the SHA-256 hash of the content of a file.
+     * @param file file to hash
+     * @return hash
+     * @throws IOException if the file could not be read
+     */
+    static byte[] hashFile(File file) throws IOException {
+        MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IOException(ex);
+        }
+        byte[] buf = new byte[65536];
+        try (InputStream in = new FileInputStream(file)) {
+            int n;
+            while ((n = in.read(buf)) > 0)
+                md.update(buf, 0, n);
+        }
+        return md.digest();
+    }
+
+    /**
+     * Path of a source file relative to the folder of the image, or the
+     * absolute path if there is no relative one.
+     * @param dir folder of the image
+     * @param source source file
+     * @return path
+     */
+    static String relativePath(File dir, File source) {
+        try {
+            return dir.toPath().relativize(source.getAbsoluteFile().toPath()).toString();
+        } catch (IllegalArgumentException ex) {
+            return source.getAbsolutePath();
+        }
+    }
+
+    /**
+     * Saves the image. The file is written under a temporary name and
+     * renamed, so a loader never sees a partly written image.
+     * @param cacheFile file of the image
+     * @param sources source files of the experiment
+     * @param scaleAreas area scaling the experiment was loaded with
+     * @return true if the image was saved
+     */
+    public boolean save(File cacheFile, List<String> sources, float scaleAreas) {
+        File dir = cacheFile.getAbsoluteFile().getParentFile();
+        File tmp = null;
+        try {
+            tmp = File.createTempFile(cacheFile.getName(), ".tmp", dir);
+            try (ObjectOutputStream out = new ObjectOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(tmp), 65536))) {
+                out.writeInt(magic);
+                out.writeInt(version);
+                out.writeFloat(scaleAreas);
+                out.writeInt(sources.size());
+                for (String source : sources) {
+                    File f = new File(source).getAbsoluteFile();
+                    byte[] hash = hashFile(f);
+                    out.writeUTF(relativePath(dir, f));
+                    out.writeInt(hash.length);
+                    out.write(hash);
+                }
+                out.writeObject(this);
+            }
+            Files.move(tmp.toPath(), cacheFile.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING);
+            return true;
+        } catch (IOException ex) {
+            System.err.println("Could not save compiled experiment " + cacheFile
+                    + ": " + ex);
+            if (tmp != null)
+                tmp.delete();
+            return false;
+        }
+    }
+
+    /**
+     * Loads an image if it exists and its source files and area scaling have
+     * not changed.
+     * @param cacheFile file of the image
+     * @param scaleAreas area scaling of the loader
+     * @return image or null if there is no valid image
+     */
+    public static ExperimentCache load(File cacheFile, float scaleAreas) {
+        if (!cacheFile.isFile())
+            return null;
+        File dir = cacheFile.getAbsoluteFile().getParentFile();
+        try (ObjectInputStream in = new ObjectInputStream(
+                new BufferedInputStream(new FileInputStream(cacheFile), 65536))) {
+            if (in.readInt() != magic || in.readInt() != version
+                    || in.readFloat() != scaleAreas)
+                return null;
+            int nsources = in.readInt();
+            for (int i = 0; i < nsources; i++) {
+                File f = dir.toPath().resolve(in.readUTF()).toFile();
+                byte[] hash = new byte[in.readInt()];
+                in.readFully(hash);
+                if (!f.isFile() || !Arrays.equals(hash, hashFile(f)))
+                    return null;
+            }
+            return (ExperimentCache) in.readObject();
+        } catch (IOException | ClassNotFoundException | ClassCastException ex) {
+            System.err.println("Could not load compiled experiment " + cacheFile
+                    + ": " + ex);
+            return null;
+        }
+    }
+}
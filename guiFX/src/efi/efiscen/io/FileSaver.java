@@ -24,6 +24,7 @@ import efi.efiscen.gm.GMSoil;
 import efi.efiscen.gm.GMParArray;
 import efi.efiscen.gm.GMParLocator;
 import efi.efiscen.gm.GMCollection;
+import efi.efiscen.gm.GMDistrColumn;
 import efi.efiscen.com.ComArFlt;
 import efi.efiscen.com.ComFltPipe;
 import efi.efiscen.com.ComFltPipeElement;
@@ -72,7 +73,6 @@ public class FileSaver {
             float grsprev;
             // To get the increment
             float hrvthinres,hrvfelres,ccont,dens,cfactor;
-            ArrayList<Float> pdist;
             int ur,uo,ust,usp;
             //out.println("EFISCEN3 results");
             out.printf("M_ID,REG,OWN,ST,SP,Step,GrStock,Area,DeadWood,NatMort,ThinRems,FelRems,RemsAv,GrStockAv,IncrAv");
@@ -157,15 +157,11 @@ public class FileSaver {
                             // useless output ;) debugging leftovers
                             //for (int ii = 0; ii < m_pExperiment.m_mafFellings.size(); ii++)
                             //    System.out.println(m_pExperiment.m_mafFellings.get(ii));
-                            ArrayList<Float> arrayTemp = pPComarThRes.getData(i-1);
-                            hrvthinres = arrayTemp.get(0);
-                            arrayTemp = pPComarFelRes.getData(i-1);
-                            hrvfelres = arrayTemp.get(0);
+                            hrvthinres = GMDistrColumn.getValue(pPComarThRes,i-1,0);
+                            hrvfelres = GMDistrColumn.getValue(pPComarFelRes,i-1,0);
                             // Adding topwood removals ...
-                            arrayTemp = pPComarThResRem.getData(i-1);
-                            hrvthinres += arrayTemp.get(0);
-                            arrayTemp = pPComarFelResRem.getData(i-1);
-                            hrvfelres += arrayTemp.get(0);
+                            hrvthinres += GMDistrColumn.getValue(pPComarThResRem,i-1,0);
+                            hrvfelres += GMDistrColumn.getValue(pPComarFelResRem,i-1,0);
 
                             grincr = (grs - grsprev + hrvthin + hrvfel + nmort
                                     + hrvthinres/cfactor + hrvfelres/cfactor);
@@ -182,15 +178,9 @@ public class FileSaver {
                         out.printf(",%f,%f,%f,%f,%f,%f,%f,%f",garea,dwood,nmort,hrvthin,hrvfel,felav,grsav,grincr);
 
                         //pdist = (ArrayList) pPComar.getData(i);
-                        pdist = pPComar.getData(i);
-                        for (int id=0; id < pdist.size(); id++) {
-                            out.printf(",%f",pdist.get(id));
-                        }
+                        printDistr(pPComar,i);
                         //pdist = (ArrayList) pPStComar.getData(i);
-                        pdist = pPStComar.getData(i);
-                        for (int id=0; id < pdist.size(); id++) {
-                            out.printf(",%f",pdist.get(id));
-                        }
+                        printDistr(pPStComar,i);
                         out.print(newLine);
                         //out.println(pfm);
                     }
@@ -216,7 +206,6 @@ public class FileSaver {
             // Header first
             float grs; //,garea,hrvthin,hrvfel,grincr,grsav,felav;
             //float grsprev;
-            ArrayList<Float> pdist;
             int ur,uo,ust,usp;
             //out.println("EFISCEN3 results");
             out.printf("M_ID,REG,OWN,ST,SP,Step,C_Trees");
@@ -293,21 +282,11 @@ public class FileSaver {
                     out.printf("%d,%d,%d,%d,%d,%d,%f",uKey,ur,uo,ust,usp,m_pExperiment.m_nBaseYear+i*m_pExperiment.m_nStep,grs);
 
                     //out.printf(",%f,%f,%f,%f,%f,%f",garea,hrvthin,hrvfel,felav,grsav,grincr);
-                    pdist = pPComar.getData(i); //stem
-                    for (int id=0;id<pdist.size();id++)
-                        out.printf(",%f",pdist.get(id));
-                    pdist = pPStComar.getData(i); //branches
-                    for (int id=0;id<pdist.size();id++)
-                        out.printf(",%f",pdist.get(id));
-                    pdist = pPLvComar.getData(i); //leaves
-                    for (int id=0;id<pdist.size();id++)
-                        out.printf(",%f",pdist.get(id));
-                    pdist = pPCrComar.getData(i); //Coarse roots
-                    for (int id=0;id<pdist.size();id++)
-                        out.printf(",%f",pdist.get(id));
-                    pdist = pPFrComar.getData(i); //fine roots
-                    for (int id=0;id<pdist.size();id++)
-                        out.printf(",%f",pdist.get(id));
+                    printDistr(pPComar,i); //stem
+                    printDistr(pPStComar,i); //branches
+                    printDistr(pPLvComar,i); //leaves
+                    printDistr(pPCrComar,i); //Coarse roots
+                    printDistr(pPFrComar,i); //fine roots
 
                     out.print(newLine);
                 }
@@ -910,7 +889,6 @@ public class FileSaver {
             out = new PrintWriter(new BufferedWriter(new FileWriter(pfm)));
             // Header first
             float grs,grsdw;
-            ArrayList<Float> pdist = new ArrayList<>();
             float ccont,dens,cfactor;
             int ur,uo,ust,usp;
             //out.println("EFISCEN3 results");
@@ -979,14 +957,10 @@ public class FileSaver {
                         out.printf("%d,%d,%d,%d,%d,%d,%f,%f,%f",uKey,ur,uo,ust,usp,m_pExperiment.m_nBaseYear+i*m_pExperiment.m_nStep,grs,grsdw,grsdw*cfactor);
 
                         //out.printf(",%f,%f,%f,%f,%f,%f",garea,hrvthin,hrvfel,felav,grsav,grincr);
-                        pdist = pPComarDW.getData(i);
-                        for (int id=0;id<pdist.size();id++)
-                            out.printf(",%f",pdist.get(id));
+                        printDistr(pPComarDW,i);
 
                         //out.print(newLine);
-                        pdist = pPComar.getData(i);
-                        for (int id=0;id<pdist.size();id++)
-                            out.printf(",%f",pdist.get(id));
+                        printDistr(pPComar,i);
                         out.print(newLine);
                     }
                 } catch (GMParLocator.GMParLocatorException ex) {
@@ -1010,7 +984,6 @@ public class FileSaver {
             // Header first
             float hrvfel;
             float grsprev;
-            ArrayList<Float> pdist;
             int ur,uo,ust,usp;
             //out.println("EFISCEN3 results");
             out.printf("M_ID,REG,OWN,ST,SP,Step,FelRem");
@@ -1077,12 +1050,8 @@ public class FileSaver {
                         hrvfel = m_pExperiment.summarize(ur,uo,ust,usp,m_pExperiment.m_mafFellings,i-1);
 
                         out.printf("%d,%d,%d,%d,%d,%d,%f",uKey,ur,uo,ust,usp,m_pExperiment.m_nBaseYear+i*m_pExperiment.m_nStep,hrvfel);
-                        pdist = pPArComar.getData(i);
-                        for (int id=0;id<pdist.size();id++)
-                            out.printf(",%f",pdist.get(id));
-                        pdist = pPComar.getData(i);
-                        for (int id=0;id<pdist.size();id++)
-                            out.printf(",%f",pdist.get(id));
+                        printDistr(pPArComar,i);
+                        printDistr(pPComar,i);
                         out.print(newLine);
                     }
                 }
@@ -1105,7 +1074,6 @@ public class FileSaver {
             //float grs,garea,hrvthin,hrvfel,grincr,grsav,felav;
             float hrvfel;
             float grsprev;
-            ArrayList<Float> pdist;
             int ur,uo,ust,usp;
             //out.println("EFISCEN3 results");
             out.printf("M_ID,REG,OWN,ST,SP,Step,ThinRem");
@@ -1176,12 +1144,8 @@ public class FileSaver {
                         hrvfel = m_pExperiment.summarize(ur,uo,ust,usp,m_pExperiment.m_mafThinnings,i-1);
 
                         out.printf("%d,%d,%d,%d,%d,%d,%f",uKey,ur,uo,ust,usp,m_pExperiment.m_nBaseYear+i*m_pExperiment.m_nStep,hrvfel);
-                        pdist = pPArComar.getData(i);
-                        for (int id=0;id<pdist.size();id++)
-                            out.printf(",%f",pdist.get(id));
-                        pdist = pPComar.getData(i);
-                        for (int id=0;id<pdist.size();id++)
-                            out.printf(",%f",pdist.get(id));
+                        printDistr(pPArComar,i);
+                        printDistr(pPComar,i);
                         out.print(newLine);
                     }
                 }
@@ -1203,7 +1167,6 @@ public class FileSaver {
             // Header first
             //float hrvfel;
             //float grsprev;
-            ArrayList<Float> pdist = new ArrayList<>();
             int ur,uo,ust,usp;
             //out.println("EFISCEN3 results");
             // September 2009 Uppsala - Coarse roots res/rems to output
@@ -1244,22 +1207,16 @@ public class FileSaver {
                         /*for (int j = 0; j < 4; j++) {
                             out.printf(",%f", pPComRes.getData(4*i-4+j));
                         }*/
-                        pdist = pPComRes.getData(i-1);
-                        for (int j = 0; j < pdist.size(); j++)
-                            out.printf(",%f",pdist.get(j));
+                        printDistr(pPComRes,i-1);
                         //out.printf(",%f,%f,%f,%f",pdist.get(0),pdist.get(1),pdist.get(2),pdist.get(3));
 
 
                         /*for (int j = 0; j < 4; j++) {
                             out.printf(",%f", pPComResRem.getData(4*i-4+j));
                         }*/
-                        pdist = pPComResRem.getData(i-1);
-                        for (int k = 0; k < pdist.size(); k++)
-                            out.printf(",%f",pdist.get(k));
+                        printDistr(pPComResRem,i-1);
                         //out.printf(",%f,%f,%f,%f",pdist.get(0),pdist.get(1),pdist.get(2),pdist.get(3));
-                        pdist = pPComar.getData(i);
-                        for (int id=0;id<pdist.size();id++)
-                            out.printf(",%f",pdist.get(id));
+                        printDistr(pPComar,i);
                         out.print(newLine);
                     }
                 }
@@ -1281,7 +1238,6 @@ public class FileSaver {
             // Header first
             //float hrvfel;
             //float grsprev;
-            ArrayList<Float> pdist = new ArrayList<>();
             int ur,uo,ust,usp;
             //out.println("EFISCEN3 results");
             out.printf("M_ID,REG,OWN,ST,SP,Step,C_TopsRes,C_BrRes,C_LvRes,C_CrRes,C_TopsRem,C_BrRem,C_LvRem,C_CrRem");
@@ -1322,25 +1278,14 @@ public class FileSaver {
                         /*for (int j = 0; j < 4; j++) {
                             out.printf(",%f", pPComRes.getData(4*i-4+j));
                         }*/
-                        pdist = pPComRes.getData(i-1);
-                        for (int j = 0; j < pdist.size(); j++) {
-                            out.printf(",%f", pdist.get(j));
-
-                        }
+                        printDistr(pPComRes,i-1);
                         //out.printf(",%f,%f,%f,%f",pdist.get(0),pdist.get(1),pdist.get(2),pdist.get(3)); //(Uppsala)
                         /*for (int j = 0; j < 4; j++) {
                             out.printf(",%f", pPComResRem.getData(4*i-4+j));
                         }*/
-                        pdist = pPComResRem.getData(i-1);
-                        for (int k = 0; k < pdist.size(); k++)
-                            out.printf(",%f", pdist.get(k));
-                            //System.out.println(ptemp);
+                        printDistr(pPComResRem,i-1);
                         //out.printf(",%f,%f,%f,%f",pdist.get(0),pdist.get(1),pdist.get(2),pdist.get(3)); //(Uppsala)
-                        pdist = pPComar.getData(i);
-                        for (int id=0;id<pdist.size();id++) {
-                            out.printf(",%f",pdist.get(id));
-                            //System.out.println(pdist.get(id));
-                        }
+                        printDistr(pPComar,i);
 
                         out.print(newLine);
                     }
@@ -1861,6 +1806,18 @@ public class FileSaver {
         return true;
     }
     
+    /**
+     * Prints the bins of a distribution history at the given step,
+     * each preceded by a comma.
+     * @param pAr distribution history
+     * @param nid step
+     */
+    private void printDistr(ComArFlt<ArrayList<Float>> pAr, int nid) {
+        int nwidth = GMDistrColumn.getWidth(pAr,nid);
+        for (int id=0;id<nwidth;id++)
+            out.printf(",%f",GMDistrColumn.getValue(pAr,nid,id));
+    }
+
     /**
      * Prints parameters to a file given in exportMain()
      * @param locator Parameter locator
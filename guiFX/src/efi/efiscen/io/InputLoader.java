@@ -20,10 +20,12 @@ import efi.efiscen.com.ComArFlt;
 import efi.efiscen.com.ComFltPipe;
 import efi.efiscen.com.ComFltPipeElement;
 import efi.efiscen.gm.GMCell;
+import efi.efiscen.gm.GMClFunction;
 import efi.efiscen.gm.GMCollection;
 import efi.efiscen.gm.GMEfiscen;
 import efi.efiscen.gm.GMEfiscenario;
 import efi.efiscen.gm.GMGrFunDefault;
+import efi.efiscen.gm.GMKeyFilter;
 import efi.efiscen.gm.GMMatrix;
 import efi.efiscen.gm.GMMatrixInit;
 import efi.efiscen.gm.GMParArray;
@@ -33,10 +35,15 @@ import efi.efiscen.gm.GMSimulation;
 import efi.efiscen.gm.GMSoil;
 import java.io.*;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.ListIterator;
 import java.util.Map;
 import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 
@@ -65,11 +72,18 @@ public class InputLoader {
     private final String eventFileLoadStart = "File reading started";
     private final String eventFileLoadEnd = "File reading finished";
     private final String eventIncorrectData = "Incorrect data";
+    private final String eventCacheLoaded = "Compiled experiment loaded";
+    private final String eventCacheSaved = "Compiled experiment saved";
     private String errorLogName;
     private String eventLogName;
+    private String logId = null;
     private String path;
     private String volClassFile = "";
     private String bioparametersFile = "";
+    private boolean parallelLoad = false;
+    private boolean experimentCache = false;
+    private boolean mappedData = false;
+    private GMKeyFilter matrixFilter = null;
 
     /**
      * Default constructor.
@@ -103,7 +117,7 @@ public class InputLoader {
         int index  = temp.lastIndexOf(File.separator);
         String name = temp.substring(index+1);
         path = path.substring(0, path.lastIndexOf(File.separator)) + File.separator;
-        String id = name + System.currentTimeMillis();
+        String id = logId != null ? logId : name + System.currentTimeMillis();
         errorLogName = id + "errors.txt";
         eventLogName = id + "events.txt";
         System.out.println("Debug:id:"+id);
@@ -118,6 +132,18 @@ public class InputLoader {
         eventLogger = new Logger(eventLogName,logpath+"logs");
         eventLogger.logEntry(eventFileLoadStart, "filename " + sFileIn);
         if(filenames!=null) filenames.put("experiment", sFileIn);
+        File cacheFile = new File(temp + "efc");
+        boolean useCache = experimentCache
+                && (matrixFilter == null || matrixFilter.isEmpty());
+        if (useCache && loadCache(cacheFile, filenames)) {
+            eventLogger.logEntry(eventCacheLoaded, "filename " + cacheFile);
+            eventLogger.logEntry(eventFileLoadEnd, "filename " + sFileIn);
+            numErrors.set(errorLogger.getNumErrorsLogged());
+            eventLogger.close();
+            errorLogger.close();
+            return m_pExperiment;
+        }
+        int nMatrNum = m_nMatrNum;
         LineReader reader = new LineReader(new File(sFileIn), errorLogger);
         try {
             String strLine = reader.readLine();
@@ -219,25 +245,41 @@ public class InputLoader {
             int nSpecies = (int) m_pExperiment.m_mSpecies.size();
             int numMatricesExpected = nRegions*nOwners*nSites*nSpecies;
             
-            String sParName = reader.readLine();
-            if (!loadParameters(path + sParName)) {
-                throw new EFISCENFileParsingException(errorLogger, reader.getFileName());
-            }
-            if(filenames!=null) filenames.put("parameters", sParName);
-            String sBioName = reader.readLine();
-            bioparametersFile = sBioName;
-            if (!loadBioParameters(path + sBioName)) {
-                throw new EFISCENFileParsingException(errorLogger, reader.getFileName());
-            }
-            if(filenames!=null) filenames.put("bioparameters", sBioName);
-            String sDataName = reader.readLine();
-            if (loadData(path, path + sDataName, numMatricesExpected) == null) {
-                throw new EFISCENFileParsingException(errorLogger, reader.getFileName());
-            }
-            if(filenames!=null) filenames.put("matrixdata", sDataName);
-            String sSoilName = reader.readLine();
-            if (!loadSoils(path + sSoilName)) {
-                throw new EFISCENFileParsingException(errorLogger, reader.getFileName());
+            String sParName, sBioName, sDataName, sSoilName;
+            if (parallelLoad) {
+                sParName = reader.readLine();
+                sBioName = reader.readLine();
+                sDataName = reader.readLine();
+                sSoilName = reader.readLine();
+                bioparametersFile = sBioName;
+                loadComponentsParallel(sParName, sBioName, sDataName, sSoilName,
+                        numMatricesExpected, reader.getFileName());
+                if (filenames != null) {
+                    filenames.put("parameters", sParName);
+                    filenames.put("bioparameters", sBioName);
+                    filenames.put("matrixdata", sDataName);
+                }
+            } else {
+                sParName = reader.readLine();
+                if (!loadParameters(path + sParName)) {
+                    throw new EFISCENFileParsingException(errorLogger, reader.getFileName());
+                }
+                if(filenames!=null) filenames.put("parameters", sParName);
+                sBioName = reader.readLine();
+                bioparametersFile = sBioName;
+                if (!loadBioParameters(path + sBioName)) {
+                    throw new EFISCENFileParsingException(errorLogger, reader.getFileName());
+                }
+                if(filenames!=null) filenames.put("bioparameters", sBioName);
+                sDataName = reader.readLine();
+                if (loadData(path, path + sDataName, numMatricesExpected) == null) {
+                    throw new EFISCENFileParsingException(errorLogger, reader.getFileName());
+                }
+                if(filenames!=null) filenames.put("matrixdata", sDataName);
+                sSoilName = reader.readLine();
+                if (!loadSoils(path + sSoilName)) {
+                    throw new EFISCENFileParsingException(errorLogger, reader.getFileName());
+                }
             }
 /*
             String sExtraName = reader.readLine();
@@ -257,10 +299,34 @@ public class InputLoader {
             MatrixParameterReporter mParamReporter =
                     new MatrixParameterReporter();
             mParamReporter.setLogger(errorLogger);
+            mParamReporter.setMatrixFilter(matrixFilter);
             if(!mParamReporter.checkParameters(m_pExperiment))
                 System.err.println("Parameter missing (see errorlog)");
             if(!mParamReporter.checkMatrices(m_pExperiment))
                 System.err.println("Matrix contains undefined identifiers (see errorlog)");
+            if (useCache && errorLogger.getNumErrorsLogged() == 0) {
+                ExperimentCache pImage = new ExperimentCache();
+                pImage.experiment = m_pExperiment;
+                pImage.grFun = m_pGrFun;
+                pImage.curMatrix = m_pCurMatrix;
+                pImage.matrNum = m_nMatrNum - nMatrNum;
+                pImage.matrixIDs = matrixIDs;
+                pImage.volClassFile = volClassFile;
+                pImage.bioparametersFile = bioparametersFile;
+                pImage.filenames = new HashMap<>();
+                pImage.filenames.put("parameters", sParName);
+                pImage.filenames.put("bioparameters", sBioName);
+                pImage.filenames.put("matrixdata", sDataName);
+                ArrayList<String> sources = new ArrayList<>();
+                sources.add(sFileIn);
+                sources.add(path + sParName);
+                sources.add(path + sBioName);
+                sources.add(path + sDataName);
+                sources.add(path + volClassFile);
+                sources.add(path + sSoilName);
+                if (pImage.save(cacheFile, sources, m_scaleAreas))
+                    eventLogger.logEntry(eventCacheSaved, "filename " + cacheFile);
+            }
             reader.close();
             numErrors.set(errorLogger.getNumErrorsLogged());
             eventLogger.close();
@@ -272,6 +338,139 @@ public class InputLoader {
         return null;
     }
 
+    /**
+     * Takes the experiment and the state of the loader from a compiled image
+     * if its source files have not changed.
+     * @param cacheFile file of the image
+     * @param filenames map the names of the input files are added to
+     * @return true if the image was used
+     */
+    private boolean loadCache(File cacheFile, Map<String,String> filenames) {
+        ExperimentCache pImage = ExperimentCache.load(cacheFile, m_scaleAreas);
+        if (pImage == null)
+            return false;
+        m_pExperiment = pImage.experiment;
+        m_pGrFun = pImage.grFun;
+        m_pCurMatrix = pImage.curMatrix;
+        m_nMatrNum += pImage.matrNum;
+        matrixIDs.addAll(pImage.matrixIDs);
+        volClassFile = pImage.volClassFile;
+        bioparametersFile = pImage.bioparametersFile;
+        if (filenames != null)
+            filenames.putAll(pImage.filenames);
+        return true;
+    }
+
+    /**
+     * Loading of one component file of the experiment.
+     */
+    private interface ComponentLoad {
+        boolean load() throws EFISCENException;
+    }
+
+    /**
+     * Wraps a component load to a task. An exception of the load is returned
+     * as the result and thrown again by joinComponent.
+     * @param pLoad component load
+     * @return task
+     */
+    private static Callable<Object> componentTask(ComponentLoad pLoad) {
+        return () -> {
+            try {
+                return pLoad.load();
+            } catch (EFISCENException ex) {
+                return ex;
+            }
+        };
+    }
+
+    /**
+     * Waits for a component task to finish.
+     * @param pTask task of the component, null if it was not started
+     * @return result of the task, null if it failed or was not started
+     */
+    private static Object awaitComponent(Future<Object> pTask) {
+        if (pTask == null)
+            return null;
+        try {
+            return pTask.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException ex) {
+        }
+        return null;
+    }
+
+    /**
+     * Gets the result of a finished component task.
+     * @param pTask task of the component, null if it was not started
+     * @return true if the component was loaded
+     * @throws EFISCENException exception of the load
+     */
+    private static boolean joinComponent(Future<Object> pTask) throws EFISCENException {
+        if (pTask == null)
+            return false;
+        Object result;
+        try {
+            result = pTask.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException)
+                throw (RuntimeException) ex.getCause();
+            if (ex.getCause() instanceof Error)
+                throw (Error) ex.getCause();
+            throw new RuntimeException(ex.getCause());
+        }
+        if (result instanceof EFISCENException)
+            throw (EFISCENException) result;
+        return (Boolean) result;
+    }
+
+    /**
+     * Loads parameters, bioparameters, matrices and soils at the same time.
+     * The matrices need the parameters, so they are loaded once the
+     * parameters are ready. Each component fills its own part of the
+     * experiment, and all loads are finished before the results are checked
+     * in the order of the experiment file, so the first failing component is
+     * reported as in the sequential load.
+     * @param sParName parameter file
+     * @param sBioName bioparameter file
+     * @param sDataName matrix file
+     * @param sSoilName soil file
+     * @param numMatricesExpected number of matrices in the experiment
+     * @param sExpName name of the experiment file for reporting errors
+     * @throws EFISCENException if a component could not be loaded
+     */
+    private void loadComponentsParallel(String sParName, String sBioName,
+            String sDataName, String sSoilName, int numMatricesExpected,
+            String sExpName) throws EFISCENException {
+        ForkJoinPool pPool = new ForkJoinPool(3);
+        try {
+            Future<Object> pPars = pPool.submit(componentTask(
+                    () -> loadParameters(path + sParName)));
+            Future<Object> pBio = pPool.submit(componentTask(
+                    () -> loadBioParameters(path + sBioName)));
+            Future<Object> pSoils = pPool.submit(componentTask(
+                    () -> loadSoils(path + sSoilName)));
+            Future<Object> pData = null;
+            if (Boolean.TRUE.equals(awaitComponent(pPars))) {
+                pData = pPool.submit(componentTask(
+                        () -> loadData(path, path + sDataName, numMatricesExpected) != null));
+            }
+            awaitComponent(pBio);
+            awaitComponent(pSoils);
+            awaitComponent(pData);
+            if (!joinComponent(pPars) || !joinComponent(pBio)
+                    || !joinComponent(pData) || !joinComponent(pSoils)) {
+                throw new EFISCENFileParsingException(errorLogger, sExpName);
+            }
+        } finally {
+            pPool.shutdown();
+        }
+    }
+
     /**
      * Parses a collection from file and adds it to the map of collections. Sends
      * errors to eventLogger.
@@ -332,6 +531,21 @@ public class InputLoader {
      * @throws EFISCENFileNotFoundException If some scenario file is not found.
      */
     public GMScenario loadScenario(String sFileIn,AtomicInteger numErrors) throws EFISCENFileNotFoundException{
+        return loadScenario(sFileIn, numErrors, true);
+    }
+
+    /**
+     * Loads a scenario from given file. The matrix scaling of the scenario
+     * is kept on the scenario and applied to the experiment only if asked,
+     * ensemble members apply it to their own forks of the experiment.
+     * @param sFileIn File path to a scenario file.
+     * @param numErrors Counter for number of errors. Adds number of errors to counter.
+     * @param bScale true to scale the matrices of the experiment
+     * @return If reading was successful, returns a new GMScenario object with data 
+     * read from sFileIn, otherwise null.
+     * @throws EFISCENFileNotFoundException If some scenario file is not found.
+     */
+    public GMScenario loadScenario(String sFileIn,AtomicInteger numErrors,boolean bScale) throws EFISCENFileNotFoundException{
         m_Scenario = new GMScenario();
         eventLogger.logEntry(eventFileLoadStart, "filename " + sFileIn);
         LineReader reader = new LineReader(new File(sFileIn), errorLogger);
@@ -500,6 +714,8 @@ public class InputLoader {
         sInFileName = reader.readLine();
         if (sInFileName!=null && !sInFileName.trim().equals("nofile")) {
             loadScalingFactors(path + sInFileName);
+            if (bScale && m_Scenario.m_plMatrixScaling != null)
+                scaleMatrices();
         } else {
             eventLogger.logEntry(eventOptionalFileMissing, "matrix scaling");
         }
@@ -525,74 +741,61 @@ public class InputLoader {
     }
 
     /**
-     * Loads scaling factor for selected matrices. Experiment collection must be initialized.
+     * Loads scaling factors for selected matrices to the scenario.
      * @param filename input filepath
      * @throws EFISCENFileNotFoundException if file not found
      */
     private void loadScalingFactors(String filename) throws EFISCENFileNotFoundException {
-        try {
-            LineReader reader = new LineReader(new File(filename), errorLogger);
-            eventLogger.logEntry(eventFileLoadStart, "filename " + filename);
-            long cr, co, cst, csp, nHm;
-            String strLine, split[];
+        LineReader reader = new LineReader(new File(filename), errorLogger);
+        eventLogger.logEntry(eventFileLoadStart, "filename " + filename);
+        String strLine, split[];
+        int nHm;
 
-            //header two lines, ignored
-            strLine = reader.readLine();
+        //header two lines, ignored
+        strLine = reader.readLine();
+        strLine = reader.readLine();
+        strLine = reader.readLine();
+        split = strLine.split("\\s+");
+        //number of scaling definitions in the file
+        try {
+            nHm = NumberParser.convertInt(split[0], reader, errorLogger);
+        } catch (NumberFormatException nfe) {
+            errorLogger.logEntry(errorFileParsing, "filename "
+                    + reader.getFileName() + " line " + reader.getLineNumber());
+            return;
+        }
+        ArrayList<GMParArray> plScaling = new ArrayList<>(nHm);
+        for (int i = 0; i < nHm; i++) {
             strLine = reader.readLine();
+            ArrayList<Integer> pIDs = StringParser.getIntArFromStringEx(strLine, ",", 4, reader,
+                    errorLogger);
+            GMParArray pDef = new GMParArray(1);
+            pDef.m_uRegion = pIDs.get(0);
+            pDef.m_uOwner = pIDs.get(1);
+            pDef.m_uSite = pIDs.get(2);
+            pDef.m_uSpecies = pIDs.get(3);
             strLine = reader.readLine();
-            split = strLine.split("\\s+");
-            //number of scaling definitions in the file
+            float scaling = 1f;
             try {
-                nHm = NumberParser.convertInt(split[0], reader, errorLogger);
+                scaling = NumberParser.convertFloat(strLine, reader, errorLogger);
             } catch (NumberFormatException nfe) {
-                errorLogger.logEntry(errorFileParsing, "filename "
-                        + reader.getFileName() + " line " + reader.getLineNumber());
-                return;
-            }
-            for (int i = 0; i < nHm; i++) {
-                strLine = reader.readLine();
-                //split = strLine.split("\\s+");
-                ArrayList<Integer> pIDs = StringParser.getIntArFromStringEx(strLine, ",", 4, reader,
-                        errorLogger);
-                cr = pIDs.get(0);
-                co = pIDs.get(1);
-                cst = pIDs.get(2);
-                csp = pIDs.get(3);
-                strLine = reader.readLine();
-                float scaling = 1f;
-                try {
-                    scaling = NumberParser.convertFloat(strLine, reader, errorLogger);
-                } catch (NumberFormatException nfe) {
-                    errorLogger.logEntry(errorFileParsing, "error on line "
-                            + reader.getLineNumber() + " in file " + reader.getFileName());
-                }
-                long key = (cr << 24) + (co << 16) + (cst << 8) + csp;
-                for (long r : m_pExperiment.m_mRegions.keySet()) {
-                    for (long o : m_pExperiment.m_mOwners.keySet()) {
-                        for (long st : m_pExperiment.m_mSites.keySet()) {
-                            for (long sp : m_pExperiment.m_mSpecies.keySet()) {
-                                long cKey = (r << 24) + (o << 16) + (st << 8) + sp;
-                                long uKey = cKey;
-                                if (cr == 0)  cKey = cKey & ~0xFF000000;
-                                if (co == 0)  cKey = cKey & ~0xFF0000;
-                                if (cst == 0) cKey = cKey & ~0xFF00;
-                                if (csp == 0) cKey = cKey & ~0xFF;
-                                if(key == cKey)
-                                    scaleMatrix(uKey, scaling);
-                            }
-                        }
-                    }
-                }
+                errorLogger.logEntry(errorFileParsing, "error on line "
+                        + reader.getLineNumber() + " in file " + reader.getFileName());
             }
-    //        float grStock = 0f;
-    //        for(long key : m_pExperiment.m_mTables.keySet()) {
-    //            GMMatrix pTable = m_pExperiment.m_mTables.get(key);
-    //            grStock += pTable.getValue();
-    //        }
-    //        m_pExperiment.m_afStock.setData(0, grStock);
-            m_pExperiment.resetHistory();
-            reader.close();
-            eventLogger.logEntry(eventFileLoadEnd, "filename " + filename);
+            pDef.m_Vals.add(scaling);
+            plScaling.add(pDef);
+        }
+        m_Scenario.m_plMatrixScaling = plScaling;
+        reader.close();
+        eventLogger.logEntry(eventFileLoadEnd, "filename " + filename);
+    }
+
+    /**
+     * Scales the matrices of the experiment as given by the loaded scenario.
+     */
+    private void scaleMatrices() {
+        try {
+            m_pExperiment.scaleMatrices(m_Scenario.m_plMatrixScaling);
         } catch (GMParLocator.GMParLocatorException ex) {
             System.err.println(ex);
         }
@@ -622,142 +825,6 @@ public class InputLoader {
         return sim;
     }
 
-    /**
-     * Scales a specified matrix from current experiment.
-     * @param key Key to the matrix.
-     * @param scaling 
-     */
-    private void scaleMatrix(long key, float scaling) {
-        GMMatrix pTable = m_pExperiment.m_mTables.get(key);
-        if (pTable != null) {
-            try {
-                float ageh, agel;
-                // A little bit more complicated
-                GMParArray parAr;
-                // management 
-                float minageNetti, maxageNetti;
-                float shiftNetti;
-                shiftNetti = 0;
-                parAr = m_pExperiment.m_plHarvestAge.getParameter(pTable.m_wID);
-                if (parAr != null) {
-                    if (parAr.m_nSize == 6) {
-                        // 
-                        minageNetti = parAr.m_Vals.get(0);
-                        maxageNetti = parAr.m_Vals.get(1);
-                        //shiftNetti = 0.15*minageNetti;
-                        //if (shiftNetti<5)
-                        //    shiftNetti = 5;
-                        minageNetti -= shiftNetti;
-                        maxageNetti -= shiftNetti;
-                        float abage = (float) ((1.0 - parAr.m_Vals.get(5)) * parAr.m_Vals.get(0));
-                        pTable.setFellingsRegimes(minageNetti, maxageNetti, parAr.m_Vals.get(2),
-                                parAr.m_Vals.get(3), parAr.m_Vals.get(4), abage);
-                        //
-                        // parAr.m_Vals.get(3),parAr.m_Vals.get(4),abage);
-                        // parAr.m_Vals.get(3),parAr.m_Vals.get(4),abage);
-
-                    } else {
-                        ageh = parAr.m_Vals.get(0);
-                        pTable.setFellingsSimple(ageh);
-                    }
-                } else {
-                    pTable.setFellingsSimple(50.0f);
-                }
-                // And of simple approach
-                // Now setting Thinnings ranges simple approach first!
-                agel = m_pExperiment.m_plThinRange.getParameterValue(pTable.m_wID, 0);
-                ageh = m_pExperiment.m_plThinRange.getParameterValue(pTable.m_wID, 1);
-                // Just for Netti!
-                agel -= shiftNetti;
-                if (agel < 5.) {
-                    agel = 5.0f;
-                }
-                ageh -= shiftNetti;
-                //  
-                pTable.setThinningsSimple(agel, ageh);
-                pTable.scaleArea(scaling);
-                //now we have to reinit history for step 0!
-                ageh = m_pExperiment.m_plThHistory.getParameterValue(pTable.m_wID, 0);
-                pTable.resetThinHistory(ageh,scaling);
-    //            //Area
-    //            ComArFlt data = m_pExperiment.m_mafArea.get(key);
-    //            if (data != null)
-    //                data.setData(0, pTable.getArea());
-    //            //Growing stock
-    //            data = m_pExperiment.m_mafGrStock.get(key);
-    //            if (data != null)
-    //               data.setData(0, pTable.getValue());
-    //            //Biomass
-    //            GMCarbonAlloc pCAl = new GMCarbonAlloc();
-    //            pCAl.setCa_cstem(0.0);
-    //            pCAl.setCa_cbranch(0.0);
-    //            pCAl.setCa_ccroots(0.0);
-    //            pCAl.setCa_cfroots(0.0);
-    //            pCAl.setCa_cleaves(0.0);
-    //            pCAl.setCa_ccont(m_pExperiment.m_plCcont.getParameterValue(key,0));
-    //            pCAl.setCa_dns(m_pExperiment.m_plWoodDens.getParameterValue(key,0));
-    //            pCAl.setCa_nsize(m_pExperiment.m_plCompXvals.getParameter(key).m_nSize);
-    //            pCAl.setCa_pxvals(m_pExperiment.m_plCompXvals.getParameter(key).m_Vals);
-    //            pCAl.setCa_pstem(m_pExperiment.m_plStemShare.getParameter(key).m_Vals);
-    //            pCAl.setCa_pbranch(m_pExperiment.m_plBranchShare.getParameter(key).m_Vals);
-    //            pCAl.setCa_pcroots(m_pExperiment.m_plCrootsShare.getParameter(key).m_Vals);
-    //            pCAl.setCa_pfroots(m_pExperiment.m_plFrootsShare.getParameter(key).m_Vals);
-    //            pCAl.setCa_pleaves(m_pExperiment.m_plLeavesShare.getParameter(key).m_Vals);
-    //            // Compartments
-    //            ArrayList<Float> pvalSt = new ArrayList<>(16);
-    //            for (int i=0;i<16;i++) 
-    //                pvalSt.add(0.0f);
-    //            ArrayList<Float> pvalLv = new ArrayList<>(16);
-    //            for (int i=0;i<16;i++)
-    //                pvalLv.add(0.0f);
-    //            ArrayList<Float> pvalBr = new ArrayList<>(16);
-    //            for (int i=0;i<16;i++)
-    //                pvalBr.add(0.0f);
-    //            ArrayList<Float> pvalCr = new ArrayList<>(16);
-    //            for (int i=0;i<16;i++)
-    //                pvalCr.add(0.0f);
-    //            ArrayList<Float> pvalFr = new ArrayList<>(16);
-    //            for (int i=0;i<16;i++)
-    //                pvalFr.add(0.0f);
-    //            float val = pTable.getBiomassDistr(pCAl,m_pExperiment.m_pDistrLims,pvalSt,pvalBr,pvalLv,pvalCr,pvalFr,16);
-    //            //total biomass
-    //            data = m_pExperiment.m_mafBiomass.get(key);
-    //            if (data != null) {
-    //                data.setData(0,val);
-    //            }
-    //            //Compartments
-    //
-    //            data = m_pExperiment.m_mafCStem.get(key);
-    //            if (data != null) {
-    //                data.setData(0,pvalSt);
-    //                
-    //            }
-    //            data = m_pExperiment.m_mafCLeaves.get(key);
-    //            if (data != null) {
-    //                data.setData(0,pvalLv);
-    //                
-    //            }
-    //            data = m_pExperiment.m_mafCBranches.get(key);
-    //            if (data != null) {
-    //                data.setData(0,pvalBr);
-    //                
-    //            }
-    //            data = m_pExperiment.m_mafCCRoots.get(key);
-    //            if (data != null) {
-    //                data.setData(0,pvalCr);
-    //                
-    //            }
-    //            data = m_pExperiment.m_mafCFRoots.get(key);
-    //            if (data != null) {
-    //                data.setData(0,pvalFr);
-    //                
-    //            }
-            } catch (GMParLocator.GMParLocatorException ex) {
-                System.err.println(ex);
-            }
-        }
-    }
-
     /**
      * Log bioallocation error. Sends bioallocation errormessage to errorlogger.
      * @param reader Reader that was used to read bioallocation data.
@@ -1458,18 +1525,17 @@ public class InputLoader {
         }
         int extractedEntries = 0;
         TreeSet<Long> idSet = new TreeSet<>();
+        LineTokenizer tok = new LineTokenizer(reader, errorLogger);
         for (int i = 0; i < nHm; i++) {
-            strLine = reader.readLine();
             // Region_owner_site_species reading and make ID for Soil
-            split = strLine.split("\\s+");
-            if (split == null || split.length < 4) {
+            if (!reader.nextLine() || tok.reset(reader.getLine()).countTokens() < 4) {
                 break;
             }
             try {
-                cr = NumberParser.convertInt(split[0], reader, errorLogger);
-                co = NumberParser.convertInt(split[1], reader, errorLogger);
-                cst = NumberParser.convertInt(split[2], reader, errorLogger);
-                csp = NumberParser.convertInt(split[3], reader, errorLogger);
+                cr = tok.nextInt();
+                co = tok.nextInt();
+                cst = tok.nextInt();
+                csp = tok.nextInt();
             } catch (NumberFormatException nfe) {
                 errorLogger.logEntry(errorFileParsing, "error on line "
                         + reader.getLineNumber() + " in file " + reader.getFileName());
@@ -1494,24 +1560,32 @@ public class InputLoader {
             ulRes = ulRes + (ulID << 8);
             ulID = (long) csp;
             ulRes = ulRes + ulID;
+            if (matrixFilter != null && !matrixFilter.overlaps(ulRes)) {
+                // The five lines of the soil are skipped unparsed
+                int nskip = 0;
+                while (nskip < 5 && reader.nextLine())
+                    nskip++;
+                if (nskip < 5)
+                    break;
+                extractedEntries++;
+                continue;
+            }
             // Soil object construction
 
             // Now fill the structure
-            strLine = reader.readLine();
             double fcwl, ffwl, fnwl, fsol, fcel, flig, fhm1, fhm2;
-            split = strLine.split("\\s+");
-            if (split == null || split.length < 8) {
+            if (!reader.nextLine() || tok.reset(reader.getLine()).countTokens() < 8) {
                 break;
             }
             try {
-                fcwl = NumberParser.convertDouble(split[0], reader, errorLogger);
-                ffwl = NumberParser.convertDouble(split[1], reader, errorLogger);
-                fnwl = NumberParser.convertDouble(split[2], reader, errorLogger);
-                fsol = NumberParser.convertDouble(split[3], reader, errorLogger);
-                fcel = NumberParser.convertDouble(split[4], reader, errorLogger);
-                flig = NumberParser.convertDouble(split[5], reader, errorLogger);
-                fhm1 = NumberParser.convertDouble(split[6], reader, errorLogger);
-                fhm2 = NumberParser.convertDouble(split[7], reader, errorLogger);
+                fcwl = tok.nextDouble();
+                ffwl = tok.nextDouble();
+                fnwl = tok.nextDouble();
+                fsol = tok.nextDouble();
+                fcel = tok.nextDouble();
+                flig = tok.nextDouble();
+                fhm1 = tok.nextDouble();
+                fhm2 = tok.nextDouble();
             } catch (NumberFormatException nfe) {
                 errorLogger.logEntry(errorFileParsing, "error on line "
                         + reader.getLineNumber() + " in file " + reader.getFileName());
@@ -1541,20 +1615,18 @@ public class InputLoader {
                 si_hm2 *= m_scaleAreas;
             }
             // End scaling
-            strLine = reader.readLine();
-            split = strLine.split("\\s+");
-            if (split == null || split.length < 8) {
+            if (!reader.nextLine() || tok.reset(reader.getLine()).countTokens() < 8) {
                 break;
             }
             try {
-                fcwl = NumberParser.convertDouble(split[0], reader, errorLogger);
-                ffwl = NumberParser.convertDouble(split[1], reader, errorLogger);
-                fnwl = NumberParser.convertDouble(split[2], reader, errorLogger);
-                fsol = NumberParser.convertDouble(split[3], reader, errorLogger);
-                fcel = NumberParser.convertDouble(split[4], reader, errorLogger);
-                flig = NumberParser.convertDouble(split[5], reader, errorLogger);
-                fhm1 = NumberParser.convertDouble(split[6], reader, errorLogger);
-                fhm2 = NumberParser.convertDouble(split[7], reader, errorLogger);
+                fcwl = tok.nextDouble();
+                ffwl = tok.nextDouble();
+                fnwl = tok.nextDouble();
+                fsol = tok.nextDouble();
+                fcel = tok.nextDouble();
+                flig = tok.nextDouble();
+                fhm1 = tok.nextDouble();
+                fhm2 = tok.nextDouble();
             } catch (NumberFormatException nfe) {
                 errorLogger.logEntry(errorFileParsing, "error on line "
                         + reader.getLineNumber() + " in file " + reader.getFileName());
@@ -1571,16 +1643,14 @@ public class InputLoader {
             si_khm1 = fhm1;
             si_khm2 = fhm2;
 
-            strLine = reader.readLine();
-            split = strLine.split("\\s+");
-            if (split == null || split.length < 4) {
+            if (!reader.nextLine() || tok.reset(reader.getLine()).countTokens() < 4) {
                 break;
             }
             try {
-                fsol = NumberParser.convertDouble(split[0], reader, errorLogger);
-                fcel = NumberParser.convertDouble(split[1], reader, errorLogger);
-                flig = NumberParser.convertDouble(split[2], reader, errorLogger);
-                fhm1 = NumberParser.convertDouble(split[3], reader, errorLogger);
+                fsol = tok.nextDouble();
+                fcel = tok.nextDouble();
+                flig = tok.nextDouble();
+                fhm1 = tok.nextDouble();
             } catch (NumberFormatException nfe) {
                 errorLogger.logEntry(errorFileParsing, "error on line "
                         + reader.getLineNumber() + " in file " + reader.getFileName());
@@ -1592,18 +1662,16 @@ public class InputLoader {
             si_pcel = fcel;
             si_plig = flig;
             si_phum = fhm1;
-            strLine = reader.readLine();
-            split = strLine.split("\\s+");
-            if (split == null || split.length < 6) {
+            if (!reader.nextLine() || tok.reset(reader.getLine()).countTokens() < 6) {
                 break;
             }
             try {
-                fcwl = NumberParser.convertDouble(split[0], reader, errorLogger);
-                ffwl = NumberParser.convertDouble(split[1], reader, errorLogger);
-                fnwl = NumberParser.convertDouble(split[2], reader, errorLogger);
-                fsol = NumberParser.convertDouble(split[3], reader, errorLogger);
-                fcel = NumberParser.convertDouble(split[4], reader, errorLogger);
-                flig = NumberParser.convertDouble(split[5], reader, errorLogger);
+                fcwl = tok.nextDouble();
+                ffwl = tok.nextDouble();
+                fnwl = tok.nextDouble();
+                fsol = tok.nextDouble();
+                fcel = tok.nextDouble();
+                flig = tok.nextDouble();
             } catch (NumberFormatException nfe) {
                 errorLogger.logEntry(errorFileParsing, "error on line "
                         + reader.getLineNumber() + " in file " + reader.getFileName());
@@ -1617,14 +1685,12 @@ public class InputLoader {
             si_fw2sol = fsol;
             si_nw2cel = fcel;
             si_nw2sol = flig;
-            strLine = reader.readLine();
-            split = strLine.split("\\s+");
-            if (split == null || split.length < 2) {
+            if (!reader.nextLine() || tok.reset(reader.getLine()).countTokens() < 2) {
                 break;
             }
             try {
-                fhm1 = NumberParser.convertDouble(split[0], reader, errorLogger);
-                fhm2 = NumberParser.convertDouble(split[1], reader, errorLogger);
+                fhm1 = tok.nextDouble();
+                fhm2 = tok.nextDouble();
             } catch (NumberFormatException nfe) {
                 errorLogger.logEntry(errorFileParsing, "error on line "
                         + reader.getLineNumber() + " in file " + reader.getFileName());
@@ -1694,84 +1760,84 @@ public class InputLoader {
         GMParLocator addPar;
 
         // Number of age classes
-        addPar = addParsedParameter(reader, m_pExperiment.m_plAgeNum);
+        addPar = addParsedParameter(reader, m_pExperiment.m_plAgeNum, matrixFilter);
         if (addPar != null) {
             m_pExperiment.m_plAgeNum = addPar;
         } else {
             return false;
         }
         // Size of age classes
-        addPar = addParsedParameter(reader, m_pExperiment.m_plAgeClasses);
+        addPar = addParsedParameter(reader, m_pExperiment.m_plAgeClasses, matrixFilter);
         if (addPar != null) {
             m_pExperiment.m_plAgeClasses = addPar;
         } else {
             return false;
         }
         // Number of volume classes
-        addPar = addParsedParameter(reader, m_pExperiment.m_plVolNum);
+        addPar = addParsedParameter(reader, m_pExperiment.m_plVolNum, null);
         if (addPar != null) {
             m_pExperiment.m_plVolNum = addPar;
         } else {
             return false;
         }
         // Size of volume classes
-        addPar = addParsedParameter(reader, m_pExperiment.m_plVolClasses);
+        addPar = addParsedParameter(reader, m_pExperiment.m_plVolClasses, matrixFilter);
         if (addPar != null) {
             m_pExperiment.m_plVolClasses = addPar;
         } else {
             return false;
         }
         // Coefficients for Growing Function
-        addPar = addParsedParameter(reader, m_pExperiment.m_plGrCoeff);
+        addPar = addParsedParameter(reader, m_pExperiment.m_plGrCoeff, matrixFilter);
         if (addPar != null) {
             m_pExperiment.m_plGrCoeff = addPar;
         } else {
             return false;
         }
         // Young forest coeffs
-        addPar = addParsedParameter(reader, m_pExperiment.m_plYoungCoeff);
+        addPar = addParsedParameter(reader, m_pExperiment.m_plYoungCoeff, matrixFilter);
         if (addPar != null) {
             m_pExperiment.m_plYoungCoeff = addPar;
         } else {
             return false;
         }
         // Regrow after thinnings coeff
-        addPar = addParsedParameter(reader, m_pExperiment.m_plRegrowCoeff);
+        addPar = addParsedParameter(reader, m_pExperiment.m_plRegrowCoeff, matrixFilter);
         if (addPar != null) {
             m_pExperiment.m_plRegrowCoeff = addPar;
         } else {
             return false;
         }
         // Age of Harvest
-        addPar = addParsedParameter(reader, m_pExperiment.m_plHarvestAge);
+        addPar = addParsedParameter(reader, m_pExperiment.m_plHarvestAge, matrixFilter);
         if (addPar != null) {
             m_pExperiment.m_plHarvestAge = addPar;
         } else {
             return false;
         }
         // Ages of Thinnings
-        addPar = addParsedParameter(reader, m_pExperiment.m_plThinRange);
+        addPar = addParsedParameter(reader, m_pExperiment.m_plThinRange, matrixFilter);
         if (addPar != null) {
             m_pExperiment.m_plThinRange = addPar;
         } else {
             return false;
         }
         // Beta coeff
-        addPar = addParsedParameter(reader, m_pExperiment.m_plBeta);
+        addPar = addParsedParameter(reader, m_pExperiment.m_plBeta, matrixFilter);
         if (addPar != null) {
             m_pExperiment.m_plBeta = addPar;
         } else {
             return false;
         }
         // Age Limits
-        addPar = addParsedParameter(reader, m_pExperiment.m_plAgeLims);
+        addPar = addParsedParameter(reader, m_pExperiment.m_plAgeLims, matrixFilter);
         if (addPar != null) {
             m_pExperiment.m_plAgeLims = addPar;
         } else {
             return false;
         }
         // Volume Series
-        addPar = addParsedParameter(reader, m_pExperiment.m_plVolSers);
+        addPar = addParsedParameter(reader, m_pExperiment.m_plVolSers, matrixFilter);
         if (addPar != null) {
             m_pExperiment.m_plVolSers = addPar;
         } else {
@@ -1779,21 +1845,21 @@ public class InputLoader {
         }
         // Natural mortality!
         // Age limits
-        addPar = addParsedParameter(reader, m_pExperiment.m_plMortRateXvals);
+        addPar = addParsedParameter(reader, m_pExperiment.m_plMortRateXvals, matrixFilter);
         if (addPar != null) {
             m_pExperiment.m_plMortRateXvals = addPar;
         } else {
             return false;
         }
         // Rates itself
-        addPar = addParsedParameter(reader, m_pExperiment.m_plMortRate);
+        addPar = addParsedParameter(reader, m_pExperiment.m_plMortRate, matrixFilter);
         if (addPar != null) {
             m_pExperiment.m_plMortRate = addPar;
         } else {
             return false;
         }
         // Decay rates
-        addPar = addParsedParameter(reader, m_pExperiment.m_plDeadWoodDrate);
+        addPar = addParsedParameter(reader, m_pExperiment.m_plDeadWoodDrate, matrixFilter);
         if (addPar != null) {
             m_pExperiment.m_plDeadWoodDrate = addPar;
         } else {
@@ -1847,6 +1913,11 @@ public class InputLoader {
                 }
             }
             strLine = reader.readLine();
+            if (matrixFilter != null && !matrixFilter.overlaps(((long) cr << 24)
+                    + (co << 16) + (cst << 8) + csp)) {
+                numDataExtracted++;
+                continue;
+            }
             split = strLine.split("\\s+");
             if (split == null) // || split.length < 1
             {
@@ -1906,10 +1977,13 @@ public class InputLoader {
      * parameters.
      * @param reader linereader which reads lines from the file
      * @param par parlocator in which the parameters are added
+     * @param filter filter of the loaded matrices, parameters which cannot
+     * apply to them are skipped, null for all parameters
      * @return GMParLocator containing the new parameters or null if unsuccesful
      * @throws EFISCENFileParsingException if file reading was unsuccesfull
      */
-    private GMParLocator addParsedParameter(LineReader reader, GMParLocator par) throws EFISCENFileParsingException {
+    private GMParLocator addParsedParameter(LineReader reader, GMParLocator par,
+            GMKeyFilter filter) throws EFISCENFileParsingException {
         String split[];
         String sname, strLine;
         int cr = 0, co = 0, cst = 0, csp = 0;
@@ -1961,6 +2035,10 @@ public class InputLoader {
                 }
             }
             strLine = reader.readLine();
+            if (filter != null && !filter.overlaps(((long) cr << 24)
+                    + (co << 16) + (cst << 8) + csp)) {
+                continue;
+            }
             split = strLine.split("\\s+");
             if (split == null) // || split.length < 1
             {
@@ -2343,6 +2421,13 @@ public class InputLoader {
             return false;
         }
         m_pExperiment.setSoilClimateVars(beta, gamma, tvar, pvar);
+        // Kept also with the scenario for experiments forked before loading it
+        GMClFunction pCfun = new GMClFunction();
+        pCfun.setCf_beta(beta);
+        pCfun.setCf_gamma(gamma);
+        pCfun.setCf_tav(tvar);
+        pCfun.setCf_di(pvar);
+        m_Scenario.m_pSoilClFunction = pCfun;
         // Scenario starts here
         strLine = reader.readLineSimple(); // Explanation string
         strLine = reader.readLineSimple();
@@ -2792,13 +2877,12 @@ public class InputLoader {
     public GMMatrix loadData(String path, String sFileIn, int numMatricesExpected)
             throws EFISCENException {
         eventLogger.logEntry(eventFileLoadStart, "filename " + sFileIn);
-        LineReader reader = new LineReader(new File(sFileIn), errorLogger);
+        LineReader reader = new LineReader(new File(sFileIn), errorLogger, mappedData);
         try {
             if (m_pExperiment == null) {
                 throw new EFISCENFileParsingException(errorLogger, reader.getFileName());
             }
             String strLine;
-            String[] splitStr;
             strLine = reader.readLine();
             volClassFile = strLine;
             GMParLocator pplVolLims = loadYLimits(path + strLine);
@@ -2818,19 +2902,19 @@ public class InputLoader {
                         + ".efs file.");
             }
             TreeSet<Long> idSet = new TreeSet<>();
+            LineTokenizer tok = new LineTokenizer(reader, errorLogger);
             for (int i = 0; i < nHowMany; i++) {
-                strLine = reader.readLine();
                 long cr = 0, co = 0, cst = 0, csp = 0;
-                splitStr = strLine.trim().split("\\s+");
-                if (splitStr == null || splitStr.length < 4) {
+                if (!reader.nextLine()
+                        || tok.reset(reader.getLine()).countTokens() < 4) {
                     break;
                 }
 
                 try {
-                    cr = NumberParser.convertInt(splitStr[0], reader, errorLogger);
-                    co = NumberParser.convertInt(splitStr[1], reader, errorLogger);
-                    cst = NumberParser.convertInt(splitStr[2], reader, errorLogger);
-                    csp = NumberParser.convertInt(splitStr[3], reader, errorLogger);
+                    cr = tok.nextInt();
+                    co = tok.nextInt();
+                    cst = tok.nextInt();
+                    csp = tok.nextInt();
                 } catch (NumberFormatException nfe) {
                     reportParsingError(reader);
 
@@ -2846,6 +2930,17 @@ public class InputLoader {
                                 + reader.getLineNumber());
                     }
                 }
+                long ulKey = (cr << 24) + (co << 16) + (cst << 8) + csp;
+                if (matrixFilter != null && !matrixFilter.matches(ulKey)) {
+                    // The zero class and the area lines are skipped unparsed
+                    int nlines = 1 + (int) m_pExperiment.m_plVolNum.getParameterValue(ulKey, 0);
+                    int nskip = 0;
+                    while (nskip < nlines && reader.nextLine())
+                        nskip++;
+                    if (nskip < nlines)
+                        break;
+                    continue;
+                }
 
                 //strLine = reader.readLine();
                 int na, nv;
@@ -2853,13 +2948,11 @@ public class InputLoader {
                 ArrayList<Float> pagew; // Modification for non regular by ages!
 
                 float zclass = 0.0f;
-                strLine = reader.readLine();
-                splitStr = strLine.trim().split("\\s+");
-                if (splitStr == null) {
+                if (!reader.nextLine()) {
                     break;
                 }
                 try {
-                    zclass = NumberParser.convertFloat(splitStr[0], reader, errorLogger);
+                    zclass = tok.reset(reader.getLine()).nextFloat();
                 } catch (NumberFormatException nfe) {
                     reportParsingError(reader);
 
@@ -2955,18 +3048,23 @@ public class InputLoader {
 
                 pMatr.addToBare(zclass);
 
+                float[] fdata = new float[na];
                 for (int ii = 0; ii < nv; ii++) {
-                    strLine = reader.readLine();
-                    String sDataString;
-                    // TODO: make sure this works
-                    sDataString = String.format("%d %s", na, strLine);
-                    ArrayList<Float> fdata;
-                    fdata = StringParser.getFlArFromString(sDataString, "\\s+", reader,
-                            errorLogger);
+                    reader.nextLine();
+                    tok.reset(reader.getLine());
+                    int nread = 0;
+                    try {
+                        while (nread < na && tok.hasNext()) {
+                            fdata[nread++] = tok.nextFloat();
+                        }
+                    } catch (NumberFormatException nfe) {
+                        reportParsingError(reader);
+                        return null;
+                    }
                     //check the fdata size to avoid OutOfBounds exception
-                    if (fdata.size() < na) {
+                    if (nread < na) {
                             errorLogger.logEntry(errorFileParsing,
-                                    " Wrong number of entries for area " + fdata.size() + "\n in .aer file!");
+                                    " Wrong number of entries for area " + nread + "\n in .aer file!");
                             errorLogger.logEntry(errorFileParsing, "Check data!"
                                     + "\nMatrix: \nReg " + cr + "\nOwner " + co + "\nSite "
                                     + cst + "\nSpec " + csp + "\n");
@@ -2974,7 +3072,7 @@ public class InputLoader {
                         }
                     int ncurind = 0;
                     for (int j = 0; j < na; j++) {
-                        float ar = fdata.get(j);
+                        float ar = fdata[j];
                         if (ar < 0) {
                             errorLogger.logEntry(errorFileParsing,
                                     " Negative Area! " + ar + "\nWill set to zero!");
@@ -3265,6 +3363,7 @@ public class InputLoader {
                         
                         pTable.m_Cells.add(pCell);
                     }
+                    pTable.packCells();
                   
                     pTable.m_DeadWood = dis.readFloat();
                     pTable.m_BareArea = dis.readFloat();
@@ -3630,7 +3729,8 @@ public class InputLoader {
                 m_pExperiment.addSoil(pSol);
             }
             
-            ComArFlt comAr;
+            ComArFlt<Float> comAr;
+            ComArFlt<Double> comArDbl;
             
             for (long key : m_pExperiment.m_mSoils.keySet()) {
                 comAr = readFlValue(dis);
@@ -3663,17 +3763,17 @@ public class InputLoader {
                 comAr = readFlValue(dis);
                 m_pExperiment.m_mafCSoil.put(key, comAr);
 
-                comAr = readDblValue(dis);
-                m_pExperiment.m_mafSoilCwlIn.put(key, comAr);
+                comArDbl = readDblValue(dis);
+                m_pExperiment.m_mafSoilCwlIn.put(key, comArDbl);
 
-                comAr = readDblValue(dis);
-                m_pExperiment.m_mafSoilFwlIn.put(key, comAr);
+                comArDbl = readDblValue(dis);
+                m_pExperiment.m_mafSoilFwlIn.put(key, comArDbl);
 
-                comAr = readDblValue(dis);
-                m_pExperiment.m_mafSoilNwlIn.put(key, comAr);
+                comArDbl = readDblValue(dis);
+                m_pExperiment.m_mafSoilNwlIn.put(key, comArDbl);
 
-                comAr = readDblValue(dis);
-                m_pExperiment.m_mafSoilInOut.put(key, comAr);             
+                comArDbl = readDblValue(dis);
+                m_pExperiment.m_mafSoilInOut.put(key, comArDbl);             
                 
             }
             
@@ -3715,8 +3815,10 @@ public class InputLoader {
      * @param dis DataInputStream for floats
      * @return Object containing the read floats
      */
-    private ComArFlt readFlValue(DataInputStream dis) {
-        ComArFlt comAr = new ComArFlt();
+    @SuppressWarnings("unchecked")
+    private <E> ComArFlt<E> readFlValue(DataInputStream dis) {
+        // Element type (value or list of values) is given by the stored data
+        ComArFlt<Object> comAr = new ComArFlt<>();
         try {
             // size of comAr
             int sizeComAr = dis.readInt();
@@ -3735,7 +3837,7 @@ public class InputLoader {
             java.util.logging.Logger.getLogger(InputLoader.class.getName()).log(Level.SEVERE, null, ex);
         }
         
-        return comAr;
+        return (ComArFlt<E>)comAr;
     }
     
     /**
@@ -3778,8 +3880,10 @@ public class InputLoader {
      * @param dis DataInputSream for doubles
      * @return Object containing read doubles
      */
-    private ComArFlt readDblValue(DataInputStream dis) {
-        ComArFlt comAr = new ComArFlt();
+    @SuppressWarnings("unchecked")
+    private <E> ComArFlt<E> readDblValue(DataInputStream dis) {
+        // Element type (value or list of values) is given by the stored data
+        ComArFlt<Object> comAr = new ComArFlt<>();
         try {
             // size of comAr
             int sizeComAr = dis.readInt();
@@ -3798,7 +3902,7 @@ public class InputLoader {
             java.util.logging.Logger.getLogger(InputLoader.class.getName()).log(Level.SEVERE, null, ex);
         }
         
-        return comAr;
+        return (ComArFlt<E>)comAr;
     }
     
     /**
@@ -4116,6 +4220,91 @@ public class InputLoader {
         return bioparametersFile;
     }
     
+    /**
+     * Sets the filter of the matrices loaded. Matrices not matching it are
+     * skipped when loading the experiment, as are the soils and parameters
+     * of the experiment which cannot apply to the loaded matrices. The number
+     * of volume classes is kept for all matrices, as it is needed for
+     * skipping them. A compiled image of the experiment is not used with a
+     * filter.
+     * @param matrixFilter filter of the matrices, null for all matrices
+     */
+    public void setMatrixFilter(GMKeyFilter matrixFilter) {
+        this.matrixFilter = matrixFilter;
+    }
+
+    /**
+     * Get the filter of the matrices loaded.
+     * @return filter of the matrices, null for all matrices
+     */
+    public GMKeyFilter getMatrixFilter() {
+        return matrixFilter;
+    }
+
+    /**
+     * Sets whether the matrix file is memory-mapped and parsed from the
+     * mapped bytes. The mapping is released only when it is garbage
+     * collected, which keeps the file locked on some platforms.
+     * @param mappedData true for mapping the matrix file
+     */
+    public void setMappedData(boolean mappedData) {
+        this.mappedData = mappedData;
+    }
+
+    /**
+     * Tells whether the matrix file is memory-mapped.
+     * @return true if the matrix file is mapped
+     */
+    public boolean isMappedData() {
+        return mappedData;
+    }
+
+    /**
+     * Sets whether a compiled image of the experiment is kept next to the
+     * experiment file, with the extension .efc. An experiment loaded without
+     * errors is saved to the image and later loads take the experiment from
+     * the image while the source files are unchanged.
+     * @param experimentCache true for keeping the image
+     */
+    public void setExperimentCache(boolean experimentCache) {
+        this.experimentCache = experimentCache;
+    }
+
+    /**
+     * Tells whether a compiled image of the experiment is kept.
+     * @return true if the image is kept
+     */
+    public boolean isExperimentCache() {
+        return experimentCache;
+    }
+
+    /**
+     * Sets whether the parameters, bioparameters, matrices and soils of an
+     * experiment are loaded in parallel.
+     * @param parallelLoad true for parallel loading
+     */
+    public void setParallelLoad(boolean parallelLoad) {
+        this.parallelLoad = parallelLoad;
+    }
+
+    /**
+     * Tells whether the component files of an experiment are loaded in
+     * parallel.
+     * @return true for parallel loading
+     */
+    public boolean isParallelLoad() {
+        return parallelLoad;
+    }
+
+    /**
+     * Sets the id the logs of the experiment are named by. By default the
+     * id is the name of the experiment followed by the time of loading.
+     * @param logId id, null for the default
+     */
+    public void setLogId(String logId) {
+        this.logId = logId;
+    }
+
     /**
      * Getter for errorlog name
      * @return name of errorlog 
@@ -17,27 +17,48 @@
 package efi.efiscen.io;
 
 import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
 import java.util.logging.Level;
 
 /**
  * Helper class for reading the input from files. Logs errors to a log file
  * with a Logger object. Can be used to read every line in a file or all the lines
- * that are given via constructor that don't begin with ^, #, . or * symbol. 
+ * that are given via constructor that don't begin with # symbol.
  * Has a method too for reading all the given lines via parameter that don't
- * begin with ^, #, . or * symbol.
+ * begin with # symbol. The lines are read into a reused character buffer,
+ * {@link #nextLine()} and {@link #getLine()} give access to the line without
+ * creating a string for it. A file can also be memory-mapped, then the
+ * lines are copied straight from the mapped bytes while they are ASCII.
  * 
  */
 public class LineReader {
 
     private File file;
-    private BufferedReader input;
-    private FileReader fr;
+    private Reader fr;
+    private FileChannel channel;
+    private MappedByteBuffer mapped;
+    private int mapPos = 0;
     private int line = 0;
     private Logger logger;
     private final String lineReaderError = "Line reader error";
     private final String fileNotFound = "File not found";
     private final String prematureEOF = "End of file reached";
 
+    private final char[] buf = new char[8192];
+    private int bufPos = 0;
+    private int bufLen = 0;
+    private boolean skipLF = false;
+    private char[] lineBuf = new char[256];
+    private int lineLen = 0;
+    private int lineStart = 0;
+    private int lineEnd = 0;
+    private final LineView lineView = new LineView();
+
+    // ASCII bytes are read the same with the platform charset
+    private static final boolean asciiCharset = isAsciiCharset();
+
     /**
      * Default constructor.
      */
@@ -64,10 +85,176 @@ public class LineReader {
                 logger.logEntry(fileNotFound,"error",file.getName(),-1);
                 throw new EFISCENFileNotFoundException(file.getName());
             }
-            input = new BufferedReader(fr);
         }
     }
 
+    /**
+     * Parameterized constructor which can memory-map the file. The file is
+     * read with a file reader if the platform charset does not read ASCII
+     * bytes as such or the file is too large to be mapped.
+     * @param file the name of the file to be read
+     * @param logger Logger object that writes error messages to a log file
+     * @param map true for mapping the file
+     * @throws EFISCENFileNotFoundException Exception if the file was not found when
+     * opening it
+     */
+    public LineReader (File file,Logger logger,boolean map) throws EFISCENFileNotFoundException{
+        this();
+        this.logger = logger;
+        this.file = file;
+        line = 0;
+        if (!map || !asciiCharset || file.length() > Integer.MAX_VALUE) {
+            try {
+                fr = new FileReader(file);
+            } catch (FileNotFoundException fnf) {
+                logger.logEntry(fileNotFound,"error",file.getName(),-1);
+                throw new EFISCENFileNotFoundException(file.getName());
+            }
+            return;
+        }
+        try {
+            channel = new RandomAccessFile(file, "r").getChannel();
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (IOException ioe) {
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException ex) {
+                }
+            }
+            logger.logEntry(fileNotFound,"error",file.getName(),-1);
+            throw new EFISCENFileNotFoundException(file.getName());
+        }
+    }
+
+    /**
+     * Tells whether the platform charset reads the ASCII bytes as the same
+     * characters.
+     * @return true if ASCII bytes can be read as characters
+     */
+    private static boolean isAsciiCharset() {
+        char[] ascii = new char[128];
+        for (int i=0;i<ascii.length;i++)
+            ascii[i] = (char) i;
+        byte[] enc = new String(ascii).getBytes(Charset.defaultCharset());
+        if (enc.length != ascii.length)
+            return false;
+        for (int i=0;i<enc.length;i++)
+            if (enc[i] != i)
+                return false;
+        return true;
+    }
+
+    /**
+     * Reads the next physical line from the mapped file into the line
+     * buffer. At the first line with a non-ASCII byte the rest of the file
+     * is read with a reader of the platform charset.
+     * @return false if the file has no more lines
+     * @throws IOException if reading fails
+     */
+    private boolean fillMappedLine() throws IOException {
+        int lim = mapped.limit();
+        if (skipLF) {
+            skipLF = false;
+            if (mapPos < lim && mapped.get(mapPos) == '\n')
+                mapPos++;
+        }
+        lineLen = lineStart = lineEnd = 0;
+        if (mapPos >= lim)
+            return false;
+        int start = mapPos;
+        int e = start;
+        byte c = 0;
+        while (e < lim) {
+            c = mapped.get(e);
+            if (c == '\n' || c == '\r')
+                break;
+            if (c < 0) {
+                FileInputStream in = new FileInputStream(file);
+                in.getChannel().position(start);
+                fr = new InputStreamReader(in);
+                mapped = null;
+                channel.close();
+                channel = null;
+                bufPos = bufLen = 0;
+                return fillLine();
+            }
+            if (lineLen == lineBuf.length) {
+                char[] grown = new char[2*lineBuf.length];
+                System.arraycopy(lineBuf, 0, grown, 0, lineLen);
+                lineBuf = grown;
+            }
+            lineBuf[lineLen++] = (char) c;
+            e++;
+        }
+        mapPos = e < lim ? e + 1 : lim;
+        skipLF = e < lim && c == '\r';
+        trimLine();
+        return true;
+    }
+
+    /**
+     * Reads the next physical line into the line buffer. Lines end with
+     * \n, \r or \r\n as with BufferedReader.
+     * @return false if the file has no more lines
+     * @throws IOException if reading fails
+     */
+    private boolean fillLine() throws IOException {
+        if (mapped != null)
+            return fillMappedLine();
+        lineLen = 0;
+        lineStart = 0;
+        lineEnd = 0;
+        boolean read = false;
+        for (;;) {
+            if (bufPos >= bufLen) {
+                bufLen = fr.read(buf, 0, buf.length);
+                bufPos = 0;
+                if (bufLen <= 0) {
+                    bufLen = 0;
+                    break;
+                }
+            }
+            char c = buf[bufPos++];
+            if (skipLF) {
+                skipLF = false;
+                if (c == '\n')
+                    continue;
+            }
+            read = true;
+            if (c == '\n')
+                break;
+            if (c == '\r') {
+                skipLF = true;
+                break;
+            }
+            if (lineLen == lineBuf.length) {
+                char[] grown = new char[2*lineBuf.length];
+                System.arraycopy(lineBuf, 0, grown, 0, lineLen);
+                lineBuf = grown;
+            }
+            lineBuf[lineLen++] = c;
+        }
+        if (!read)
+            return false;
+        trimLine();
+        return true;
+    }
+
+    /**
+     * Sets the bounds of the line without the leading and trailing
+     * whitespace.
+     */
+    private void trimLine() {
+        int b = 0, e = lineLen;
+        while (b < e && lineBuf[b] <= ' ')
+            b++;
+        while (e > b && lineBuf[e-1] <= ' ')
+            e--;
+        lineStart = b;
+        lineEnd = e;
+    }
+
     /**
      * Simple line reader which returns null when file ends.
      * @return read line or null if the file doesn't have any more lines to be 
@@ -76,9 +263,9 @@ public class LineReader {
     public String readLineSimple() {
         try {
             line+=1;
-            String rVal = input.readLine();
-            if(rVal!=null) rVal=rVal.trim();
-            return rVal;
+            if (!fillLine())
+                return null;
+            return lineView.toString();
         } catch (IOException ioe) {
             ioe.printStackTrace();
             return null;
@@ -86,37 +273,48 @@ public class LineReader {
     }
 
     /**
-     * Reads a line from text file which is given via constructor. 
-     * Ignores lines that begin with ^, #, . or * symbol.
-     * in case of premature end of file reports error with PrematureEOF method. 
-     * @return read line or null if there aren't anymore lines to be read
+     * Reads the next line that doesn't begin with # symbol into the line
+     * buffer. In case of premature end of file reports error with
+     * PrematureEOF method and leaves the line empty.
+     * @return true if a line was read, false otherwise
      */
-    public String readLine () {
-        String lineRead = null;
+    public boolean nextLine () {
         try {
-            lineRead = input.readLine();
-            line+=1;
-            if(lineRead == null) {
-               reportPrematureEOF();
-                return null;
-            }
-            while (lineRead.matches("^#.*")) {
-                lineRead = input.readLine();
+            do {
                 line+=1;
-                if(lineRead == null) {
+                if (!fillLine()) {
                     reportPrematureEOF();
-                    return null;
+                    return false;
                 }
-            }
+            } while (lineLen > 0 && lineBuf[0] == '#');
         } catch (IOException ioe) {
             ioe.printStackTrace();
             reportLineReadeError();
-            return null;
+            lineLen = lineStart = lineEnd = 0;
+            return false;
         }
-        if(lineRead == null)
-            reportPrematureEOF();
-        if(lineRead!=null) lineRead=lineRead.trim();
-        return lineRead.trim();
+        return true;
+    }
+
+    /**
+     * Returns the trimmed line read last. The returned sequence is reused
+     * and changes when the next line is read.
+     * @return the line read last
+     */
+    public CharSequence getLine() {
+        return lineView;
+    }
+
+    /**
+     * Reads a line from text file which is given via constructor. 
+     * Ignores lines that begin with # symbol.
+     * in case of premature end of file reports error with PrematureEOF method. 
+     * @return read line or null if there aren't anymore lines to be read
+     */
+    public String readLine () {
+        if (!nextLine())
+            return null;
+        return lineView.toString();
     }
     
     /**
@@ -152,14 +350,17 @@ public class LineReader {
     }
 
     /**
-     * Read a line from a text file and ignore lines that begin with ^, #, . or * symbol.
+     * Read a line from a text file and ignore lines that begin with # symbol.
      * The file is given in a parameter. Sets the given file to the attribute of the class. 
      * @param file the file to be read
      * @return read line or null if unsuccessful cause of FileNotFoundException,
      * premature end of file or IOException.
      */
     public String readLine (File file) {
-        String lineRead;
+        // The file read so far, mapped or not, is released first
+        close();
+        channel = null;
+        mapped = null;
         this.file = file;
         try {
             fr = new FileReader(file);
@@ -167,26 +368,11 @@ public class LineReader {
             fnf.printStackTrace();
             return null;
         }
-        input =  new BufferedReader(fr);
-        try {
-            lineRead = input.readLine();
-            if(lineRead == null)
-                    reportPrematureEOF();
-            line+=1;
-            while ( lineRead.matches("^#.*")) {
-                lineRead = input.readLine();
-                if(lineRead == null) {
-                    reportPrematureEOF();
-                    return null;
-                }
-                line+=1;
-        }
-        } catch (IOException ioe) {
-            ioe.printStackTrace();
-            reportLineReadeError();
+        bufPos = bufLen = 0;
+        skipLF = false;
+        if (!nextLine())
             return null;
-        }
-        return lineRead;
+        return new String(lineBuf, 0, lineLen);
     }
     
     /**
@@ -195,11 +381,39 @@ public class LineReader {
      */
     public void close() {
         try {
-            fr.close();
+            if (channel != null)
+                channel.close();
+            if (fr != null)
+                fr.close();
         } catch (IOException ex) {
             logger.logEntry(lineReaderError,"error in file " + file.getName() + 
                 ", line " + line );
         }
     }
-}
 
+    /**
+     * View of the trimmed line in the line buffer.
+     */
+    private class LineView implements CharSequence {
+
+        @Override
+        public int length() {
+            return lineEnd - lineStart;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return lineBuf[lineStart + index];
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return new String(lineBuf, lineStart + start, end - start);
+        }
+
+        @Override
+        public String toString() {
+            return new String(lineBuf, lineStart, lineEnd - lineStart);
+        }
+    }
+}
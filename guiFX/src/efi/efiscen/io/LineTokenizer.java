@@ -0,0 +1,185 @@
+/*
+ * Copyright (C) 2016 European Forest Institute
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package efi.efiscen.io;
+
+import java.util.NoSuchElementException;
+
+/**
+ * Tokenizer for the lines of input files. Splits a line at whitespace or at
+ * a delimiter character the same way as String.split and parses the numbers
+ * in place with NumberParser. Errors are reported with the file name and the
+ * line number of the reader. The tokenizer can be reset to a new line, so one
+ * instance is enough for reading a file.
+ * 
+ */
+public class LineTokenizer {
+
+    private final LineReader reader;
+    private final Logger errorLogger;
+    private CharSequence line = "";
+    private char delimiter = 0;
+    private int pos = 1;
+    private int end = 0;
+    private int tokStart = 0;
+    private int tokEnd = 0;
+
+    /**
+     * Parametrized constructor.
+     * @param reader reader of the lines, used for reporting errors
+     * @param errorLogger Logger to report errors
+     */
+    public LineTokenizer(LineReader reader, Logger errorLogger) {
+        this.reader = reader;
+        this.errorLogger = errorLogger;
+    }
+
+    /**
+     * Starts tokenizing a line separated by whitespace.
+     * @param line line to tokenize
+     * @return this tokenizer
+     */
+    public LineTokenizer reset(CharSequence line) {
+        return reset(line, (char)0);
+    }
+
+    /**
+     * Starts tokenizing a line separated by a delimiter given as in
+     * String.split. Supported are "\\s+" for whitespace and single
+     * characters.
+     * @param line line to tokenize
+     * @param del delimiter
+     * @return this tokenizer
+     */
+    public LineTokenizer reset(CharSequence line, String del) {
+        if (del.equals("\\s+"))
+            return reset(line, (char)0);
+        if (del.length() != 1 || ".$|()[{^?*+\\".indexOf(del.charAt(0)) >= 0)
+            throw new IllegalArgumentException("Unsupported delimiter " + del);
+        return reset(line, del.charAt(0));
+    }
+
+    /**
+     * Starts tokenizing a line separated by a delimiter character.
+     * Trailing empty tokens are dropped as in String.split.
+     * @param line line to tokenize
+     * @param delimiter delimiter character, 0 for whitespace
+     * @return this tokenizer
+     */
+    public LineTokenizer reset(CharSequence line, char delimiter) {
+        this.line = line;
+        this.delimiter = delimiter;
+        end = line.length();
+        while (end > 0 && isDelimiter(line.charAt(end-1)))
+            end--;
+        // Only an empty line gives an empty token
+        pos = (end == 0 && line.length() > 0) ? 1 : 0;
+        return this;
+    }
+
+    private boolean isDelimiter(char c) {
+        if (delimiter != 0)
+            return c == delimiter;
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r'
+                || c == '\f' || c == '\u000B';
+    }
+
+    /**
+     * Tells whether the line has more tokens.
+     * @return true if there are more tokens
+     */
+    public boolean hasNext() {
+        return pos <= end;
+    }
+
+    /**
+     * Counts the tokens left on the line.
+     * @return number of tokens
+     */
+    public int countTokens() {
+        int p = pos;
+        int n = 0;
+        while (hasNext()) {
+            advance();
+            n++;
+        }
+        pos = p;
+        return n;
+    }
+
+    private void advance() {
+        if (pos > end)
+            throw new NoSuchElementException();
+        tokStart = pos;
+        while (pos < end && !isDelimiter(line.charAt(pos)))
+            pos++;
+        tokEnd = pos;
+        if (pos >= end) {
+            pos = end + 1;
+        } else if (delimiter == 0) {
+            while (pos < end && isDelimiter(line.charAt(pos)))
+                pos++;
+        } else {
+            pos++;
+        }
+    }
+
+    /**
+     * Skips the next token.
+     */
+    public void skip() {
+        advance();
+    }
+
+    /**
+     * Returns the next token as a string.
+     * @return next token
+     */
+    public String next() {
+        advance();
+        return line.subSequence(tokStart, tokEnd).toString();
+    }
+
+    /**
+     * Parses the next token as an integer.
+     * @return next token as an integer
+     * @throws NumberFormatException if the token is not a number
+     */
+    public int nextInt() throws NumberFormatException {
+        advance();
+        return NumberParser.parseInt(line, tokStart, tokEnd, reader, errorLogger);
+    }
+
+    /**
+     * Parses the next token as a float.
+     * @return next token as a float
+     * @throws NumberFormatException if the token is not a number
+     */
+    public float nextFloat() throws NumberFormatException {
+        advance();
+        return NumberParser.parseFloat(line, tokStart, tokEnd, reader, errorLogger);
+    }
+
+    /**
+     * Parses the next token as a double.
+     * @return next token as a double
+     * @throws NumberFormatException if the token is not a number
+     */
+    public double nextDouble() throws NumberFormatException {
+        advance();
+        return NumberParser.parseDouble(line, tokStart, tokEnd, reader, errorLogger);
+    }
+}
@@ -22,7 +22,8 @@ import java.io.FileOutputStream;
 import java.io.PrintWriter;
 
 /**
- * Writes error messages to log file. 
+ * Writes error messages to log file. The methods are synchronized, so files
+ * loaded in parallel can share a logger.
  * 
  */
 public class Logger {
@@ -59,7 +60,7 @@ public class Logger {
     /**
      * Creates the file for the logger.
      */
-    private void createFile(){
+    private synchronized void createFile(){
         File file = new File(logFileName);
         int i=0;
         while(file.exists() && !file.canWrite()) {
@@ -81,7 +82,7 @@ public class Logger {
      * @param type type of the error
      * @param description description of the error
      */
-    public void logEntry(String type, String description) {
+    public synchronized void logEntry(String type, String description) {
         if(!init){
             createFile();
         }
@@ -98,7 +99,7 @@ public class Logger {
      * attribute of the class.
      * @param description description of the error
      */
-    public void logEntry(String description) {
+    public synchronized void logEntry(String description) {
         if(!init){
             createFile();
         }
@@ -119,7 +120,7 @@ public class Logger {
      * @param file the name of the input file
      * @param line line where the error is located in the file
      */
-    public void logEntry(String type, String description, String file, int line) {
+    public synchronized void logEntry(String type, String description, String file, int line) {
         if(!init){
             createFile();
         }
@@ -137,14 +138,14 @@ public class Logger {
      * Returns the number of errors logged in the log file
      * @return number of errors logged in the log file
      */
-    public int getNumErrorsLogged() {
+    public synchronized int getNumErrorsLogged() {
         return errorsLogged;
     }
     
     /**
      * Closes the log file
      */
-    public void close() {
+    public synchronized void close() {
         if(init){
             writer.close();
         }
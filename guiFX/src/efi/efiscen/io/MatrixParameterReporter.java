@@ -17,6 +17,7 @@
 package efi.efiscen.io;
 
 import efi.efiscen.gm.GMEfiscen;
+import efi.efiscen.gm.GMKeyFilter;
 import efi.efiscen.gm.GMMatrix;
 import efi.efiscen.gm.GMParArray;
 import efi.efiscen.gm.GMParLocator;
@@ -30,12 +31,14 @@ import java.util.logging.Level;
 public class MatrixParameterReporter {
     
     private Logger logger;
+    private GMKeyFilter matrixFilter;
     
     /**
      * Default constructor
      */
     MatrixParameterReporter() {
         logger = null;
+        matrixFilter = null;
     }
     
     /**
@@ -45,6 +48,15 @@ public class MatrixParameterReporter {
     public void setLogger(Logger logger) {
         this.logger = logger;
     }
+
+    /**
+     * Sets the filter of the loaded matrices. Matrices not matching it are
+     * not reported missing.
+     * @param matrixFilter filter of the matrices, null for all matrices
+     */
+    public void setMatrixFilter(GMKeyFilter matrixFilter) {
+        this.matrixFilter = matrixFilter;
+    }
     
     /**
      * Checks if the experiment has missing matrices
@@ -59,6 +71,8 @@ public class MatrixParameterReporter {
                 for(Long st : efiscen.m_mSites.keySet()) {
                     for(Long sp : efiscen.m_mSpecies.keySet()) {
                         long id = (r << 24) + (o << 16) + (st << 8) + sp;
+                        if (matrixFilter != null && !matrixFilter.matches(id))
+                            continue;
                         GMMatrix get = efiscen.m_mTables.get(id);
                         if(get==null) {
                             complete = false;
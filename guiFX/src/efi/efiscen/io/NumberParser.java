@@ -21,7 +21,9 @@ import java.text.ParseException;
 import java.util.logging.Level;
 
 /**
- * Is used  to convert a string into integer, float or double.
+ * Is used  to convert a string into integer, float or double. Plain decimal
+ * numbers are parsed in place, anything else goes through the Java parsers
+ * so the results and the reported errors stay the same.
  * 
  */
 public class NumberParser {
@@ -30,6 +32,162 @@ public class NumberParser {
      * Message for number parsing error.
      */
     public static final String errorParsingNumber = "Number parsing error";
+
+    private static final long notPlain = Long.MIN_VALUE;
+    private static final float[] pow10f = {1e0f, 1e1f, 1e2f, 1e3f, 1e4f,
+        1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f};
+    private static final double[] pow10d = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5,
+        1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17,
+        1e18, 1e19, 1e20, 1e21, 1e22};
+
+    /**
+     * Parses an integer of at most nine digits with optional minus sign and
+     * thousand separators. Surrounding blanks are ignored.
+     * @return the value or notPlain if the text is something else
+     */
+    private static long plainInt(CharSequence s, int from, int to) {
+        while (from < to && s.charAt(from) <= ' ')
+            from++;
+        while (to > from && s.charAt(to-1) <= ' ')
+            to--;
+        boolean neg = from < to && s.charAt(from) == '-';
+        int digits = 0;
+        long val = 0;
+        for (int i = neg ? from+1 : from; i < to; i++) {
+            char c = s.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (++digits > 9)
+                    return notPlain;
+                val = 10*val + (c - '0');
+            } else if (c != ',') {
+                return notPlain;
+            }
+        }
+        if (digits == 0)
+            return notPlain;
+        return neg ? -val : val;
+    }
+
+    /**
+     * Reads a plain decimal number with optional minus sign.
+     * @return mantissa shifted left by five bits with the number of decimals
+     * in the low bits, or -1 if the text is something else or the limits
+     * are exceeded
+     */
+    private static long plainDecimal(CharSequence s, int from, int to,
+            long maxMant, int maxDecimals) {
+        int i = from;
+        if (i < to && s.charAt(i) == '-')
+            i++;
+        long mant = 0;
+        int digits = 0;
+        int frac = -1;
+        for (; i < to; i++) {
+            char c = s.charAt(i);
+            if (c >= '0' && c <= '9') {
+                mant = 10*mant + (c - '0');
+                if (mant > maxMant)
+                    return -1;
+                digits++;
+                if (frac >= 0 && ++frac > maxDecimals)
+                    return -1;
+            } else if (c == '.' && frac < 0) {
+                frac = 0;
+            } else {
+                return -1;
+            }
+        }
+        if (digits == 0)
+            return -1;
+        return (mant << 5) | (frac < 0 ? 0 : frac);
+    }
+
+    /**
+     * Parses a plain decimal number to a float. The mantissa and the power
+     * of ten are both exact floats so one division gives the correctly
+     * rounded value, same as Float.parseFloat.
+     * @return the value or NaN if the text is something else
+     */
+    private static float plainFloat(CharSequence s, int from, int to) {
+        long dec = plainDecimal(s, from, to, 1L<<24, pow10f.length-1);
+        if (dec < 0)
+            return Float.NaN;
+        float val = (float)(dec >> 5) / pow10f[(int)(dec & 31)];
+        return s.charAt(from) == '-' ? -val : val;
+    }
+
+    /**
+     * Parses a plain decimal number to a double, see plainFloat.
+     * @return the value or NaN if the text is something else
+     */
+    private static double plainDouble(CharSequence s, int from, int to) {
+        while (from < to && s.charAt(from) <= ' ')
+            from++;
+        while (to > from && s.charAt(to-1) <= ' ')
+            to--;
+        long dec = plainDecimal(s, from, to, 1L<<53, pow10d.length-1);
+        if (dec < 0)
+            return Double.NaN;
+        double val = (double)(dec >> 5) / pow10d[(int)(dec & 31)];
+        return s.charAt(from) == '-' ? -val : val;
+    }
+
+    /**
+     * Converts characters from..to of a line into an integer without creating
+     * a string for plain numbers. Same as convertInt otherwise.
+     * @param s line containing the number
+     * @param from index of the first character
+     * @param to index after the last character
+     * @param reader reader that reads the value from a file
+     * @param errorLogger Logger object that logs errors to a log file
+     * @return the value as an integer
+     * @throws NumberFormatException is thrown when converting fails
+     */
+    public static int parseInt(CharSequence s, int from, int to,
+            LineReader reader, Logger errorLogger) throws NumberFormatException {
+        long val = plainInt(s, from, to);
+        if (val != notPlain)
+            return (int)val;
+        return convertInt(s.subSequence(from, to).toString(), reader, errorLogger);
+    }
+
+    /**
+     * Converts characters from..to of a line into a float without creating
+     * a string for plain numbers. Same as convertFloat otherwise.
+     * @param s line containing the number
+     * @param from index of the first character
+     * @param to index after the last character
+     * @param reader reader that reads the value from a file
+     * @param errorLogger Logger object that logs errors to a log file
+     * @return the value as a float
+     * @throws NumberFormatException is thrown when converting fails
+     */
+    public static float parseFloat(CharSequence s, int from, int to,
+            LineReader reader, Logger errorLogger) throws NumberFormatException {
+        float val = plainFloat(s, from, to);
+        if (!Float.isNaN(val))
+            return val;
+        return convertFloat(s.subSequence(from, to).toString(), reader, errorLogger);
+    }
+
+    /**
+     * Converts characters from..to of a line into a double without creating
+     * a string for plain numbers. Same as convertDouble otherwise.
+     * @param s line containing the number
+     * @param from index of the first character
+     * @param to index after the last character
+     * @param reader reader that reads the value from a file
+     * @param errorLogger Logger object that logs errors to a log file
+     * @return the value as a double
+     * @throws NumberFormatException is thrown when converting fails
+     */
+    public static double parseDouble(CharSequence s, int from, int to,
+            LineReader reader, Logger errorLogger) throws NumberFormatException {
+        double val = plainDouble(s, from, to);
+        if (!Double.isNaN(val))
+            return val;
+        return convertDouble(s.subSequence(from, to).toString(), reader, errorLogger);
+    }
     
      /**
      * Tries to convert a string into an integer. If the method fails to convert
@@ -43,6 +201,9 @@ public class NumberParser {
      */
     public static Integer convertInt(String str,
             LineReader reader,Logger errorLogger) throws NumberFormatException {
+        long val = plainInt(str, 0, str.length());
+        if (val != notPlain)
+            return (int)val;
         try{
             str = str.trim();
             str = str.replace(",", "");
@@ -75,6 +236,9 @@ public class NumberParser {
      */
     public static Float convertFloat(String str,LineReader reader,
             Logger errorLogger) throws NumberFormatException {
+        float val = plainFloat(str, 0, str.length());
+        if (!Float.isNaN(val))
+            return val;
         try{
             Number num = null;
                 if(str.startsWith(".")){
@@ -106,6 +270,9 @@ public class NumberParser {
      */
     public static Double convertDouble(String str,LineReader reader,
             Logger errorLogger) throws NumberFormatException {
+        double val = plainDouble(str, 0, str.length());
+        if (!Double.isNaN(val))
+            return val;
         Double rValue = null;
         try{
             str = str.trim();
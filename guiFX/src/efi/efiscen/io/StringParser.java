@@ -19,7 +19,8 @@ package efi.efiscen.io;
 import java.util.ArrayList; 
 
 /**
- * Parser for getting floats out of strings.
+ * Parser for getting floats out of strings. The strings are tokenized with
+ * LineTokenizer, so the delimiter is either "\\s+" or a single character.
  * 
  */
 public class StringParser {
@@ -38,19 +39,19 @@ public class StringParser {
     public static ArrayList<Float> getFlArFromString (String strIn, String del, 
             LineReader reader, Logger errorLogger) {
         int size = 10;
-        String[] all = strIn.split(del);
-        if (all.length == 0)
+        LineTokenizer tok = new LineTokenizer(reader, errorLogger).reset(strIn, del);
+        if (!tok.hasNext())
             return null;
         try {
-            size = NumberParser.convertInt(all[0],reader,errorLogger);
+            size = tok.nextInt();
         } catch (NumberFormatException nfe) {
             nfe.printStackTrace();
             return null;
         }
         ArrayList<Float> list = new ArrayList<>(size);
-        for (int i = 1; i < all.length; i++) {
+        while (tok.hasNext()) {
             try {
-                list.add(NumberParser.convertFloat(all[i],reader,errorLogger));
+                list.add(tok.nextFloat());
             } catch (NumberFormatException nfe) {
                 nfe.printStackTrace();
                 return null;
@@ -69,29 +70,20 @@ public class StringParser {
      */
     public static ArrayList<Float> getFlArFromStringEx (String strIn,
             String del, int nsize, LineReader reader, Logger errorLogger) {
-        //int size = 10;
-        String[] all = strIn.split(del);
-        if (all.length == 0)
+        LineTokenizer tok = new LineTokenizer(reader, errorLogger).reset(strIn, del);
+        if (!tok.hasNext())
             return null;
-        /*try {
-            size = Integer.parseInt(all[0]);
-        } catch (NumberFormatException nfe) {
-            nfe.printStackTrace();
-            return null;
-        }*/
-        // What for is this here, really?
-        //if (nsize > size)
-        //    return null;
         ArrayList<Float> list = new ArrayList<>(nsize);
         for (int i = 0; i < nsize; i++) {
+            if (!tok.hasNext()) {
+                list.add(0.f);
+                return list;
+            }
             try {
-                list.add(NumberParser.convertFloat(all[i],reader,errorLogger));
+                list.add(tok.nextFloat());
             } catch (NumberFormatException nfe) {
                 nfe.printStackTrace();
                 list.add(0.F);
-            }catch (ArrayIndexOutOfBoundsException nfe) {
-                list.add(0.f);
-                return list;
             }
         }
         return list;
@@ -106,22 +98,15 @@ public class StringParser {
      */
     public static ArrayList<Integer> getIntArFromStringEx (String strIn,
             String del, int nsize, LineReader reader, Logger errorLogger) {
-        //int size = 10;
-        String[] all = strIn.split(del);
-        if (all.length == 0)
-            return null;
-        /*try {
-            size = Integer.parseInt(all[0]);
-        } catch (NumberFormatException nfe) {
-            nfe.printStackTrace();
+        LineTokenizer tok = new LineTokenizer(reader, errorLogger).reset(strIn, del);
+        if (!tok.hasNext())
             return null;
-        }*/
-        //if (nsize > size)
-        //    return null;
         ArrayList<Integer> list = new ArrayList<>(nsize);
         for (int i = 0; i < nsize; i++) {
+            if (!tok.hasNext())
+                return null;
             try {
-                list.add(NumberParser.convertInt(all[i],reader,errorLogger));
+                list.add(tok.nextInt());
             } catch (NumberFormatException nfe) {
                 nfe.printStackTrace();
                 return null;
@@ -131,4 +116,3 @@ public class StringParser {
     }
 
 }
-
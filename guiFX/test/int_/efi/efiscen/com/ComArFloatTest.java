@@ -0,0 +1,78 @@
+/* 
+ * Copyright (C) 2016 European Forest Institute
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package int_.efi.efiscen.com;
+
+import efi.efiscen.com.ComArFloat;
+import efi.efiscen.com.ComArFlt;
+import junit.framework.TestCase;
+
+/**
+ * Test class for ComArFloat.
+ * 
+ */
+public class ComArFloatTest extends TestCase {
+    
+    public ComArFloatTest(String testName) {
+        super(testName);
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        super.tearDown();
+    }
+
+    /**
+     * Test of addData method, of class ComArFloat.
+     */
+    public void testAddData() {
+        System.out.println("addData");
+        ComArFlt<Float> instance = new ComArFloat(2);
+        ComArFlt<Float> expResult = new ComArFlt<>();
+        for (int i=0; i<20; i++) {
+            float val = i%3 * 0.5f;
+            assertEquals(expResult.addData(val), instance.addData(val));
+        }
+        assertEquals(expResult.getSize(), instance.getSize());
+        for (int i=0; i<20; i++)
+            assertEquals(expResult.getData(i), instance.getData(i));
+        assertNull(instance.getData(20));
+        assertEquals(1, instance.setData(3, 7.0f));
+        assertEquals(7.0f, instance.getData(3));
+        assertEquals(-1, instance.setData(20, 7.0f));
+    }
+
+    /**
+     * Test of append and valueAt methods, of class ComArFloat.
+     */
+    public void testAppend() {
+        System.out.println("append");
+        ComArFlt<Float> instance = new ComArFloat();
+        ComArFlt<Float> boxed = new ComArFlt<>();
+        assertEquals(0, ComArFloat.append(instance, 1.5f));
+        assertEquals(0, ComArFloat.append(boxed, 1.5f));
+        assertEquals(1, ComArFloat.append(instance, 2.5f));
+        assertEquals(2.5f, ComArFloat.valueAt(instance, 1));
+        assertEquals(1.5f, ComArFloat.valueAt(boxed, 0));
+        assertEquals(2.5f, ((ComArFloat)instance).getFloat(1));
+    }
+
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright (C) 2016 European Forest Institute
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package int_.efi.efiscen.gm;
+
+import efi.efiscen.com.ComArFlt;
+import efi.efiscen.gm.GMDistrColumn;
+import efi.efiscen.gm.GMDistrHistory;
+import efi.efiscen.gm.GMDistrMap;
+import efi.efiscen.gm.GMEfiscen;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import junit.framework.TestCase;
+
+/**
+ * Test class for GMDistrHistory.
+ * EFI
+ */
+public class GMDistrHistoryTest extends TestCase {
+
+    public GMDistrHistoryTest(String testName) {
+        super(testName);
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        super.tearDown();
+    }
+
+    private static long key(long r, long o, long st, long sp) {
+        return (r<<24) + (o<<16) + (st<<8) + sp;
+    }
+
+    private static ArrayList<Float> row(int nwidth, float base) {
+        ArrayList<Float> pRow = new ArrayList<>(nwidth);
+        for (int i=0;i<nwidth;i++)
+            pRow.add(base+0.25f*i);
+        return pRow;
+    }
+
+    /**
+     * Test of addRow method, of class GMDistrHistory.
+     */
+    public void testAddRow() {
+        System.out.println("addRow");
+        GMDistrHistory instance = new GMDistrHistory(2);
+        GMDistrMap map16 = instance.createMap(16);
+        GMDistrMap map4 = instance.createMap(4);
+        int nsteps = 40;
+        for (int m=1;m<=5;m++) {
+            // Columns are added while the histories are growing
+            map16.addColumn(key(1,m,1,1));
+            map4.addColumn(key(1,m,1,1));
+            for (ComArFlt<ArrayList<Float>> pCol : map16.values())
+                pCol.addData(row(16, pCol.getSize()*10.0f+m));
+            for (ComArFlt<ArrayList<Float>> pCol : map4.values())
+                pCol.addData(row(4, pCol.getSize()*10.0f+m));
+        }
+        for (int m=1;m<=5;m++) {
+            ComArFlt<ArrayList<Float>> pCol = map16.get(key(1,m,1,1));
+            while (pCol.getSize() < nsteps)
+                pCol.addData(row(16, pCol.getSize()*10.0f));
+        }
+        assertEquals(5, instance.getNumKeys());
+        for (int m=1;m<=5;m++) {
+            ComArFlt<ArrayList<Float>> pCol = map16.get(key(1,m,1,1));
+            assertEquals(nsteps, pCol.getSize());
+            assertEquals(row(16, 0.0f+m), pCol.getData(0));
+            assertEquals(row(16, nsteps*10.0f-10.0f), pCol.getData(nsteps-1));
+            assertNull(pCol.getData(nsteps));
+            assertEquals(16, GMDistrColumn.getWidth(pCol, nsteps-1));
+            assertEquals(-1, GMDistrColumn.getWidth(pCol, nsteps));
+            assertEquals(nsteps*10.0f-10.0f+0.25f*3, GMDistrColumn.getValue(pCol, nsteps-1, 3));
+            assertEquals(6-m, map4.get(key(1,m,1,1)).getSize());
+            assertEquals(4, GMDistrColumn.getWidth(map4.get(key(1,m,1,1)), 0));
+        }
+        // Rows are copied to the store
+        ArrayList<Float> pRow = row(16, 5.0f);
+        ComArFlt<ArrayList<Float>> pCol = map16.get(key(1,3,1,1));
+        assertEquals(1, pCol.setData(2, pRow));
+        pRow.set(0, 0.0f);
+        assertEquals(5.0f, GMDistrColumn.getValue(pCol, 2, 0));
+        pCol.getData(2).set(1, 0.0f);
+        assertEquals(5.25f, GMDistrColumn.getValue(pCol, 2, 1));
+        assertEquals(-1, pCol.setData(nsteps, pRow));
+        try {
+            pCol.addData(row(4, 0.0f));
+            fail("Row of a wrong width was added");
+        } catch (IllegalArgumentException ex) {
+        }
+        assertEquals(nsteps, pCol.getSize());
+        // Histories not kept in the store are read by the same helpers
+        ComArFlt<ArrayList<Float>> pPlain = new ComArFlt<>();
+        pPlain.addData(row(3, 1.0f));
+        assertEquals(3, GMDistrColumn.getWidth(pPlain, 0));
+        assertEquals(-1, GMDistrColumn.getWidth(pPlain, 1));
+        assertEquals(1.5f, GMDistrColumn.getValue(pPlain, 0, 2));
+    }
+
+    /**
+     * Test of summarizeArrays methods, of class GMEfiscen, against the
+     * summary of plain histories.
+     */
+    public void testSummarizeArrays() {
+        System.out.println("summarizeArrays");
+        GMEfiscen experiment = new GMEfiscen();
+        GMDistrMap map = experiment.m_pDistrHistory.createMap(4);
+        LinkedHashMap<Long,ComArFlt<ArrayList<Float>>> plain = new LinkedHashMap<>();
+        for (int r=1;r<=2;r++)
+            for (int o=1;o<=3;o++)
+                for (int sp=1;sp<=4;sp++) {
+                    long ukey = key(r,o,1,sp);
+                    map.addColumn(ukey);
+                    plain.put(ukey, new ComArFlt<ArrayList<Float>>());
+                    for (int i=0;i<10;i++) {
+                        ArrayList<Float> pRow = row(4, 0.37f*r+1.11f*o+0.013f*sp*i);
+                        map.get(ukey).addData(pRow);
+                        plain.get(ukey).addData(pRow);
+                    }
+                }
+        for (int i=0;i<=10;i++) {
+            assertEquals(experiment.summarizeArrays(0,0,0,0,plain,i), experiment.summarizeArrays(0,0,0,0,map,i));
+            assertEquals(experiment.summarizeArrays(1,3,0,4,plain,i), experiment.summarizeArrays(1,3,0,4,map,i));
+            assertEquals(experiment.summarizeArraysTotal(0,0,0,0,plain,i), experiment.summarizeArraysTotal(0,0,0,0,map,i));
+            assertEquals(experiment.summarizeArraysTotal(2,0,0,0,plain,i), experiment.summarizeArraysTotal(2,0,0,0,map,i));
+        }
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright (C) 2016 European Forest Institute
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package int_.efi.efiscen.gm;
+
+import efi.efiscen.gm.GMCarbonAlloc;
+import efi.efiscen.gm.GMEfiscen;
+import efi.efiscen.gm.GMFellings;
+import efi.efiscen.gm.GMMatrix;
+import efi.efiscen.gm.GMMatrixInit;
+import efi.efiscen.gm.GMMatrixPars;
+import efi.efiscen.gm.GMParArray;
+import efi.efiscen.gm.GMParLocator;
+import java.util.ArrayList;
+import junit.framework.TestCase;
+
+/**
+ * Test class for GMEfiscen.
+ * EFI
+ */
+public class GMEfiscenTest extends TestCase {
+
+    public GMEfiscenTest(String testName) {
+        super(testName);
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        super.tearDown();
+    }
+
+    /**
+     * Experiment with a few small matrixes having different areas.
+     * @return experiment
+     */
+    private GMEfiscen createExperiment() {
+        GMEfiscen experiment = new GMEfiscen();
+        GMMatrixInit init = new GMMatrixInit(2,2,2,2,2,2,2);
+        for (int m=1;m<=5;m++) {
+            GMMatrix matrix = new GMMatrix(4,3);
+            matrix.initRegular(init);
+            matrix.fillRegular(2.0f);
+            for (int i=0;i<12;i++) {
+                matrix.m_Cells.get(i).setM_Area(m*0.7f+i*0.37f);
+                matrix.m_Cells.get(i).setM_ThinArea(i%3*0.11f*m);
+            }
+            matrix.m_BareArea = m;
+            experiment.m_mTables.put((1L<<24)+((long)m<<16)+(1L<<8)+1L, matrix);
+        }
+        return experiment;
+    }
+
+    /**
+     * Test of setParallelism method, of class GMEfiscen.
+     */
+    public void testSetParallelism() {
+        System.out.println("setParallelism");
+        GMEfiscen instance = createExperiment();
+        assertEquals(1, instance.getParallelism());
+        assertFalse(instance.isParallel());
+        instance.setParallelism(4);
+        assertEquals(4, instance.getParallelism());
+        assertTrue(instance.isParallel());
+        instance.setParallelism(0);
+        assertEquals(1, instance.getParallelism());
+        assertFalse(instance.isParallel());
+    }
+
+    /**
+     * Test of growMatrixes method, of class GMEfiscen.
+     */
+    public void testGrowMatrixes() throws Exception {
+        System.out.println("growMatrixes");
+        GMEfiscen instance = createExperiment();
+        GMEfiscen reference = createExperiment();
+        instance.setParallelism(3);
+        for (int n=0;n<5;n++) {
+            float result = instance.growMatrixes();
+            float expResult = reference.growMatrixes();
+            assertEquals(expResult, result);
+            for (Long uKey : reference.m_mTables.keySet()) {
+                GMMatrix refmatrix = reference.m_mTables.get(uKey);
+                GMMatrix matrix = instance.m_mTables.get(uKey);
+                assertEquals(refmatrix.m_BareArea, matrix.m_BareArea);
+                for (int i=0;i<12;i++)
+                    assertEquals(refmatrix.m_Cells.get(i).getArea(), matrix.m_Cells.get(i).getArea());
+            }
+        }
+        instance.setParallelism(1);
+    }
+
+    private static GMParArray createPar(int r, int o, float val) {
+        GMParArray pPar = new GMParArray(1);
+        pPar.m_uRegion = r;
+        pPar.m_uOwner = o;
+        pPar.m_Vals.add(val);
+        return pPar;
+    }
+
+    /**
+     * Test of getMatrixPars method, of class GMEfiscen.
+     */
+    public void testGetMatrixPars() throws Exception {
+        System.out.println("getMatrixPars");
+        GMEfiscen instance = createExperiment();
+        GMParLocator[] apl = {instance.m_plCcont, instance.m_plWoodDens,
+            instance.m_plCompXvals, instance.m_plStemShare, instance.m_plBranchShare,
+            instance.m_plCrootsShare, instance.m_plFrootsShare, instance.m_plLeavesShare};
+        for (GMParLocator pl : apl)
+            pl.addParameter(createPar(1,0,0.5f));
+        long uKey = (1L<<24)+(2L<<16)+(1L<<8)+1L;
+        GMMatrixPars pPars = instance.getMatrixPars(uKey);
+        assertSame(pPars, instance.getMatrixPars(uKey));
+        GMCarbonAlloc pCa = pPars.newCarbonAlloc();
+        assertEquals(0.5f, pCa.getCa_ccont());
+        assertEquals(0.0, pCa.getCa_cstem());
+        assertSame(instance.m_plStemShare.getParameter(uKey).m_Vals, pCa.getCa_pstem());
+        assertNotSame(pCa, pPars.newCarbonAlloc());
+        // Unchanged locators keep the resolved parameters
+        instance.checkParameters();
+        assertSame(pPars, instance.getMatrixPars(uKey));
+        // New value is used after the locator changes
+        instance.m_plCcont.addParameter(createPar(1,0,0.4f));
+        instance.checkParameters();
+        assertEquals(0.4f, instance.getMatrixPars(uKey).newCarbonAlloc().getCa_ccont());
+        // Replaced locator
+        instance.m_plWoodDens = new GMParLocator("Wood density");
+        instance.m_plWoodDens.addParameter(createPar(0,0,0.3f));
+        instance.checkParameters();
+        assertEquals(0.3f, instance.getMatrixPars(uKey).newCarbonAlloc().getCa_dns());
+    }
+
+    /**
+     * Test of reportCutLevels method, of class GMEfiscen.
+     */
+    public void testReportCutLevels() throws Exception {
+        System.out.println("reportCutLevels");
+        GMEfiscen instance = createExperiment();
+        for (GMMatrix matrix : instance.m_mTables.values()) {
+            matrix.setThinningsSimple(0,5);
+            matrix.setFellingsSimple(0);
+        }
+        GMParLocator plRem = new GMParLocator("Removals");
+        for (int o=0;o<=2;o++) {
+            GMParArray pPar = new GMParArray(9);
+            pPar.m_uRegion = 1;
+            pPar.m_uOwner = o;
+            for (int i=0;i<9;i++)
+                pPar.m_Vals.add(0.9f-o*0.1f-i*0.01f);
+            plRem.addParameter(pPar);
+        }
+        ArrayList<GMParArray> paGroups = new ArrayList<>();
+        paGroups.add(createPar(1,0,1.0f));
+        paGroups.add(createPar(1,2,1.0f));
+        paGroups.add(createPar(1,9,1.0f));
+        paGroups.add(createPar(0,3,1.0f));
+        boolean[] abFell = {true, true, true, false};
+        boolean[] abThin = {true, false, true, true};
+        double[][] result = instance.reportCutLevels(paGroups, abFell, abThin, plRem);
+        instance.setParallelism(3);
+        double[][] parResult = instance.reportCutLevels(paGroups, abFell, abThin, plRem);
+        instance.setParallelism(1);
+        GMEfiscen reference = createExperiment();
+        for (GMMatrix matrix : reference.m_mTables.values()) {
+            matrix.setThinningsSimple(0,5);
+            matrix.setFellingsSimple(0);
+        }
+        for (int g=0;g<paGroups.size();g++) {
+            GMParArray pEl = paGroups.get(g);
+            GMFellings pFl = new GMFellings(1.0,0.0,0.0,0.0,0.0,0.0,0.0,0.0);
+            double fell = reference.reportHarvestLevel(pEl.m_uRegion,pEl.m_uOwner,
+                    pEl.m_uSite,pEl.m_uSpecies,pFl,plRem).getF_volume();
+            pFl = new GMFellings(1.0,0.0,0.0,0.0,0.0,0.0,0.0,0.0);
+            double thin = reference.reportThinningsLevel(pEl.m_uRegion,pEl.m_uOwner,
+                    pEl.m_uSite,pEl.m_uSpecies,pFl,plRem).getF_volume();
+            assertEquals(abFell[g] ? fell : 0.0, result[g][0]);
+            assertEquals(abThin[g] ? thin : 0.0, result[g][1]);
+            assertEquals(result[g][0], parResult[g][0]);
+            assertEquals(result[g][1], parResult[g][1]);
+        }
+        assertTrue(result[0][0] > result[1][0]);
+        assertTrue(result[1][0] > 0.0);
+        assertEquals(0.0, result[2][0]);
+        assertTrue(result[3][1] > 0.0);
+    }
+}
+
@@ -0,0 +1,203 @@
+/*
+ * Copyright (C) 2016 European Forest Institute
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package int_.efi.efiscen.gm;
+
+import efi.efiscen.com.ComArFloat;
+import efi.efiscen.com.ComArFlt;
+import efi.efiscen.gm.GMEfiscen;
+import efi.efiscen.gm.GMHistory;
+import efi.efiscen.gm.GMHistoryMap;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import junit.framework.TestCase;
+
+/**
+ * Test class for GMHistory.
+ * EFI
+ */
+public class GMHistoryTest extends TestCase {
+
+    public GMHistoryTest(String testName) {
+        super(testName);
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        super.tearDown();
+    }
+
+    private static long key(long r, long o, long st, long sp) {
+        return (r<<24) + (o<<16) + (st<<8) + sp;
+    }
+
+    /**
+     * Test of addValue method, of class GMHistory.
+     */
+    public void testAddValue() {
+        System.out.println("addValue");
+        GMHistory instance = new GMHistory(2);
+        GMHistoryMap map = instance.createMap();
+        int nsteps = 3*GMHistory.CHUNK+5;
+        for (int m=1;m<=5;m++) {
+            // Columns are added while the series are growing
+            map.addColumn(key(1,m,1,1));
+            for (ComArFlt<Float> pCol : map.values())
+                ComArFloat.append(pCol, pCol.getSize()*10.0f+m);
+        }
+        for (ComArFlt<Float> pCol : map.values())
+            while (pCol.getSize() < nsteps)
+                ComArFloat.append(pCol, pCol.getSize()*10.0f);
+        assertEquals(5, instance.getNumKeys());
+        for (int m=1;m<=5;m++) {
+            ComArFlt<Float> pCol = map.get(key(1,m,1,1));
+            assertEquals(nsteps, pCol.getSize());
+            assertEquals(m, instance.getKey(instance.getIndex(key(1,m,1,1))) >> 16 & 0xFF);
+            assertEquals(nsteps*10.0f-10.0f, pCol.getData(nsteps-1));
+            assertNull(pCol.getData(nsteps));
+        }
+        assertEquals(1, map.get(key(1,3,1,1)).setData(2, 5.5f));
+        assertEquals(5.5f, map.get(key(1,3,1,1)).getData(2));
+        assertEquals(-1, map.get(key(1,3,1,1)).setData(nsteps, 5.5f));
+    }
+
+    /**
+     * Test of summarize method, of class GMHistory, against the summary
+     * of plain histories.
+     */
+    public void testSummarize() {
+        System.out.println("summarize");
+        GMEfiscen experiment = new GMEfiscen();
+        GMHistoryMap map = experiment.m_pTableHistory.createMap();
+        LinkedHashMap<Long,ComArFlt<Float>> plain = new LinkedHashMap<>();
+        for (int r=1;r<=2;r++)
+            for (int o=1;o<=3;o++)
+                for (int sp=1;sp<=4;sp++) {
+                    long ukey = key(r,o,1,sp);
+                    map.addColumn(ukey);
+                    plain.put(ukey, new ComArFlt<Float>());
+                    for (int i=0;i<70;i++) {
+                        float val = 0.37f*r+1.11f*o+0.013f*sp*i;
+                        ComArFloat.append(map.get(ukey), val);
+                        plain.get(ukey).addData(val);
+                    }
+                }
+        for (int i=0;i<=70;i+=7) {
+            assertEquals(experiment.summarize(0,0,0,0,plain,i), experiment.summarize(0,0,0,0,map,i));
+            assertEquals(experiment.summarize(2,0,0,0,plain,i), experiment.summarize(2,0,0,0,map,i));
+            assertEquals(experiment.summarize(1,3,0,4,plain,i), experiment.summarize(1,3,0,4,map,i));
+            assertEquals(experiment.summarize(0,2,1,0,plain,i), experiment.summarize(0,2,1,0,map,i));
+        }
+        // Columns of different lengths
+        for (Long ukey : plain.keySet())
+            if (ukey != key(1,2,1,3)) {
+                ComArFloat.append(map.get(ukey), 1.5f);
+                plain.get(ukey).addData(1.5f);
+            }
+        for (int i=69;i<=72;i++) {
+            assertEquals(experiment.summarize(0,0,0,0,plain,i), experiment.summarize(0,0,0,0,map,i));
+            assertEquals(experiment.summarize(2,0,0,0,plain,i), experiment.summarize(2,0,0,0,map,i));
+            assertEquals(experiment.summarize(1,2,0,0,plain,i), experiment.summarize(1,2,0,0,map,i));
+        }
+        // Histories not kept in the store are summarized as well
+        map.put(key(3,1,1,1), new ComArFlt<Float>());
+        map.get(key(3,1,1,1)).addData(1.0f);
+        assertNull(map.getOrder());
+        assertEquals(1.0f, experiment.summarize(3,0,0,0,map,0));
+    }
+
+    /**
+     * Test of summarize method, of class GMHistoryMap, after the values
+     * have changed.
+     */
+    public void testGroupSums() {
+        System.out.println("groupSums");
+        GMEfiscen experiment = new GMEfiscen();
+        GMHistoryMap map = experiment.m_pTableHistory.createMap();
+        LinkedHashMap<Long,ComArFlt<Float>> plain = new LinkedHashMap<>();
+        for (int o=1;o<=3;o++)
+            for (int sp=1;sp<=3;sp++) {
+                long ukey = key(1,o,1,sp);
+                map.addColumn(ukey);
+                plain.put(ukey, new ComArFlt<Float>());
+            }
+        for (int i=0;i<3;i++) {
+            // Queries between the appends
+            for (Long ukey : plain.keySet()) {
+                ComArFloat.append(map.get(ukey), 0.1f*i+ukey%7);
+                plain.get(ukey).addData(0.1f*i+ukey%7);
+                for (int j=0;j<=i;j++) {
+                    assertEquals(experiment.summarize(1,2,0,0,plain,j), experiment.summarize(1,2,0,0,map,j));
+                    assertEquals(experiment.summarize(0,0,0,3,plain,j), experiment.summarize(0,0,0,3,map,j));
+                }
+            }
+        }
+        assertEquals(2, map.getLatestStep());
+        for (int n=0;n<3;n++)
+            assertEquals(experiment.summarize(0,3,0,0,plain,2), experiment.summarize(0,3,0,0,map,2));
+        map.get(key(1,3,1,2)).setData(2, 100.0f);
+        plain.get(key(1,3,1,2)).setData(2, 100.0f);
+        for (int n=0;n<3;n++)
+            assertEquals(experiment.summarize(0,3,0,0,plain,2), experiment.summarize(0,3,0,0,map,2));
+        assertEquals(0.0f, experiment.summarize(2,0,0,0,map,2));
+        ComArFloat.append(map.get(key(1,1,1,1)), 1.0f);
+        assertEquals(-1, map.getLatestStep());
+    }
+
+    /**
+     * Test of copy method, of class GMHistoryMap, also for a deserialized
+     * map.
+     */
+    public void testCopy() throws Exception {
+        System.out.println("copy");
+        GMHistory instance = new GMHistory(4);
+        GMHistoryMap map = instance.createMap();
+        for (int o=1;o<=3;o++)
+            for (int sp=1;sp<=25;sp+=8)
+                ComArFloat.append(map.addColumn(key(1,o,1,sp)), o*10.0f+sp);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(map);
+        }
+        GMHistoryMap loaded;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            loaded = (GMHistoryMap)in.readObject();
+        }
+        // The loaded map iterates in the order the keys were added
+        assertEquals(new ArrayList<>(map.keySet()), new ArrayList<>(loaded.keySet()));
+        for (GMHistoryMap src : new GMHistoryMap[] {map, loaded}) {
+            GMHistory history = src.getHistory().copy();
+            GMHistoryMap copy = src.copy(history);
+            assertEquals(new ArrayList<>(src.keySet()), new ArrayList<>(copy.keySet()));
+            assertNotNull(copy.getOrder());
+            for (Long ukey : src.keySet())
+                assertEquals(src.get(ukey).getData(0), copy.get(ukey).getData(0));
+            ComArFloat.append(copy.get(key(1,2,1,9)), 1.0f);
+            copy.get(key(1,2,1,9)).setData(0, 5.0f);
+            assertEquals(1, src.get(key(1,2,1,9)).getSize());
+            assertEquals(29.0f, src.get(key(1,2,1,9)).getData(0));
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2016 European Forest Institute
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package int_.efi.efiscen.gm;
+
+import efi.efiscen.gm.GMKeyFilter;
+import junit.framework.TestCase;
+
+/**
+ * Test class for GMKeyFilter.
+ * EFI
+ */
+public class GMKeyFilterTest extends TestCase {
+
+    public GMKeyFilterTest(String testName) {
+        super(testName);
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        super.tearDown();
+    }
+
+    private static long key(long r, long o, long st, long sp) {
+        return (r<<24) + (o<<16) + (st<<8) + sp;
+    }
+
+    /**
+     * Test of matches method, of class GMKeyFilter.
+     */
+    public void testMatches() {
+        System.out.println("matches");
+        GMKeyFilter instance = new GMKeyFilter();
+        assertTrue(instance.isEmpty());
+        assertTrue(instance.matches(key(5,1,1,1)));
+        instance.addPattern(1,0,0,2);
+        instance.addPattern(3,4,0,0);
+        assertFalse(instance.isEmpty());
+        assertTrue(instance.matches(key(1,7,9,2)));
+        assertFalse(instance.matches(key(1,7,9,3)));
+        assertTrue(instance.matches(key(3,4,1,255)));
+        assertFalse(instance.matches(key(3,5,1,1)));
+        assertFalse(instance.matches(key(2,4,1,2)));
+    }
+
+    /**
+     * Test of overlaps method against all keys matching the filter.
+     */
+    public void testOverlaps() {
+        System.out.println("overlaps");
+        GMKeyFilter instance = new GMKeyFilter();
+        instance.addPattern(1,0,0,2);
+        instance.addPattern(3,2,1,0);
+        for (long r=0;r<=3;r++)
+            for (long o=0;o<=3;o++)
+                for (long st=0;st<=3;st++)
+                    for (long sp=0;sp<=3;sp++) {
+                        // a key with wildcards overlaps if it applies to a
+                        // matrix matching the filter
+                        boolean expResult = false;
+                        for (long mr=1;mr<=3;mr++)
+                            for (long mo=1;mo<=3;mo++)
+                                for (long mst=1;mst<=3;mst++)
+                                    for (long msp=1;msp<=3;msp++) {
+                                        boolean applies = (r==0 || r==mr) && (o==0 || o==mo)
+                                                && (st==0 || st==mst) && (sp==0 || sp==msp);
+                                        if (applies && instance.matches(key(mr,mo,mst,msp)))
+                                            expResult = true;
+                                    }
+                        assertEquals(expResult, instance.overlaps(key(r,o,st,sp)));
+                    }
+    }
+}
@@ -16,12 +16,16 @@
  */
 package int_.efi.efiscen.gm;
 
+import efi.efiscen.com.ComFltPipe;
+import efi.efiscen.com.ComFltPipeElement;
 import efi.efiscen.gm.GMCarbonAlloc;
 import efi.efiscen.gm.GMCellInit;
 import efi.efiscen.gm.GMMatrix;
 import efi.efiscen.gm.GMLitterCollect;
 import efi.efiscen.gm.GMMatrixInit;
 import efi.efiscen.gm.GMCell;
+import efi.efiscen.gm.GMCellStore;
+import efi.efiscen.gm.GMDistrReport;
 import efi.efiscen.gm.GMFellings;
 import efi.efiscen.gm.GMGrFunction;
 import java.util.ArrayList;
@@ -329,6 +333,49 @@ public class GMMatrixTest extends TestCase {
         assertEquals(expResult.getF_area(), result.getF_area());
     }
 
+    private static GMMatrix createHarvestMatrix() {
+        GMMatrix instance = new GMMatrix(3,3);
+        instance.initRegular(new GMMatrixInit(2,2,2,2,2,2,2));
+        instance.fillRegular(2);
+        instance.setThinningsSimple(0,5);
+        instance.setFellingsSimple(0);
+        return instance;
+    }
+
+    /**
+     * Test of cached potentials of reportHarvest and reportThinningsV4.
+     * Cached values must be dropped when the cells are changed.
+     */
+    public void testReportHarvestCache() {
+        System.out.println("reportHarvestCache");
+        GMMatrix instance = createHarvestMatrix();
+        GMFellings first = instance.reportHarvest(new GMFellings(1f,0f,0f,0.95f,0f,0f,0f,0f));
+        GMFellings second = instance.reportHarvest(new GMFellings(1f,0f,0f,0.95f,0f,0f,0f,0f));
+        assertEquals(first.getF_area(), second.getF_area());
+        assertEquals(first.getF_volume(), second.getF_volume());
+        // Other stem share is not taken from the cache
+        GMFellings other = instance.reportHarvest(new GMFellings(1f,0f,0f,0.5f,0f,0f,0f,0f));
+        assertEquals(first.getF_area(), other.getF_area());
+        assertTrue(other.getF_volume() < first.getF_volume());
+        instance.reportThinningsV4(new GMFellings(1f,0f,0f,0.95f,0f,0f,0f,0f));
+
+        instance.getAt(2,2).setM_Area(7.5f);
+        GMMatrix reference = createHarvestMatrix();
+        reference.getAt(2,2).setM_Area(7.5f);
+        GMFellings result = instance.reportHarvest(new GMFellings(1f,0f,0f,0.95f,0f,0f,0f,0f));
+        GMFellings expResult = reference.reportHarvest(new GMFellings(1f,0f,0f,0.95f,0f,0f,0f,0f));
+        assertEquals(expResult.getF_area(), result.getF_area());
+        assertEquals(expResult.getF_volume(), result.getF_volume());
+        assertTrue(result.getF_area() != first.getF_area());
+
+        instance.stepV4();
+        reference.stepV4();
+        result = instance.reportThinningsV4(new GMFellings(1f,0f,0f,0.95f,0f,0f,0f,0f));
+        expResult = reference.reportThinningsV4(new GMFellings(1f,0f,0f,0.95f,0f,0f,0f,0f));
+        assertEquals(expResult.getF_area(), result.getF_area());
+        assertEquals(expResult.getF_volume(), result.getF_volume());
+    }
+
     /**
      * Test of doThinningV4 method, of class GMMatrix.
      */
@@ -1238,4 +1285,221 @@ public class GMMatrixTest extends TestCase {
         ArrayList<GMCell> result = instance.setThinHistory(ratio);
         assertEquals(expResult, result.get(0).getM_ThinArea());
     }
+
+    /**
+     * Test of packCells method, of class GMMatrix.
+     */
+    public void testPackCells() {
+        System.out.println("packCells");
+        GMMatrix instance = new GMMatrix(2,2);
+        GMMatrixInit init = new GMMatrixInit(2,2,2,2,2,2,2);
+        instance.initRegular(init);
+        for (int i=1;i<=2;i++) {
+            for (int j=1;j<=2;j++) {
+                GMCellInit cinit = new GMCellInit(i,j,0,2f,2f,2f,2f,2f,2f,i*10f+j);
+                instance.m_Cells.add(new GMCell(cinit));
+            }
+        }
+        assertNull(instance.getM_pCellStore());
+        GMCellStore result = instance.packCells();
+        assertEquals(4, result.getSize());
+        assertEquals(12f, result.m_Area[1]);
+        assertEquals(21f, instance.getAt(2,1).getArea());
+        instance.getAt(2,2).setM_Area(5f);
+        assertEquals(5f, result.m_Area[3]);
+        assertSame(result, instance.getAt(1,2).getM_pStore());
+        // Cell from outside is copied to the store
+        GMCell cell = new GMCell(new GMCellInit(1,1,0,2f,2f,2f,2f,2f,2f,7f));
+        instance.setAt(1,1,cell);
+        assertEquals(7f, result.m_Area[0]);
+        assertEquals(7f+12f+21f+5f, instance.getArea());
+    }
+
+    /**
+     * Test of stepV4 method, of class GMMatrix.
+     * Fused step must give same results as growV4 followed by updateV4.
+     */
+    public void testStepV4() {
+        System.out.println("stepV4");
+        GMMatrix instance = new GMMatrix(4,3);
+        GMMatrix reference = new GMMatrix(4,3);
+        GMMatrixInit init = new GMMatrixInit(2,2,2,2,2,2,2);
+        instance.initRegular(init);
+        instance.fillRegular(2.0f);
+        reference.initRegular(init);
+        reference.fillRegular(2.0f);
+        for (int i=0;i<12;i++) {
+            GMCell cell = instance.m_Cells.get(i);
+            GMCell refcell = reference.m_Cells.get(i);
+            cell.setM_Area(1.0f+i*0.37f);
+            refcell.setM_Area(1.0f+i*0.37f);
+            cell.setM_ThinArea(i%3*0.11f);
+            refcell.setM_ThinArea(i%3*0.11f);
+            cell.setM_MoveAsThin(i%2*0.23f);
+            refcell.setM_MoveAsThin(i%2*0.23f);
+            cell.setM_bThinned(i%4==1);
+            refcell.setM_bThinned(i%4==1);
+        }
+        instance.m_BareArea = 3.0f;
+        reference.m_BareArea = 3.0f;
+        for (int n=0;n<5;n++) {
+            float result = instance.stepV4();
+            reference.growV4();
+            float expResult = reference.updateV4();
+            assertEquals(expResult, result);
+            assertEquals(reference.m_BareArea, instance.m_BareArea);
+            for (int i=0;i<12;i++) {
+                assertEquals(reference.m_Cells.get(i).getArea(), instance.m_Cells.get(i).getArea());
+                assertEquals(reference.m_Cells.get(i).getM_ThinArea(), instance.m_Cells.get(i).getM_ThinArea());
+                assertEquals(0.0f, instance.m_Cells.get(i).getM_Income());
+            }
+        }
+    }
+
+    private static GMCarbonAlloc createCarbonAlloc() {
+        GMCarbonAlloc pCa = new GMCarbonAlloc(3,0.5f,0.45f,0.0,0.0,0.0,0.0,0.0);
+        for (int i=0;i<3;i++) {
+            pCa.getCa_pxvals().add(3.0f+i*4.0f);
+            pCa.getCa_pbranch().add(0.2f+i*0.01f);
+            pCa.getCa_pleaves().add(0.05f+i*0.02f);
+            pCa.getCa_pcroots().add(0.15f);
+            pCa.getCa_pfroots().add(0.03f-i*0.005f);
+        }
+        return pCa;
+    }
+
+    /**
+     * Test of reportDistr method, of class GMMatrix.
+     * Fused sweep must give same results as the separate methods.
+     */
+    public void testReportDistr() {
+        System.out.println("reportDistr");
+        int nsize = 4;
+        ArrayList<Float> pLims = new ArrayList<>(nsize);
+        for (int i=0;i<nsize;i++)
+            pLims.add(3.0f+i*3.0f);
+        GMMatrix instance = new GMMatrix(6,3);
+        GMMatrixInit init = new GMMatrixInit(2,0,12,0,9,2,3);
+        instance.initRegular(init);
+        instance.fillRegular(2.0f);
+        for (int i=0;i<18;i++) {
+            GMCell cell = instance.m_Cells.get(i);
+            cell.setM_Area(1.0f+i*0.37f);
+            cell.setM_ThinArea(i%3*0.11f);
+            cell.setM_NatMrt(i*0.013f);
+            cell.setM_ThArea(i%4*0.21f);
+            cell.setM_ThRem(i%5*0.7f);
+            cell.setM_FelArea(i%2*0.17f);
+            cell.setM_FelRem(i%3*1.3f);
+            cell.setM_ThSlash(i*0.07f);
+            cell.setM_FelSlash(i*0.09f);
+        }
+        instance.m_BareArea = 3.0f;
+        ComFltPipe pipe = instance.getM_fpDwPipe();
+        for (int i=0;i<pipe.m_nSize;i++) {
+            ComFltPipeElement el = new ComFltPipeElement(i+1, 0.5f+i, 0.1f*i, 0.2f*i);
+            el.setCfp_uplim(2.0f+i*2.0f);
+            pipe.setElement(i, el);
+        }
+
+        GMCarbonAlloc pCa = createCarbonAlloc();
+        GMDistrReport pRep = new GMDistrReport(pLims, nsize);
+        float result = instance.reportDistr(pCa, pRep);
+
+        GMCarbonAlloc pRefCa = createCarbonAlloc();
+        ArrayList<Float> pSt = GMDistrReport.zeros(nsize);
+        ArrayList<Float> pBr = GMDistrReport.zeros(nsize);
+        ArrayList<Float> pLv = GMDistrReport.zeros(nsize);
+        ArrayList<Float> pCr = GMDistrReport.zeros(nsize);
+        ArrayList<Float> pFr = GMDistrReport.zeros(nsize);
+        float expResult = instance.getBiomassDistr(pRefCa, pLims, pSt, pBr, pLv, pCr, pFr, nsize);
+        assertEquals(expResult, result);
+        assertEquals(pRefCa.getCa_cstem(), pCa.getCa_cstem());
+        assertEquals(pRefCa.getCa_cleaves(), pCa.getCa_cleaves());
+        assertEquals(instance.getValue(), pRep.m_fValue);
+        assertEquals(instance.getArea(), pRep.m_fArea);
+        ArrayList<Float> pTha = GMDistrReport.zeros(nsize);
+        ArrayList<Float> pThr = GMDistrReport.zeros(nsize);
+        ArrayList<Float> pFla = GMDistrReport.zeros(nsize);
+        ArrayList<Float> pFlr = GMDistrReport.zeros(nsize);
+        instance.getMefiqueDistr(pLims, pTha, pThr, pFla, pFlr, nsize);
+        ArrayList<Float> pThs = GMDistrReport.zeros(nsize);
+        ArrayList<Float> pFls = GMDistrReport.zeros(nsize);
+        instance.getSlashDistr(pLims, pThs, pFls, nsize);
+        ArrayList<Float> pDw = GMDistrReport.zeros(nsize);
+        instance.getDwoodDistrFromPipe(pLims, pDw, nsize);
+        ArrayList<Float> pAreas = GMDistrReport.zeros(nsize);
+        instance.getAreaDistr(pLims, pAreas, nsize);
+        ArrayList<Float> pStocks = GMDistrReport.zeros(nsize);
+        instance.getStockDistr(pLims, pStocks, nsize);
+        ArrayList<Float> pMort = GMDistrReport.zeros(nsize);
+        instance.getMortDistr(pLims, pMort, nsize);
+        for (int i=0;i<nsize;i++) {
+            assertEquals(pSt.get(i), pRep.m_afStem[i]);
+            assertEquals(pBr.get(i), pRep.m_afBranches[i]);
+            assertEquals(pLv.get(i), pRep.m_afLeaves[i]);
+            assertEquals(pCr.get(i), pRep.m_afCroots[i]);
+            assertEquals(pFr.get(i), pRep.m_afFroots[i]);
+            assertEquals(pAreas.get(i), pRep.m_afAreas[i]);
+            assertEquals(pStocks.get(i), pRep.m_afStocks[i]);
+            assertEquals(pTha.get(i), pRep.m_afThAreas[i]);
+            assertEquals(pThr.get(i), pRep.m_afThRems[i]);
+            assertEquals(pFla.get(i), pRep.m_afFelAreas[i]);
+            assertEquals(pFlr.get(i), pRep.m_afFelRems[i]);
+            assertEquals(pThs.get(i), pRep.m_afThSlash[i]);
+            assertEquals(pFls.get(i), pRep.m_afFelSlash[i]);
+            assertEquals(pMort.get(i), pRep.m_afNatMort[i]);
+            assertEquals(pDw.get(i), pRep.m_afDeadWood[i]);
+        }
+        assertTrue(pRep.m_afAreas[nsize-1] > 0.0f);
+
+        // Report is reused, cells out of the store use the separate methods
+        GMMatrix unpacked = new GMMatrix(2,2);
+        unpacked.initRegular(new GMMatrixInit(2,2,2,2,2,2,2));
+        for (int i=1;i<=2;i++)
+            for (int j=1;j<=2;j++)
+                unpacked.m_Cells.add(new GMCell(new GMCellInit(i,j,0,2f*i,2f*i+2f,2f*i+1f,2f,2f,2f,i*10f+j)));
+        unpacked.reportDistr(createCarbonAlloc(), pRep);
+        assertEquals(unpacked.getArea(), pRep.m_fArea);
+        assertEquals(unpacked.getValue(), pRep.m_fValue);
+        ArrayList<Float> pUnpAreas = GMDistrReport.zeros(nsize);
+        unpacked.getAreaDistr(pLims, pUnpAreas, nsize);
+        for (int i=0;i<nsize;i++)
+            assertEquals(pUnpAreas.get(i), pRep.m_afAreas[i]);
+    }
+
+    /**
+     * Test of isClimGrowV4 method, of class GMMatrix.
+     */
+    public void testIsClimGrowV4() {
+        System.out.println("isClimGrowV4");
+        ArrayList<Float> pLims = new ArrayList<>();
+        pLims.add(5.0f);
+        pLims.add(10.0f);
+        ArrayList<Float> pRat = new ArrayList<>();
+        pRat.add(2.0f);
+        pRat.add(1.5f);
+        int nsize = 2;
+
+        GMMatrix instance = new GMMatrix(2,2);
+        GMMatrixInit init = new GMMatrixInit(2,2,2,2,2,2,2);
+        instance.initRegular(init);
+        instance.fillRegular(2.0f);
+        for (GMCell c : instance.m_Cells)
+            c.setM_MoveByXYOrg(0.4f);
+
+        assertFalse(instance.isClimGrowV4(pLims, pRat, nsize));
+        instance.setClimGrowV4(pLims, pRat, nsize);
+        assertTrue(instance.isClimGrowV4(pLims, pRat, nsize));
+        assertEquals(0.8f, instance.getAt(1,1).getM_MoveByXY());
+        assertEquals(0.6f, instance.getAt(2,1).getM_MoveByXY(), 1e-6f);
+        // Changed ratio must be applied again
+        pRat.set(1, 1.0f);
+        assertFalse(instance.isClimGrowV4(pLims, pRat, nsize));
+        instance.setClimGrowV4(pLims, pRat, nsize);
+        assertEquals(0.4f, instance.getAt(2,2).getM_MoveByXY());
+        // Same for any change of original transitions
+        instance.resetClimGrow();
+        assertFalse(instance.isClimGrowV4(pLims, pRat, nsize));
+    }
 }
@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2016 European Forest Institute
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package int_.efi.efiscen.gm;
+
+import efi.efiscen.gm.GMParArray;
+import efi.efiscen.gm.GMParLocator;
+import java.util.Random;
+import junit.framework.TestCase;
+
+/**
+ * Test class for GMParLocator.
+ * EFI
+ */
+public class GMParLocatorTest extends TestCase {
+
+    public GMParLocatorTest(String testName) {
+        super(testName);
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        super.tearDown();
+    }
+
+    private static GMParArray createPar(int r, int o, int st, int sp, float val) {
+        GMParArray pPar = new GMParArray(1);
+        pPar.m_uRegion = r;
+        pPar.m_uOwner = o;
+        pPar.m_uSite = st;
+        pPar.m_uSpecies = sp;
+        pPar.m_Vals.add(val);
+        return pPar;
+    }
+
+    private static long key(long r, long o, long st, long sp) {
+        return (r<<24) + (o<<16) + (st<<8) + sp;
+    }
+
+    /**
+     * Linear scan used for locating parameters before the index.
+     */
+    private static GMParArray scan(GMParLocator locator, long ulkey) {
+        for (Long uKey : locator.getElements().keySet()) {
+            GMParArray pEl = locator.getElements().get(uKey);
+            long inkey = ulkey;
+            if (pEl.m_uRegion == 0)  inkey = inkey & ~0xFF000000;
+            if (pEl.m_uOwner == 0)   inkey = inkey & ~0xFF0000;
+            if (pEl.m_uSite == 0)    inkey = inkey & ~0xFF00;
+            if (pEl.m_uSpecies == 0) inkey = inkey & ~0xFF;
+            if (uKey == inkey)
+                return pEl;
+        }
+        return null;
+    }
+
+    /**
+     * Test of getParameter method, of class GMParLocator.
+     */
+    public void testGetParameter() throws Exception {
+        System.out.println("getParameter");
+        GMParLocator instance = new GMParLocator("test");
+        instance.addParameter(createPar(0,0,0,1,1.0f));
+        instance.addParameter(createPar(2,0,0,0,2.0f));
+        assertEquals(1.0f, instance.getParameterValue(key(5,1,1,1),0));
+        assertEquals(2.0f, instance.getParameterValue(key(2,3,4,5),0));
+        assertNull(instance.getParameter(key(5,1,1,2)));
+        // Index is rebuilt after adding
+        instance.addParameter(createPar(5,1,1,2,3.0f));
+        assertEquals(3.0f, instance.getParameterValue(key(5,1,1,2),0));
+    }
+
+    /**
+     * Test of getParameter method against the linear scan.
+     */
+    public void testGetParameterScan() throws Exception {
+        System.out.println("getParameterScan");
+        Random rnd = new Random(42);
+        GMParLocator instance = new GMParLocator("test");
+        for (int i=0;i<200;i++) {
+            int r = rnd.nextInt(3)==0 ? 0 : 1+rnd.nextInt(3);
+            int o = rnd.nextInt(2)==0 ? 0 : 1+rnd.nextInt(3);
+            int st = rnd.nextInt(2)==0 ? 0 : 1+rnd.nextInt(3);
+            int sp = rnd.nextInt(3)==0 ? 0 : 1+rnd.nextInt(3);
+            instance.addParameter(createPar(r,o,st,sp,i));
+        }
+        for (long r=0;r<=4;r++)
+            for (long o=0;o<=4;o++)
+                for (long st=0;st<=4;st++)
+                    for (long sp=0;sp<=4;sp++) {
+                        long ulkey = key(r,o,st,sp);
+                        assertSame(scan(instance,ulkey), instance.getParameter(ulkey));
+                    }
+    }
+}
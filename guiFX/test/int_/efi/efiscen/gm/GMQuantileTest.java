@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2016 European Forest Institute
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package int_.efi.efiscen.gm;
+
+import efi.efiscen.gm.GMOutputStatistics;
+import efi.efiscen.gm.GMQuantile;
+import java.util.Arrays;
+import java.util.Random;
+import junit.framework.TestCase;
+
+/**
+ * Test class for GMQuantile and GMOutputStatistics.
+ * EFI
+ */
+public class GMQuantileTest extends TestCase {
+
+    public GMQuantileTest(String testName) {
+        super(testName);
+    }
+
+    /**
+     * Exact quantile of sorted values, interpolated linearly.
+     */
+    private static double exact(double[] sorted, double p) {
+        double pos = p*(sorted.length-1);
+        int i = (int)Math.floor(pos);
+        if (i >= sorted.length-1)
+            return sorted[sorted.length-1];
+        return sorted[i] + (pos-i)*(sorted[i+1]-sorted[i]);
+    }
+
+    /**
+     * Test of getValue method, of class GMQuantile.
+     */
+    public void testGetValue() {
+        System.out.println("getValue");
+        Random rnd = new Random(7);
+        double[] ps = {0.0, 0.05, 0.5, 0.95, 1.0};
+        GMQuantile[] quantiles = new GMQuantile[ps.length];
+        for (int i=0;i<ps.length;i++) {
+            quantiles[i] = new GMQuantile(ps[i]);
+            assertTrue(Double.isNaN(quantiles[i].getValue()));
+        }
+        double[] values = new double[20000];
+        for (int n=0;n<values.length;n++) {
+            values[n] = 100.0 + 10.0*rnd.nextGaussian();
+            for (GMQuantile q : quantiles)
+                q.add(values[n]);
+            if (n == 2) {
+                // Exact for a few values
+                double[] sorted = Arrays.copyOf(values, 3);
+                Arrays.sort(sorted);
+                for (int i=0;i<ps.length;i++)
+                    assertEquals(exact(sorted, ps[i]), quantiles[i].getValue(), 1e-12);
+            }
+        }
+        Arrays.sort(values);
+        for (int i=0;i<ps.length;i++) {
+            assertEquals(values.length, quantiles[i].getCount());
+            assertEquals(exact(values, ps[i]), quantiles[i].getValue(), 0.5);
+        }
+        assertEquals(values[0], quantiles[0].getValue());
+        assertEquals(values[values.length-1], quantiles[4].getValue());
+    }
+
+    /**
+     * Test of add method, of class GMOutputStatistics.
+     */
+    public void testStatistics() {
+        System.out.println("statistics");
+        GMOutputStatistics stat = new GMOutputStatistics("stock", 1, new double[] {0.5});
+        stat.add(new float[] {1.0f, 2.0f});
+        stat.add(new float[] {3.0f, Float.NaN});
+        stat.add(new float[] {5.0f, 4.0f});
+        assertEquals(3, stat.getCount(0));
+        assertEquals(2, stat.getCount(1));
+        assertEquals(3.0, stat.getMean(0), 1e-12);
+        assertEquals(2.0, stat.getStdDev(0), 1e-12);
+        assertEquals(1.0, stat.getMin(0));
+        assertEquals(5.0, stat.getMax(0));
+        assertEquals(3.0, stat.getPercentile(0, 0), 1e-12);
+        assertEquals(3.0, stat.getMean(1), 1e-12);
+        assertEquals(3.0, stat.getPercentile(1, 0), 1e-12);
+    }
+}
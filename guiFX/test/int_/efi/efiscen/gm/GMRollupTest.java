@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2016 European Forest Institute
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package int_.efi.efiscen.gm;
+
+import efi.efiscen.gm.GMKeyMap;
+import efi.efiscen.gm.GMRollup;
+import java.util.ArrayList;
+import java.util.Random;
+import junit.framework.TestCase;
+
+/**
+ * Test class for GMRollup.
+ * EFI
+ */
+public class GMRollupTest extends TestCase {
+
+    public GMRollupTest(String testName) {
+        super(testName);
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        super.tearDown();
+    }
+
+    private static long key(long r, long o, long st, long sp) {
+        return (r<<24) + (o<<16) + (st<<8) + sp;
+    }
+
+    /**
+     * Scan of the keys as done in GMEfiscen before the index.
+     */
+    private static ArrayList<Long> scan(GMKeyMap<Integer> map, long lr, long lo, long lst, long lsp) {
+        ArrayList<Long> paRet = new ArrayList<>();
+        long ulKey = key(lr,lo,lst,lsp);
+        for (Long uKey : map.keySet()) {
+            long uSaveKey = uKey;
+            if (lr == 0)  uKey = uKey & ~0xFF000000;
+            if (lo == 0)  uKey = uKey & ~0xFF0000;
+            if (lst == 0) uKey = uKey & ~0xFF00;
+            if (lsp == 0) uKey = uKey & ~0xFF;
+            if (ulKey == uKey)
+                paRet.add(uSaveKey);
+        }
+        return paRet;
+    }
+
+    /**
+     * Test of getMembers method, of class GMRollup, against the scan.
+     */
+    public void testGetMembers() {
+        System.out.println("getMembers");
+        GMKeyMap<Integer> map = new GMKeyMap<>();
+        Random rnd = new Random(7);
+        for (int i=0;i<300;i++)
+            map.put(key(1+rnd.nextInt(3),1+rnd.nextInt(4),1+rnd.nextInt(3),1+rnd.nextInt(5)), i);
+        for (int npass=0;npass<2;npass++) {
+            GMRollup rollup = map.getRollup();
+            assertEquals(map.size(), rollup.size());
+            for (long r=0;r<=3;r++)
+                for (long o=0;o<=4;o++)
+                    for (long st=0;st<=3;st++)
+                        for (long sp=0;sp<=5;sp++) {
+                            ArrayList<Long> paMembers = new ArrayList<>();
+                            for (int npos : rollup.getMembers(r,o,st,sp))
+                                paMembers.add(rollup.getKey(npos));
+                            assertEquals(scan(map,r,o,st,sp), paMembers);
+                        }
+            // The index follows the changes of the keys
+            map.remove(map.keySet().iterator().next());
+            map.put(key(4,1,1,1), 0);
+        }
+        GMRollup rollup = map.getRollup();
+        map.put(key(4,1,1,1), 1);
+        assertSame(rollup, map.getRollup());
+    }
+
+    /**
+     * Test of findLast method, of class GMRollup.
+     */
+    public void testFindLast() {
+        System.out.println("findLast");
+        GMKeyMap<Integer> map = new GMKeyMap<>();
+        map.put(key(1,0,0,0), 1);
+        map.put(key(1,2,0,3), 2);
+        map.put(key(0,0,0,3), 3);
+        map.put(key(2,2,2,2), 4);
+        GMRollup rollup = map.getRollup();
+        for (long r=1;r<=2;r++)
+            for (long o=1;o<=2;o++)
+                for (long st=1;st<=2;st++)
+                    for (long sp=1;sp<=3;sp++) {
+                        long ulKey = key(r,o,st,sp);
+                        int nlast = -1;
+                        int npos = 0;
+                        for (Long uKey : map.keySet()) {
+                            long inkey = ulKey;
+                            if ((uKey & 0xFF000000L) == 0) inkey = inkey & ~0xFF000000;
+                            if ((uKey & 0xFF0000) == 0)    inkey = inkey & ~0xFF0000;
+                            if ((uKey & 0xFF00) == 0)      inkey = inkey & ~0xFF00;
+                            if ((uKey & 0xFF) == 0)        inkey = inkey & ~0xFF;
+                            if (inkey == uKey)
+                                nlast = npos;
+                            npos++;
+                        }
+                        assertEquals(nlast, rollup.findLast(ulKey));
+                    }
+        assertEquals(-1, rollup.findLast(key(3,1,1,1)));
+    }
+}
@@ -69,4 +69,63 @@ public class GMScenarioTest extends TestCase {
         assertEquals(instance.m_pCurCuttings, scen);
     }
 
+    private static GMEfiscenario addItem(GMScenario instance, int nch, int nst) {
+        GMEfiscenario pItem = new GMEfiscenario(nst,new GMParLocator());
+        instance.getChannel(nch).add(pItem);
+        return pItem;
+    }
+
+    /**
+     * Test of checkScenario method for consecutive steps and circling.
+     */
+    public void testCheckScenarioSteps() {
+        System.out.println("checkScenarioSteps");
+        GMScenario instance = new GMScenario();
+        GMEfiscenario[] apCut = {addItem(instance,GMScenario.CH_CUTTINGS,0),
+            addItem(instance,GMScenario.CH_CUTTINGS,2),
+            addItem(instance,GMScenario.CH_CUTTINGS,5)};
+        addItem(instance,GMScenario.CH_FORCLIM,0);
+        GMEfiscenario pFor = addItem(instance,GMScenario.CH_FORCLIM,3);
+        for (int nch=GMScenario.CH_SOILCLIM;nch<=GMScenario.CH_SPECCH;nch++) {
+            addItem(instance,nch,0);
+            addItem(instance,nch,20);
+        }
+        for (int nrun=0;nrun<2;nrun++) {
+            instance.getHeads();
+            assertSame(apCut[0], instance.m_pCurCuttings);
+            assertEquals(0, instance.checkScenario(0));
+            assertSame(apCut[1], instance.m_pCurCuttings);
+            assertSame(pFor, instance.m_pCurForClim);
+            assertTrue(instance.isChanged(GMScenario.CH_CUTTINGS));
+            assertTrue(instance.isChanged(GMScenario.CH_SPECCH));
+            assertFalse(instance.isChanged(GMScenario.CH_FELLAGE));
+            assertTrue(instance.getIsCirclingGUI());
+            instance.checkScenario(1);
+            assertFalse(instance.isChanged(GMScenario.CH_CUTTINGS));
+            instance.checkScenario(2);
+            assertSame(apCut[2], instance.m_pCurCuttings);
+            assertTrue(instance.isChanged(GMScenario.CH_CUTTINGS));
+            assertFalse(instance.isChanged(GMScenario.CH_FORCLIM));
+            assertFalse(instance.getIsCircling());
+            // Last climate item is reached
+            instance.checkScenario(3);
+            assertTrue(instance.getIsCircling());
+            // Continued by the user
+            instance.setIsCircling(false);
+            instance.checkScenario(4);
+            assertFalse(instance.getIsCircling());
+            assertFalse(instance.getIsCirclingGUI());
+            instance.checkScenario(5);
+            assertTrue(instance.getIsCircling());
+            for (int nst=6;nst<40;nst++) {
+                instance.checkScenario(nst);
+                assertTrue(instance.getIsCircling());
+                assertFalse(instance.isChanged(GMScenario.CH_SOILCLIM));
+            }
+            // Reset to the heads
+            instance.isCircling = false;
+            instance.isCirclingGUI = false;
+        }
+    }
+
 }
@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2016 European Forest Institute
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package int_.efi.efiscen.io;
+
+import efi.efiscen.cli.BatchRunner;
+import efi.efiscen.gm.GMEfiscen;
+import efi.efiscen.gm.GMScenario;
+import efi.efiscen.gm.GMSimulation;
+import efi.efiscen.io.EFISCENException;
+import efi.efiscen.io.InputLoader;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs a batch of utopia jobs in one JVM and compares the output files with
+ * a run of the simulation alone.
+ * EFI
+ */
+public class BatchRunTest extends UtopiaRunTestCase {
+
+    public BatchRunTest(String testName) {
+        super(testName);
+    }
+
+    /**
+     * Jobs must give the output files of the simulation run alone, each job
+     * with its own logs; a failing job does not stop the others.
+     */
+    public void testBatchRun() throws Exception, EFISCENException {
+        System.out.println("batch run");
+        InputLoader loader = new InputLoader();
+        GMEfiscen pExperiment = load(loader);
+        GMScenario pScenario = loader.loadScenario(inputFolder + "utopia_all.scn", new AtomicInteger(0));
+        GMSimulation sim = new GMSimulation(pExperiment, pScenario, 0);
+        for (int i=0;i<10;i++)
+            sim.onGo();
+        String single = save(sim.getM_pExperiment(), "single");
+
+        File manifest = new File(workFolder, "jobs.txt");
+        Files.write(manifest.toPath(), Arrays.asList(
+                "# utopia twice and a missing experiment",
+                "experiment=\"" + inputFolder + "utopia.efs\" scenario=\"" + inputFolder
+                        + "utopia_all.scn\" outputfile=a.csv",
+                "",
+                "experiment=\"" + inputFolder + "utopia.efs\" scenario=\"" + inputFolder
+                        + "utopia_all.scn\" outputfile=b.csv threads=2",
+                "experiment=missing.efs outputfile=c.csv"));
+        BatchRunner batch = new BatchRunner(new String[] {"batch=" + manifest.getPath(),
+            "workers=3", "steps=10", "thinning=1", "felling=1", "scaling=1"});
+        batch.run();
+        assertEquals(1, batch.getNumFailed());
+        assertTrue(new File(workFolder, "a_events.txt").length() > 0);
+        assertTrue(new File(workFolder, "c_errors.txt").length() > 0);
+        for (String job : new String[] {"a", "b"})
+            assertEquals(job, 0, compare(single, workPath(job)));
+    }
+}
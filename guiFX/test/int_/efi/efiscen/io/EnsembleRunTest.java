@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) 2016 European Forest Institute
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package int_.efi.efiscen.io;
+
+import efi.efiscen.gm.GMEfiscen;
+import efi.efiscen.gm.GMEnsemble;
+import efi.efiscen.gm.GMScenario;
+import efi.efiscen.gm.GMSimulation;
+import efi.efiscen.io.EFISCENException;
+import efi.efiscen.io.InputLoader;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the utopia scenario as members of an ensemble and alone and compares
+ * the output files.
+ * EFI
+ */
+public class EnsembleRunTest extends UtopiaRunTestCase {
+
+    public EnsembleRunTest(String testName) {
+        super(testName);
+    }
+
+    /**
+     * Members of the ensemble must give the same output files as the
+     * scenario run alone.
+     */
+    public void testEnsembleRun() throws Exception, EFISCENException {
+        System.out.println("ensemble run");
+        int nsteps = 10;
+        InputLoader loader = new InputLoader();
+        GMEfiscen pExperiment = load(loader);
+        GMScenario pScenario = loader.loadScenario(inputFolder + "utopia_all.scn", new AtomicInteger(0));
+        GMSimulation sim = new GMSimulation(pExperiment, pScenario, 0);
+        for (int i=0;i<nsteps;i++)
+            sim.onGo();
+        String single = save(sim.getM_pExperiment(), "single");
+
+        loader = new InputLoader();
+        GMEnsemble pEnsemble = new GMEnsemble(load(loader));
+        pEnsemble.setMembers(2);
+        ArrayList<GMScenario> plScenarios = new ArrayList<>();
+        for (int i=0;i<3;i++)
+            plScenarios.add(loader.loadScenario(inputFolder + "utopia_all.scn", new AtomicInteger(0)));
+        String[] asMembers = new String[plScenarios.size()];
+        int nfailed = pEnsemble.run(plScenarios, nsteps, (nmember, pScen, pExp) ->
+                asMembers[nmember] = save(pExp, "member" + nmember));
+        assertEquals(0, nfailed);
+
+        for (String member : asMembers)
+            assertEquals(0, compare(single, member));
+    }
+
+    /**
+     * Members with different matrix scaling files must give the same output
+     * files as their scenarios run alone, the scaling of one member must not
+     * reach the others.
+     */
+    public void testEnsembleScaling() throws Exception, EFISCENException {
+        System.out.println("ensemble scaling");
+        int nsteps = 5;
+        String[] asScenarios = {scaledScenario("half", 0.5f), scaledScenario("more", 1.5f)};
+        String[] asSingles = new String[asScenarios.length];
+        for (int i=0;i<asScenarios.length;i++) {
+            InputLoader loader = new InputLoader();
+            GMEfiscen pExperiment = load(loader);
+            GMScenario pScenario = loader.loadScenario(asScenarios[i], new AtomicInteger(0));
+            GMSimulation sim = new GMSimulation(pExperiment, pScenario, 0);
+            for (int j=0;j<nsteps;j++)
+                sim.onGo();
+            asSingles[i] = save(sim.getM_pExperiment(), "single" + i);
+        }
+
+        InputLoader loader = new InputLoader();
+        GMEfiscen pExperiment = load(loader);
+        ArrayList<GMScenario> plScenarios = new ArrayList<>();
+        for (String scenario : asScenarios)
+            plScenarios.add(loader.loadScenario(scenario, new AtomicInteger(0), false));
+        GMEnsemble pEnsemble = new GMEnsemble(pExperiment);
+        pEnsemble.setMembers(2);
+        String[] asMembers = new String[plScenarios.size()];
+        int nfailed = pEnsemble.run(plScenarios, nsteps, (nmember, pScen, pExp) ->
+                asMembers[nmember] = save(pExp, "member" + nmember));
+        assertEquals(0, nfailed);
+
+        for (int i=0;i<asMembers.length;i++)
+            assertEquals(0, compare(asSingles[i], asMembers[i]));
+        assertTrue(compare(asMembers[0], asMembers[1]) > 0);
+    }
+
+    /**
+     * Writes to the work folder the utopia scenario with a matrix scaling
+     * file scaling all the matrices.
+     * @param name name of the scenario
+     * @param scaling scaling of the matrices
+     * @return path of the scenario file
+     */
+    private String scaledScenario(String name, float scaling) throws IOException {
+        copyInputs();
+        String scalingFile = "scaling_" + name + ".csv";
+        try (PrintWriter out = new PrintWriter(new File(workFolder, scalingFile))) {
+            out.println("Matrix scaling file " + name);
+            out.println("Number of matrices, then matrices and scaling factors");
+            out.println("1");
+            out.println("0,0,0,0");
+            out.println(scaling);
+        }
+        String scn = new String(Files.readAllBytes(new File(inputFolder, "utopia_all.scn").toPath()));
+        scn = scn.replaceFirst("#Matrix scaling\\r?\\nnofile", "#Matrix scaling\n" + scalingFile);
+        assertTrue(scn.contains(scalingFile));
+        File f = new File(workFolder, name + ".scn");
+        Files.write(f.toPath(), scn.getBytes());
+        return f.getPath();
+    }
+}
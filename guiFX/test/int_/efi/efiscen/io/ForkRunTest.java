@@ -0,0 +1,74 @@
+/*
+ * Copyright (C) 2016 European Forest Institute
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package int_.efi.efiscen.io;
+
+import efi.efiscen.gm.GMEfiscen;
+import efi.efiscen.gm.GMScenario;
+import efi.efiscen.gm.GMSimulation;
+import efi.efiscen.io.EFISCENException;
+import efi.efiscen.io.InputLoader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Forks the utopia simulation in the middle of the run, continues both
+ * and compares the output files.
+ * EFI
+ */
+public class ForkRunTest extends UtopiaRunTestCase {
+
+    public ForkRunTest(String testName) {
+        super(testName);
+    }
+
+    private static byte[] serialize(GMEfiscen pExperiment) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(pExperiment);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * The fork must not change the forked simulation and both must give
+     * the same output files when continued.
+     */
+    public void testForkRun() throws Exception, EFISCENException {
+        System.out.println("fork run");
+        InputLoader loader = new InputLoader();
+        GMEfiscen pExperiment = load(loader);
+        GMScenario pScenario = loader.loadScenario(inputFolder + "utopia_all.scn", new AtomicInteger(0));
+        GMSimulation sim = new GMSimulation(pExperiment, pScenario, 0);
+        for (int i=0;i<4;i++)
+            sim.onGo();
+        GMSimulation fork = sim.fork();
+        assertNotSame(sim.getM_pExperiment(), fork.getM_pExperiment());
+        assertEquals(sim.getM_nStep(), fork.getM_nStep());
+        byte[] abBefore = serialize(sim.getM_pExperiment());
+        for (int i=0;i<6;i++)
+            fork.onGo();
+        assertTrue(Arrays.equals(abBefore, serialize(sim.getM_pExperiment())));
+        for (int i=0;i<6;i++)
+            sim.onGo();
+        String original = save(sim.getM_pExperiment(), "original");
+        String forked = save(fork.getM_pExperiment(), "forked");
+        assertEquals(0, compare(original, forked));
+    }
+}
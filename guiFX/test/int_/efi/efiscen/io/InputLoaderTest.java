@@ -22,13 +22,17 @@ import efi.efiscen.io.InputLoader;
 import efi.efiscen.io.EFISCENFileParsingException;
 import efi.efiscen.gm.GMScenario;
 import efi.efiscen.gm.GMEfiscen;
+import efi.efiscen.gm.GMKeyFilter;
 import efi.efiscen.gm.GMParLocator;
 import efi.efiscen.gm.GMParArray;
 import efi.efiscen.gm.GMEfiscenario;
+import efi.efiscen.gm.GMMatrix;
 import efi.efiscen.gm.GMSoil;
 import java.io.File;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
@@ -89,6 +93,222 @@ public class InputLoaderTest extends TestCase {
         //assertEquals(result.m_mRegions, expectedResult.m_mRegions);
     }
 
+    /**
+     * Parallel loading of the component files must give the same experiment
+     * as the sequential loading.
+     */
+    public void testLoadExperimentParallel() throws Exception, EFISCENException {
+        System.out.println("loadExperimentParallel");
+        InputLoader seqLoader = new InputLoader();
+        seqLoader.setM_scaleAreas(1.0f);
+        GMEfiscen seq = seqLoader.loadExperiment(inputFolder+"utopia.efs",
+                new AtomicInteger(0), null);
+        InputLoader parLoader = new InputLoader();
+        parLoader.setM_scaleAreas(1.0f);
+        parLoader.setParallelLoad(true);
+        AtomicInteger numErrors = new AtomicInteger(0);
+        Map<String,String> filenames = new HashMap<>();
+        GMEfiscen par = parLoader.loadExperiment(inputFolder+"utopia.efs",
+                numErrors, filenames);
+        assertNotNull(par);
+        assertEquals(0, numErrors.get());
+        assertEquals("utopia.aer", filenames.get("matrixdata"));
+        assertEquals(seq.m_nStep, par.m_nStep);
+        assertEquals(seq.m_plAgeLims.getElements().size(), par.m_plAgeLims.getElements().size());
+        assertEquals(seq.m_plCcont.getElements().size(), par.m_plCcont.getElements().size());
+        assertEquals(seq.m_mTables.keySet(), par.m_mTables.keySet());
+        assertFalse(par.m_mTables.isEmpty());
+        for (Long key : seq.m_mTables.keySet()) {
+            GMMatrix pSeq = seq.m_mTables.get(key);
+            GMMatrix pPar = par.m_mTables.get(key);
+            assertEquals(pSeq.getArea(), pPar.getArea());
+            assertEquals(pSeq.getValue(), pPar.getValue());
+            assertEquals(pSeq.getValueByX(), pPar.getValueByX());
+        }
+        assertEquals(seq.m_mSoils.keySet(), par.m_mSoils.keySet());
+        for (Long key : seq.m_mSoils.keySet()) {
+            assertEquals(seq.m_mSoils.get(key).m_CwBasket, par.m_mSoils.get(key).m_CwBasket);
+            assertEquals(seq.m_mSoils.get(key).m_NwBasket, par.m_mSoils.get(key).m_NwBasket);
+        }
+    }
+
+    /**
+     * Loading with a matrix filter must give the matching matrices of the
+     * full experiment and skip the others. The utopia matrix is split to
+     * twelve matrices of different owners and sites.
+     */
+    public void testLoadExperimentFilter() throws Exception, EFISCENException {
+        System.out.println("loadExperimentFilter");
+        File work = Files.createTempDirectory("efiscen").toFile();
+        try {
+            for (File f : new File(inputFolder).listFiles())
+                Files.copy(f.toPath(), new File(work, f.getName()).toPath());
+            List<String> aer = Files.readAllLines(new File(inputFolder, "utopia.aer").toPath());
+            List<String> out = new ArrayList<>(aer.subList(0, 4));
+            out.add("12");
+            for (int o=1;o<=4;o++) {
+                for (int s=1;s<=3;s++) {
+                    out.add("1 " + o + " " + s + " 1");
+                    out.addAll(aer.subList(7, 19));
+                }
+            }
+            Files.write(new File(work, "utopia.aer").toPath(), out);
+            String efs = new String(Files.readAllBytes(new File(inputFolder, "utopia.efs").toPath()));
+            efs = efs.replaceFirst("\\r?\\n1\\r?\\n1 Someone", "\n4\n1 O1\n2 O2\n3 O3\n4 O4");
+            efs = efs.replaceFirst("\\r?\\n1\\r?\\n1 Something", "\n3\n1 S1\n2 S2\n3 S3");
+            Files.write(new File(work, "utopia.efs").toPath(), efs.getBytes());
+            String sFileIn = work.getAbsolutePath() + File.separator + "utopia.efs";
+
+            InputLoader fullLoader = new InputLoader();
+            fullLoader.setM_scaleAreas(1.0f);
+            GMEfiscen full = fullLoader.loadExperiment(sFileIn, new AtomicInteger(0), null);
+            GMKeyFilter filter = new GMKeyFilter();
+            filter.addPattern(0,2,0,0);
+            filter.addPattern(1,4,3,1);
+            InputLoader filterLoader = new InputLoader();
+            filterLoader.setM_scaleAreas(1.0f);
+            filterLoader.setMatrixFilter(filter);
+            AtomicInteger numErrors = new AtomicInteger(0);
+            GMEfiscen filtered = filterLoader.loadExperiment(sFileIn, numErrors, null);
+            assertNotNull(filtered);
+            assertEquals(0, numErrors.get());
+            assertEquals(12, full.m_mTables.size());
+            assertEquals(4, filtered.m_mTables.size());
+            for (Long key : full.m_mTables.keySet()) {
+                assertEquals(filter.matches(key), filtered.m_mTables.containsKey(key));
+                if (!filter.matches(key))
+                    continue;
+                GMMatrix pFull = full.m_mTables.get(key);
+                GMMatrix pFiltered = filtered.m_mTables.get(key);
+                for (int x=1;x<=pFull.m_wXsize;x++)
+                    for (int y=1;y<=pFull.m_wYsize;y++)
+                        assertEquals(pFull.getAt(x, y).getArea(), pFiltered.getAt(x, y).getArea());
+                assertEquals(pFull.getValue(), pFiltered.getValue());
+            }
+            for (Long key : full.m_mSoils.keySet())
+                assertEquals(filter.overlaps(key), filtered.m_mSoils.containsKey(key));
+        } finally {
+            for (File f : work.listFiles())
+                Files.deleteIfExists(f.toPath());
+            Files.deleteIfExists(work.toPath());
+        }
+    }
+
+    /**
+     * Loading the matrix file memory-mapped must give the same matrices as
+     * reading it with the file reader.
+     */
+    public void testLoadDataMapped() throws Exception, EFISCENException {
+        System.out.println("loadDataMapped");
+        InputLoader textLoader = new InputLoader();
+        textLoader.setM_scaleAreas(1.0f);
+        GMEfiscen text = textLoader.loadExperiment(inputFolder+"utopia.efs",
+                new AtomicInteger(0), null);
+        InputLoader mappedLoader = new InputLoader();
+        mappedLoader.setM_scaleAreas(1.0f);
+        mappedLoader.setMappedData(true);
+        AtomicInteger numErrors = new AtomicInteger(0);
+        GMEfiscen mapped = mappedLoader.loadExperiment(inputFolder+"utopia.efs",
+                numErrors, null);
+        assertNotNull(mapped);
+        assertEquals(0, numErrors.get());
+        assertEquals(textLoader.getVolClassFile(), mappedLoader.getVolClassFile());
+        assertEquals(text.m_mTables.keySet(), mapped.m_mTables.keySet());
+        assertFalse(mapped.m_mTables.isEmpty());
+        for (Long key : text.m_mTables.keySet()) {
+            GMMatrix pText = text.m_mTables.get(key);
+            GMMatrix pMapped = mapped.m_mTables.get(key);
+            assertEquals(pText.m_wXsize, pMapped.m_wXsize);
+            assertEquals(pText.m_wYsize, pMapped.m_wYsize);
+            for (int x=1;x<=pText.m_wXsize;x++)
+                for (int y=1;y<=pText.m_wYsize;y++)
+                    assertEquals(pText.getAt(x, y).getArea(), pMapped.getAt(x, y).getArea());
+            assertEquals(pText.getValue(), pMapped.getValue());
+            assertEquals(pText.getValueByX(), pMapped.getValueByX());
+        }
+    }
+
+    /**
+     * The compiled image must give the same experiment as the text files
+     * and must not be used after a source file has changed.
+     */
+    public void testLoadExperimentCache() throws Exception, EFISCENException {
+        System.out.println("loadExperimentCache");
+        File work = Files.createTempDirectory("efiscen").toFile();
+        try {
+            for (File f : new File(inputFolder).listFiles())
+                if (!f.getName().endsWith(".efc"))
+                    Files.copy(f.toPath(), new File(work, f.getName()).toPath());
+            String sFileIn = work.getAbsolutePath() + File.separator + "utopia.efs";
+            File cacheFile = new File(work, "utopia.efc");
+            InputLoader textLoader = new InputLoader();
+            textLoader.setM_scaleAreas(1.0f);
+            textLoader.setExperimentCache(true);
+            GMEfiscen text = textLoader.loadExperiment(sFileIn, new AtomicInteger(0), null);
+            assertTrue(cacheFile.isFile());
+            // the image is not saved again when it is used
+            assertTrue(cacheFile.setLastModified(0));
+            InputLoader cacheLoader = new InputLoader();
+            cacheLoader.setM_scaleAreas(1.0f);
+            cacheLoader.setExperimentCache(true);
+            AtomicInteger numErrors = new AtomicInteger(0);
+            Map<String,String> filenames = new HashMap<>();
+            GMEfiscen cached = cacheLoader.loadExperiment(sFileIn, numErrors, filenames);
+            assertEquals(0, cacheFile.lastModified());
+            assertNotNull(cached);
+            assertEquals(0, numErrors.get());
+            assertEquals("utopia.aer", filenames.get("matrixdata"));
+            assertEquals(textLoader.getVolClassFile(), cacheLoader.getVolClassFile());
+            assertEquals(text.m_nStep, cached.m_nStep);
+            assertEquals(text.m_plCcont.getElements().size(), cached.m_plCcont.getElements().size());
+            assertEquals(text.m_mTables.keySet(), cached.m_mTables.keySet());
+            assertFalse(cached.m_mTables.isEmpty());
+            for (Long key : text.m_mTables.keySet()) {
+                GMMatrix pText = text.m_mTables.get(key);
+                GMMatrix pCached = cached.m_mTables.get(key);
+                assertEquals(pText.getArea(), pCached.getArea());
+                assertEquals(pText.getValue(), pCached.getValue());
+                assertEquals(pText.getValueByX(), pCached.getValueByX());
+            }
+            assertEquals(text.m_mSoils.keySet(), cached.m_mSoils.keySet());
+            // a copy of the folder checks its own source files
+            File copy = new File(work, "copy");
+            assertTrue(copy.mkdir());
+            for (File f : work.listFiles())
+                if (f.isFile())
+                    Files.copy(f.toPath(), new File(copy, f.getName()).toPath());
+            File copyCache = new File(copy, "utopia.efc");
+            assertTrue(copyCache.setLastModified(0));
+            File copyAer = new File(copy, "utopia.aer");
+            Files.write(copyAer.toPath(), (new String(Files.readAllBytes(copyAer.toPath()))
+                    + "\n").getBytes());
+            InputLoader copyLoader = new InputLoader();
+            copyLoader.setM_scaleAreas(1.0f);
+            copyLoader.setExperimentCache(true);
+            assertNotNull(copyLoader.loadExperiment(copy.getAbsolutePath() + File.separator
+                    + "utopia.efs", new AtomicInteger(0), null));
+            assertTrue(copyCache.lastModified() != 0);
+            // a changed source file is parsed again and the image is renewed
+            File aer = new File(work, "utopia.aer");
+            Files.write(aer.toPath(), (new String(Files.readAllBytes(aer.toPath()))
+                    + "\n").getBytes());
+            InputLoader changedLoader = new InputLoader();
+            changedLoader.setM_scaleAreas(1.0f);
+            changedLoader.setExperimentCache(true);
+            assertNotNull(changedLoader.loadExperiment(sFileIn, new AtomicInteger(0), null));
+            assertTrue(cacheFile.lastModified() != 0);
+        } finally {
+            File copy = new File(work, "copy");
+            if (copy.isDirectory())
+                for (File f : copy.listFiles())
+                    Files.deleteIfExists(f.toPath());
+            Files.deleteIfExists(copy.toPath());
+            for (File f : work.listFiles())
+                Files.deleteIfExists(f.toPath());
+            Files.deleteIfExists(work.toPath());
+        }
+    }
+
     /**
      * Test of loadScenario method, of class InputLoader.
      */
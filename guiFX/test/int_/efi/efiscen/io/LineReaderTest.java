@@ -20,6 +20,7 @@ import efi.efiscen.io.EFISCENFileNotFoundException;
 import efi.efiscen.io.LineReader;
 import efi.efiscen.io.Logger;
 import java.io.File;
+import java.nio.file.Files;
 import junit.framework.TestCase;
 
 /**
@@ -69,4 +70,52 @@ public class LineReaderTest extends TestCase {
         String result = instance.readLine(file);
         assertEquals(expResult, result);
     }
+
+    /**
+     * Test of reading a memory-mapped file, of class LineReader. The lines
+     * must be the same as read with the file reader, also after a line with
+     * a non-ASCII character.
+     */
+    public void testReadLineMapped() throws Exception, EFISCENFileNotFoundException {
+        System.out.println("readLineMapped");
+        File file = File.createTempFile("linereader", ".txt");
+        try {
+            String text = "#comment\r\n 1 2 3 \r\n\r\n\t4.5\n#x\r6 7\r\r\n"
+                    + "  \u00e4\u00f6 8\n9 10 \n\n  11";
+            Files.write(file.toPath(), text.getBytes());
+            Logger log = new Logger("errorLog.txt");
+            LineReader plain = new LineReader(file,log);
+            LineReader mapped = new LineReader(file,log,true);
+            for (int i=0;i<20;i++) {
+                String expResult = plain.readLine();
+                assertEquals(expResult, mapped.readLine());
+                assertEquals(plain.getLineNumber(), mapped.getLineNumber());
+                if (expResult == null)
+                    break;
+            }
+            plain.close();
+            mapped.close();
+            plain = new LineReader(file,log);
+            mapped = new LineReader(file,log,true);
+            for (int i=0;i<20;i++) {
+                String expResult = plain.readLineSimple();
+                assertEquals(expResult, mapped.readLineSimple());
+                if (expResult == null)
+                    break;
+            }
+            plain.close();
+            mapped.close();
+            // Reading a file again releases the mapping
+            plain = new LineReader(file,log);
+            mapped = new LineReader(file,log,true);
+            mapped.readLine();
+            mapped.readLine();
+            assertEquals(plain.readLine(file), mapped.readLine(file));
+            assertEquals(plain.readLine(), mapped.readLine());
+            plain.close();
+            mapped.close();
+        } finally {
+            Files.deleteIfExists(file.toPath());
+        }
+    }
 }
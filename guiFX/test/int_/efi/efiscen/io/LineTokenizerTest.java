@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2016 European Forest Institute
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package int_.efi.efiscen.io;
+
+import efi.efiscen.io.LineTokenizer;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import junit.framework.TestCase;
+
+/**
+ * Test class for LineTokenizer.
+ * EFI
+ */
+public class LineTokenizerTest extends TestCase {
+
+    public LineTokenizerTest(String testName) {
+        super(testName);
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        super.tearDown();
+    }
+
+    private static String[] tokens(LineTokenizer tok) {
+        String[] all = new String[tok.countTokens()];
+        for (int i = 0; i < all.length; i++)
+            all[i] = tok.next();
+        assertFalse(tok.hasNext());
+        return all;
+    }
+
+    /**
+     * The tokens must be the same as with String.split.
+     */
+    public void testSplit() {
+        System.out.println("split");
+        LineTokenizer tok = new LineTokenizer(null, null);
+        String[] lines = {"1 2  3", "  1\t2 ", "", "   ", "a", "1,,2,", ",1", ",,", "1, 2 ,3"};
+        for (String line : lines) {
+            assertTrue(line, Arrays.equals(line.split("\\s+"), tokens(tok.reset(line, "\\s+"))));
+            assertTrue(line, Arrays.equals(line.split(","), tokens(tok.reset(line, ","))));
+        }
+    }
+
+    /**
+     * Test of parsing numbers from a line.
+     */
+    public void testNumbers() {
+        System.out.println("numbers");
+        LineTokenizer tok = new LineTokenizer(null, null).reset("1 2 3 4\t15.45 .5 8.33311");
+        assertEquals(1, tok.nextInt());
+        tok.skip();
+        assertEquals(3, tok.nextInt());
+        assertEquals(4, tok.nextInt());
+        assertEquals(15.45f, tok.nextFloat());
+        assertEquals(0.5f, tok.nextFloat());
+        assertEquals(8.33311, tok.nextDouble());
+        try {
+            tok.nextInt();
+            fail("no more tokens");
+        } catch (NoSuchElementException e) {
+        }
+        tok.reset("x");
+        try {
+            tok.nextFloat();
+            fail("not a number");
+        } catch (NumberFormatException e) {
+        }
+    }
+}
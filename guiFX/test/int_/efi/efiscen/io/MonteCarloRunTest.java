@@ -0,0 +1,120 @@
+/*
+ * Copyright (C) 2016 European Forest Institute
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package int_.efi.efiscen.io;
+
+import efi.efiscen.gm.GMEfiscen;
+import efi.efiscen.gm.GMMonteCarlo;
+import efi.efiscen.gm.GMOutputStatistics;
+import efi.efiscen.gm.GMParDistribution;
+import efi.efiscen.gm.GMScenario;
+import efi.efiscen.gm.GMSimulation;
+import efi.efiscen.io.EFISCENException;
+import efi.efiscen.io.InputLoader;
+import java.io.File;
+import java.util.concurrent.atomic.AtomicInteger;
+import junit.framework.TestCase;
+
+/**
+ * Runs Monte Carlo members on the utopia dataset.
+ * EFI
+ */
+public class MonteCarloRunTest extends TestCase {
+
+    public String inputFolder;
+    private GMEfiscen pExperiment;
+    private GMScenario pScenario;
+
+    public MonteCarloRunTest(String testName) {
+        super(testName);
+        String userfolder = System.getProperty("user.home");
+        String separator = File.separator;
+        inputFolder = userfolder + separator + "EFISCEN" + separator + "utopia" + separator;
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        InputLoader loader = new InputLoader();
+        loader.setM_scaleAreas(1.0f);
+        try {
+            pExperiment = loader.loadExperiment(inputFolder + "utopia.efs",
+                    new AtomicInteger(0), null);
+            pScenario = loader.loadScenario(inputFolder + "utopia_all.scn", new AtomicInteger(0));
+        } catch (EFISCENException ex) {
+            fail(ex.toString());
+        }
+        pExperiment.m_FelInt = 1.0f;
+        pExperiment.m_ThinInt = 1.0f;
+    }
+
+    private void setAll(GMMonteCarlo montecarlo, int ntype, double dspread) {
+        for (String spar : GMMonteCarlo.PARAMETERS)
+            montecarlo.setDistribution(spar, new GMParDistribution(ntype, dspread));
+    }
+
+    /**
+     * Members without spread must give the outputs of the plain run.
+     */
+    public void testZeroSpread() throws Exception {
+        System.out.println("zero spread");
+        GMMonteCarlo montecarlo = new GMMonteCarlo(pExperiment, pScenario);
+        setAll(montecarlo, GMParDistribution.NORMAL, 0.0);
+        montecarlo.setMembers(2);
+        GMOutputStatistics[] stats = montecarlo.run(3, 10);
+        GMSimulation sim = new GMSimulation(pExperiment, pScenario.copy(), 0);
+        for (int i=0;i<10;i++)
+            sim.onGo();
+        String[] outputs = montecarlo.getOutputs();
+        assertEquals(outputs.length, stats.length);
+        for (int j=0;j<stats.length;j++) {
+            for (int step=0;step<=10;step++) {
+                float base = GMMonteCarlo.getOutput(sim.getM_pExperiment(), outputs[j], step);
+                assertEquals(outputs[j], 3, stats[j].getCount(step));
+                assertEquals(outputs[j], base, (float)stats[j].getMin(step));
+                assertEquals(outputs[j], base, (float)stats[j].getMax(step));
+                assertEquals(outputs[j], base, (float)stats[j].getPercentile(step, 1));
+            }
+        }
+    }
+
+    /**
+     * Statistics must depend only on the seed, not on the number of members
+     * run at the same time.
+     */
+    public void testReproducible() throws Exception {
+        System.out.println("reproducible");
+        GMOutputStatistics[][] results = new GMOutputStatistics[2][];
+        for (int k=0;k<2;k++) {
+            GMMonteCarlo montecarlo = new GMMonteCarlo(pExperiment, pScenario);
+            setAll(montecarlo, GMParDistribution.LOGNORMAL, 0.1);
+            montecarlo.setSeed(12345);
+            montecarlo.setMembers(k == 0 ? 1 : 3);
+            results[k] = montecarlo.run(8, 5);
+        }
+        for (int j=0;j<results[0].length;j++) {
+            for (int step=0;step<=5;step++) {
+                assertEquals(results[0][j].getMean(step), results[1][j].getMean(step));
+                assertEquals(results[0][j].getStdDev(step), results[1][j].getStdDev(step));
+                for (int i=0;i<3;i++)
+                    assertEquals(results[0][j].getPercentile(step, i), results[1][j].getPercentile(step, i));
+            }
+        }
+        // Stock of the perturbed members differs
+        assertTrue(results[0][0].getStdDev(5) > 0.0);
+        assertTrue(results[0][0].getMin(5) < results[0][0].getMax(5));
+    }
+}
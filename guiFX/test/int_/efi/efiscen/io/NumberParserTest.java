@@ -19,6 +19,7 @@ package int_.efi.efiscen.io;
 import efi.efiscen.io.LineReader;
 import efi.efiscen.io.NumberParser;
 import efi.efiscen.io.Logger;
+import java.util.Random;
 import junit.framework.TestCase;
 
 /**
@@ -79,4 +80,48 @@ public class NumberParserTest extends TestCase {
         Double result = NumberParser.convertDouble(str, reader, errorLogger);
         assertEquals(expResult, result);
     }
+
+    /**
+     * Test of parseInt method, of class NumberParser.
+     */
+    public void testParseInt() {
+        System.out.println("parseInt");
+        String line = "12 -7 1,234  0042 ";
+        assertEquals(12, NumberParser.parseInt(line, 0, 2, null, null));
+        assertEquals(-7, NumberParser.parseInt(line, 3, 5, null, null));
+        assertEquals(1234, NumberParser.parseInt(line, 6, 11, null, null));
+        assertEquals(42, NumberParser.parseInt(line, 11, line.length(), null, null));
+        assertEquals(Integer.valueOf(987654321), NumberParser.convertInt("987654321", null, null));
+        assertEquals(Integer.valueOf(2147483647), NumberParser.convertInt("2147483647", null, null));
+    }
+
+    /**
+     * Test of parseFloat and parseDouble methods against the Java parsers.
+     */
+    public void testParseFloat() {
+        System.out.println("parseFloat");
+        Random rnd = new Random(7);
+        for (int i = 0; i < 100000; i++) {
+            StringBuilder sb = new StringBuilder();
+            if (rnd.nextInt(4) == 0)
+                sb.append('-');
+            int nint = rnd.nextInt(9);
+            for (int j = 0; j < nint; j++)
+                sb.append((char)('0' + rnd.nextInt(10)));
+            if (nint == 0 || rnd.nextBoolean()) {
+                sb.append('.');
+                int nfrac = 1 + rnd.nextInt(14);
+                for (int j = 0; j < nfrac; j++)
+                    sb.append((char)('0' + rnd.nextInt(10)));
+            }
+            String str = "x " + sb + " y";
+            int to = str.length() - 2;
+            assertEquals(str, Float.floatToIntBits(Float.parseFloat(sb.toString())),
+                    Float.floatToIntBits(NumberParser.parseFloat(str, 2, to, null, null)));
+            assertEquals(str, Double.doubleToLongBits(Double.parseDouble(sb.toString())),
+                    Double.doubleToLongBits(NumberParser.parseDouble(str, 2, to, null, null)));
+        }
+        assertEquals(1.5e3f, NumberParser.parseFloat("1.5e3", 0, 5, null, null));
+        assertEquals(0.25, NumberParser.parseDouble(" .25", 0, 4, null, null));
+    }
 }
@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2016 European Forest Institute
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package int_.efi.efiscen.io;
+
+import efi.efiscen.cli.EfiscenCLI;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Runs the utopia dataset split to several matrixes sequentially and in
+ * parallel and compares the output files.
+ * EFI
+ */
+public class ParallelRunTest extends UtopiaRunTestCase {
+
+    public ParallelRunTest(String testName) {
+        super(testName);
+    }
+
+    /**
+     * Copies utopia to a temporary folder and replaces its only matrix by
+     * twelve matrixes of different owners and sites.
+     */
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        copyInputs();
+        List<String> aer = Files.readAllLines(new File(inputFolder, "utopia.aer").toPath());
+        List<String> out = new ArrayList<>(aer.subList(0, 4));
+        out.add("12");
+        for (int o=1;o<=4;o++) {
+            for (int s=1;s<=3;s++) {
+                float scale = 0.3f+0.17f*o+0.11f*s;
+                out.add("#Listing of matrices");
+                out.add("1 " + o + " " + s + " 1");
+                out.add("#Area in each matrix cell");
+                for (String line : aer.subList(8, 19)) {
+                    StringBuilder sb = new StringBuilder();
+                    for (String val : line.trim().split("\\s+"))
+                        sb.append(String.format(Locale.ROOT, "  %.2f", Float.parseFloat(val)*scale));
+                    out.add(sb.toString());
+                }
+            }
+        }
+        out.add("#END");
+        Files.write(new File(workFolder, "utopia.aer").toPath(), out);
+        String efs = new String(Files.readAllBytes(new File(inputFolder, "utopia.efs").toPath()));
+        efs = efs.replaceFirst("\\r?\\n1\\r?\\n1 Someone", "\n4\n1 O1\n2 O2\n3 O3\n4 O4");
+        efs = efs.replaceFirst("\\r?\\n1\\r?\\n1 Something", "\n3\n1 S1\n2 S2\n3 S3");
+        assertTrue(efs.contains("4 O4") && efs.contains("3 S3"));
+        Files.write(new File(workFolder, "utopia.efs").toPath(), efs.getBytes());
+    }
+
+    private String run(String name, int threads) {
+        String out = workPath(name);
+        String[] args = {"steps=10", "thinning=1", "felling=1",
+            "experiment=" + workFolder.getAbsolutePath() + File.separator + "utopia.efs",
+            "scaling=1",
+            "scenario=" + workFolder.getAbsolutePath() + File.separator + "utopia_all.scn",
+            "outputfile=" + out + ".csv", "threads=" + threads};
+        EfiscenCLI.main(args);
+        return out;
+    }
+
+    /**
+     * Sequential and parallel runs must give identical output files.
+     */
+    public void testParallelRun() throws Exception {
+        System.out.println("parallel run");
+        String seq = run("seq", 1);
+        String par = run("par", 4);
+        assertEquals(0, compare(seq, par));
+    }
+}
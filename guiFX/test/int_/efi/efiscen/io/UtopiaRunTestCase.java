@@ -0,0 +1,146 @@
+/*
+ * Copyright (C) 2016 European Forest Institute
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package int_.efi.efiscen.io;
+
+import efi.efiscen.gm.GMEfiscen;
+import efi.efiscen.io.EFISCENException;
+import efi.efiscen.io.FileSaver;
+import efi.efiscen.io.InputLoader;
+import efi.efiscen.io.Logger;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.util.concurrent.atomic.AtomicInteger;
+import junit.framework.TestCase;
+
+/**
+ * Base of the tests running the utopia example, found in EFISCEN/utopia of
+ * the user home. Each test gets its own temporary work folder for the
+ * outputs.
+ * EFI
+ */
+public abstract class UtopiaRunTestCase extends TestCase {
+
+    public String inputFolder;
+    public File workFolder;
+
+    String[] asOutputs = {"_gdat", "_gspec", "_treeC_matr", "_carbon_country",
+        "_carbon_soil", "_fell_matr", "_thin_matr", "_fell_residues",
+        "_thin_residues", "_natmort"};
+
+    public UtopiaRunTestCase(String testName) {
+        super(testName);
+        String userfolder = System.getProperty("user.home");
+        String separator = File.separator;
+        inputFolder = userfolder + separator + "EFISCEN" + separator + "utopia" + separator;
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        workFolder = Files.createTempDirectory("efiscen").toFile();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        deleteAll(workFolder);
+        super.tearDown();
+    }
+
+    private void deleteAll(File f) throws IOException {
+        File[] files = f.listFiles();
+        if (files != null)
+            for (File c : files)
+                deleteAll(c);
+        Files.deleteIfExists(f.toPath());
+    }
+
+    /**
+     * Copies the utopia input files to the work folder. Files already in
+     * the work folder are kept.
+     */
+    protected void copyInputs() throws IOException {
+        File[] inputs = new File(inputFolder).listFiles();
+        assertNotNull(inputs);
+        for (File f : inputs) {
+            File copy = new File(workFolder, f.getName());
+            if (f.isFile() && !copy.exists())
+                Files.copy(f.toPath(), copy.toPath());
+        }
+    }
+
+    /**
+     * Path in the work folder.
+     * @param name file name
+     * @return path
+     */
+    protected String workPath(String name) {
+        return workFolder.getAbsolutePath() + File.separator + name;
+    }
+
+    /**
+     * Loads the utopia experiment without area scaling and with the
+     * fellings and thinnings intensities of 1.
+     * @param loader loader of the experiment
+     * @return experiment
+     */
+    protected GMEfiscen load(InputLoader loader) throws EFISCENException {
+        loader.setM_scaleAreas(1.0f);
+        GMEfiscen pExperiment = loader.loadExperiment(inputFolder + "utopia.efs",
+                new AtomicInteger(0), null);
+        pExperiment.m_FelInt = 1.0f;
+        pExperiment.m_ThinInt = 1.0f;
+        return pExperiment;
+    }
+
+    /**
+     * Saves the output files of the experiment to the work folder.
+     * @param pExperiment experiment
+     * @param name base name of the output files
+     * @return base path of the output files
+     */
+    protected String save(GMEfiscen pExperiment, String name) {
+        String out = workPath(name);
+        assertTrue(new FileSaver(pExperiment).saveAll(out, ".csv"));
+        return out;
+    }
+
+    /**
+     * Compares the output files of two runs.
+     * @param expected base path of the expected outputs
+     * @param actual base path of the outputs compared
+     * @return number of differing lines and values
+     */
+    protected int compare(String expected, String actual) throws IOException {
+        int nerrors = 0;
+        Logger log = new Logger(actual + "_diff.log");
+        CSVDifferenceWriter writer = new CSVDifferenceWriter(
+                new PrintWriter(new File(actual + "_diff.csv")));
+        for (String output : asOutputs) {
+            assertTrue(new File(actual + output + ".csv").isFile());
+            CompareFiles comp = new CompareFiles(expected + output + ".csv",
+                    actual + output + ".csv", log, writer);
+            comp.compare();
+            comp.close();
+            nerrors += comp.getNumLineErrors() + comp.getNumValueErrors();
+        }
+        writer.close();
+        log.close();
+        return nerrors;
+    }
+}